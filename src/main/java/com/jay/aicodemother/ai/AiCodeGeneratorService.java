@@ -28,37 +28,41 @@ public interface AiCodeGeneratorService {
 
     /**
      * 生成HTML代码
+     * @param appId 应用 ID
      * @param userMessage 用户输入
      * @return 生成的HTML代码结果
      */
     @SystemMessage(fromResource = "/prompt/codegen-html-system-prompt.txt")
-    HtmlCodeResult generateHtmlCode(String userMessage);
+    HtmlCodeResult generateHtmlCode(@MemoryId long appId, @UserMessage String userMessage);
 
     /**
      * 生成多文件代码
+     * @param appId 应用 ID
      * @param userMessage 用户输入
      * @return 生成的多文件代码结果
      */
     @SystemMessage(fromResource = "/prompt/codegen-multi-file-system-prompt.txt")
-    MultiFileCodeResult generateMultiFileCode(String userMessage);
+    MultiFileCodeResult generateMultiFileCode(@MemoryId long appId, @UserMessage String userMessage);
 
     /**
      * 生成 HTML 代码（流式）
      *
+     * @param appId       应用 ID
      * @param userMessage 用户消息
      * @return 生成的代码结果
      */
     @SystemMessage(fromResource = "prompt/codegen-html-system-prompt.txt")
-    Flux<String> generateHtmlCodeStream(String userMessage);
+    Flux<String> generateHtmlCodeStream(@MemoryId long appId, @UserMessage String userMessage);
 
     /**
      * 生成多文件代码（流式）
      *
+     * @param appId       应用 ID
      * @param userMessage 用户消息
      * @return 生成的代码结果
      */
     @SystemMessage(fromResource = "prompt/codegen-multi-file-system-prompt.txt")
-    Flux<String> generateMultiFileCodeStream(String userMessage);
+    Flux<String> generateMultiFileCodeStream(@MemoryId long appId, @UserMessage String userMessage);
 
     /**
      *  生成 Vue 项目代码（流式）
@@ -0,0 +1,414 @@
+package com.jay.aicodemother.ai.gateway;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.jay.aicodemother.config.ModelGatewayConfig;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import dev.langchain4j.model.chat.response.StreamingHandle;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class name: LoadBalancedStreamingChatModel
+ * Package: com.jay.aicodemother.ai.gateway
+ * Description: 在多个 OpenAI 兼容端点之间负载均衡的流式模型
+ *  - 选择：按 {@link ModelEndpoint} 的得分加权随机选择还没尝试过的端点
+ *  - 失败切换：首 token 之前失败时换一个端点重试；收到首 token 后的错误直接交给调用方（此时输出已经发给用户）
+ *  - 对冲：等待超过当前端点首 token 延迟的 p95 时，再向另一个端点发起同样的请求，先收到首 token 的一方胜出，
+ *    另一方通过自己的 StreamingHandle 取消（关闭响应体），之后的回调全部丢弃
+ *  每次尝试都绑定独立的 StreamingHandle，并注册到调用方的 handle 上，调用方取消时所有尝试一起取消。
+ *  尝试结果记录在 ai.model.gateway.attempts{endpoint, outcome}
+ *
+ * @Create: 2026/10/18 00:30
+ * @Author: jay
+ * @Version: 1.0
+ */
+@Slf4j
+public class LoadBalancedStreamingChatModel implements StreamingChatModel, AutoCloseable {
+
+    static final String OUTCOME_WON = "won";
+
+    static final String OUTCOME_FAILED = "failed";
+
+    static final String OUTCOME_HEDGE_LOST = "hedge_lost";
+
+    private final List<ModelEndpoint> endpoints;
+
+    private final ModelGatewayConfig config;
+
+    private final MeterRegistry meterRegistry;
+
+    private final ScheduledExecutorService hedgeScheduler;
+
+    public LoadBalancedStreamingChatModel(List<ModelEndpoint> endpoints, ModelGatewayConfig config, MeterRegistry meterRegistry) {
+        if (endpoints.isEmpty()) {
+            throw new IllegalArgumentException("模型网关至少需要一个端点");
+        }
+        this.endpoints = List.copyOf(endpoints);
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+        this.hedgeScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("model-gateway-hedge-%d")
+                .setDaemon(true)
+                .build());
+    }
+
+    /**
+     * 直接把原始请求交给端点的 chat 方法，由端点合并自己的默认参数（模型名称可以不同）并通知自己的监听器
+     */
+    @Override
+    public void chat(ChatRequest chatRequest, StreamingChatResponseHandler handler) {
+        new Exchange(chatRequest, handler, StreamingHandle.current()).start();
+    }
+
+    /**
+     * 返回第一个端点（primary）的默认参数，用于展示模型名称等
+     */
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return endpoints.get(0).model().defaultRequestParameters();
+    }
+
+    public List<ModelEndpoint> endpoints() {
+        return endpoints;
+    }
+
+    /**
+     * 按得分加权随机选择一个端点
+     *
+     * @param excluded 已经尝试过的端点
+     * @return 端点，没有可选端点时返回 null
+     */
+    ModelEndpoint select(Set<ModelEndpoint> excluded) {
+        // 没有延迟样本的端点按已知端点的平均延迟打分，避免新端点因为没有数据被过度选中或冷落
+        double known = 0;
+        int knownCount = 0;
+        for (ModelEndpoint endpoint : endpoints) {
+            double ewma = endpoint.firstTokenEwma();
+            if (ewma > 0) {
+                known += ewma;
+                knownCount++;
+            }
+        }
+        double defaultLatency = knownCount == 0 ? 1 : known / knownCount;
+        List<ModelEndpoint> candidates = new ArrayList<>(endpoints.size());
+        double[] scores = new double[endpoints.size()];
+        double total = 0;
+        for (ModelEndpoint endpoint : endpoints) {
+            if (excluded.contains(endpoint)) {
+                continue;
+            }
+            double score = endpoint.score(defaultLatency);
+            scores[candidates.size()] = score;
+            candidates.add(endpoint);
+            total += score;
+        }
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        double target = ThreadLocalRandom.current().nextDouble(total);
+        for (int i = 0; i < candidates.size(); i++) {
+            target -= scores[i];
+            if (target < 0) {
+                return candidates.get(i);
+            }
+        }
+        return candidates.get(candidates.size() - 1);
+    }
+
+    private Duration hedgeDelay(ModelEndpoint endpoint) {
+        Duration p95 = endpoint.firstTokenP95(config.getHedgeMinSamples());
+        Duration delay = p95 == null ? config.getHedgeDefaultDelay() : p95;
+        return delay.compareTo(config.getHedgeMinDelay()) < 0 ? config.getHedgeMinDelay() : delay;
+    }
+
+    private void count(ModelEndpoint endpoint, String outcome) {
+        Counter.builder("ai.model.gateway.attempts")
+                .description("模型网关的端点尝试次数")
+                .tags("endpoint", endpoint.name(), "outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    @Override
+    public void close() {
+        hedgeScheduler.shutdownNow();
+    }
+
+    /**
+     * 一次调用：包含对多个端点的尝试，决定哪个尝试的输出交给调用方
+     */
+    private class Exchange {
+
+        private final ChatRequest chatRequest;
+
+        private final StreamingChatResponseHandler handler;
+
+        private final StreamingHandle parentHandle;
+
+        private final Set<ModelEndpoint> tried = new HashSet<>();
+
+        private final List<Attempt> pending = new ArrayList<>();
+
+        private Attempt winner;
+
+        private boolean finished;
+
+        private boolean hedged;
+
+        private ScheduledFuture<?> hedgeTimer;
+
+        Exchange(ChatRequest chatRequest, StreamingChatResponseHandler handler, StreamingHandle parentHandle) {
+            this.chatRequest = chatRequest;
+            this.handler = handler;
+            this.parentHandle = parentHandle;
+        }
+
+        void start() {
+            Attempt attempt;
+            synchronized (this) {
+                attempt = reserve();
+            }
+            attempt.run();
+        }
+
+        /**
+         * 选择端点并登记一次尝试，调用方持有锁，返回后在锁外执行
+         */
+        private Attempt reserve() {
+            ModelEndpoint endpoint = select(tried);
+            tried.add(endpoint);
+            endpoint.acquire();
+            Attempt attempt = new Attempt(this, endpoint);
+            pending.add(attempt);
+            if (config.isHedgeEnabled() && !hedged && canTryAnother()) {
+                if (hedgeTimer != null) {
+                    hedgeTimer.cancel(false);
+                }
+                hedgeTimer = hedgeScheduler.schedule(this::hedge, hedgeDelay(endpoint).toNanos(), TimeUnit.NANOSECONDS);
+            }
+            return attempt;
+        }
+
+        private boolean canTryAnother() {
+            return tried.size() < Math.min(config.getMaxAttempts(), endpoints.size())
+                    && (parentHandle == null || !parentHandle.isCancelled());
+        }
+
+        /**
+         * 对冲：当前尝试迟迟没有首 token，向另一个端点发起同样的请求
+         */
+        private void hedge() {
+            Attempt attempt;
+            String slowEndpoint;
+            synchronized (this) {
+                if (winner != null || finished || hedged || pending.isEmpty() || !canTryAnother()) {
+                    return;
+                }
+                hedged = true;
+                slowEndpoint = pending.get(0).endpoint.name();
+                attempt = reserve();
+            }
+            log.info("模型端点 {} 超过 p95 仍无首 token，对冲请求 {}", slowEndpoint, attempt.endpoint.name());
+            attempt.run();
+        }
+
+        /**
+         * 尝试收到首个输出时调用，第一个调用的尝试胜出，其余尝试被取消
+         *
+         * @return 该尝试是否胜出
+         */
+        boolean claim(Attempt attempt) {
+            List<Attempt> losers;
+            synchronized (this) {
+                if (winner != null || finished || !pending.contains(attempt)) {
+                    return false;
+                }
+                winner = attempt;
+                pending.remove(attempt);
+                losers = new ArrayList<>(pending);
+                pending.clear();
+                if (hedgeTimer != null) {
+                    hedgeTimer.cancel(false);
+                }
+            }
+            for (Attempt loser : losers) {
+                loser.cancel();
+                count(loser.endpoint, OUTCOME_HEDGE_LOST);
+            }
+            count(attempt.endpoint, OUTCOME_WON);
+            return true;
+        }
+
+        /**
+         * 尝试失败：首 token 之前失败且还有其他尝试在进行时等待它们，否则切换端点或把错误交给调用方
+         */
+        void onAttemptError(Attempt attempt, Throwable error) {
+            Attempt next = null;
+            synchronized (this) {
+                if (attempt == winner) {
+                    finished = true;
+                } else if (finished || !pending.remove(attempt)) {
+                    // 已被取消的尝试
+                    return;
+                } else {
+                    attempt.release();
+                    attempt.endpoint.recordError();
+                    count(attempt.endpoint, OUTCOME_FAILED);
+                    if (!pending.isEmpty()) {
+                        return;
+                    }
+                    if (parentHandle != null && parentHandle.isCancelled()) {
+                        finished = true;
+                        return;
+                    }
+                    if (canTryAnother()) {
+                        next = reserve();
+                    } else {
+                        finished = true;
+                        if (hedgeTimer != null) {
+                            hedgeTimer.cancel(false);
+                        }
+                    }
+                }
+            }
+            if (next != null) {
+                log.warn("模型端点 {} 在首 token 之前失败，切换到 {}， 错误 : {}",
+                        attempt.endpoint.name(), next.endpoint.name(), error.getMessage());
+                next.run();
+                return;
+            }
+            if (attempt == winner) {
+                attempt.release();
+                attempt.endpoint.recordError();
+            }
+            handler.onError(error);
+        }
+    }
+
+    /**
+     * 对一个端点的一次尝试
+     */
+    private class Attempt implements StreamingChatResponseHandler {
+
+        private final Exchange exchange;
+
+        private final ModelEndpoint endpoint;
+
+        private final StreamingHandle handle = new StreamingHandle();
+
+        /**
+         * 注册到调用方 handle 上，调用方取消时一起取消
+         */
+        private final Closeable parentRegistration = this::cancel;
+
+        private final long startNanos = System.nanoTime();
+
+        private boolean released;
+
+        /**
+         * 是否已经胜出，只在该尝试自己的回调线程中读写
+         */
+        private boolean won;
+
+        Attempt(Exchange exchange, ModelEndpoint endpoint) {
+            this.exchange = exchange;
+            this.endpoint = endpoint;
+        }
+
+        void run() {
+            if (exchange.parentHandle != null) {
+                exchange.parentHandle.register(parentRegistration);
+            }
+            try {
+                handle.runBound(() -> endpoint.model().chat(exchange.chatRequest, this));
+            } catch (RuntimeException e) {
+                onError(e);
+            }
+        }
+
+        void cancel() {
+            handle.cancel();
+            release();
+        }
+
+        synchronized void release() {
+            if (released) {
+                return;
+            }
+            released = true;
+            endpoint.release();
+            if (exchange.parentHandle != null) {
+                exchange.parentHandle.unregister(parentRegistration);
+            }
+        }
+
+        private boolean claim() {
+            if (won) {
+                return true;
+            }
+            if (handle.isCancelled() || !exchange.claim(this)) {
+                return false;
+            }
+            won = true;
+            endpoint.recordFirstToken(System.nanoTime() - startNanos);
+            return true;
+        }
+
+        @Override
+        public void onPartialResponse(String partialResponse) {
+            if (claim()) {
+                exchange.handler.onPartialResponse(partialResponse);
+            }
+        }
+
+        @Override
+        public void onPartialToolExecutionRequest(int index, ToolExecutionRequest partialToolExecutionRequest) {
+            if (claim()) {
+                exchange.handler.onPartialToolExecutionRequest(index, partialToolExecutionRequest);
+            }
+        }
+
+        @Override
+        public void onCompleteToolExecutionRequest(int index, ToolExecutionRequest completeToolExecutionRequest) {
+            if (claim()) {
+                exchange.handler.onCompleteToolExecutionRequest(index, completeToolExecutionRequest);
+            }
+        }
+
+        @Override
+        public void onCompleteResponse(ChatResponse completeResponse) {
+            if (!claim()) {
+                return;
+            }
+            release();
+            endpoint.recordSuccess();
+            exchange.handler.onCompleteResponse(completeResponse);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            if (handle.isCancelled()) {
+                return;
+            }
+            exchange.onAttemptError(this, error);
+        }
+    }
+}
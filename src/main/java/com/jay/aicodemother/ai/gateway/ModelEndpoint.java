@@ -0,0 +1,137 @@
+package com.jay.aicodemother.ai.gateway;
+
+import dev.langchain4j.model.chat.StreamingChatModel;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class name: ModelEndpoint
+ * Package: com.jay.aicodemother.ai.gateway
+ * Description: 模型网关中的一个端点及其实时统计
+ *  - 首 token 延迟：指数加权平均（用于打分）+ 最近 {@link #WINDOW} 次的样本（用于计算对冲等待时间 p95）
+ *  - 错误率：每次请求结束时按成功 / 失败做指数加权平均
+ *  - 在途请求数：选中时加一，请求结束或被取消时减一
+ *  打分 = 权重 / (首 token 延迟 × (在途请求数 + 1) × (1 + 错误惩罚 × 错误率))，按分数加权随机选择端点，
+ *  错误率高的端点分数很低但不会被完全排除，偶尔被选中时相当于探活，恢复后错误率自然回落
+ *
+ * @Create: 2026/10/18 00:20
+ * @Author: jay
+ * @Version: 1.0
+ */
+public class ModelEndpoint {
+
+    /**
+     * 计算 p95 的样本窗口大小
+     */
+    static final int WINDOW = 128;
+
+    /**
+     * 指数加权平均的平滑系数
+     */
+    private static final double ALPHA = 0.2;
+
+    /**
+     * 错误率对打分的惩罚系数，错误率 100% 时分数降为原来的 1/11
+     */
+    private static final double ERROR_PENALTY = 10;
+
+    private final String name;
+
+    private final StreamingChatModel model;
+
+    private final double weight;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final long[] firstTokenSamples = new long[WINDOW];
+
+    private int sampleCount;
+
+    private int sampleIndex;
+
+    /**
+     * 首 token 延迟的加权平均（纳秒），还没有样本时为 0
+     */
+    private double firstTokenEwma;
+
+    private double errorRate;
+
+    public ModelEndpoint(String name, StreamingChatModel model, double weight) {
+        this.name = name;
+        this.model = model;
+        this.weight = weight;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public StreamingChatModel model() {
+        return model;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    void acquire() {
+        inFlight.incrementAndGet();
+    }
+
+    void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * 记录一次首 token 延迟
+     */
+    synchronized void recordFirstToken(long nanos) {
+        firstTokenEwma = firstTokenEwma == 0 ? nanos : firstTokenEwma + ALPHA * (nanos - firstTokenEwma);
+        firstTokenSamples[sampleIndex] = nanos;
+        sampleIndex = (sampleIndex + 1) % WINDOW;
+        sampleCount = Math.min(sampleCount + 1, WINDOW);
+    }
+
+    synchronized void recordSuccess() {
+        errorRate -= ALPHA * errorRate;
+    }
+
+    synchronized void recordError() {
+        errorRate += ALPHA * (1 - errorRate);
+    }
+
+    public synchronized double errorRate() {
+        return errorRate;
+    }
+
+    /**
+     * 最近样本的首 token 延迟 p95
+     *
+     * @param minSamples 样本数少于该值时认为不可靠
+     * @return p95，样本不足时返回 null
+     */
+    public synchronized Duration firstTokenP95(int minSamples) {
+        if (sampleCount == 0 || sampleCount < minSamples) {
+            return null;
+        }
+        long[] samples = Arrays.copyOf(firstTokenSamples, sampleCount);
+        Arrays.sort(samples);
+        return Duration.ofNanos(samples[(int) Math.ceil(sampleCount * 0.95) - 1]);
+    }
+
+    /**
+     * 端点得分，越高越容易被选中
+     *
+     * @param defaultFirstTokenNanos 还没有延迟样本时使用的首 token 延迟
+     */
+    synchronized double score(double defaultFirstTokenNanos) {
+        double latency = firstTokenEwma == 0 ? defaultFirstTokenNanos : firstTokenEwma;
+        return weight / (Math.max(latency, 1) * (inFlight.get() + 1) * (1 + ERROR_PENALTY * errorRate));
+    }
+
+    synchronized double firstTokenEwma() {
+        return firstTokenEwma;
+    }
+}
@@ -0,0 +1,301 @@
+package com.jay.aicodemother.ai.http;
+
+import javax.net.ssl.*;
+import java.nio.ByteBuffer;
+import java.security.KeyManagementException;
+import java.security.SecureRandom;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+
+/**
+ * Class name: InstrumentedSslContext
+ * Package: com.jay.aicodemother.ai.http
+ * Description: 记录 TLS 连接建立、握手和关闭的 SSLContext
+ *  JDK HttpClient 不暴露连接和握手信息，但每条 TLS 连接都会通过 SSLContext 创建一个 SSLEngine，
+ *  因此包装 SSLEngine 即可得到：连接打开（创建 engine）、握手耗时（第一次 wrap 到握手状态变为 FINISHED）、
+ *  连接关闭（第一次 closeInbound / closeOutbound）。其余调用全部委托给原 engine
+ *
+ * @Create: 2026/10/17 23:45
+ * @Author: jay
+ * @Version: 1.0
+ */
+public final class InstrumentedSslContext {
+
+    /**
+     * TLS 连接事件
+     */
+    public interface TlsConnectionListener {
+
+        void onOpen();
+
+        void onHandshake(long nanos);
+
+        void onClose();
+    }
+
+    private InstrumentedSslContext() {
+    }
+
+    /**
+     * 包装 SSLContext
+     *
+     * @param delegate 实际使用的 SSLContext（已初始化）
+     * @param listener 连接事件监听器
+     * @return 创建的 SSLEngine 会回调监听器的 SSLContext
+     */
+    public static SSLContext wrap(SSLContext delegate, TlsConnectionListener listener) {
+        SSLContextSpi spi = new SSLContextSpi() {
+            @Override
+            protected void engineInit(KeyManager[] km, TrustManager[] tm, SecureRandom sr) throws KeyManagementException {
+                delegate.init(km, tm, sr);
+            }
+
+            @Override
+            protected SSLSocketFactory engineGetSocketFactory() {
+                return delegate.getSocketFactory();
+            }
+
+            @Override
+            protected SSLServerSocketFactory engineGetServerSocketFactory() {
+                return delegate.getServerSocketFactory();
+            }
+
+            @Override
+            protected SSLEngine engineCreateSSLEngine() {
+                return new InstrumentedSslEngine(delegate.createSSLEngine(), listener);
+            }
+
+            @Override
+            protected SSLEngine engineCreateSSLEngine(String host, int port) {
+                return new InstrumentedSslEngine(delegate.createSSLEngine(host, port), listener);
+            }
+
+            @Override
+            protected SSLSessionContext engineGetServerSessionContext() {
+                return delegate.getServerSessionContext();
+            }
+
+            @Override
+            protected SSLSessionContext engineGetClientSessionContext() {
+                return delegate.getClientSessionContext();
+            }
+
+            @Override
+            protected SSLParameters engineGetDefaultSSLParameters() {
+                return delegate.getDefaultSSLParameters();
+            }
+
+            @Override
+            protected SSLParameters engineGetSupportedSSLParameters() {
+                return delegate.getSupportedSSLParameters();
+            }
+        };
+        return new SSLContext(spi, delegate.getProvider(), delegate.getProtocol()) {
+        };
+    }
+
+    /**
+     * 记录连接事件的 SSLEngine
+     */
+    static class InstrumentedSslEngine extends SSLEngine {
+
+        private final SSLEngine delegate;
+
+        private final TlsConnectionListener listener;
+
+        private final AtomicBoolean handshakeRecorded = new AtomicBoolean();
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private volatile long handshakeStart;
+
+        InstrumentedSslEngine(SSLEngine delegate, TlsConnectionListener listener) {
+            super(delegate.getPeerHost(), delegate.getPeerPort());
+            this.delegate = delegate;
+            this.listener = listener;
+            listener.onOpen();
+        }
+
+        private void markHandshakeStart() {
+            if (handshakeStart == 0) {
+                handshakeStart = System.nanoTime();
+            }
+        }
+
+        private SSLEngineResult record(SSLEngineResult result) {
+            if (result.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.FINISHED
+                    && handshakeStart != 0 && handshakeRecorded.compareAndSet(false, true)) {
+                listener.onHandshake(System.nanoTime() - handshakeStart);
+            }
+            return result;
+        }
+
+        private void markClosed() {
+            if (closed.compareAndSet(false, true)) {
+                listener.onClose();
+            }
+        }
+
+        @Override
+        public SSLEngineResult wrap(ByteBuffer[] srcs, int offset, int length, ByteBuffer dst) throws SSLException {
+            markHandshakeStart();
+            return record(delegate.wrap(srcs, offset, length, dst));
+        }
+
+        @Override
+        public SSLEngineResult unwrap(ByteBuffer src, ByteBuffer[] dsts, int offset, int length) throws SSLException {
+            markHandshakeStart();
+            return record(delegate.unwrap(src, dsts, offset, length));
+        }
+
+        @Override
+        public void beginHandshake() throws SSLException {
+            markHandshakeStart();
+            delegate.beginHandshake();
+        }
+
+        @Override
+        public void closeInbound() throws SSLException {
+            markClosed();
+            delegate.closeInbound();
+        }
+
+        @Override
+        public void closeOutbound() {
+            markClosed();
+            delegate.closeOutbound();
+        }
+
+        @Override
+        public Runnable getDelegatedTask() {
+            return delegate.getDelegatedTask();
+        }
+
+        @Override
+        public boolean isInboundDone() {
+            return delegate.isInboundDone();
+        }
+
+        @Override
+        public boolean isOutboundDone() {
+            return delegate.isOutboundDone();
+        }
+
+        @Override
+        public String[] getSupportedCipherSuites() {
+            return delegate.getSupportedCipherSuites();
+        }
+
+        @Override
+        public String[] getEnabledCipherSuites() {
+            return delegate.getEnabledCipherSuites();
+        }
+
+        @Override
+        public void setEnabledCipherSuites(String[] suites) {
+            delegate.setEnabledCipherSuites(suites);
+        }
+
+        @Override
+        public String[] getSupportedProtocols() {
+            return delegate.getSupportedProtocols();
+        }
+
+        @Override
+        public String[] getEnabledProtocols() {
+            return delegate.getEnabledProtocols();
+        }
+
+        @Override
+        public void setEnabledProtocols(String[] protocols) {
+            delegate.setEnabledProtocols(protocols);
+        }
+
+        @Override
+        public SSLSession getSession() {
+            return delegate.getSession();
+        }
+
+        @Override
+        public SSLSession getHandshakeSession() {
+            return delegate.getHandshakeSession();
+        }
+
+        @Override
+        public SSLEngineResult.HandshakeStatus getHandshakeStatus() {
+            return delegate.getHandshakeStatus();
+        }
+
+        @Override
+        public void setUseClientMode(boolean mode) {
+            delegate.setUseClientMode(mode);
+        }
+
+        @Override
+        public boolean getUseClientMode() {
+            return delegate.getUseClientMode();
+        }
+
+        @Override
+        public void setNeedClientAuth(boolean need) {
+            delegate.setNeedClientAuth(need);
+        }
+
+        @Override
+        public boolean getNeedClientAuth() {
+            return delegate.getNeedClientAuth();
+        }
+
+        @Override
+        public void setWantClientAuth(boolean want) {
+            delegate.setWantClientAuth(want);
+        }
+
+        @Override
+        public boolean getWantClientAuth() {
+            return delegate.getWantClientAuth();
+        }
+
+        @Override
+        public void setEnableSessionCreation(boolean flag) {
+            delegate.setEnableSessionCreation(flag);
+        }
+
+        @Override
+        public boolean getEnableSessionCreation() {
+            return delegate.getEnableSessionCreation();
+        }
+
+        @Override
+        public SSLParameters getSSLParameters() {
+            return delegate.getSSLParameters();
+        }
+
+        @Override
+        public void setSSLParameters(SSLParameters params) {
+            // HTTP/2 的 ALPN 协商通过这里设置的 applicationProtocols 完成
+            delegate.setSSLParameters(params);
+        }
+
+        @Override
+        public String getApplicationProtocol() {
+            return delegate.getApplicationProtocol();
+        }
+
+        @Override
+        public String getHandshakeApplicationProtocol() {
+            return delegate.getHandshakeApplicationProtocol();
+        }
+
+        @Override
+        public void setHandshakeApplicationProtocolSelector(BiFunction<SSLEngine, List<String>, String> selector) {
+            delegate.setHandshakeApplicationProtocolSelector(selector);
+        }
+
+        @Override
+        public BiFunction<SSLEngine, List<String>, String> getHandshakeApplicationProtocolSelector() {
+            return delegate.getHandshakeApplicationProtocolSelector();
+        }
+    }
+}
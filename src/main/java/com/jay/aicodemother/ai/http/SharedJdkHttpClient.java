@@ -0,0 +1,129 @@
+package com.jay.aicodemother.ai.http;
+
+import dev.langchain4j.exception.HttpException;
+import dev.langchain4j.http.client.HttpClient;
+import dev.langchain4j.http.client.HttpRequest;
+import dev.langchain4j.http.client.SuccessfulHttpResponse;
+import dev.langchain4j.http.client.sse.ServerSentEventListener;
+import dev.langchain4j.http.client.sse.ServerSentEventParser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static dev.langchain4j.http.client.sse.ServerSentEventListenerUtils.ignoringExceptions;
+
+/**
+ * Class name: SharedJdkHttpClient
+ * Package: com.jay.aicodemother.ai.http
+ * Description: 基于共享 JDK HttpClient 的 langchain4j HttpClient 实现
+ *  多个模型各自持有一个实例，但底层共用同一个 java.net.http.HttpClient（连接池、HTTP/2 连接和 TLS 会话只有一份），
+ *  实例本身只保存该模型的读超时。读超时作为单个请求的超时，限制等待响应头的时间；
+ *  流式请求收到响应头后在 streamExecutor 上读取并解析响应体，不占用 HttpClient 的内部线程
+ *
+ * @Create: 2026/10/17 23:50
+ * @Author: jay
+ * @Version: 1.0
+ */
+public class SharedJdkHttpClient implements HttpClient {
+
+    private final java.net.http.HttpClient delegate;
+
+    private final Executor streamExecutor;
+
+    private final AtomicInteger activeStreams;
+
+    private final Duration readTimeout;
+
+    SharedJdkHttpClient(java.net.http.HttpClient delegate, Executor streamExecutor,
+                        AtomicInteger activeStreams, Duration readTimeout) {
+        this.delegate = delegate;
+        this.streamExecutor = streamExecutor;
+        this.activeStreams = activeStreams;
+        this.readTimeout = readTimeout;
+    }
+
+    @Override
+    public SuccessfulHttpResponse execute(HttpRequest request) throws HttpException {
+        activeStreams.incrementAndGet();
+        try {
+            HttpResponse<String> response = delegate.send(toJdkRequest(request), HttpResponse.BodyHandlers.ofString());
+            if (!isSuccessful(response)) {
+                throw new HttpException(response.statusCode(), response.body());
+            }
+            return toSuccessfulResponse(response, response.body());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } finally {
+            activeStreams.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void execute(HttpRequest request, ServerSentEventParser parser, ServerSentEventListener listener) {
+        activeStreams.incrementAndGet();
+        delegate.sendAsync(toJdkRequest(request), HttpResponse.BodyHandlers.ofInputStream())
+                .whenCompleteAsync((response, throwable) -> {
+                    try {
+                        if (throwable != null) {
+                            Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                                    ? throwable.getCause() : throwable;
+                            ignoringExceptions(() -> listener.onError(cause));
+                            return;
+                        }
+                        handleStream(response, parser, listener);
+                    } finally {
+                        activeStreams.decrementAndGet();
+                    }
+                }, streamExecutor);
+    }
+
+    private void handleStream(HttpResponse<InputStream> response, ServerSentEventParser parser, ServerSentEventListener listener) {
+        try (InputStream body = response.body()) {
+            if (!isSuccessful(response)) {
+                String error = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+                ignoringExceptions(() -> listener.onError(new HttpException(response.statusCode(), error)));
+                return;
+            }
+            ignoringExceptions(() -> listener.onOpen(toSuccessfulResponse(response, null)));
+            parser.parse(body, listener);
+            ignoringExceptions(listener::onClose);
+        } catch (Exception e) {
+            ignoringExceptions(() -> listener.onError(e));
+        }
+    }
+
+    private java.net.http.HttpRequest toJdkRequest(HttpRequest request) {
+        java.net.http.HttpRequest.Builder builder = java.net.http.HttpRequest.newBuilder()
+                .uri(URI.create(request.url()));
+        if (readTimeout != null) {
+            builder.timeout(readTimeout);
+        }
+        request.headers().forEach((name, values) -> values.forEach(value -> builder.header(name, value)));
+        java.net.http.HttpRequest.BodyPublisher bodyPublisher = request.body() == null
+                ? java.net.http.HttpRequest.BodyPublishers.noBody()
+                : java.net.http.HttpRequest.BodyPublishers.ofString(request.body(), StandardCharsets.UTF_8);
+        return builder.method(request.method().name(), bodyPublisher).build();
+    }
+
+    private static boolean isSuccessful(HttpResponse<?> response) {
+        return response.statusCode() >= 200 && response.statusCode() < 300;
+    }
+
+    private static SuccessfulHttpResponse toSuccessfulResponse(HttpResponse<?> response, String body) {
+        return SuccessfulHttpResponse.builder()
+                .statusCode(response.statusCode())
+                .headers(response.headers().map())
+                .body(body)
+                .build();
+    }
+}
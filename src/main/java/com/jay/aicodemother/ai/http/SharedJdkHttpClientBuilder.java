@@ -0,0 +1,66 @@
+package com.jay.aicodemother.ai.http;
+
+import dev.langchain4j.http.client.HttpClient;
+import dev.langchain4j.http.client.HttpClientBuilder;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class name: SharedJdkHttpClientBuilder
+ * Package: com.jay.aicodemother.ai.http
+ * Description: 创建 {@link SharedJdkHttpClient} 的 builder，由 ModelHttpClientManager 提供给各模型
+ *  connectTimeout 只做记录：连接由共享的 HttpClient 统一建立，使用 code-gen.http-client.connect-timeout；
+ *  readTimeout 为该模型的请求超时
+ *
+ * @Create: 2026/10/17 23:55
+ * @Author: jay
+ * @Version: 1.0
+ */
+public class SharedJdkHttpClientBuilder implements HttpClientBuilder {
+
+    private final java.net.http.HttpClient delegate;
+
+    private final Executor streamExecutor;
+
+    private final AtomicInteger activeStreams;
+
+    private Duration connectTimeout;
+
+    private Duration readTimeout;
+
+    public SharedJdkHttpClientBuilder(java.net.http.HttpClient delegate, Executor streamExecutor, AtomicInteger activeStreams) {
+        this.delegate = delegate;
+        this.streamExecutor = streamExecutor;
+        this.activeStreams = activeStreams;
+        this.connectTimeout = delegate.connectTimeout().orElse(null);
+    }
+
+    @Override
+    public Duration connectTimeout() {
+        return connectTimeout;
+    }
+
+    @Override
+    public HttpClientBuilder connectTimeout(Duration timeout) {
+        this.connectTimeout = timeout;
+        return this;
+    }
+
+    @Override
+    public Duration readTimeout() {
+        return readTimeout;
+    }
+
+    @Override
+    public HttpClientBuilder readTimeout(Duration timeout) {
+        this.readTimeout = timeout;
+        return this;
+    }
+
+    @Override
+    public HttpClient build() {
+        return new SharedJdkHttpClient(delegate, streamExecutor, activeStreams, readTimeout);
+    }
+}
@@ -0,0 +1,185 @@
+package com.jay.aicodemother.ai.memory;
+
+import cn.hutool.core.io.resource.ResourceUtil;
+import cn.hutool.core.util.StrUtil;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.jay.aicodemother.config.ChatMemoryCacheConfig;
+import com.jay.aicodemother.monitor.CodeGenMetrics;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.ChatModel;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Class name: ChatMemoryCompactor
+ * Package: com.jay.aicodemother.ai.memory
+ * Description: 对话记忆后台压缩
+ *  对话记忆超过 token 预算时，在独立的有界线程池中调用模型把较早的轮次总结为一条摘要消息，
+ *  生成链路只负责提交任务，不等待压缩结果；线程池已满时放弃本次压缩，下次写入记忆时再提交。
+ *  同一个记忆同时只有一个压缩任务，压缩期间记忆被修改时以当前内容为准，放弃替换。
+ *  执行时通过 memoryResolver 按 memoryId 取缓存中当前的记忆实例，不使用提交时的实例：
+ *  提交后实例被移出缓存、又创建了新实例时，两个实例会对同一个 Redis key 做读改写
+ *
+ * @Create: 2026/10/17 21:35
+ * @Author: jay
+ * @Version: 1.0
+ */
+@Slf4j
+@Component
+public class ChatMemoryCompactor {
+
+    /**
+     * 摘要消息的前缀，便于识别
+     */
+    static final String SUMMARY_PREFIX = "【历史对话摘要】\n";
+
+    private static final String SUMMARY_SYSTEM_PROMPT = ResourceUtil.readUtf8Str("prompt/chat-memory-summary-system-prompt.txt");
+
+    /**
+     * 对话记录中每条消息最多保留的字符数，避免工具写入的整份文件撑大总结请求
+     */
+    private static final int MAX_CHARS_PER_MESSAGE = 2000;
+
+    private static final String OUTCOME_STALE = "stale";
+
+    private static final String OUTCOME_REJECTED = "rejected";
+
+    private final ChatModel chatModel;
+
+    private final ChatMemoryCacheConfig config;
+
+    private final CodeGenMetrics codeGenMetrics;
+
+    private final ThreadPoolExecutor executor;
+
+    private final Set<Object> compacting = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 按 memoryId 查找缓存中当前的记忆实例，不在缓存中时返回 null；未设置时使用提交时的实例
+     */
+    private volatile Function<Object, TokenBudgetChatMemory> memoryResolver;
+
+    public ChatMemoryCompactor(ChatModel chatModel, ChatMemoryCacheConfig config, CodeGenMetrics codeGenMetrics) {
+        this.chatModel = chatModel;
+        this.config = config;
+        this.codeGenMetrics = codeGenMetrics;
+        this.executor = new ThreadPoolExecutor(config.getCompactionThreads(), config.getCompactionThreads(),
+                60L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(config.getCompactionQueueCapacity()),
+                new ThreadFactoryBuilder()
+                        .setNameFormat("chat-memory-compactor-%d")
+                        .setDaemon(true)
+                        .build());
+    }
+
+    public void setMemoryResolver(Function<Object, TokenBudgetChatMemory> memoryResolver) {
+        this.memoryResolver = memoryResolver;
+    }
+
+    /**
+     * 提交压缩任务，立即返回
+     *
+     * @param memory 需要压缩的对话记忆
+     */
+    public void requestCompaction(TokenBudgetChatMemory memory) {
+        Object memoryId = memory.id();
+        if (!compacting.add(memoryId)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    compact(memory);
+                } finally {
+                    compacting.remove(memoryId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            compacting.remove(memoryId);
+            log.warn("对话记忆压缩线程池已满，跳过本次压缩，memoryId: {}", memoryId);
+            codeGenMetrics.recordMemoryCompaction(OUTCOME_REJECTED, 0);
+        }
+    }
+
+    /**
+     * 执行一次压缩
+     *
+     * @param requested 提交压缩的对话记忆
+     */
+    void compact(TokenBudgetChatMemory requested) {
+        Function<Object, TokenBudgetChatMemory> resolver = memoryResolver;
+        TokenBudgetChatMemory memory = resolver == null ? requested : resolver.apply(requested.id());
+        if (memory == null) {
+            // 记忆已被移出缓存，下次写入时由新实例重新提交
+            return;
+        }
+        int targetTokens = (int) (memory.getTokenBudget() * config.getCompactKeepRatio());
+        List<ChatMessage> candidates = memory.compactionCandidates(targetTokens);
+        if (candidates.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        String outcome = CodeGenMetrics.OUTCOME_ERROR;
+        try {
+            String summary = chatModel.chat(SystemMessage.from(SUMMARY_SYSTEM_PROMPT), UserMessage.from(render(candidates)))
+                    .aiMessage().text();
+            if (StrUtil.isBlank(summary)) {
+                log.warn("对话记忆压缩得到空摘要，memoryId: {}", memory.id());
+                return;
+            }
+            boolean replaced = memory.replaceWithSummary(candidates, AiMessage.from(SUMMARY_PREFIX + summary));
+            outcome = replaced ? CodeGenMetrics.OUTCOME_SUCCESS : OUTCOME_STALE;
+        } catch (Exception e) {
+            log.error("对话记忆压缩失败，memoryId: {}, 错误信息: {}", memory.id(), e.getMessage(), e);
+        } finally {
+            codeGenMetrics.recordMemoryCompaction(outcome, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 把消息渲染为对话记录文本
+     */
+    static String render(List<ChatMessage> messages) {
+        StringBuilder transcript = new StringBuilder();
+        for (ChatMessage message : messages) {
+            if (message instanceof UserMessage userMessage) {
+                appendLine(transcript, "用户", userMessage.hasSingleText() ? userMessage.singleText() : userMessage.contents().toString());
+            } else if (message instanceof AiMessage aiMessage) {
+                if (StrUtil.isNotBlank(aiMessage.text())) {
+                    appendLine(transcript, "助手", aiMessage.text());
+                }
+                if (aiMessage.hasToolExecutionRequests()) {
+                    for (ToolExecutionRequest request : aiMessage.toolExecutionRequests()) {
+                        appendLine(transcript, "助手调用工具 " + request.name(), request.arguments());
+                    }
+                }
+            } else if (message instanceof ToolExecutionResultMessage resultMessage) {
+                appendLine(transcript, "工具结果 " + resultMessage.toolName(), resultMessage.text());
+            }
+        }
+        return transcript.toString();
+    }
+
+    private static void appendLine(StringBuilder transcript, String role, String text) {
+        transcript.append(role).append("：").append(StrUtil.maxLength(StrUtil.nullToEmpty(text), MAX_CHARS_PER_MESSAGE)).append('\n');
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
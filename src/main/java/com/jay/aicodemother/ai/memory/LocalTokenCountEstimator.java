@@ -0,0 +1,86 @@
+package com.jay.aicodemother.ai.memory;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.Content;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.TextContent;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.TokenCountEstimator;
+
+/**
+ * Class name: LocalTokenCountEstimator
+ * Package: com.jay.aicodemother.ai.memory
+ * Description: 本地 token 数估算，不依赖具体模型的分词器
+ *  中日韩字符按 1 个 token 计，其余字符按 4 个字符 1 个 token 计，每条消息额外计 4 个 token。
+ *  只用于控制对话记忆的大小，不要求和模型的计费结果一致
+ *
+ * @Create: 2026/10/17 21:20
+ * @Author: jay
+ * @Version: 1.0
+ */
+public class LocalTokenCountEstimator implements TokenCountEstimator {
+
+    /**
+     * 每条消息的固定开销（角色、分隔符等）
+     */
+    private static final int MESSAGE_OVERHEAD_TOKENS = 4;
+
+    /**
+     * 图片等非文本内容的估算值
+     */
+    private static final int NON_TEXT_CONTENT_TOKENS = 85;
+
+    @Override
+    public int estimateTokenCountInText(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        int wideChars = 0;
+        int otherChars = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '\u2E80') {
+                wideChars++;
+            } else {
+                otherChars++;
+            }
+        }
+        return wideChars + (otherChars + 3) / 4;
+    }
+
+    @Override
+    public int estimateTokenCountInMessage(ChatMessage message) {
+        int tokens = MESSAGE_OVERHEAD_TOKENS;
+        if (message instanceof SystemMessage systemMessage) {
+            tokens += estimateTokenCountInText(systemMessage.text());
+        } else if (message instanceof UserMessage userMessage) {
+            for (Content content : userMessage.contents()) {
+                tokens += content instanceof TextContent textContent
+                        ? estimateTokenCountInText(textContent.text())
+                        : NON_TEXT_CONTENT_TOKENS;
+            }
+        } else if (message instanceof AiMessage aiMessage) {
+            tokens += estimateTokenCountInText(aiMessage.text());
+            if (aiMessage.hasToolExecutionRequests()) {
+                for (ToolExecutionRequest request : aiMessage.toolExecutionRequests()) {
+                    tokens += estimateTokenCountInText(request.name()) + estimateTokenCountInText(request.arguments());
+                }
+            }
+        } else if (message instanceof ToolExecutionResultMessage resultMessage) {
+            tokens += estimateTokenCountInText(resultMessage.toolName()) + estimateTokenCountInText(resultMessage.text());
+        }
+        return tokens;
+    }
+
+    @Override
+    public int estimateTokenCountInMessages(Iterable<ChatMessage> messages) {
+        int tokens = 0;
+        for (ChatMessage message : messages) {
+            tokens += estimateTokenCountInMessage(message);
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,226 @@
+package com.jay.aicodemother.ai.memory;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.memory.ChatMemory;
+import dev.langchain4j.model.TokenCountEstimator;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Class name: TokenBudgetChatMemory
+ * Package: com.jay.aicodemother.ai.memory
+ * Description: 按 token 预算控制大小的对话记忆
+ *  - 超过预算：提交后台压缩任务，把较早的轮次总结为一条摘要消息，当前请求不等待
+ *  - 超过硬上限（预算 * hardLimitRatio）或消息条数上限：直接淘汰最早的消息，保证提示词不会无限增长
+ *  写入时先通过 {@link ToolPayloadElider} 省略较早的大段工具内容，再计算 token 数；
+ *  淘汰和压缩都以轮次为单位，不会留下缺少工具调用请求的工具结果。
+ *  系统消息始终保留在第一条，不计入淘汰。
+ *  消息写入存储后通知 messageListener（用于前移对话记忆水位）
+ *  同一个应用只有一个记忆实例，预算和条数上限由每次请求的生成类型通过 {@link #applyLimits} 设置
+ *
+ * @Create: 2026/10/17 21:25
+ * @Author: jay
+ * @Version: 1.0
+ */
+@Slf4j
+public class TokenBudgetChatMemory implements ChatMemory {
+
+    private final Object id;
+
+    private final ChatMemoryStore store;
+
+    private final TokenCountEstimator estimator;
+
+    private volatile Limits limits;
+
+    private final ChatMemoryCompactor compactor;
+
+    private final ToolPayloadElider toolPayloadElider;
+
+    private final Consumer<ChatMessage> messageListener;
+
+    public TokenBudgetChatMemory(Object id, ChatMemoryStore store, TokenCountEstimator estimator, int tokenBudget,
+                                 double hardLimitRatio, int maxMessages, ChatMemoryCompactor compactor,
+                                 ToolPayloadElider toolPayloadElider) {
+        this(id, store, estimator, tokenBudget, hardLimitRatio, maxMessages, compactor, toolPayloadElider, null);
+    }
+
+    public TokenBudgetChatMemory(Object id, ChatMemoryStore store, TokenCountEstimator estimator, int tokenBudget,
+                                 double hardLimitRatio, int maxMessages, ChatMemoryCompactor compactor,
+                                 ToolPayloadElider toolPayloadElider, Consumer<ChatMessage> messageListener) {
+        this.id = id;
+        this.store = store;
+        this.estimator = estimator;
+        applyLimits(tokenBudget, hardLimitRatio, maxMessages);
+        this.compactor = compactor;
+        this.toolPayloadElider = toolPayloadElider;
+        this.messageListener = messageListener;
+    }
+
+    @Override
+    public Object id() {
+        return id;
+    }
+
+    @Override
+    public synchronized void add(ChatMessage message) {
+        List<ChatMessage> messages = messages();
+        if (message instanceof SystemMessage) {
+            if (!messages.isEmpty() && messages.get(0) instanceof SystemMessage existing) {
+                if (existing.equals(message)) {
+                    return;
+                }
+                messages.remove(0);
+            }
+            messages.add(0, message);
+        } else {
+            messages.add(message);
+        }
+        if (toolPayloadElider != null) {
+            messages = toolPayloadElider.elide(messages);
+        }
+        Limits current = limits;
+        int tokens = estimator.estimateTokenCountInMessages(messages);
+        while (messages.size() > current.maxMessages() || tokens > current.hardLimitTokens()) {
+            int before = messages.size();
+            evictOldest(messages);
+            if (messages.size() == before) {
+                break;
+            }
+            tokens = estimator.estimateTokenCountInMessages(messages);
+        }
+        store.updateMessages(id, messages);
+        if (messageListener != null) {
+            messageListener.accept(message);
+        }
+        if (tokens > current.tokenBudget() && compactor != null) {
+            compactor.requestCompaction(this);
+        }
+    }
+
+    @Override
+    public List<ChatMessage> messages() {
+        return new ArrayList<>(store.getMessages(id));
+    }
+
+    @Override
+    public synchronized void clear() {
+        store.deleteMessages(id);
+    }
+
+    public int getTokenBudget() {
+        return limits.tokenBudget();
+    }
+
+    /**
+     * 设置记忆的大小限制，之后写入的消息按新的限制淘汰和触发压缩
+     *
+     * @param tokenBudget    token 预算
+     * @param hardLimitRatio 硬上限相对预算的倍数
+     * @param maxMessages    最多保留的消息条数
+     */
+    public void applyLimits(int tokenBudget, double hardLimitRatio, int maxMessages) {
+        this.limits = new Limits(tokenBudget, (int) (tokenBudget * hardLimitRatio), maxMessages);
+    }
+
+    /**
+     * 当前估算的 token 数
+     */
+    public int estimatedTokens() {
+        return estimator.estimateTokenCountInMessages(messages());
+    }
+
+    /**
+     * 选出需要总结的较早消息：从最新的消息往前保留，直到占用约 targetTokens，
+     * 再从保留部分的第一条用户消息处切分，保证保留部分以完整的轮次开始
+     *
+     * @param targetTokens 保留部分的 token 目标
+     * @return 需要总结的消息（不含系统消息），不足两条时返回空列表
+     */
+    synchronized List<ChatMessage> compactionCandidates(int targetTokens) {
+        List<ChatMessage> messages = withoutSystemMessage(messages());
+        int kept = 0;
+        int cut = messages.size();
+        while (cut > 0) {
+            int tokens = estimator.estimateTokenCountInMessage(messages.get(cut - 1));
+            if (kept + tokens > targetTokens) {
+                break;
+            }
+            kept += tokens;
+            cut--;
+        }
+        while (cut < messages.size() && !(messages.get(cut) instanceof UserMessage)) {
+            cut++;
+        }
+        if (cut == messages.size()) {
+            // 最新一轮本身就超过目标，保留最后一条用户消息开始的轮次
+            cut = lastUserMessageIndex(messages);
+        }
+        return cut < 2 ? List.of() : new ArrayList<>(messages.subList(0, cut));
+    }
+
+    /**
+     * 把已经总结的消息替换为摘要。压缩期间这些消息被淘汰或清空时放弃替换
+     *
+     * @param compacted 已经总结的消息
+     * @param summary   摘要消息
+     * @return 是否替换成功
+     */
+    synchronized boolean replaceWithSummary(List<ChatMessage> compacted, ChatMessage summary) {
+        List<ChatMessage> messages = messages();
+        int offset = !messages.isEmpty() && messages.get(0) instanceof SystemMessage ? 1 : 0;
+        if (messages.size() - offset < compacted.size()
+                || !messages.subList(offset, offset + compacted.size()).equals(compacted)) {
+            return false;
+        }
+        List<ChatMessage> updated = new ArrayList<>(messages.subList(0, offset));
+        updated.add(summary);
+        updated.addAll(messages.subList(offset + compacted.size(), messages.size()));
+        store.updateMessages(id, updated);
+        log.info("对话记忆压缩完成，memoryId: {}, 总结 {} 条消息", id, compacted.size());
+        return true;
+    }
+
+    /**
+     * 淘汰最早的一条非系统消息；淘汰带工具调用的 AI 消息时一并淘汰对应的工具结果
+     */
+    private static void evictOldest(List<ChatMessage> messages) {
+        int index = !messages.isEmpty() && messages.get(0) instanceof SystemMessage ? 1 : 0;
+        // 至少保留最新一条消息
+        if (messages.size() - index <= 1) {
+            return;
+        }
+        ChatMessage evicted = messages.remove(index);
+        if (evicted instanceof AiMessage aiMessage && aiMessage.hasToolExecutionRequests()) {
+            while (index < messages.size() && messages.get(index) instanceof ToolExecutionResultMessage) {
+                messages.remove(index);
+            }
+        }
+    }
+
+    private record Limits(int tokenBudget, int hardLimitTokens, int maxMessages) {
+    }
+
+    private static List<ChatMessage> withoutSystemMessage(List<ChatMessage> messages) {
+        return !messages.isEmpty() && messages.get(0) instanceof SystemMessage
+                ? new ArrayList<>(messages.subList(1, messages.size()))
+                : messages;
+    }
+
+    private static int lastUserMessageIndex(List<ChatMessage> messages) {
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            if (messages.get(i) instanceof UserMessage) {
+                return i;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,152 @@
+package com.jay.aicodemother.ai.memory;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Class name: ToolPayloadElider
+ * Package: com.jay.aicodemother.ai.memory
+ * Description: 省略对话记忆中较早的大段工具内容
+ *  writeFile / modifyFile（及批量版本）的参数和 readFile 的结果会把整份文件写进记忆，后续每次调用模型都会重复发送。
+ *  除最近 keepRecentToolResults 次工具调用外，超过 thresholdChars 的参数值和工具结果替换为
+ *  “路径 + sha256 + 行数”的引用，模型需要时可以调用 readFile 重新读取。
+ *  参数替换后仍是合法的 JSON，引用本身很短，重复处理不会再变化
+ *
+ * @Create: 2026/10/17 21:55
+ * @Author: jay
+ * @Version: 1.0
+ */
+public class ToolPayloadElider {
+
+    private static final String PATH_ARGUMENT = "relativeFilePath";
+
+    private final int thresholdChars;
+
+    private final int keepRecentToolResults;
+
+    public ToolPayloadElider(int thresholdChars, int keepRecentToolResults) {
+        this.thresholdChars = thresholdChars;
+        this.keepRecentToolResults = keepRecentToolResults;
+    }
+
+    /**
+     * 省略较早的大段工具内容
+     *
+     * @param messages 对话记忆中的消息，按时间顺序
+     * @return 处理后的消息；没有需要省略的内容时返回原列表
+     */
+    public List<ChatMessage> elide(List<ChatMessage> messages) {
+        // 找出较早的工具调用（不含最近 keepRecentToolResults 次）
+        List<Integer> resultIndexes = new ArrayList<>();
+        for (int i = 0; i < messages.size(); i++) {
+            if (messages.get(i) instanceof ToolExecutionResultMessage) {
+                resultIndexes.add(i);
+            }
+        }
+        int oldCount = resultIndexes.size() - keepRecentToolResults;
+        if (oldCount <= 0) {
+            return messages;
+        }
+        Set<String> oldIds = new HashSet<>();
+        for (int i = 0; i < oldCount; i++) {
+            oldIds.add(((ToolExecutionResultMessage) messages.get(resultIndexes.get(i))).id());
+        }
+        Map<String, String> pathById = new HashMap<>();
+        List<ChatMessage> elided = new ArrayList<>(messages.size());
+        boolean changed = false;
+        for (ChatMessage message : messages) {
+            ChatMessage updated = message;
+            if (message instanceof AiMessage aiMessage && aiMessage.hasToolExecutionRequests()) {
+                updated = elideRequests(aiMessage, oldIds, pathById);
+            } else if (message instanceof ToolExecutionResultMessage resultMessage
+                    && oldIds.contains(resultMessage.id())
+                    && StrUtil.length(resultMessage.text()) > thresholdChars) {
+                String reference = reference(pathById.get(resultMessage.id()), resultMessage.text());
+                updated = ToolExecutionResultMessage.from(resultMessage.id(), resultMessage.toolName(), reference);
+            }
+            changed |= updated != message;
+            elided.add(updated);
+        }
+        return changed ? elided : messages;
+    }
+
+    private AiMessage elideRequests(AiMessage aiMessage, Set<String> oldIds, Map<String, String> pathById) {
+        List<ToolExecutionRequest> requests = new ArrayList<>(aiMessage.toolExecutionRequests().size());
+        boolean changed = false;
+        for (ToolExecutionRequest request : aiMessage.toolExecutionRequests()) {
+            JSONObject arguments = parseArguments(request.arguments());
+            String path = arguments == null ? null : arguments.getStr(PATH_ARGUMENT);
+            pathById.put(request.id(), path);
+            if (arguments == null || !oldIds.contains(request.id()) || StrUtil.length(request.arguments()) <= thresholdChars) {
+                requests.add(request);
+                continue;
+            }
+            if (elideValues(arguments, path)) {
+                requests.add(ToolExecutionRequest.builder()
+                        .id(request.id())
+                        .name(request.name())
+                        .arguments(arguments.toString())
+                        .build());
+                changed = true;
+            } else {
+                requests.add(request);
+            }
+        }
+        return changed ? AiMessage.from(aiMessage.text(), requests) : aiMessage;
+    }
+
+    /**
+     * 替换对象中过长的字符串值；writeFiles / modifyFiles 的参数是对象数组，每项按自己的文件路径替换
+     */
+    private boolean elideValues(JSONObject arguments, String path) {
+        boolean changed = false;
+        for (Map.Entry<String, Object> entry : arguments.entrySet()) {
+            if (entry.getValue() instanceof String value && value.length() > thresholdChars) {
+                entry.setValue(reference(path, value));
+                changed = true;
+            } else if (entry.getValue() instanceof JSONArray items) {
+                for (Object item : items) {
+                    if (item instanceof JSONObject itemArguments) {
+                        changed |= elideValues(itemArguments, itemArguments.getStr(PATH_ARGUMENT, path));
+                    }
+                }
+            }
+        }
+        return changed;
+    }
+
+    private static JSONObject parseArguments(String arguments) {
+        if (!JSONUtil.isTypeJSONObject(arguments)) {
+            return null;
+        }
+        try {
+            return JSONUtil.parseObj(arguments);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * 生成内容引用：路径 + sha256 前 12 位 + 行数
+     */
+    static String reference(String path, String content) {
+        long lines = content.chars().filter(c -> c == '\n').count() + 1;
+        String hash = DigestUtil.sha256Hex(content).substring(0, 12);
+        return String.format("[内容已省略：%s sha256:%s 共 %d 行，需要时调用 readFile 重新读取]",
+                StrUtil.blankToDefault(path, "未知文件"), hash, lines);
+    }
+}
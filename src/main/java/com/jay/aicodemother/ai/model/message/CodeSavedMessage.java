@@ -0,0 +1,44 @@
+package com.jay.aicodemother.ai.model.message;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Class name: CodeSavedMessage
+ * Package: com.jay.aicodemother.ai.model.message
+ * Description: 代码保存完成消息，生成流的最后一条，通知前端可以刷新预览
+ *
+ * @Create: 2026/10/17 19:20
+ * @Author: jay
+ * @Version: 1.0
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+public class CodeSavedMessage extends StreamMessage {
+
+    /**
+     * 是否保存成功
+     */
+    private boolean success;
+
+    /**
+     * 已保存的文件名
+     */
+    private List<String> files;
+
+    /**
+     * 失败原因
+     */
+    private String errorMessage;
+
+    public CodeSavedMessage(boolean success, List<String> files, String errorMessage) {
+        super(StreamMessageTypeEnum.CODE_SAVED.getValue());
+        this.success = success;
+        this.files = files;
+        this.errorMessage = errorMessage;
+    }
+}
@@ -0,0 +1,243 @@
+package com.jay.aicodemother.ai.routing;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.jay.aicodemother.ai.AiCodeGenTypeRoutingService;
+import com.jay.aicodemother.config.CodeGenRoutingConfig;
+import com.jay.aicodemother.model.entity.App;
+import com.jay.aicodemother.model.enums.CodeGenTypeEnum;
+import com.jay.aicodemother.monitor.CodeGenMetrics;
+import com.jay.aicodemother.service.AppService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Class name: CodeGenTypeRouter
+ * Package: com.jay.aicodemother.ai.routing
+ * Description: 分层的代码生成类型路由
+ *  1. 提示词缓存：归一化后的提示词先查本地缓存，再查 Redis
+ *  2. 本地关键词分类：需求明确时直接给出结果
+ *  3. 模型：只处理不明确的需求。创建应用时先使用分类器的猜测作为临时类型，模型在后台判断后更新应用；
+ *     开始生成前通过 {@link #awaitRouting} 等待结果，保证生成使用最终类型
+ *  每一层的命中次数和耗时记录在 ai.codegen.routing{tier}，相对模型路由节省的时间记录在 ai.codegen.routing.saved
+ *
+ * @Create: 2026/10/17 22:20
+ * @Author: jay
+ * @Version: 1.0
+ */
+@Slf4j
+@Component
+public class CodeGenTypeRouter {
+
+    public static final String TIER_LOCAL_CACHE = "local_cache";
+
+    public static final String TIER_REDIS_CACHE = "redis_cache";
+
+    public static final String TIER_CLASSIFIER = "classifier";
+
+    private static final String ROUTE_KEY_PREFIX = "code-gen:route:";
+
+    private static final Pattern IGNORED_CHARS = Pattern.compile("[\\s\\p{Punct}，。！？、；：“”‘’（）【】《》…—·]+");
+
+    private final AiCodeGenTypeRoutingService aiCodeGenTypeRoutingService;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final AppService appService;
+
+    private final CodeGenRoutingConfig config;
+
+    private final CodeGenMetrics codeGenMetrics;
+
+    private final KeywordCodeGenTypeClassifier classifier;
+
+    private final Cache<String, CodeGenTypeEnum> localCache;
+
+    /**
+     * 由模型判断类型的应用。判断完成后仍保留一段时间：生成请求可能在判断完成前读取了应用的临时类型，
+     * 之后才调用 awaitRouting，此时仍需拿到模型的结果
+     */
+    private final Cache<Long, CompletableFuture<CodeGenTypeEnum>> pendingRoutes;
+
+    private final ExecutorService modelExecutor;
+
+    public CodeGenTypeRouter(AiCodeGenTypeRoutingService aiCodeGenTypeRoutingService, StringRedisTemplate stringRedisTemplate,
+                             @Lazy AppService appService, CodeGenRoutingConfig config, CodeGenMetrics codeGenMetrics) {
+        this.aiCodeGenTypeRoutingService = aiCodeGenTypeRoutingService;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.appService = appService;
+        this.config = config;
+        this.codeGenMetrics = codeGenMetrics;
+        this.classifier = new KeywordCodeGenTypeClassifier(config.getMinScore(), config.getMinMargin());
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(config.getLocalCacheSize())
+                .expireAfterWrite(config.getCacheTtl())
+                .build();
+        this.pendingRoutes = Caffeine.newBuilder()
+                .expireAfterWrite(config.getAwaitTimeout().plus(Duration.ofMinutes(1)))
+                .build();
+        this.modelExecutor = Executors.newFixedThreadPool(config.getModelThreads(),
+                new ThreadFactoryBuilder()
+                        .setNameFormat("code-gen-router-%d")
+                        .setDaemon(true)
+                        .build());
+    }
+
+    /**
+     * 路由结果
+     *
+     * @param type       生成类型（需要模型判断时为临时类型）
+     * @param needsModel 是否需要在应用创建后调用 {@link #refineAsync}
+     */
+    public record RouteDecision(CodeGenTypeEnum type, boolean needsModel) {
+    }
+
+    /**
+     * 不调用模型的快速路由
+     *
+     * @param prompt 用户的初始提示词
+     * @return 路由结果
+     */
+    public RouteDecision route(String prompt) {
+        long start = System.nanoTime();
+        String normalized = normalize(prompt);
+        CodeGenTypeEnum cached = localCache.getIfPresent(normalized);
+        if (cached != null) {
+            codeGenMetrics.recordRouting(TIER_LOCAL_CACHE, System.nanoTime() - start);
+            return new RouteDecision(cached, false);
+        }
+        cached = getFromRedis(normalized);
+        if (cached != null) {
+            localCache.put(normalized, cached);
+            codeGenMetrics.recordRouting(TIER_REDIS_CACHE, System.nanoTime() - start);
+            return new RouteDecision(cached, false);
+        }
+        CodeGenTypeEnum classified = classifier.classify(normalized);
+        if (classified != null) {
+            // 分类结果只放本地缓存，Redis 只保存模型的判断
+            localCache.put(normalized, classified);
+            codeGenMetrics.recordRouting(TIER_CLASSIFIER, System.nanoTime() - start);
+            return new RouteDecision(classified, false);
+        }
+        return new RouteDecision(classifier.guess(normalized), true);
+    }
+
+    /**
+     * 应用创建后在后台调用模型判断类型，结果与临时类型不同时更新应用
+     *
+     * @param appId         应用ID
+     * @param prompt        用户的初始提示词
+     * @param provisionalType 创建时使用的临时类型
+     */
+    public void refineAsync(Long appId, String prompt, CodeGenTypeEnum provisionalType) {
+        CompletableFuture<CodeGenTypeEnum> future = new CompletableFuture<>();
+        pendingRoutes.put(appId, future);
+        try {
+            modelExecutor.execute(() -> future.complete(refine(appId, prompt, provisionalType)));
+        } catch (Exception e) {
+            log.warn("提交模型路由任务失败，使用临时类型，appId: {}", appId, e);
+            future.complete(provisionalType);
+        }
+    }
+
+    /**
+     * 等待应用的模型路由结果
+     *
+     * @param appId       应用ID
+     * @param currentType 应用当前的生成类型
+     * @return 最终的生成类型，最近没有模型路由或等待超时时返回 currentType
+     */
+    public CodeGenTypeEnum awaitRouting(Long appId, CodeGenTypeEnum currentType) {
+        CompletableFuture<CodeGenTypeEnum> future = pendingRoutes.getIfPresent(appId);
+        if (future == null) {
+            return currentType;
+        }
+        try {
+            return future.get(config.getAwaitTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return currentType;
+        } catch (Exception e) {
+            log.warn("等待模型路由结果超时，使用当前类型，appId: {}", appId);
+            return currentType;
+        }
+    }
+
+    private CodeGenTypeEnum refine(Long appId, String prompt, CodeGenTypeEnum provisionalType) {
+        long start = System.nanoTime();
+        CodeGenTypeEnum type;
+        try {
+            type = aiCodeGenTypeRoutingService.routeCodeGenType(prompt);
+            codeGenMetrics.recordModelRouting(System.nanoTime() - start);
+        } catch (Exception e) {
+            log.error("模型路由失败，使用临时类型，appId: {}", appId, e);
+            return provisionalType;
+        }
+        if (type == null) {
+            return provisionalType;
+        }
+        String normalized = normalize(prompt);
+        localCache.put(normalized, type);
+        putToRedis(normalized, type);
+        if (type != provisionalType) {
+            App app = new App();
+            app.setId(appId);
+            app.setCodeGenType(type.getValue());
+            try {
+                appService.updateById(app);
+                log.info("模型路由更新应用类型, ID:{}, {} -> {}", appId, provisionalType.getValue(), type.getValue());
+            } catch (Exception e) {
+                log.error("更新应用类型失败，appId: {}", appId, e);
+                return provisionalType;
+            }
+        }
+        return type;
+    }
+
+    private CodeGenTypeEnum getFromRedis(String normalized) {
+        try {
+            String value = stringRedisTemplate.opsForValue().get(redisKey(normalized));
+            return value == null ? null : CodeGenTypeEnum.getEnumByValue(value);
+        } catch (Exception e) {
+            log.warn("读取路由缓存失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void putToRedis(String normalized, CodeGenTypeEnum type) {
+        try {
+            stringRedisTemplate.opsForValue().set(redisKey(normalized), type.getValue(), config.getCacheTtl());
+        } catch (Exception e) {
+            log.warn("写入路由缓存失败: {}", e.getMessage());
+        }
+    }
+
+    private static String redisKey(String normalized) {
+        return ROUTE_KEY_PREFIX + DigestUtil.sha256Hex(normalized);
+    }
+
+    /**
+     * 归一化提示词：转小写，去掉空白和标点
+     */
+    static String normalize(String prompt) {
+        return IGNORED_CHARS.matcher(StrUtil.nullToEmpty(prompt).toLowerCase()).replaceAll("");
+    }
+
+    @PreDestroy
+    public void destroy() {
+        modelExecutor.shutdownNow();
+    }
+}
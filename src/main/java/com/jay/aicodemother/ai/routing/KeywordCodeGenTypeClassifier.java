@@ -0,0 +1,110 @@
+package com.jay.aicodemother.ai.routing;
+
+import com.jay.aicodemother.model.enums.CodeGenTypeEnum;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class name: KeywordCodeGenTypeClassifier
+ * Package: com.jay.aicodemother.ai.routing
+ * Description: 本地关键词分类器
+ *  按关键词和提示词长度给三种生成类型打分，规则与 codegen-routing-system-prompt.txt 一致：
+ *  简单展示页 -> HTML，多页面但交互简单 -> MULTI_FILE，复杂交互、数据管理 -> VUE_PROJECT。
+ *  得分不够高或前两名差距太小时不做判断，交给模型
+ *
+ * @Create: 2026/10/17 22:15
+ * @Author: jay
+ * @Version: 1.0
+ */
+public class KeywordCodeGenTypeClassifier {
+
+    private static final Map<CodeGenTypeEnum, List<String>> STRONG_KEYWORDS = Map.of(
+            CodeGenTypeEnum.VUE_PROJECT, List.of("vue", "react", "管理系统", "后台", "管理平台", "仪表盘", "dashboard",
+                    "增删改查", "crud", "购物车", "商城", "电商", "权限", "路由", "组件化", "状态管理", "数据管理"),
+            CodeGenTypeEnum.MULTI_FILE, List.of("多个页面", "多页面", "多页", "分离", "css文件", "js文件", "企业官网", "官网"),
+            CodeGenTypeEnum.HTML, List.of("单页", "单个页面", "一个页面", "落地页", "小工具", "计算器", "时钟", "倒计时",
+                    "名片", "个人主页", "介绍页", "展示页", "小游戏", "贪吃蛇", "表白")
+    );
+
+    private static final Map<CodeGenTypeEnum, List<String>> WEAK_KEYWORDS = Map.of(
+            CodeGenTypeEnum.VUE_PROJECT, List.of("登录", "注册", "用户", "列表", "详情", "搜索", "筛选", "订单", "系统", "平台"),
+            CodeGenTypeEnum.MULTI_FILE, List.of("网站", "首页", "关于我们", "联系我们", "作品集", "博客"),
+            CodeGenTypeEnum.HTML, List.of("简单", "静态", "页面", "不超过", "100行", "50行")
+    );
+
+    /**
+     * 提示词超过该长度时认为需求较复杂
+     */
+    private static final int LONG_PROMPT_LENGTH = 300;
+
+    private final int minScore;
+
+    private final int minMargin;
+
+    public KeywordCodeGenTypeClassifier(int minScore, int minMargin) {
+        this.minScore = minScore;
+        this.minMargin = minMargin;
+    }
+
+    /**
+     * 分类
+     *
+     * @param normalizedPrompt 归一化后的提示词
+     * @return 有把握时返回生成类型，否则返回 null
+     */
+    public CodeGenTypeEnum classify(String normalizedPrompt) {
+        Map<CodeGenTypeEnum, Integer> scores = score(normalizedPrompt);
+        CodeGenTypeEnum best = null;
+        int bestScore = 0;
+        int secondScore = 0;
+        for (Map.Entry<CodeGenTypeEnum, Integer> entry : scores.entrySet()) {
+            int score = entry.getValue();
+            if (score > bestScore) {
+                secondScore = bestScore;
+                bestScore = score;
+                best = entry.getKey();
+            } else if (score > secondScore) {
+                secondScore = score;
+            }
+        }
+        return bestScore >= minScore && bestScore - secondScore >= minMargin ? best : null;
+    }
+
+    /**
+     * 没有把握时的临时类型：得分最高的类型，都为 0 时使用 HTML
+     *
+     * @param normalizedPrompt 归一化后的提示词
+     * @return 生成类型
+     */
+    public CodeGenTypeEnum guess(String normalizedPrompt) {
+        return score(normalizedPrompt).entrySet().stream()
+                .filter(entry -> entry.getValue() > 0)
+                .max(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
+                .orElse(CodeGenTypeEnum.HTML);
+    }
+
+    private static Map<CodeGenTypeEnum, Integer> score(String prompt) {
+        Map<CodeGenTypeEnum, Integer> scores = new EnumMap<>(CodeGenTypeEnum.class);
+        for (CodeGenTypeEnum type : CodeGenTypeEnum.values()) {
+            int score = 0;
+            for (String keyword : STRONG_KEYWORDS.getOrDefault(type, List.of())) {
+                if (prompt.contains(keyword)) {
+                    score += 2;
+                }
+            }
+            for (String keyword : WEAK_KEYWORDS.getOrDefault(type, List.of())) {
+                if (prompt.contains(keyword)) {
+                    score += 1;
+                }
+            }
+            scores.put(type, score);
+        }
+        if (prompt.length() > LONG_PROMPT_LENGTH) {
+            scores.merge(CodeGenTypeEnum.VUE_PROJECT, 1, Integer::sum);
+        }
+        return scores;
+    }
+}
@@ -1,8 +1,13 @@
 package com.jay.aicodemother.ai.tools;
 
+import cn.hutool.core.util.StrUtil;
 import cn.hutool.json.JSONObject;
+import com.jay.aicodemother.constant.AppConstant;
 import org.springframework.stereotype.Component;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
 /**
  * 工具基类
  * 定义所有工具的通用接口
@@ -40,4 +45,56 @@ public abstract class BaseTool {
      * @return 格式化的工具执行结果
      */
     public abstract String generateToolExecutedResult(JSONObject arguments);
-}
\ No newline at end of file
+
+    /**
+     * 获取工具调用的冲突键，同一次响应中冲突键相同的调用按顺序执行，不同的可以并行执行
+     *
+     * @param arguments 工具执行参数
+     * @return 冲突键，null 表示与所有调用冲突（等待之前的调用全部完成后单独执行）
+     */
+    public String getConflictKey(JSONObject arguments) {
+        return null;
+    }
+
+    /**
+     * 以文件路径作为冲突键，同一文件的读写按顺序执行
+     *
+     * @param relativeFilePath 文件的相对路径
+     * @return 规范化后的路径
+     */
+    protected static String filePathConflictKey(String relativeFilePath) {
+        if (StrUtil.isBlank(relativeFilePath)) {
+            return null;
+        }
+        try {
+            return Paths.get(relativeFilePath).normalize().toString();
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 解析文件路径，相对路径基于 appId 对应的项目目录
+     *
+     * @param relativeFilePath 文件的相对路径
+     * @param appId            应用 ID
+     * @return 文件路径
+     */
+    protected static Path resolvePath(String relativeFilePath, Long appId) {
+        Path path = Paths.get(relativeFilePath);
+        if (!path.isAbsolute()) {
+            path = projectRoot(appId).resolve(relativeFilePath);
+        }
+        return path;
+    }
+
+    /**
+     * 获取 appId 对应的项目目录
+     *
+     * @param appId 应用 ID
+     * @return 项目目录
+     */
+    protected static Path projectRoot(Long appId) {
+        return Paths.get(AppConstant.CODE_OUTPUT_ROOT_DIR, "vue_project_" + appId);
+    }
+}
@@ -0,0 +1,203 @@
+package com.jay.aicodemother.ai.tools;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import com.jay.aicodemother.manager.ProjectDirIndexManager;
+import com.jay.aicodemother.manager.ProjectFileManager;
+import com.jay.aicodemother.manager.ProjectSearchIndexManager;
+import dev.langchain4j.agent.tool.P;
+import dev.langchain4j.agent.tool.Tool;
+import dev.langchain4j.agent.tool.ToolMemoryId;
+import dev.langchain4j.model.output.structured.Description;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class name: FileBatchModifyTool
+ * Package: com.jay.aicodemother.ai.tools
+ * Description: 批量文件修改工具
+ *  一次工具调用对一个或多个文件做多处替换，同一文件的多处修改按顺序依次应用。
+ *  所有修改要么全部生效，要么全部不生效：持有所有涉及文件的路径锁，先在内存中应用全部修改，
+ *  任意一处找不到要替换的内容时不修改任何文件；写入过程中出错时把已经写入的文件恢复为原内容
+ *
+ * @Create: 2026/10/18 02:30
+ * @Author: jay
+ * @Version: 1.0
+ */
+@Slf4j
+@Component
+public class FileBatchModifyTool extends BaseTool {
+
+    @Resource
+    private ProjectFileManager projectFileManager;
+
+    @Resource
+    private ProjectDirIndexManager projectDirIndexManager;
+
+    @Resource
+    private ProjectSearchIndexManager projectSearchIndexManager;
+
+    /**
+     * 一处修改
+     */
+    public record FileEdit(
+            @Description("文件的相对路径")
+            String relativeFilePath,
+            @Description("要替换的旧内容")
+            String oldContent,
+            @Description("替换后的新内容")
+            String newContent
+    ) {
+    }
+
+    @Tool("批量修改文件内容，一次调用对一个或多个文件做多处替换，所有修改全部成功才会生效")
+    public String modifyFiles(
+            @P("修改列表，每项包含文件的相对路径、要替换的旧内容和替换后的新内容，同一文件的多处修改按顺序应用")
+            List<FileEdit> edits,
+            @ToolMemoryId Long appId
+    ) {
+        if (edits == null || edits.isEmpty()) {
+            return "错误：修改列表为空";
+        }
+        // 保持文件第一次出现的顺序
+        Map<String, Path> paths = new LinkedHashMap<>();
+        for (int i = 0; i < edits.size(); i++) {
+            FileEdit edit = edits.get(i);
+            String relativeFilePath = edit == null ? null : edit.relativeFilePath();
+            if (StrUtil.isBlank(relativeFilePath) || StrUtil.isEmpty(edit.oldContent())) {
+                return String.format("错误：第 %d 处修改缺少文件路径或旧内容，所有文件均未修改", i + 1);
+            }
+            paths.computeIfAbsent(relativeFilePath, key -> resolvePath(key, appId));
+        }
+        List<String> changedFiles = new ArrayList<>();
+        String failure;
+        try {
+            // 持有所有涉及文件的锁，读取、应用修改、写回期间其他工具不会修改这些文件
+            failure = projectFileManager.withLocks(paths.values(), () -> applyEdits(edits, paths, changedFiles));
+        } catch (IOException e) {
+            String errorMessage = "批量修改文件失败，所有文件均未修改, 错误: " + e.getMessage();
+            log.error(errorMessage, e);
+            return errorMessage;
+        }
+        if (failure != null) {
+            return failure;
+        }
+        changedFiles.forEach(relativeFilePath -> {
+            projectDirIndexManager.onFileWritten(paths.get(relativeFilePath));
+            projectSearchIndexManager.onFileWritten(paths.get(relativeFilePath));
+        });
+        log.info("批量修改文件成功， appId : {}, 文件 : {}", appId, changedFiles);
+        return String.format("批量修改成功，共 %d 处修改，%d 个文件: %s",
+                edits.size(), changedFiles.size(), String.join(", ", changedFiles));
+    }
+
+    /**
+     * 在内存中依次应用所有修改，全部成功后写回（调用方已持有所有文件的锁）
+     *
+     * @return 失败原因，成功时返回 null，修改过的文件加入 changedFiles
+     */
+    private String applyEdits(List<FileEdit> edits, Map<String, Path> paths, List<String> changedFiles) throws IOException {
+        Map<String, String> originalContents = new LinkedHashMap<>();
+        Map<String, String> modifiedContents = new LinkedHashMap<>();
+        for (int i = 0; i < edits.size(); i++) {
+            FileEdit edit = edits.get(i);
+            String relativeFilePath = edit.relativeFilePath();
+            if (!modifiedContents.containsKey(relativeFilePath)) {
+                Path path = paths.get(relativeFilePath);
+                if (!Files.isRegularFile(path)) {
+                    return String.format("错误：第 %d 处修改的文件不存在或不是文件，所有文件均未修改 - %s", i + 1, relativeFilePath);
+                }
+                String content = Files.readString(path);
+                originalContents.put(relativeFilePath, content);
+                modifiedContents.put(relativeFilePath, content);
+            }
+            String content = modifiedContents.get(relativeFilePath);
+            if (!content.contains(edit.oldContent())) {
+                return String.format("警告：第 %d 处修改在文件中未找到要替换的内容，所有文件均未修改 - %s", i + 1, relativeFilePath);
+            }
+            modifiedContents.put(relativeFilePath, content.replace(edit.oldContent(), StrUtil.nullToEmpty(edit.newContent())));
+        }
+        modifiedContents.forEach((relativeFilePath, content) -> {
+            if (!content.equals(originalContents.get(relativeFilePath))) {
+                changedFiles.add(relativeFilePath);
+            }
+        });
+        if (changedFiles.isEmpty()) {
+            return "信息：替换后文件内容未发生变化";
+        }
+        commit(changedFiles, paths, modifiedContents, originalContents);
+        return null;
+    }
+
+    /**
+     * 逐个原子写回修改，任意文件写入失败时把已经写入的文件恢复为原内容
+     */
+    private void commit(List<String> changedFiles, Map<String, Path> paths,
+                        Map<String, String> modifiedContents, Map<String, String> originalContents) throws IOException {
+        List<String> written = new ArrayList<>();
+        try {
+            for (String relativeFilePath : changedFiles) {
+                projectFileManager.writeLocked(paths.get(relativeFilePath), modifiedContents.get(relativeFilePath));
+                written.add(relativeFilePath);
+            }
+        } catch (IOException e) {
+            for (String relativeFilePath : written) {
+                try {
+                    projectFileManager.writeLocked(paths.get(relativeFilePath), originalContents.get(relativeFilePath));
+                } catch (IOException restoreError) {
+                    log.error("恢复文件失败: {}", relativeFilePath, restoreError);
+                }
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public String getToolName() {
+        return "modifyFiles";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "批量修改文件";
+    }
+
+    @Override
+    public String generateToolExecutedResult(JSONObject arguments) {
+        JSONArray edits = arguments.getJSONArray("edits");
+        StringBuilder result = new StringBuilder(String.format("[工具调用] %s 共 %d 处修改\n",
+                getDisplayName(), edits == null ? 0 : edits.size()));
+        if (edits == null) {
+            return result.toString();
+        }
+        for (int i = 0; i < edits.size(); i++) {
+            JSONObject edit = edits.getJSONObject(i);
+            // 显示对比内容
+            result.append(String.format("""
+
+                    %s
+
+                    替换前：
+                    ```
+                    %s
+                    ```
+
+                    替换后：
+                    ```
+                    %s
+                    ```
+                    """, edit.getStr("relativeFilePath"), edit.getStr("oldContent"), edit.getStr("newContent")));
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,124 @@
+package com.jay.aicodemother.ai.tools;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import com.jay.aicodemother.manager.ProjectDirIndexManager;
+import com.jay.aicodemother.manager.ProjectFileManager;
+import com.jay.aicodemother.manager.ProjectSearchIndexManager;
+import dev.langchain4j.agent.tool.P;
+import dev.langchain4j.agent.tool.Tool;
+import dev.langchain4j.agent.tool.ToolMemoryId;
+import dev.langchain4j.model.output.structured.Description;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Class name: FileBatchWriteTool
+ * Package: com.jay.aicodemother.ai.tools
+ * Description: 批量文件写入工具
+ *  一次工具调用写入多个文件。每轮工具调用结束后都要把完整的对话记忆重新发送给模型，
+ *  生成 Vue 项目时逐个调用 writeFile 会产生几十次请求，合并写入可以明显减少请求次数和重复发送的提示词
+ *
+ * @Create: 2026/10/18 02:20
+ * @Author: jay
+ * @Version: 1.0
+ */
+@Slf4j
+@Component
+public class FileBatchWriteTool extends BaseTool {
+
+    @Resource
+    private ProjectFileManager projectFileManager;
+
+    @Resource
+    private ProjectDirIndexManager projectDirIndexManager;
+
+    @Resource
+    private ProjectSearchIndexManager projectSearchIndexManager;
+
+    /**
+     * 要写入的文件
+     */
+    public record FileContent(
+            @Description("文件的相对路径")
+            String relativeFilePath,
+            @Description("要写入文件的内容")
+            String content
+    ) {
+    }
+
+    @Tool("批量写入多个文件，一次调用创建或覆盖多个文件")
+    public String writeFiles(
+            @P("要写入的文件列表，每项包含文件的相对路径和内容")
+            List<FileContent> files,
+            @ToolMemoryId Long appId
+    ) {
+        if (files == null || files.isEmpty()) {
+            return "错误：文件列表为空";
+        }
+        StringBuilder result = new StringBuilder();
+        int succeeded = 0;
+        for (FileContent file : files) {
+            String relativeFilePath = file == null ? null : file.relativeFilePath();
+            if (StrUtil.isBlank(relativeFilePath)) {
+                result.append("文件写入失败: 缺少文件路径\n");
+                continue;
+            }
+            try {
+                Path path = resolvePath(relativeFilePath, appId);
+                projectFileManager.write(path, StrUtil.nullToEmpty(file.content()));
+                projectDirIndexManager.onFileWritten(path);
+                projectSearchIndexManager.onFileWritten(path);
+                succeeded++;
+                result.append("文件写入成功: ").append(relativeFilePath).append('\n');
+            } catch (IOException | RuntimeException e) {
+                log.error("文件写入失败: {}", relativeFilePath, e);
+                result.append("文件写入失败: ").append(relativeFilePath)
+                        .append(", 错误: ").append(e.getMessage()).append('\n');
+            }
+        }
+        log.info("批量写入文件完成， appId : {}, 成功 : {}/{}", appId, succeeded, files.size());
+        // 注意只返回相对路径，不能让 AI 把文件绝对路径返回给用户
+        return result.insert(0, String.format("批量写入完成，成功 %d 个，失败 %d 个\n",
+                succeeded, files.size() - succeeded)).toString();
+    }
+
+    @Override
+    public String getToolName() {
+        return "writeFiles";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "批量写入文件";
+    }
+
+    @Override
+    public String generateToolExecutedResult(JSONObject arguments) {
+        JSONArray files = arguments.getJSONArray("files");
+        StringBuilder result = new StringBuilder(String.format("[工具调用] %s 共 %d 个文件\n",
+                getDisplayName(), files == null ? 0 : files.size()));
+        if (files == null) {
+            return result.toString();
+        }
+        for (int i = 0; i < files.size(); i++) {
+            JSONObject file = files.getJSONObject(i);
+            String relativeFilePath = file.getStr("relativeFilePath");
+            result.append(String.format("""
+
+                    %s
+                    ```%s
+                    %s
+                    ```
+                    """, relativeFilePath, FileUtil.getSuffix(relativeFilePath), file.getStr("content")));
+        }
+        return result.toString();
+    }
+}
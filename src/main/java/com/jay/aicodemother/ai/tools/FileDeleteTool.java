@@ -1,17 +1,19 @@
 package com.jay.aicodemother.ai.tools;
 
 import cn.hutool.json.JSONObject;
-import com.jay.aicodemother.constant.AppConstant;
+import com.jay.aicodemother.manager.ProjectDirIndexManager;
+import com.jay.aicodemother.manager.ProjectFileManager;
+import com.jay.aicodemother.manager.ProjectSearchIndexManager;
 import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
 import dev.langchain4j.agent.tool.ToolMemoryId;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 
 /**
  * 文件删除工具
@@ -21,6 +23,15 @@ import java.nio.file.Paths;
 @Component
 public class FileDeleteTool extends BaseTool {
 
+    @Resource
+    private ProjectFileManager projectFileManager;
+
+    @Resource
+    private ProjectDirIndexManager projectDirIndexManager;
+
+    @Resource
+    private ProjectSearchIndexManager projectSearchIndexManager;
+
     @Tool("删除指定路径的文件")
     public String deleteFile(
             @P("文件的相对路径")
@@ -28,12 +39,7 @@ public class FileDeleteTool extends BaseTool {
             @ToolMemoryId Long appId
     ) {
         try {
-            Path path = Paths.get(relativeFilePath);
-            if (!path.isAbsolute()) {
-                String projectDirName = "vue_project_" + appId;
-                Path projectRoot = Paths.get(AppConstant.CODE_OUTPUT_ROOT_DIR, projectDirName);
-                path = projectRoot.resolve(relativeFilePath);
-            }
+            Path path = resolvePath(relativeFilePath, appId);
             if (!Files.exists(path)) {
                 return "警告：文件不存在，无需删除 - " + relativeFilePath;
             }
@@ -45,7 +51,11 @@ public class FileDeleteTool extends BaseTool {
             if (isImportantFile(fileName)) {
                 return "错误：不允许删除重要文件 - " + fileName;
             }
-            Files.delete(path);
+            if (!projectFileManager.delete(path)) {
+                return "警告：文件不存在，无需删除 - " + relativeFilePath;
+            }
+            projectDirIndexManager.onFileDeleted(path);
+            projectSearchIndexManager.onFileDeleted(path);
             log.info("成功删除文件: {}", path.toAbsolutePath());
             return "文件删除成功: " + relativeFilePath;
         } catch (IOException e) {
@@ -73,6 +83,11 @@ public class FileDeleteTool extends BaseTool {
         return false;
     }
 
+    @Override
+    public String getConflictKey(JSONObject arguments) {
+        return filePathConflictKey(arguments.getStr("relativeFilePath"));
+    }
+
     @Override
     public String getToolName() {
         return "deleteFile";
@@ -1,18 +1,19 @@
 package com.jay.aicodemother.ai.tools;
 
 import cn.hutool.json.JSONObject;
-import com.jay.aicodemother.constant.AppConstant;
+import com.jay.aicodemother.manager.ProjectDirIndexManager;
+import com.jay.aicodemother.manager.ProjectFileManager;
+import com.jay.aicodemother.manager.ProjectSearchIndexManager;
 import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
 import dev.langchain4j.agent.tool.ToolMemoryId;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
 
 /**
  * 文件修改工具
@@ -22,6 +23,15 @@ import java.nio.file.StandardOpenOption;
 @Component
 public class FileModifyTool extends BaseTool {
 
+    @Resource
+    private ProjectFileManager projectFileManager;
+
+    @Resource
+    private ProjectDirIndexManager projectDirIndexManager;
+
+    @Resource
+    private ProjectSearchIndexManager projectSearchIndexManager;
+
     @Tool("修改文件内容，用新内容替换指定的旧内容")
     public String modifyFile(
             @P("文件的相对路径")
@@ -33,24 +43,29 @@ public class FileModifyTool extends BaseTool {
             @ToolMemoryId Long appId
     ) {
         try {
-            Path path = Paths.get(relativeFilePath);
-            if (!path.isAbsolute()) {
-                String projectDirName = "vue_project_" + appId;
-                Path projectRoot = Paths.get(AppConstant.CODE_OUTPUT_ROOT_DIR, projectDirName);
-                path = projectRoot.resolve(relativeFilePath);
-            }
-            if (!Files.exists(path) || !Files.isRegularFile(path)) {
-                return "错误：文件不存在或不是文件 - " + relativeFilePath;
-            }
-            String originalContent = Files.readString(path);
-            if (!originalContent.contains(oldContent)) {
-                return "警告：文件中未找到要替换的内容，文件未修改 - " + relativeFilePath;
+            Path path = resolvePath(relativeFilePath, appId);
+            Path target = path;
+            // 读取、替换、写回在同一把路径锁内完成，并发修改同一文件不会丢失更新
+            String failure = projectFileManager.withLock(target, () -> {
+                if (!Files.exists(target) || !Files.isRegularFile(target)) {
+                    return "错误：文件不存在或不是文件 - " + relativeFilePath;
+                }
+                String originalContent = Files.readString(target);
+                if (!originalContent.contains(oldContent)) {
+                    return "警告：文件中未找到要替换的内容，文件未修改 - " + relativeFilePath;
+                }
+                String modifiedContent = originalContent.replace(oldContent, newContent);
+                if (originalContent.equals(modifiedContent)) {
+                    return "信息：替换后文件内容未发生变化 - " + relativeFilePath;
+                }
+                projectFileManager.writeLocked(target, modifiedContent);
+                return null;
+            });
+            if (failure != null) {
+                return failure;
             }
-            String modifiedContent = originalContent.replace(oldContent, newContent);
-            if (originalContent.equals(modifiedContent)) {
-                return "信息：替换后文件内容未发生变化 - " + relativeFilePath;
-            }
-            Files.writeString(path, modifiedContent, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+            projectDirIndexManager.onFileWritten(path);
+            projectSearchIndexManager.onFileWritten(path);
             log.info("成功修改文件: {}", path.toAbsolutePath());
             return "文件修改成功: " + relativeFilePath;
         } catch (IOException e) {
@@ -60,6 +75,11 @@ public class FileModifyTool extends BaseTool {
         }
     }
 
+    @Override
+    public String getConflictKey(JSONObject arguments) {
+        return filePathConflictKey(arguments.getStr("relativeFilePath"));
+    }
+
     @Override
     public String getToolName() {
         return "modifyFile";
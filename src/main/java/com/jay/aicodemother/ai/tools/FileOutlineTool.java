@@ -0,0 +1,88 @@
+package com.jay.aicodemother.ai.tools;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import cn.hutool.json.JSONObject;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.langchain4j.agent.tool.P;
+import dev.langchain4j.agent.tool.Tool;
+import dev.langchain4j.agent.tool.ToolMemoryId;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Class name: FileOutlineTool
+ * Package: com.jay.aicodemother.ai.tools
+ * Description: 文件大纲工具
+ *  返回文件的结构摘要（SFC 块、顶层函数、组件名等及其行号），模型可以先查看大纲再用 readFile 按行读取需要的部分，
+ *  避免整份大文件进入对话记忆。大纲按文件类型和内容的 sha256 缓存，内容不变时重复查看不再扫描
+ *
+ * @Create: 2026/10/18 03:10
+ * @Author: jay
+ * @Version: 1.0
+ */
+@Slf4j
+@Component
+public class FileOutlineTool extends BaseTool {
+
+    private static final int MAX_CACHED_OUTLINES = 2000;
+
+    private final Cache<String, String> outlineCache = Caffeine.newBuilder()
+            .maximumSize(MAX_CACHED_OUTLINES)
+            .build();
+
+    @Tool("查看文件的结构大纲（模板、脚本、样式块，顶层函数、变量、组件及所在行号），比读取整个文件节省上下文")
+    public String outlineFile(
+            @P("文件的相对路径")
+            String relativeFilePath,
+            @ToolMemoryId Long appId
+    ) {
+        try {
+            Path path = resolvePath(relativeFilePath, appId);
+            if (!Files.exists(path) || !Files.isRegularFile(path)) {
+                return "错误：文件不存在或不是文件 - " + relativeFilePath;
+            }
+            String content = Files.readString(path);
+            return outline(relativeFilePath, content);
+        } catch (IOException e) {
+            String errorMessage = "读取文件大纲失败: " + relativeFilePath + ", 错误: " + e.getMessage();
+            log.error(errorMessage, e);
+            return errorMessage;
+        }
+    }
+
+    String outline(String relativeFilePath, String content) {
+        String suffix = StrUtil.subAfter(relativeFilePath, '.', true);
+        String key = suffix + ":" + DigestUtil.sha256Hex(content);
+        String outline = outlineCache.get(key, ignored -> SourceOutlineScanner.outline(relativeFilePath, content));
+        long lines = content.isEmpty() ? 0 : content.chars().filter(c -> c == '\n').count() + (content.endsWith("\n") ? 0 : 1);
+        String header = String.format("文件大纲: %s（共 %d 行）", relativeFilePath, lines);
+        return outline.isEmpty() ? header + "\n没有可识别的结构，可以用 readFile 按行读取" : header + "\n" + outline;
+    }
+
+    @Override
+    public String getConflictKey(JSONObject arguments) {
+        return filePathConflictKey(arguments.getStr("relativeFilePath"));
+    }
+
+    @Override
+    public String getToolName() {
+        return "outlineFile";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "查看文件大纲";
+    }
+
+    @Override
+    public String generateToolExecutedResult(JSONObject arguments) {
+        String relativeFilePath = arguments.getStr("relativeFilePath");
+        return String.format("[工具调用] %s %s", getDisplayName(), relativeFilePath);
+    }
+}
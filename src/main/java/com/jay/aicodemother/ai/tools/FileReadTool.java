@@ -1,7 +1,7 @@
 package com.jay.aicodemother.ai.tools;
 
+import cn.hutool.core.util.StrUtil;
 import cn.hutool.json.JSONObject;
-import com.jay.aicodemother.constant.AppConstant;
 import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
 import dev.langchain4j.agent.tool.ToolMemoryId;
@@ -11,7 +11,7 @@ import org.springframework.stereotype.Component;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.util.List;
 
 /**
  * 文件读取工具
@@ -21,23 +21,26 @@ import java.nio.file.Paths;
 @Component
 public class FileReadTool extends BaseTool {
 
-    @Tool("读取指定路径的文件内容")
+    @Tool("读取指定路径的文件内容，可以只读取指定的行范围；大文件建议先调用 outlineFile 查看结构再按行读取")
     public String readFile(
             @P("文件的相对路径")
             String relativeFilePath,
+            @P(value = "起始行号（从 1 开始，包含），不传则从第一行开始", required = false)
+            Integer startLine,
+            @P(value = "结束行号（包含），不传则读取到最后一行", required = false)
+            Integer endLine,
             @ToolMemoryId Long appId
     ) {
         try {
-            Path path = Paths.get(relativeFilePath);
-            if (!path.isAbsolute()) {
-                String projectDirName = "vue_project_" + appId;
-                Path projectRoot = Paths.get(AppConstant.CODE_OUTPUT_ROOT_DIR, projectDirName);
-                path = projectRoot.resolve(relativeFilePath);
-            }
+            Path path = resolvePath(relativeFilePath, appId);
             if (!Files.exists(path) || !Files.isRegularFile(path)) {
                 return "错误：文件不存在或不是文件 - " + relativeFilePath;
             }
-            return Files.readString(path);
+            String content = Files.readString(path);
+            if (startLine == null && endLine == null) {
+                return content;
+            }
+            return readLines(relativeFilePath, content, startLine, endLine);
         } catch (IOException e) {
             String errorMessage = "读取文件失败: " + relativeFilePath + ", 错误: " + e.getMessage();
             log.error(errorMessage, e);
@@ -45,6 +48,31 @@ public class FileReadTool extends BaseTool {
         }
     }
 
+    /**
+     * 截取指定行范围的内容，开头注明实际范围和总行数，方便模型继续按行读取
+     */
+    static String readLines(String relativeFilePath, String content, Integer startLine, Integer endLine) {
+        List<String> lines = StrUtil.split(content, '\n');
+        // 以换行结尾的文件最后会多出一个空行
+        if (lines.size() > 1 && content.endsWith("\n")) {
+            lines = lines.subList(0, lines.size() - 1);
+        }
+        int total = lines.size();
+        int start = Math.max(1, startLine == null ? 1 : startLine);
+        int end = Math.min(total, endLine == null ? total : endLine);
+        if (start > end) {
+            return String.format("错误：行范围无效 %d-%d，文件共 %d 行 - %s",
+                    startLine == null ? 1 : startLine, endLine == null ? total : endLine, total, relativeFilePath);
+        }
+        return String.format("[%s 第 %d-%d 行，共 %d 行]\n%s\n", relativeFilePath, start, end, total,
+                String.join("\n", lines.subList(start - 1, end)));
+    }
+
+    @Override
+    public String getConflictKey(JSONObject arguments) {
+        return filePathConflictKey(arguments.getStr("relativeFilePath"));
+    }
+
     @Override
     public String getToolName() {
         return "readFile";
@@ -58,6 +86,12 @@ public class FileReadTool extends BaseTool {
     @Override
     public String generateToolExecutedResult(JSONObject arguments) {
         String relativeFilePath = arguments.getStr("relativeFilePath");
-        return String.format("[工具调用] %s %s", getDisplayName(), relativeFilePath);
+        Integer startLine = arguments.getInt("startLine");
+        Integer endLine = arguments.getInt("endLine");
+        if (startLine == null && endLine == null) {
+            return String.format("[工具调用] %s %s", getDisplayName(), relativeFilePath);
+        }
+        return String.format("[工具调用] %s %s 第 %s-%s 行", getDisplayName(), relativeFilePath,
+                startLine == null ? 1 : startLine, endLine == null ? "末" : endLine);
     }
 }
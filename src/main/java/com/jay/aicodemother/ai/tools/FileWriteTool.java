@@ -2,19 +2,18 @@ package com.jay.aicodemother.ai.tools;
 
 import cn.hutool.core.io.FileUtil;
 import cn.hutool.json.JSONObject;
-import com.jay.aicodemother.constant.AppConstant;
+import com.jay.aicodemother.manager.ProjectDirIndexManager;
+import com.jay.aicodemother.manager.ProjectFileManager;
+import com.jay.aicodemother.manager.ProjectSearchIndexManager;
 import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
 import dev.langchain4j.agent.tool.ToolMemoryId;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
 
 /**
  * 文件写入工具
@@ -24,6 +23,15 @@ import java.nio.file.StandardOpenOption;
 @Component
 public class FileWriteTool extends BaseTool {
 
+    @Resource
+    private ProjectFileManager projectFileManager;
+
+    @Resource
+    private ProjectDirIndexManager projectDirIndexManager;
+
+    @Resource
+    private ProjectSearchIndexManager projectSearchIndexManager;
+
     @Tool("写入文件到指定路径")
     public String writeFile(
             @P("文件的相对路径")
@@ -33,22 +41,11 @@ public class FileWriteTool extends BaseTool {
             @ToolMemoryId Long appId
     ) {
         try {
-            Path path = Paths.get(relativeFilePath);
-            if (!path.isAbsolute()) {
-                // 相对路径处理，创建基于 appId 的项目目录
-                String projectDirName = "vue_project_" + appId;
-                Path projectRoot = Paths.get(AppConstant.CODE_OUTPUT_ROOT_DIR, projectDirName);
-                path = projectRoot.resolve(relativeFilePath);
-            }
-            // 创建父目录（如果不存在）
-            Path parentDir = path.getParent();
-            if (parentDir != null) {
-                Files.createDirectories(parentDir);
-            }
-            // 写入文件内容
-            Files.write(path, content.getBytes(),
-                    StandardOpenOption.CREATE,
-                    StandardOpenOption.TRUNCATE_EXISTING);
+            Path path = resolvePath(relativeFilePath, appId);
+            // 写入临时文件后原子替换，父目录不存在时自动创建
+            projectFileManager.write(path, content);
+            projectDirIndexManager.onFileWritten(path);
+            projectSearchIndexManager.onFileWritten(path);
             log.info("成功写入文件: {}", path.toAbsolutePath());
             // 注意要返回相对路径，不能让 AI 把文件绝对路径返回给用户
             return "文件写入成功: " + relativeFilePath;
@@ -58,6 +55,12 @@ public class FileWriteTool extends BaseTool {
             return errorMessage;
         }
     }
+
+    @Override
+    public String getConflictKey(JSONObject arguments) {
+        return filePathConflictKey(arguments.getStr("relativeFilePath"));
+    }
+
     @Override
     public String getToolName() {
         return "writeFile";
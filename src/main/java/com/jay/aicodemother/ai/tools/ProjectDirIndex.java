@@ -0,0 +1,214 @@
+package com.jay.aicodemother.ai.tools;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Class name: ProjectDirIndex
+ * Package: com.jay.aicodemother.ai.tools
+ * Description: 项目目录结构索引
+ *  创建时遍历一次磁盘，之后由文件工具和目录监听增量更新；readDir 直接从索引输出，耗时只与输出的条目数有关。
+ *  node_modules、dist 等忽略的目录整个跳过，不会进入索引。所有方法都是同步的，文件工具可能并行调用
+ *
+ * @Create: 2026/10/18 01:40
+ * @Author: jay
+ * @Version: 1.0
+ */
+public class ProjectDirIndex {
+
+    /**
+     * 需要忽略的文件和目录
+     */
+    static final Set<String> IGNORED_NAMES = Set.of(
+            "node_modules", ".git", "dist", "build", ".DS_Store",
+            ".env", "target", ".mvn", ".idea", ".vscode", "coverage"
+    );
+
+    /**
+     * 需要忽略的文件扩展名
+     */
+    static final Set<String> IGNORED_EXTENSIONS = Set.of(
+            ".log", ".tmp", ".cache", ".lock"
+    );
+
+    private final Path root;
+
+    private final Node rootNode = new Node();
+
+    private ProjectDirIndex(Path root) {
+        this.root = root;
+    }
+
+    /**
+     * 遍历目录创建索引
+     *
+     * @param root 项目根目录
+     * @return 索引
+     */
+    public static ProjectDirIndex build(Path root) throws IOException {
+        ProjectDirIndex index = new ProjectDirIndex(root.toAbsolutePath().normalize());
+        index.walk(index.root);
+        return index;
+    }
+
+    public Path root() {
+        return root;
+    }
+
+    /**
+     * 判断是否应该忽略该文件或目录
+     */
+    public static boolean isIgnored(String fileName) {
+        if (IGNORED_NAMES.contains(fileName)) {
+            return true;
+        }
+        return IGNORED_EXTENSIONS.stream().anyMatch(fileName::endsWith);
+    }
+
+    /**
+     * 把目录下的所有文件加入索引（目录监听发现新目录时使用）
+     */
+    public void walk(Path dir) throws IOException {
+        Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path path, BasicFileAttributes attrs) {
+                if (!path.equals(dir) && isIgnored(path.getFileName().toString())) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                addDirectory(path);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) {
+                addFile(path);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path path, IOException e) {
+                // 遍历过程中被删除的文件
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * 记录新增（或已存在）的文件
+     */
+    public synchronized void addFile(Path file) {
+        Path relative = relativize(file);
+        if (relative == null || relative.getNameCount() == 0 || relative.toString().isEmpty()) {
+            return;
+        }
+        Node parent = directoryNode(relative.getParent(), true);
+        if (parent != null) {
+            parent.files.add(relative.getFileName().toString());
+        }
+    }
+
+    /**
+     * 记录新增的目录
+     */
+    public synchronized void addDirectory(Path dir) {
+        Path relative = relativize(dir);
+        if (relative != null) {
+            directoryNode(relative, true);
+        }
+    }
+
+    /**
+     * 移除文件或目录（目录连同其下的所有条目）
+     */
+    public synchronized void remove(Path path) {
+        Path relative = relativize(path);
+        if (relative == null || relative.toString().isEmpty()) {
+            return;
+        }
+        Node parent = directoryNode(relative.getParent(), false);
+        if (parent != null) {
+            String name = relative.getFileName().toString();
+            parent.files.remove(name);
+            parent.dirs.remove(name);
+        }
+    }
+
+    /**
+     * 输出目录结构：每层先列文件再列子目录，均按名称排序，子目录以 / 结尾，按层级缩进
+     *
+     * @param dir 要输出的目录
+     * @return 目录结构，目录不在索引中时返回 null
+     */
+    public synchronized String render(Path dir) {
+        Path relative = relativize(dir);
+        Node node = relative == null ? null : directoryNode(relative, false);
+        if (node == null) {
+            return null;
+        }
+        StringBuilder structure = new StringBuilder("项目目录结构:\n");
+        render(node, 0, structure);
+        return structure.toString();
+    }
+
+    private void render(Node node, int depth, StringBuilder structure) {
+        String indent = "  ".repeat(depth);
+        for (String file : node.files) {
+            structure.append(indent).append(file).append('\n');
+        }
+        for (Map.Entry<String, Node> entry : node.dirs.entrySet()) {
+            structure.append(indent).append(entry.getKey()).append("/\n");
+            render(entry.getValue(), depth + 1, structure);
+        }
+    }
+
+    /**
+     * 转换为相对根目录的路径，不在根目录下或位于忽略的目录中时返回 null
+     */
+    private Path relativize(Path path) {
+        Path normalized = path.toAbsolutePath().normalize();
+        if (!normalized.startsWith(root)) {
+            return null;
+        }
+        Path relative = root.relativize(normalized);
+        for (Path name : relative) {
+            if (isIgnored(name.toString())) {
+                return null;
+            }
+        }
+        return relative;
+    }
+
+    private Node directoryNode(Path relative, boolean create) {
+        Node node = rootNode;
+        if (relative == null || relative.toString().isEmpty()) {
+            return node;
+        }
+        for (Path name : relative) {
+            Node child = node.dirs.get(name.toString());
+            if (child == null) {
+                if (!create) {
+                    return null;
+                }
+                child = new Node();
+                node.dirs.put(name.toString(), child);
+            }
+            node = child;
+        }
+        return node;
+    }
+
+    private static class Node {
+
+        private final TreeMap<String, Node> dirs = new TreeMap<>();
+
+        private final TreeSet<String> files = new TreeSet<>();
+    }
+}
@@ -0,0 +1,301 @@
+package com.jay.aicodemother.ai.tools;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.StrUtil;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Class name: ProjectSearchIndex
+ * Package: com.jay.aicodemother.ai.tools
+ * Description: 项目源码的全文搜索索引
+ *  内存中保存每个源文件的内容和三元组倒排表（小写字符的三元组 -> 包含它的文件）：
+ *  查询时先用查询词的三元组求交集得到候选文件，再在候选文件中逐行匹配，不需要读取磁盘。
+ *  只索引 {@link #INDEXED_EXTENSIONS} 中的文本文件，跳过 node_modules 等忽略的目录和超过 {@link #MAX_FILE_BYTES} 的文件。
+ *  所有方法都是同步的，文件工具可能并行调用
+ *
+ * @Create: 2026/10/18 03:30
+ * @Author: jay
+ * @Version: 1.0
+ */
+public class ProjectSearchIndex {
+
+    /**
+     * 建立索引的文件类型
+     */
+    static final Set<String> INDEXED_EXTENSIONS = Set.of(
+            "vue", "js", "mjs", "cjs", "jsx", "ts", "tsx", "json",
+            "html", "css", "scss", "sass", "less", "md", "txt"
+    );
+
+    static final long MAX_FILE_BYTES = 256 * 1024;
+
+    /**
+     * 每行匹配结果最多输出的字符数
+     */
+    private static final int MAX_LINE_CHARS = 200;
+
+    private final Path root;
+
+    /**
+     * 相对路径 -> 文件，按路径排序，搜索结果的顺序稳定
+     */
+    private final Map<String, IndexedFile> files = new TreeMap<>();
+
+    private final Map<String, Set<String>> trigrams = new HashMap<>();
+
+    private ProjectSearchIndex(Path root) {
+        this.root = root;
+    }
+
+    /**
+     * 遍历目录创建索引
+     *
+     * @param root 项目根目录
+     * @return 索引
+     */
+    public static ProjectSearchIndex build(Path root) throws IOException {
+        ProjectSearchIndex index = new ProjectSearchIndex(root.toAbsolutePath().normalize());
+        Files.walkFileTree(index.root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (!dir.equals(index.root) && ProjectDirIndex.isIgnored(dir.getFileName().toString())) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                index.update(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return index;
+    }
+
+    public Path root() {
+        return root;
+    }
+
+    /**
+     * 重新读取文件并更新索引，文件已不存在或不需要索引时从索引中移除
+     */
+    public synchronized void update(Path file) {
+        String relativePath = relativize(file);
+        if (relativePath == null) {
+            return;
+        }
+        removeEntry(relativePath);
+        if (!INDEXED_EXTENSIONS.contains(StrUtil.nullToEmpty(FileUtil.getSuffix(relativePath)).toLowerCase(Locale.ROOT))) {
+            return;
+        }
+        Path normalized = root.resolve(relativePath);
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(normalized, BasicFileAttributes.class);
+            if (!attrs.isRegularFile() || attrs.size() > MAX_FILE_BYTES) {
+                return;
+            }
+            String content = Files.readString(normalized);
+            IndexedFile indexedFile = new IndexedFile(content, attrs.lastModifiedTime().toMillis(), attrs.size());
+            files.put(relativePath, indexedFile);
+            for (String trigram : indexedFile.trigrams) {
+                trigrams.computeIfAbsent(trigram, key -> new HashSet<>()).add(relativePath);
+            }
+        } catch (IOException e) {
+            // 文件已被删除、无法读取或不是 UTF-8 文本，不建立索引
+        }
+    }
+
+    /**
+     * 移除文件，传入目录时移除目录下的所有文件
+     */
+    public synchronized void remove(Path path) {
+        String relativePath = relativize(path);
+        if (relativePath == null) {
+            return;
+        }
+        removeEntry(relativePath);
+        String prefix = relativePath + "/";
+        List<String> children = files.keySet().stream().filter(name -> name.startsWith(prefix)).toList();
+        children.forEach(this::removeEntry);
+    }
+
+    /**
+     * 检查已索引的文件是否在工具之外被修改或删除，只比较修改时间和大小
+     */
+    public synchronized void refresh() {
+        for (String relativePath : new ArrayList<>(files.keySet())) {
+            IndexedFile indexedFile = files.get(relativePath);
+            Path file = root.resolve(relativePath);
+            try {
+                BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+                if (attrs.lastModifiedTime().toMillis() != indexedFile.lastModified || attrs.size() != indexedFile.size) {
+                    update(file);
+                }
+            } catch (IOException e) {
+                removeEntry(relativePath);
+            }
+        }
+    }
+
+    /**
+     * 搜索包含查询内容的行（忽略大小写）
+     *
+     * @param query      查询内容
+     * @param maxResults 最多返回的行数
+     * @return 搜索结果
+     */
+    public synchronized SearchResult search(String query, int maxResults) {
+        String lowerQuery = query.toLowerCase(Locale.ROOT);
+        List<Match> matches = new ArrayList<>();
+        int total = 0;
+        Set<String> matchedFiles = new TreeSet<>();
+        for (String relativePath : candidates(lowerQuery)) {
+            IndexedFile indexedFile = files.get(relativePath);
+            for (int i = 0; i < indexedFile.lowerLines.length; i++) {
+                if (!indexedFile.lowerLines[i].contains(lowerQuery)) {
+                    continue;
+                }
+                total++;
+                matchedFiles.add(relativePath);
+                if (matches.size() < maxResults) {
+                    matches.add(new Match(relativePath, i + 1,
+                            StrUtil.maxLength(indexedFile.lines[i].strip(), MAX_LINE_CHARS)));
+                }
+            }
+        }
+        return new SearchResult(matches, total, matchedFiles.size());
+    }
+
+    /**
+     * 候选文件：查询内容的所有三元组都出现过的文件；查询内容少于 3 个字符时为全部文件
+     */
+    private Iterable<String> candidates(String lowerQuery) {
+        if (lowerQuery.length() < 3) {
+            return files.keySet();
+        }
+        Set<String> candidates = null;
+        for (String trigram : trigramsOf(lowerQuery)) {
+            Set<String> posting = trigrams.get(trigram);
+            if (posting == null) {
+                return Set.of();
+            }
+            if (candidates == null) {
+                candidates = new TreeSet<>(posting);
+            } else {
+                candidates.retainAll(posting);
+            }
+            if (candidates.isEmpty()) {
+                break;
+            }
+        }
+        return candidates;
+    }
+
+    public synchronized int fileCount() {
+        return files.size();
+    }
+
+    private void removeEntry(String relativePath) {
+        IndexedFile removed = files.remove(relativePath);
+        if (removed == null) {
+            return;
+        }
+        for (String trigram : removed.trigrams) {
+            Set<String> posting = trigrams.get(trigram);
+            if (posting != null) {
+                posting.remove(relativePath);
+                if (posting.isEmpty()) {
+                    trigrams.remove(trigram);
+                }
+            }
+        }
+    }
+
+    /**
+     * 转换为相对根目录的路径（统一使用 / 分隔），不在根目录下、位于忽略的目录中或不是需要索引的类型时返回 null
+     */
+    private String relativize(Path path) {
+        Path normalized = path.toAbsolutePath().normalize();
+        if (!normalized.startsWith(root) || normalized.equals(root)) {
+            return null;
+        }
+        Path relative = root.relativize(normalized);
+        for (Path name : relative) {
+            if (ProjectDirIndex.isIgnored(name.toString())) {
+                return null;
+            }
+        }
+        return relative.toString().replace('\\', '/');
+    }
+
+    private static Set<String> trigramsOf(String lowerText) {
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + 3 <= lowerText.length(); i++) {
+            result.add(lowerText.substring(i, i + 3));
+        }
+        return result;
+    }
+
+    private static class IndexedFile {
+
+        private final String[] lines;
+
+        private final String[] lowerLines;
+
+        private final Set<String> trigrams;
+
+        private final long lastModified;
+
+        private final long size;
+
+        private IndexedFile(String content, long lastModified, long size) {
+            this.lines = content.split("\r?\n", -1);
+            this.lowerLines = new String[lines.length];
+            this.trigrams = new HashSet<>();
+            for (int i = 0; i < lines.length; i++) {
+                lowerLines[i] = lines[i].toLowerCase(Locale.ROOT);
+                // 按行取三元组，和逐行匹配保持一致
+                trigrams.addAll(trigramsOf(lowerLines[i]));
+            }
+            this.lastModified = lastModified;
+            this.size = size;
+        }
+    }
+
+    /**
+     * 一行匹配结果，行号从 1 开始
+     */
+    public record Match(String relativePath, int lineNumber, String line) {
+    }
+
+    /**
+     * 搜索结果
+     *
+     * @param matches      返回的匹配行
+     * @param totalMatches 匹配的总行数（可能多于返回的行数）
+     * @param fileCount    包含匹配的文件数
+     */
+    public record SearchResult(List<Match> matches, int totalMatches, int fileCount) {
+    }
+}
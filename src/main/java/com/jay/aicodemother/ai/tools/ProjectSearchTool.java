@@ -0,0 +1,83 @@
+package com.jay.aicodemother.ai.tools;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONObject;
+import com.jay.aicodemother.manager.ProjectSearchIndexManager;
+import dev.langchain4j.agent.tool.P;
+import dev.langchain4j.agent.tool.Tool;
+import dev.langchain4j.agent.tool.ToolMemoryId;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * 项目搜索工具
+ * 在项目源码中搜索文本，返回匹配的文件、行号和所在行，不需要先读取目录再逐个读取文件
+ */
+@Slf4j
+@Component
+public class ProjectSearchTool extends BaseTool {
+
+    private static final int DEFAULT_MAX_RESULTS = 50;
+
+    private static final int MAX_RESULTS_LIMIT = 200;
+
+    @Resource
+    private ProjectSearchIndexManager projectSearchIndexManager;
+
+    @Tool("在整个项目的源码中搜索文本（忽略大小写），返回匹配的文件路径、行号和该行内容，用于查找组件、函数、样式等定义或使用的位置")
+    public String searchProject(
+            @P("要搜索的文本，按字面匹配，不支持正则")
+            String query,
+            @P(value = "最多返回的匹配行数，默认 50", required = false)
+            Integer maxResults,
+            @ToolMemoryId Long appId
+    ) {
+        if (StrUtil.isEmpty(query)) {
+            return "错误：搜索内容不能为空";
+        }
+        int limit = maxResults == null || maxResults <= 0 ? DEFAULT_MAX_RESULTS : Math.min(maxResults, MAX_RESULTS_LIMIT);
+        try {
+            long start = System.nanoTime();
+            ProjectSearchIndex.SearchResult result = projectSearchIndexManager.search(projectRoot(appId), query, limit);
+            if (result == null) {
+                return "错误：项目目录不存在";
+            }
+            log.info("搜索项目完成， appId : {}, query : {}, 匹配 : {}, 耗时 : {} ms",
+                    appId, query, result.totalMatches(), (System.nanoTime() - start) / 1_000_000);
+            if (result.totalMatches() == 0) {
+                return "未找到匹配内容: " + query;
+            }
+            StringBuilder output = new StringBuilder(String.format("共 %d 处匹配，%d 个文件", result.totalMatches(), result.fileCount()));
+            if (result.totalMatches() > result.matches().size()) {
+                output.append(String.format("，只显示前 %d 处", result.matches().size()));
+            }
+            output.append('\n');
+            for (ProjectSearchIndex.Match match : result.matches()) {
+                output.append(match.relativePath()).append(':').append(match.lineNumber())
+                        .append(": ").append(match.line()).append('\n');
+            }
+            return output.toString();
+        } catch (Exception e) {
+            String errorMessage = "搜索项目失败: " + query + ", 错误: " + e.getMessage();
+            log.error(errorMessage, e);
+            return errorMessage;
+        }
+    }
+
+    @Override
+    public String getToolName() {
+        return "searchProject";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "搜索项目";
+    }
+
+    @Override
+    public String generateToolExecutedResult(JSONObject arguments) {
+        String query = arguments.getStr("query");
+        return String.format("[工具调用] %s %s", getDisplayName(), query);
+    }
+}
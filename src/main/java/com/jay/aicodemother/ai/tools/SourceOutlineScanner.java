@@ -0,0 +1,232 @@
+package com.jay.aicodemother.ai.tools;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Class name: SourceOutlineScanner
+ * Package: com.jay.aicodemother.ai.tools
+ * Description: 源文件结构扫描
+ *  逐行匹配生成文件大纲，不做完整的语法解析：
+ *  - .vue：顶层的 template / script / style 块及行范围，模板中使用的组件，script 中的顶层声明
+ *  - .js / .ts 等：顶层（没有缩进）的导入、函数、类、变量和 export default 中的组件选项
+ *  - .json：顶层字段，依赖和脚本列出名称
+ *  - .css / .scss / .less：顶层选择器和 @ 规则
+ *  其他类型只输出总行数
+ *
+ * @Create: 2026/10/18 03:00
+ * @Author: jay
+ * @Version: 1.0
+ */
+final class SourceOutlineScanner {
+
+    private static final Pattern SFC_BLOCK_OPEN = Pattern.compile("^<(template|script|style)(\\s[^>]*)?>");
+
+    private static final Pattern SFC_BLOCK_CLOSE = Pattern.compile("^</(template|script|style)>");
+
+    /**
+     * 模板中的组件：大驼峰标签或带连字符的标签
+     */
+    private static final Pattern COMPONENT_TAG = Pattern.compile("<([A-Z][A-Za-z0-9]*|[a-z][a-z0-9]*(?:-[a-z0-9]+)+)[\\s/>]");
+
+    private static final Pattern IMPORT = Pattern.compile("^import\\s+(?:.*\\s+from\\s+)?['\"]([^'\"]+)['\"]");
+
+    private static final Pattern FUNCTION = Pattern.compile("^(?:export\\s+)?(?:default\\s+)?(?:async\\s+)?function\\s*\\*?\\s*([A-Za-z_$][\\w$]*)");
+
+    private static final Pattern ARROW_FUNCTION = Pattern.compile("^(?:export\\s+)?(?:const|let|var)\\s+([A-Za-z_$][\\w$]*)\\s*(?::[^=]+)?=\\s*(?:async\\s+)?(?:\\([^)]*\\)|[A-Za-z_$][\\w$]*)\\s*(?::[^=]+)?=>");
+
+    private static final Pattern CLASS = Pattern.compile("^(?:export\\s+)?(?:default\\s+)?class\\s+([A-Za-z_$][\\w$]*)");
+
+    private static final Pattern VARIABLE = Pattern.compile("^(?:export\\s+)?(?:const|let|var)\\s+([A-Za-z_$][\\w$]*|\\{[^}]*}|\\[[^]]*])\\s*(?::[^=]+)?=\\s*([A-Za-z_$][\\w$.]*)?");
+
+    private static final Pattern TYPE = Pattern.compile("^(?:export\\s+)?(?:interface|type|enum)\\s+([A-Za-z_$][\\w$]*)");
+
+    private static final Pattern EXPORT_DEFAULT = Pattern.compile("^export\\s+default\\b");
+
+    /**
+     * export default 对象中的组件选项（两个空格缩进）
+     */
+    private static final Pattern COMPONENT_OPTION = Pattern.compile("^ {2}(?:async\\s+)?([A-Za-z_$][\\w$]*)\\s*(?::|\\()");
+
+    private static final Pattern COMPONENT_NAME = Pattern.compile("^ {2}name\\s*:\\s*['\"]([^'\"]+)['\"]");
+
+    private static final Pattern CSS_RULE = Pattern.compile("^([^\\s{}][^{}]*?)\\s*\\{");
+
+    private static final Set<String> SCRIPT_SUFFIXES = Set.of("js", "mjs", "cjs", "jsx", "ts", "tsx");
+
+    private static final Set<String> STYLE_SUFFIXES = Set.of("css", "scss", "sass", "less");
+
+    private static final Set<String> JSON_LIST_FIELDS = Set.of("scripts", "dependencies", "devDependencies", "peerDependencies");
+
+    private SourceOutlineScanner() {
+    }
+
+    /**
+     * 生成文件大纲（不含文件路径和总行数）
+     *
+     * @param relativeFilePath 文件路径，用于判断文件类型
+     * @param content          文件内容
+     * @return 大纲，每行一项，行号从 1 开始
+     */
+    static String outline(String relativeFilePath, String content) {
+        String[] lines = content.split("\n", -1);
+        String suffix = StrUtil.nullToEmpty(FileUtil.getSuffix(relativeFilePath)).toLowerCase();
+        List<String> outline = new ArrayList<>();
+        if ("vue".equals(suffix)) {
+            scanSfc(lines, outline);
+        } else if (SCRIPT_SUFFIXES.contains(suffix)) {
+            scanScript(lines, 0, lines.length, "", outline);
+        } else if ("json".equals(suffix)) {
+            scanJson(content, outline);
+        } else if (STYLE_SUFFIXES.contains(suffix)) {
+            scanStyle(lines, 0, lines.length, "", outline);
+        }
+        return String.join("\n", outline);
+    }
+
+    private static void scanSfc(String[] lines, List<String> outline) {
+        int i = 0;
+        while (i < lines.length) {
+            Matcher open = SFC_BLOCK_OPEN.matcher(lines[i]);
+            if (!open.find()) {
+                i++;
+                continue;
+            }
+            String block = open.group(1);
+            int start = i;
+            int end = lines.length - 1;
+            for (int j = i + 1; j < lines.length; j++) {
+                Matcher close = SFC_BLOCK_CLOSE.matcher(lines[j]);
+                if (close.find() && close.group(1).equals(block)) {
+                    end = j;
+                    break;
+                }
+            }
+            outline.add(String.format("%s %s", open.group().trim(), lineRange(start, end)));
+            switch (block) {
+                case "template" -> scanTemplate(lines, start + 1, end, outline);
+                case "script" -> scanScript(lines, start + 1, end, "  ", outline);
+                default -> scanStyle(lines, start + 1, end, "  ", outline);
+            }
+            i = end + 1;
+        }
+    }
+
+    private static void scanTemplate(String[] lines, int from, int to, List<String> outline) {
+        Set<String> components = new LinkedHashSet<>();
+        for (int i = from; i < to; i++) {
+            Matcher matcher = COMPONENT_TAG.matcher(lines[i]);
+            while (matcher.find()) {
+                components.add(matcher.group(1));
+            }
+        }
+        if (!components.isEmpty()) {
+            outline.add("  组件: " + String.join(", ", components));
+        }
+    }
+
+    private static void scanScript(String[] lines, int from, int to, String indent, List<String> outline) {
+        List<String> imports = new ArrayList<>();
+        int importStart = -1;
+        int importEnd = -1;
+        int importIndex = 0;
+        boolean inExportDefault = false;
+        List<String> options = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            String line = lines[i];
+            Matcher matcher;
+            if (inExportDefault) {
+                if (line.startsWith("}")) {
+                    inExportDefault = false;
+                    if (!options.isEmpty()) {
+                        outline.add(indent + "  选项: " + String.join(", ", options));
+                        options.clear();
+                    }
+                } else if ((matcher = COMPONENT_NAME.matcher(line)).find()) {
+                    outline.add(String.format("%s  组件名 %s %s", indent, matcher.group(1), lineRange(i, i)));
+                } else if ((matcher = COMPONENT_OPTION.matcher(line)).find()) {
+                    options.add(matcher.group(1));
+                }
+                continue;
+            }
+            if ((matcher = IMPORT.matcher(line)).find()) {
+                // 所有导入合并为一项，放在第一条导入的位置
+                if (importStart < 0) {
+                    importStart = i;
+                    importIndex = outline.size();
+                }
+                imports.add(matcher.group(1));
+                importEnd = i;
+            } else if ((matcher = FUNCTION.matcher(line)).find() || (matcher = ARROW_FUNCTION.matcher(line)).find()) {
+                outline.add(String.format("%s函数 %s %s", indent, matcher.group(1), lineRange(i, i)));
+            } else if ((matcher = CLASS.matcher(line)).find()) {
+                outline.add(String.format("%s类 %s %s", indent, matcher.group(1), lineRange(i, i)));
+            } else if ((matcher = TYPE.matcher(line)).find()) {
+                outline.add(String.format("%s类型 %s %s", indent, matcher.group(1), lineRange(i, i)));
+            } else if ((matcher = VARIABLE.matcher(line)).find()) {
+                // 只标出 ref()、defineProps() 这类调用，字面量不展开
+                String initializer = matcher.group(2);
+                String call = initializer != null && line.contains(initializer + "(") ? " = " + initializer + "()" : "";
+                outline.add(String.format("%s变量 %s%s %s", indent, matcher.group(1), call, lineRange(i, i)));
+            } else if (EXPORT_DEFAULT.matcher(line).find()) {
+                outline.add(String.format("%sexport default %s", indent, lineRange(i, i)));
+                inExportDefault = line.trim().endsWith("{");
+            }
+        }
+        if (!imports.isEmpty()) {
+            outline.add(importIndex, String.format("%s导入 %s: %s",
+                    indent, lineRange(importStart, importEnd), String.join(", ", imports)));
+        }
+    }
+
+    private static void scanJson(String content, List<String> outline) {
+        if (!JSONUtil.isTypeJSONObject(content)) {
+            return;
+        }
+        JSONObject json;
+        try {
+            json = JSONUtil.parseObj(content);
+        } catch (Exception e) {
+            return;
+        }
+        for (Map.Entry<String, Object> entry : json.entrySet()) {
+            if (JSON_LIST_FIELDS.contains(entry.getKey()) && entry.getValue() instanceof JSONObject fields) {
+                outline.add(String.format("%s: %s", entry.getKey(), String.join(", ", fields.keySet())));
+            } else if (entry.getValue() instanceof JSONObject fields) {
+                outline.add(String.format("%s: {%d 个字段}", entry.getKey(), fields.size()));
+            } else {
+                outline.add(String.format("%s: %s", entry.getKey(), StrUtil.maxLength(String.valueOf(entry.getValue()), 60)));
+            }
+        }
+    }
+
+    private static void scanStyle(String[] lines, int from, int to, String indent, List<String> outline) {
+        List<String> selectors = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            Matcher matcher = CSS_RULE.matcher(lines[i]);
+            if (matcher.find()) {
+                selectors.add(matcher.group(1));
+            }
+        }
+        if (!selectors.isEmpty()) {
+            outline.add(indent + "规则: " + String.join(", ", selectors));
+        }
+    }
+
+    /**
+     * 行号范围，参数为从 0 开始的下标
+     */
+    private static String lineRange(int start, int end) {
+        return start == end ? String.format("第 %d 行", start + 1) : String.format("第 %d-%d 行", start + 1, end + 1);
+    }
+}
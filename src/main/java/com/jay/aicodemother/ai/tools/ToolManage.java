@@ -1,5 +1,8 @@
 package com.jay.aicodemother.ai.tools;
 
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
@@ -55,4 +58,23 @@ public class ToolManage {
         return tools;
     }
 
-}
\ No newline at end of file
+    /**
+     * 获取工具调用的冲突键（见 {@link BaseTool#getConflictKey}）
+     * @param toolExecutionRequest 工具调用请求
+     * @return 冲突键，未知工具或参数无法解析时返回 null（与所有调用冲突）
+     */
+    public String getConflictKey(ToolExecutionRequest toolExecutionRequest) {
+        BaseTool tool = getTool(toolExecutionRequest.name());
+        if (tool == null) {
+            return null;
+        }
+        try {
+            JSONObject arguments = JSONUtil.parseObj(toolExecutionRequest.arguments());
+            return tool.getConflictKey(arguments);
+        } catch (Exception e) {
+            log.warn("解析工具参数失败， toolName : {}", toolExecutionRequest.name());
+            return null;
+        }
+    }
+
+}
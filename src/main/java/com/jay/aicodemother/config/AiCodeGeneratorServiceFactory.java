@@ -16,21 +16,16 @@
  */
 package com.jay.aicodemother.config;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
 import com.jay.aicodemother.ai.AiCodeGeneratorService;
 import com.jay.aicodemother.ai.tools.FileWriteTool;
 import com.jay.aicodemother.ai.tools.ToolManage;
 import com.jay.aicodemother.exception.BusinessException;
 import com.jay.aicodemother.exception.ErrorCode;
+import com.jay.aicodemother.manager.ChatMemoryCacheManager;
 import com.jay.aicodemother.model.enums.CodeGenTypeEnum;
-import com.jay.aicodemother.service.ChatHistoryService;
-import dev.langchain4j.community.store.memory.chat.redis.RedisChatMemoryStore;
 import dev.langchain4j.data.message.ToolExecutionResultMessage;
-import dev.langchain4j.memory.chat.MessageWindowChatMemory;
 import dev.langchain4j.model.chat.ChatModel;
 import dev.langchain4j.model.chat.StreamingChatModel;
-import dev.langchain4j.model.openai.OpenAiStreamingChatModel;
 import dev.langchain4j.service.AiServices;
 import jakarta.annotation.Resource;
 import lombok.AllArgsConstructor;
@@ -41,7 +36,8 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Configuration
 //@RequiredArgsConstructor
@@ -52,77 +48,55 @@ public class AiCodeGeneratorServiceFactory {
     @Resource
     private  ChatModel chatModel;
 
-    @Resource
-    private OpenAiStreamingChatModel openAiStreamingChatModel;
-
     @Resource
     private StreamingChatModel reasoningStreamingChatModel;
 
+    /**
+     * HTML / 多文件生成使用的流式模型，开启模型网关时在多个端点之间负载均衡（见 ModelGatewayConfig）
+     */
     @Resource
-    private RedisChatMemoryStore redisChatMemoryStore;
+    private StreamingChatModel codeGenStreamingChatModel;
 
     @Resource
-    private ChatHistoryService chatHistoryService;
+    private ChatMemoryCacheManager chatMemoryCacheManager;
 
     @Resource
     private ToolManage toolManage;
+
     /**
-     * AI 服务实例缓存
-     *  缓存策略
-     *  最大缓存 1000 个实例
-     *  缓存过期时间 30 分钟
-     *  缓存访问时间 10 分钟
+     * AI 服务代理缓存
+     *  每种生成类型只创建一个代理，对话记忆通过 chatMemoryProvider 按 memoryId（应用ID）从 ChatMemoryCacheManager 获取
      */
-    private final Cache<String, AiCodeGeneratorService> serviceCache = Caffeine.newBuilder()
-            .maximumSize(1000)
-            .expireAfterWrite(Duration.ofMinutes(30))
-            .expireAfterAccess(Duration.ofMinutes(10))
-            .removalListener((key, value, cause) -> {
-                log.debug("AI 服务实例被移除， 缓存键 : {}, 原因 : {}", key, cause);
-            })
-            .build();
-
-    public AiCodeGeneratorService getAiCodeGeneratorService(Long appId){
-        return getAiCodeGeneratorService(appId, CodeGenTypeEnum.HTML);
-    }
+    private final Map<CodeGenTypeEnum, AiCodeGeneratorService> serviceCache = new ConcurrentHashMap<>();
 
     /**
-     * 根据 appId 获取服务
-     * @param appId 应用 ID
+     * 根据生成类型获取服务
      * @param codeGenType 生成类型
      * @return
      */
-    public AiCodeGeneratorService getAiCodeGeneratorService(Long appId, CodeGenTypeEnum codeGenType){
-        String cacheKey = buildCacheKey(appId, codeGenType);
-        // 如果缓存中没有对应 Key 相应的实例， 则调用 createAiCodeGeneratorService 方法创建实例 并保存到缓存中供后续使用
-        return serviceCache.get(cacheKey, key -> createAiCodeGeneratorService(appId, codeGenType));
+    public AiCodeGeneratorService getAiCodeGeneratorService(CodeGenTypeEnum codeGenType){
+        return serviceCache.computeIfAbsent(codeGenType, this::createAiCodeGeneratorService);
     }
 
-    private String buildCacheKey(Long appId, CodeGenTypeEnum codeGenType) {
-        return appId + "_" + codeGenType.getValue();
+    /**
+     * 获取生成类型对应的流式模型名称（用于指标标签）
+     * @param codeGenType 生成类型
+     * @return 模型名称
+     */
+    public String getStreamingModelName(CodeGenTypeEnum codeGenType) {
+        StreamingChatModel model = codeGenType == CodeGenTypeEnum.VUE_PROJECT
+                ? reasoningStreamingChatModel : codeGenStreamingChatModel;
+        String modelName = model.defaultRequestParameters().modelName();
+        return modelName == null ? "unknown" : modelName;
     }
 
     /**
      * 创建 AI 服务实例
-     * @param appId
      * @param codeGenType
      * @return
      */
-    private AiCodeGeneratorService createAiCodeGeneratorService(Long appId, CodeGenTypeEnum codeGenType){
-        log.info("创建 AI 服务实例， appId : {}", appId);
-        // 根据 appId 创建独立的对话记忆
-        MessageWindowChatMemory chatMemory = MessageWindowChatMemory
-                .builder()
-                .id(appId)
-                .chatMemoryStore(redisChatMemoryStore)
-                .maxMessages(100)
-                .build();
-        try {
-            // 从数据库中加载历史对话到记忆中
-            chatHistoryService.loadChatHistoryToMemory(appId, chatMemory, 20);
-        } catch (Exception e) {
-            log.error("加载聊天历史记录时出错，将使用空的记忆实例: ", e);
-        }
+    private AiCodeGeneratorService createAiCodeGeneratorService(CodeGenTypeEnum codeGenType){
+        log.info("创建 AI 服务实例， codeGenType : {}", codeGenType.getValue());
         // 根据代码生成类型选择不同的模型配置
         return switch (codeGenType)
                 {
@@ -130,50 +104,23 @@ public class AiCodeGeneratorServiceFactory {
                     case VUE_PROJECT -> AiServices.builder(AiCodeGeneratorService.class)
                             .chatModel(chatModel) // 默认模型
                             .streamingChatModel(reasoningStreamingChatModel)
-                            .chatMemoryProvider(memory -> chatMemory)
+                            .chatMemoryProvider(chatMemoryCacheManager.chatMemoryProvider(codeGenType))
                             .tools((Object) toolManage.getTools())
                             .hallucinatedToolNameStrategy(toolExecutionRequest -> ToolExecutionResultMessage.from(toolExecutionRequest,"Error: this is not tool called"
                                     + toolExecutionRequest.name())) // 幻觉工具名称策略， 配置了不同的工具时的处理策略， 让框架帮我们处理 AI 出现幻觉的情况， 否则调用对话方法可能会报错
                             .build();
                     case MULTI_FILE,HTML -> AiServices.builder(AiCodeGeneratorService.class)
                             .chatModel(chatModel)
-                            .streamingChatModel(openAiStreamingChatModel)
-                            .chatMemory(chatMemory)
+                            .streamingChatModel(codeGenStreamingChatModel)
+                            .chatMemoryProvider(chatMemoryCacheManager.chatMemoryProvider(codeGenType))
                             .build();
                     default -> throw new BusinessException(ErrorCode.SYSTEM_ERROR,"不支持的代码生成类型: " + codeGenType.getValue());
                 };
     }
 
-    /**
-     * 创建 AI 服务实例
-     * @param appId
-     * @return
-     */
-    private AiCodeGeneratorService createAiCodeGeneratorService(Long appId){
-        log.info("创建 AI 服务实例， appId : {}", appId);
-        // 根据 appId 创建独立的对话记忆
-        MessageWindowChatMemory chatMemory = MessageWindowChatMemory
-                .builder()
-                .id(appId)
-                .chatMemoryStore(redisChatMemoryStore)
-                .maxMessages(20)
-                .build();
-        try {
-            // 从数据库中加载历史对话到记忆中
-            chatHistoryService.loadChatHistoryToMemory(appId, chatMemory, 20);
-        } catch (Exception e) {
-            log.error("加载聊天历史记录时出错，将使用空的记忆实例: ", e);
-        }
-        return AiServices.builder(AiCodeGeneratorService.class)
-                .chatModel(chatModel)
-                .streamingChatModel(openAiStreamingChatModel)
-                .chatMemory(chatMemory)
-                .build();
-    }
-
     @Bean
     public AiCodeGeneratorService aiCodeGeneratorService(){
-        return getAiCodeGeneratorService(0L);
+        return getAiCodeGeneratorService(CodeGenTypeEnum.HTML);
     }
 
 }
\ No newline at end of file
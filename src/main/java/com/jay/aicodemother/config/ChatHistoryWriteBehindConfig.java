@@ -0,0 +1,55 @@
+package com.jay.aicodemother.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.File;
+import java.time.Duration;
+
+/**
+ * Class name: ChatHistoryWriteBehindConfig
+ * Package: com.jay.aicodemother.config
+ * Description: 对话历史异步批量写入配置
+ *  消息先进入内存队列，按条数或时间间隔批量入库；数据库不可用时落盘到本地溢出文件，恢复后按原顺序补写
+ *
+ * @Create: 2026/10/17 18:40
+ * @Author: jay
+ * @Version: 1.0
+ */
+@Configuration
+@ConfigurationProperties(prefix = "chat-history.write-behind")
+@Data
+public class ChatHistoryWriteBehindConfig {
+
+    /**
+     * 是否开启异步批量写入，关闭时同步逐条入库
+     */
+    private boolean enabled = true;
+
+    /**
+     * 每批最多写入的条数，队列积压达到该值时立即刷新
+     */
+    private int batchSize = 100;
+
+    /**
+     * 定时刷新间隔
+     */
+    private Duration flushInterval = Duration.ofMillis(200);
+
+    /**
+     * 内存队列容量，超出后直接写入溢出文件
+     */
+    private int queueCapacity = 10000;
+
+    /**
+     * 溢出文件，数据库不可用时暂存待写入的消息
+     */
+    private String spillFile = System.getProperty("user.dir") + File.separator + "tmp"
+            + File.separator + "chat_history_spill" + File.separator + "pending.jsonl";
+
+    /**
+     * 存在溢出文件时重试写库的间隔
+     */
+    private Duration spillRetryInterval = Duration.ofSeconds(5);
+}
@@ -0,0 +1,120 @@
+package com.jay.aicodemother.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Class name: ChatMemoryCacheConfig
+ * Package: com.jay.aicodemother.config
+ * Description: 对话记忆缓存配置
+ *  AI 服务代理按生成类型共享，每个应用只缓存自己的对话记忆对象（消息保存在 Redis 中，每个条目的堆占用固定），
+ *  缓存按条目数限制大小；
+ *  对话记忆按生成类型设置 token 预算，超出后在后台把较早的轮次压缩为摘要
+ *
+ * @Create: 2026/10/17 20:40
+ * @Author: jay
+ * @Version: 1.0
+ */
+@Configuration
+@ConfigurationProperties(prefix = "code-gen.chat-memory")
+@Data
+public class ChatMemoryCacheConfig {
+
+    /**
+     * 对话记忆缓存最多缓存的应用数（每个条目约 512 字节堆内存，见 ChatMemoryCacheBenchmark）
+     */
+    private long maxEntries = 8192;
+
+    /**
+     * 多久未访问后移出缓存，再次访问时重新加载（优先从 Redis）
+     */
+    private Duration expireAfterAccess = Duration.ofMinutes(10);
+
+    /**
+     * 各生成类型的记忆最多保留的消息条数（key 为 CodeGenTypeEnum 的 value）
+     */
+    private Map<String, Integer> maxMessages = new HashMap<>(Map.of(
+            "html", 20,
+            "multi_file", 20,
+            "vue_project", 100
+    ));
+
+    /**
+     * 未配置的生成类型最多保留的消息条数
+     */
+    private int defaultMaxMessages = 20;
+
+    /**
+     * 各生成类型的记忆 token 预算（key 为 CodeGenTypeEnum 的 value），超出后触发后台压缩
+     */
+    private Map<String, Integer> tokenBudget = new HashMap<>(Map.of(
+            "html", 8000,
+            "multi_file", 8000,
+            "vue_project", 32000
+    ));
+
+    /**
+     * 未配置的生成类型使用的 token 预算
+     */
+    private int defaultTokenBudget = 8000;
+
+    /**
+     * 硬上限相对预算的倍数，压缩来不及完成时超过硬上限直接淘汰最早的消息
+     */
+    private double hardLimitRatio = 2.0;
+
+    /**
+     * 压缩后保留的最近轮次占预算的比例
+     */
+    private double compactKeepRatio = 0.5;
+
+    /**
+     * 工具参数值或工具结果超过该字符数时，在记忆中替换为文件引用（最近几次工具调用除外）
+     */
+    private int elideToolPayloadChars = 2000;
+
+    /**
+     * 保留完整内容的最近工具调用次数
+     */
+    private int keepRecentToolResults = 4;
+
+    /**
+     * 压缩线程数
+     */
+    private int compactionThreads = 2;
+
+    /**
+     * 压缩任务队列容量，队列已满时跳过本次压缩
+     */
+    private int compactionQueueCapacity = 100;
+
+    /**
+     * 获取生成类型的 token 预算
+     *
+     * @param codeGenType 生成类型的 value
+     * @return token 预算
+     */
+    public int getTokenBudget(String codeGenType) {
+        return tokenBudget.getOrDefault(codeGenType, defaultTokenBudget);
+    }
+
+    /**
+     * 获取生成类型的记忆消息条数上限
+     *
+     * @param codeGenType 生成类型的 value
+     * @return 消息条数上限
+     */
+    public int getMaxMessages(String codeGenType) {
+        return maxMessages.getOrDefault(codeGenType, defaultMaxMessages);
+    }
+
+    /**
+     * 从数据库加载记忆时最多加载的对话历史条数
+     */
+    private int hydrateCount = 20;
+}
@@ -0,0 +1,53 @@
+package com.jay.aicodemother.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Class name: CodeGenRoutingConfig
+ * Package: com.jay.aicodemother.config
+ * Description: 代码生成类型路由配置
+ *  创建应用时依次尝试：提示词缓存（本地 + Redis）-> 本地关键词分类 -> 异步调用模型
+ *
+ * @Create: 2026/10/17 22:10
+ * @Author: jay
+ * @Version: 1.0
+ */
+@Configuration
+@ConfigurationProperties(prefix = "code-gen.routing")
+@Data
+public class CodeGenRoutingConfig {
+
+    /**
+     * 本地缓存最多保存的提示词数
+     */
+    private int localCacheSize = 10000;
+
+    /**
+     * 路由结果缓存时间（本地和 Redis）
+     */
+    private Duration cacheTtl = Duration.ofDays(7);
+
+    /**
+     * 关键词分类的最低得分，低于该值交给模型判断
+     */
+    private int minScore = 2;
+
+    /**
+     * 最高得分与第二名的最小差距，低于该值交给模型判断
+     */
+    private int minMargin = 2;
+
+    /**
+     * 模型路由的线程数
+     */
+    private int modelThreads = 4;
+
+    /**
+     * 开始生成时等待模型路由结果的最长时间，超时使用创建时的临时类型
+     */
+    private Duration awaitTimeout = Duration.ofSeconds(15);
+}
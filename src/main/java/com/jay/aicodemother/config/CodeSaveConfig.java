@@ -0,0 +1,31 @@
+package com.jay.aicodemother.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Class name: CodeSaveConfig
+ * Package: com.jay.aicodemother.config
+ * Description: 代码解析保存线程池配置
+ *  HTML / MULTI_FILE 的解析和写文件在独立的有界线程池中执行，不占用推送模型输出的线程
+ *
+ * @Create: 2026/10/17 19:25
+ * @Author: jay
+ * @Version: 1.0
+ */
+@Configuration
+@ConfigurationProperties(prefix = "code-gen.save")
+@Data
+public class CodeSaveConfig {
+
+    /**
+     * 保存线程数上限
+     */
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 每个线程最多排队的任务数，超出后本次生成的保存失败（不影响文本输出）
+     */
+    private int queueCapacity = 10000;
+}
@@ -0,0 +1,48 @@
+package com.jay.aicodemother.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Class name: GenerationReplayConfig
+ * Package: com.jay.aicodemother.config
+ * Description: 生成流断线续传配置
+ *  每次生成分配一个 ID 和有界的回放缓冲，客户端断线重连时携带 Last-Event-ID 即可接回正在进行的生成，只补发错过的事件
+ *
+ * @Create: 2026/10/17 16:30
+ * @Author: jay
+ * @Version: 1.0
+ */
+@Configuration
+@ConfigurationProperties(prefix = "code-gen.stream.replay")
+@Data
+public class GenerationReplayConfig {
+
+    /**
+     * 每次生成最多保留的事件数
+     */
+    private int maxEvents = 4096;
+
+    /**
+     * 每次生成最多保留的字节数
+     */
+    private long maxBytes = 4 * 1024 * 1024;
+
+    /**
+     * 生成结束后仍可回放的时间
+     */
+    private Duration completedTtl = Duration.ofSeconds(60);
+
+    /**
+     * 所有客户端断开后等待重连的时间，超时后取消生成
+     */
+    private Duration detachGrace = Duration.ofSeconds(15);
+
+    /**
+     * 是否把结束的生成同步到 Redis（多实例部署或本地缓存过期后仍可回放）
+     */
+    private boolean redisEnabled = false;
+}
@@ -0,0 +1,128 @@
+package com.jay.aicodemother.config;
+
+import com.jay.aicodemother.ai.gateway.LoadBalancedStreamingChatModel;
+import com.jay.aicodemother.ai.gateway.ModelEndpoint;
+import com.jay.aicodemother.manager.ModelHttpClientManager;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.openai.OpenAiStreamingChatModel;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class name: ModelGatewayConfig
+ * Package: com.jay.aicodemother.config
+ * Description: 代码生成流式模型网关配置
+ *  开启后 HTML / 多文件生成使用的流式模型由 langchain4j.open-ai.streaming-chat-model（端点 primary）
+ *  和 endpoints 中的 OpenAI 兼容端点共同组成，按首 token 延迟、错误率和在途请求数加权选择，
+ *  首 token 之前失败时切换到其他端点，超过 p95 仍无首 token 时对冲请求另一个端点
+ *
+ * @Create: 2026/10/18 00:15
+ * @Author: jay
+ * @Version: 1.0
+ */
+@Slf4j
+@Configuration
+@ConfigurationProperties(prefix = "code-gen.model-gateway")
+@Data
+public class ModelGatewayConfig {
+
+    /**
+     * 是否开启，关闭或没有额外端点时直接使用 openAiStreamingChatModel
+     */
+    private boolean enabled = false;
+
+    /**
+     * primary 端点的权重
+     */
+    private double primaryWeight = 1;
+
+    /**
+     * 额外的端点
+     */
+    private List<Endpoint> endpoints = new ArrayList<>();
+
+    /**
+     * 一次调用最多尝试的端点数（包括失败切换和对冲）
+     */
+    private int maxAttempts = 3;
+
+    /**
+     * 是否开启对冲请求
+     */
+    private boolean hedgeEnabled = true;
+
+    /**
+     * 计算 p95 至少需要的首 token 样本数，不足时使用 hedgeDefaultDelay
+     */
+    private int hedgeMinSamples = 20;
+
+    /**
+     * 对冲的最短等待时间，避免 p95 很小时频繁发起对冲
+     */
+    private Duration hedgeMinDelay = Duration.ofMillis(500);
+
+    /**
+     * 样本不足时的对冲等待时间
+     */
+    private Duration hedgeDefaultDelay = Duration.ofSeconds(5);
+
+    @Data
+    public static class Endpoint {
+
+        /**
+         * 端点名称，用于日志和指标标签
+         */
+        private String name;
+
+        private String baseUrl;
+
+        private String apiKey;
+
+        /**
+         * 模型名称，为空时与 primary 相同
+         */
+        private String modelName;
+
+        private double weight = 1;
+
+        /**
+         * 请求超时（等待响应头的最长时间）
+         */
+        private Duration timeout = Duration.ofSeconds(60);
+    }
+
+    /**
+     * 代码生成使用的流式模型
+     */
+    @Bean
+    public StreamingChatModel codeGenStreamingChatModel(OpenAiStreamingChatModel openAiStreamingChatModel,
+                                                        ModelHttpClientManager modelHttpClientManager,
+                                                        MeterRegistry meterRegistry) {
+        if (!enabled || endpoints.isEmpty()) {
+            return openAiStreamingChatModel;
+        }
+        List<ModelEndpoint> modelEndpoints = new ArrayList<>();
+        modelEndpoints.add(new ModelEndpoint("primary", openAiStreamingChatModel, primaryWeight));
+        for (Endpoint endpoint : endpoints) {
+            OpenAiStreamingChatModel model = OpenAiStreamingChatModel.builder()
+                    .defaultRequestParameters(openAiStreamingChatModel.defaultRequestParameters())
+                    .baseUrl(endpoint.getBaseUrl())
+                    .apiKey(endpoint.getApiKey())
+                    .modelName(endpoint.getModelName())
+                    .timeout(endpoint.getTimeout())
+                    .httpClientBuilder(modelHttpClientManager.newBuilder())
+                    .build();
+            modelEndpoints.add(new ModelEndpoint(endpoint.getName(), model, endpoint.getWeight()));
+        }
+        log.info("代码生成模型网关已开启， endpoints : {}", modelEndpoints.stream().map(ModelEndpoint::name).toList());
+        return new LoadBalancedStreamingChatModel(modelEndpoints, this, meterRegistry);
+    }
+}
@@ -0,0 +1,59 @@
+package com.jay.aicodemother.config;
+
+import com.jay.aicodemother.manager.ModelHttpClientManager;
+import dev.langchain4j.http.client.HttpClientBuilder;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * Class name: ModelHttpClientConfig
+ * Package: com.jay.aicodemother.config
+ * Description: 模型调用共享 HTTP 客户端配置
+ *  所有模型（ChatModel、流式模型、推理流式模型）共用一个 JDK HttpClient，连接池和 TLS 会话只有一份；
+ *  各模型的超时仍由各自的 timeout 配置决定，作为单个请求的超时（等待响应头的最长时间）。
+ *  这里声明的 HttpClientBuilder 会替换 langchain4j starter 按名称创建的默认 builder
+ *
+ * @Create: 2026/10/17 23:40
+ * @Author: jay
+ * @Version: 1.0
+ */
+@Configuration
+@ConfigurationProperties(prefix = "code-gen.http-client")
+@Data
+public class ModelHttpClientConfig {
+
+    /**
+     * HTTP 版本，HTTP_2 时同一主机的并发请求复用一条连接（服务端不支持时自动降级为 HTTP/1.1）
+     */
+    private HttpClient.Version version = HttpClient.Version.HTTP_2;
+
+    /**
+     * 建立连接的超时时间（所有模型共用）
+     */
+    private Duration connectTimeout = Duration.ofSeconds(10);
+
+    /**
+     * 空闲连接保持时间，对应 jdk.httpclient.keepalive.timeout
+     */
+    private Duration keepAlive = Duration.ofMinutes(5);
+
+    /**
+     * HTTP/1.1 连接池最多保留的空闲连接数，0 表示不限制，对应 jdk.httpclient.connectionPoolSize
+     */
+    private int connectionPoolSize = 0;
+
+    @Bean("openAiChatModelHttpClientBuilder")
+    public HttpClientBuilder openAiChatModelHttpClientBuilder(ModelHttpClientManager modelHttpClientManager) {
+        return modelHttpClientManager.newBuilder();
+    }
+
+    @Bean("openAiStreamingChatModelHttpClientBuilder")
+    public HttpClientBuilder openAiStreamingChatModelHttpClientBuilder(ModelHttpClientManager modelHttpClientManager) {
+        return modelHttpClientManager.newBuilder();
+    }
+}
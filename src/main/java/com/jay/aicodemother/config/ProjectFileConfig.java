@@ -0,0 +1,31 @@
+package com.jay.aicodemother.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Class name: ProjectFileConfig
+ * Package: com.jay.aicodemother.config
+ * Description: 文件工具写入配置
+ *  文件工具的写入先写临时文件再原子重命名，同一路径的写入由分段锁串行化（见 ProjectFileManager）
+ *
+ * @Create: 2026/10/18 04:00
+ * @Author: jay
+ * @Version: 1.0
+ */
+@Configuration
+@ConfigurationProperties(prefix = "code-gen.project-file")
+@Data
+public class ProjectFileConfig {
+
+    /**
+     * 写入后是否 fsync 文件和所在目录；关闭时依赖操作系统刷盘，宕机可能丢失最近的写入，但不会出现写了一半的文件
+     */
+    private boolean fsync = false;
+
+    /**
+     * 路径锁的分段数，不同路径落在同一分段时才会互相等待
+     */
+    private int lockStripes = 256;
+}
@@ -9,6 +9,7 @@
  */
 package com.jay.aicodemother.config;
 
+import com.jay.aicodemother.manager.ModelHttpClientManager;
 import dev.langchain4j.model.chat.StreamingChatModel;
 import dev.langchain4j.model.openai.OpenAiStreamingChatModel;
 import lombok.Data;
@@ -17,7 +18,6 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.time.Duration;
-import java.time.temporal.ChronoUnit;
 
 @Configuration
 @ConfigurationProperties(prefix = "langchain4j.open-ai.reasoning-streaming-chat-model")
@@ -38,12 +38,17 @@ public class ReasoningStreamingChatModelConfig {
 
     private boolean logResponses;
 
+    /**
+     * 请求超时（等待响应头的最长时间）
+     */
+    private Duration timeout = Duration.ofSeconds(20);
+
     /**
      * 推理流式模型
      * @return
      */
     @Bean
-    public StreamingChatModel reasoningStreamingChatModel(){
+    public StreamingChatModel reasoningStreamingChatModel(ModelHttpClientManager modelHttpClientManager){
         // 按理来说工程化项目应该使用推理模型来生成代码，但是这里为了演示，使用 简单模型
 //        final String modelName = "deepseek-chat";
 //        final int maxTokens = 8192;
@@ -59,7 +64,8 @@ public class ReasoningStreamingChatModelConfig {
                 .baseUrl(baseUrl)
                 .logRequests(logRequests)
                 .logResponses(logResponses)
-                .timeout(Duration.of(20, ChronoUnit.SECONDS))
+                .timeout(timeout)
+                .httpClientBuilder(modelHttpClientManager.newBuilder())
                 .build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,38 @@
+package com.jay.aicodemother.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Class name: StreamBridgeConfig
+ * Package: com.jay.aicodemother.config
+ * Description: TokenStream -> Flux 桥接缓冲配置
+ *  每次生成独立一个有界缓冲，SSE 客户端消费慢时阻塞模型回调，而不是把整段输出（包括工具参数里的完整文件内容）堆在内存里
+ *
+ * @Create: 2026/10/17 15:00
+ * @Author: jay
+ * @Version: 1.0
+ */
+@Configuration
+@ConfigurationProperties(prefix = "code-gen.stream.bridge")
+@Data
+public class StreamBridgeConfig {
+
+    /**
+     * 最多缓冲的消息条数（合并后的条目）
+     */
+    private int capacity = 256;
+
+    /**
+     * 最多缓冲的字节数
+     */
+    private long maxBufferedBytes = 1024 * 1024;
+
+    /**
+     * 缓冲满后最长等待时间，超时判定客户端卡住并中止生成
+     */
+    private Duration stallTimeout = Duration.ofSeconds(30);
+}
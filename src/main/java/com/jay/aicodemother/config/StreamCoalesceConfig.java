@@ -0,0 +1,39 @@
+package com.jay.aicodemother.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Class name: StreamCoalesceConfig
+ * Package: com.jay.aicodemother.config
+ * Description: SSE 文本合并配置
+ *  模型每次只输出 1~3 个字符，逐个 token 推送时 SSE 事件的包装、flush 和 TCP 包开销远大于内容本身，
+ *  这里配置合并窗口：满足最大等待时间或最大字节数任一条件即推送一次
+ *
+ * @Create: 2026/10/17 14:10
+ * @Author: jay
+ * @Version: 1.0
+ */
+@Configuration
+@ConfigurationProperties(prefix = "code-gen.stream.coalesce")
+@Data
+public class StreamCoalesceConfig {
+
+    /**
+     * 是否开启合并，关闭后保持逐 token 推送
+     */
+    private boolean enabled = true;
+
+    /**
+     * 文本最多等待多久推送一次
+     */
+    private Duration maxLatency = Duration.ofMillis(30);
+
+    /**
+     * 合并后单个事件的最大字节数（UTF-8）
+     */
+    private int maxBytes = 2048;
+}
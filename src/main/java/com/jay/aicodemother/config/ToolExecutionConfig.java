@@ -0,0 +1,80 @@
+package com.jay.aicodemother.config;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.jay.aicodemother.ai.tools.ToolManage;
+import dev.langchain4j.service.tool.ToolExecutionScheduler;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Class name: ToolExecutionConfig
+ * Package: com.jay.aicodemother.config
+ * Description: 工具并行执行配置
+ *  模型一次返回多个工具调用时（例如 Vue 项目一次写入多个文件），按文件路径检测冲突：
+ *  不同文件的调用在有界线程池中并行执行，同一文件的调用按模型给出的顺序执行，
+ *  目录读取等没有文件路径的调用等待之前的调用全部完成后单独执行。
+ *  工具结果仍按调用顺序写入对话记忆，一轮工具调用的总耗时记录在 ai.codegen.tool.round。
+ *  与顺序执行一致，某个调用失败后尚未开始的调用不再执行，本次生成以该错误结束；
+ *  一轮调用全部结束后由最后完成的工具线程写入结果并发起下一轮请求，模型的 HTTP 回调线程不等待工具执行
+ *
+ * @Create: 2026/10/18 01:10
+ * @Author: jay
+ * @Version: 1.0
+ */
+@Slf4j
+@Configuration
+@ConfigurationProperties(prefix = "code-gen.tool-execution")
+@Data
+public class ToolExecutionConfig {
+
+    /**
+     * 是否并行执行工具调用，关闭时按顺序在模型回调线程中执行
+     */
+    private boolean parallel = true;
+
+    /**
+     * 工具执行线程数
+     */
+    private int threads = 8;
+
+    @Resource
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private ToolManage toolManage;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private ExecutorService toolExecutor;
+
+    @PostConstruct
+    public void init() {
+        if (!parallel) {
+            return;
+        }
+        toolExecutor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder()
+                .setNameFormat("ai-tool-%d")
+                .setDaemon(true)
+                .build());
+        ToolExecutionScheduler.setGlobal(new ToolExecutionScheduler(toolExecutor, toolManage::getConflictKey));
+        log.info("工具并行执行已开启， threads : {}", threads);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        ToolExecutionScheduler.setGlobal(null);
+        if (toolExecutor != null) {
+            toolExecutor.shutdownNow();
+        }
+    }
+}
@@ -38,4 +38,14 @@ public interface AppConstant {
      */
     String CODE_DEPLOY_HOST = "http://localhost";
 
+    /**
+     * 生成被取消时追加到对话历史的标记
+     */
+    String GENERATION_CANCELLED_MARKER = "\n\n[生成已取消]";
+
+    /**
+     * 代码保存完成的 SSE 事件类型
+     */
+    String CODE_SAVED_EVENT = "saved";
+
 }
\ No newline at end of file
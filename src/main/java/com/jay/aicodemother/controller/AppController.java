@@ -3,13 +3,15 @@ package com.jay.aicodemother.controller;
 import cn.hutool.core.bean.BeanUtil;
 import cn.hutool.core.util.StrUtil;
 import cn.hutool.json.JSONUtil;
-import com.jay.aicodemother.ai.AiCodeGenTypeRoutingService;
+import com.jay.aicodemother.ai.routing.CodeGenTypeRouter;
 import com.jay.aicodemother.annotation.AuthCheck;
 import com.jay.aicodemother.common.BaseResponse;
 import com.jay.aicodemother.common.DeleteRequest;
 import com.jay.aicodemother.common.ResultUtils;
 import com.jay.aicodemother.constant.AppConstant;
 import com.jay.aicodemother.constant.UserConstant;
+import com.jay.aicodemother.core.generation.GenerationEvent;
+import com.jay.aicodemother.core.stream.SseStreamMetrics;
 import com.jay.aicodemother.exception.BusinessException;
 import com.jay.aicodemother.exception.ErrorCode;
 import com.jay.aicodemother.exception.ThrowUtils;
@@ -19,6 +21,7 @@ import com.jay.aicodemother.model.enums.CodeGenTypeEnum;
 import com.jay.aicodemother.model.vo.AppVO;
 import com.jay.aicodemother.service.ProjectDownloadService;
 import com.jay.aicodemother.service.UserService;
+import com.jay.aicodemother.utils.SseUtils;
 import com.mybatisflex.core.paginate.Page;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -50,7 +53,8 @@ public class AppController {
     private final AppService appService;
     private final UserService userService;
     private final ProjectDownloadService projectDownloadService;
-    private final AiCodeGenTypeRoutingService aiCodeGenTypeRoutingService;
+    private final CodeGenTypeRouter codeGenTypeRouter;
+    private final SseStreamMetrics sseStreamMetrics;
 
     // region 用户端接口
 
@@ -74,12 +78,16 @@ public class AppController {
         app.setAppName(initPrompt.substring(0, Math.min(initPrompt.length(), 12)));
         app.setUserId(loginUser.getId());
         app.setPriority(0); // 默认优先级为0
-        CodeGenTypeEnum selectedCodeGenType = aiCodeGenTypeRoutingService.routeCodeGenType(initPrompt);
-        // 展示设置为多文件生成类型
+        // 先走缓存和本地分类，需求不明确时先用临时类型创建，模型在后台判断后更新
+        CodeGenTypeRouter.RouteDecision routeDecision = codeGenTypeRouter.route(initPrompt);
+        CodeGenTypeEnum selectedCodeGenType = routeDecision.type();
         app.setCodeGenType(selectedCodeGenType.getValue());
         // 插入数据库
         boolean result = appService.save(app);
         ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR);
+        if (routeDecision.needsModel()) {
+            codeGenTypeRouter.refineAsync(app.getId(), initPrompt, selectedCodeGenType);
+        }
         log.info("应用创建成功, ID:{}, 类型:{}", app.getId(), selectedCodeGenType.getValue());
         return ResultUtils.success(app.getId());
     }
@@ -108,14 +116,18 @@ public class AppController {
      * 应用聊天生成代码 流式生成 SSE
      * @param appId 应用ID
      * @param message 用户信息
+     * @param idempotencyKey 幂等键（可选），相同幂等键的重复请求接入同一次生成
+     * @param lastEventId 断线重连时浏览器自动携带的最后一个事件 ID，用于接回正在进行的生成
      * @param request 请求对象
      * @return 生成结果流
      */
     @GetMapping(value = "/chat/gen/code", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     public Flux<ServerSentEvent<String>> chatToGenCode(@RequestParam Long appId,
                                                        @RequestParam String message,
+                                                       @RequestParam(required = false) String idempotencyKey,
+                                                       @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
                                                        HttpServletRequest request) {
-        log.info("用户开始生成代码，appId: {}, message: {}", appId, message);
+        log.info("用户开始生成代码，appId: {}, message: {}, lastEventId: {}", appId, message, lastEventId);
         
         // 参数校验：检查应用ID是否有效（非空且大于0）
         ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.PARAMS_ERROR, "应用ID无效");
@@ -127,18 +139,21 @@ public class AppController {
         
         try {
             // 调用服务层生成代码（流式），返回一个数据流
-            Flux<String> contentFlux = appService.chatToGenCode(appId, message, loginUser)
-                    // 添加背压处理，缓冲大小为32
-                    .onBackpressureBuffer(32);
+            // 背压由生成链路上的有界缓冲处理，这里不再额外缓冲
+            Flux<GenerationEvent> contentFlux = appService.chatToGenCode(appId, message, loginUser, lastEventId, idempotencyKey);
             
             // 处理数据流，将每个数据块包装成SSE格式
             return contentFlux
-                    .map(chunk -> {
-                        // 将内容包装成 {"d": "内容"} 的JSON对象格式，符合统一响应结构体
-                        Map<String, String> wrapper = Map.of("d", chunk);
-                        String jsonData = JSONUtil.toJsonStr(wrapper);
-                        // 构建SSE事件对象，包含数据部分
+                    .map(event -> {
+                        // 指定类型的事件（如代码保存完成 saved）内容已是 JSON，直接推送
+                        // 普通输出将内容包装成 {"d": "内容"} 的JSON对象格式，符合统一响应结构体（整条链路只在这里序列化一次）
+                        String jsonData = event.getEvent() != null ? event.getData() : SseUtils.toDataJson(event.getData());
+                        // 记录事件数和事件大小，用于调整合并窗口
+                        sseStreamMetrics.record(jsonData);
+                        // 构建SSE事件对象，带上事件 ID，断线重连时从该位置继续
                         return ServerSentEvent.<String>builder()
+                                .id(event.toEventId())
+                                .event(event.getEvent())
                                 .data(jsonData)
                                 .build();
                     })
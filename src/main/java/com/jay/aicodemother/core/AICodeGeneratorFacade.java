@@ -9,23 +9,20 @@
  */
 package com.jay.aicodemother.core;
 
-import cn.hutool.json.JSONUtil;
 import com.jay.aicodemother.ai.AiCodeGeneratorService;
 import com.jay.aicodemother.ai.model.HtmlCodeResult;
 import com.jay.aicodemother.ai.model.MultiFileCodeResult;
 import com.jay.aicodemother.ai.model.message.AIResponseMessage;
-import com.jay.aicodemother.ai.model.message.ToolExecutedMessage;
-import com.jay.aicodemother.ai.model.message.ToolRequestMessage;
+import com.jay.aicodemother.ai.model.message.StreamMessage;
 import com.jay.aicodemother.config.AiCodeGeneratorServiceFactory;
+import com.jay.aicodemother.core.stream.TokenStreamBridge;
 import com.jay.aicodemother.exception.BusinessException;
 import com.jay.aicodemother.exception.ErrorCode;
 import com.jay.aicodemother.model.enums.CodeGenTypeEnum;
-import com.jay.aicodemother.parser.CodeParseExecutor;
+import com.jay.aicodemother.monitor.CodeGenMetrics;
 import com.jay.aicodemother.save.CodeFileSaverExecutor;
-import dev.langchain4j.agent.tool.ToolExecutionRequest;
-import dev.langchain4j.model.chat.response.ChatResponse;
+import com.jay.aicodemother.save.CodeSaveStage;
 import dev.langchain4j.service.TokenStream;
-import dev.langchain4j.service.tool.ToolExecution;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -33,8 +30,6 @@ import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 
-import java.io.File;
-
 /**
  * AI代码生成门面类
  * 提供统一的接口来生成不同类型的代码并保存到文件系统中
@@ -49,6 +44,24 @@ public class AICodeGeneratorFacade {
     @Resource
     private AiCodeGeneratorServiceFactory factory;
 
+    /**
+     * TokenStream 有界桥接
+     */
+    @Resource
+    private TokenStreamBridge tokenStreamBridge;
+
+    /**
+     * 代码生成各阶段耗时指标
+     */
+    @Resource
+    private CodeGenMetrics codeGenMetrics;
+
+    /**
+     * 代码解析保存阶段
+     */
+    @Resource
+    private CodeSaveStage codeSaveStage;
+
 
 //    /**
 //     * 获取AI代码生成服务工厂实例
@@ -80,18 +93,18 @@ public class AICodeGeneratorFacade {
         
         // 获取服务工厂实例
         // 根据 appId 获取对应的 AI 服务实例
-        AiCodeGeneratorService aiCodeGeneratorService = factory.getAiCodeGeneratorService(appId,codeGenTypeEnum);
+        AiCodeGeneratorService aiCodeGeneratorService = factory.getAiCodeGeneratorService(codeGenTypeEnum);
         if (factory == null) {
             log.warn("AI代码生成服务工厂未初始化，无法生成代码");
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "AI服务不可用");
         }
         switch (codeGenTypeEnum) {
             case HTML -> {
-                HtmlCodeResult result = aiCodeGeneratorService.generateHtmlCode(userMessage);
+                HtmlCodeResult result = aiCodeGeneratorService.generateHtmlCode(appId, userMessage);
                 CodeFileSaverExecutor.executeSaver(result, CodeGenTypeEnum.HTML, appId);
             }
             case MULTI_FILE -> {
-                MultiFileCodeResult result = aiCodeGeneratorService.generateMultiFileCode(userMessage);
+                MultiFileCodeResult result = aiCodeGeneratorService.generateMultiFileCode(appId, userMessage);
                 CodeFileSaverExecutor.executeSaver(result, CodeGenTypeEnum.MULTI_FILE, appId);
             }
             default -> {
@@ -103,33 +116,39 @@ public class AICodeGeneratorFacade {
 
     /**
      * 统一入口：根据类型生成并保存代码（流式）
+     * 流中传递的是类型化的消息对象，只在 SSE 出口处序列化一次
      *
      * @param userMessage     用户提示词
      * @param codeGenTypeEnum 生成类型
      */
-    public Flux<String> generateAndSaveCodeStream(String userMessage, CodeGenTypeEnum codeGenTypeEnum, Long appId) {
+    public Flux<StreamMessage> generateAndSaveCodeStream(String userMessage, CodeGenTypeEnum codeGenTypeEnum, Long appId) {
         if (codeGenTypeEnum == null) {
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "生成类型为空");
         }
 
         // 根据 appId 获取对应的 AI 服务实例
-        AiCodeGeneratorService aiCodeGeneratorService = factory.getAiCodeGeneratorService(appId, codeGenTypeEnum);
+        AiCodeGeneratorService aiCodeGeneratorService = factory.getAiCodeGeneratorService(codeGenTypeEnum);
         if (factory == null) {
             log.warn("AI代码生成服务工厂未初始化，无法生成代码");
-            return Flux.just("错误：AI服务不可用");
+            return Flux.just(new AIResponseMessage("错误：AI服务不可用"));
         }
+        String modelName = factory.getStreamingModelName(codeGenTypeEnum);
         return switch (codeGenTypeEnum) {
             case HTML -> {
-                Flux<String> codeStream = aiCodeGeneratorService.generateHtmlCodeStream(userMessage);
+                Flux<String> codeStream = codeGenMetrics.instrumentGeneration(
+                        aiCodeGeneratorService.generateHtmlCodeStream(appId, userMessage), chunk -> true, CodeGenTypeEnum.HTML, modelName);
                 yield processCodeStream(codeStream, CodeGenTypeEnum.HTML, appId);
             }
             case MULTI_FILE -> {
-                Flux<String> codeStream = aiCodeGeneratorService.generateMultiFileCodeStream(userMessage);
+                Flux<String> codeStream = codeGenMetrics.instrumentGeneration(
+                        aiCodeGeneratorService.generateMultiFileCodeStream(appId, userMessage), chunk -> true, CodeGenTypeEnum.MULTI_FILE, modelName);
                 yield processCodeStream(codeStream, CodeGenTypeEnum.MULTI_FILE, appId);
             }
             case VUE_PROJECT -> {
                 TokenStream codeStream = aiCodeGeneratorService.generateVueProjectCodeStream(appId, userMessage);
-                yield processTokenStream(codeStream);
+                // 工具消息不计入 token 间隔
+                yield codeGenMetrics.instrumentGeneration(processTokenStream(codeStream, appId),
+                        message -> message instanceof AIResponseMessage, CodeGenTypeEnum.VUE_PROJECT, modelName);
             }
             default -> {
                 String errorMessage = "不支持的生成类型：" + codeGenTypeEnum.getValue();
@@ -139,65 +158,29 @@ public class AICodeGeneratorFacade {
     }
 
     /**
-     * 将 TokenStream 转换为 Flux<String>， 并传递工具调用信息 适配器类
+     * 将 TokenStream 转换为 Flux<StreamMessage>， 并传递工具调用信息 适配器类
+     * 消息以对象形式在进程内传递，不再逐个 token 做 JSON 序列化和反序列化；
+     * 经过有界缓冲桥接，客户端消费慢时阻塞模型回调，而不是无限堆积在内存中
      * @param codeStream TokenStream 对象
-     * @return Flux<String> 流式响应
+     * @param appId 应用ID
+     * @return Flux<StreamMessage> 流式响应
      */
-    private Flux<String> processTokenStream(TokenStream codeStream) {
-        return Flux.create(sink -> {
-            codeStream.onPartialResponse((String partialResponse) ->{
-                AIResponseMessage aiResponseMessage = new AIResponseMessage(partialResponse);
-                sink.next(JSONUtil.toJsonStr(aiResponseMessage));
-            })
-                    .onPartialToolExecutionRequest((Integer index, ToolExecutionRequest toolExecutionRequest) -> {
-                        ToolRequestMessage toolRequestMessage = new ToolRequestMessage(toolExecutionRequest);
-                        sink.next(JSONUtil.toJsonStr(toolRequestMessage));
-                    })
-                    .onToolExecuted((ToolExecution toolExecution)->{
-                        ToolExecutedMessage toolExecutionMessage = new ToolExecutedMessage(toolExecution);
-                        sink.next(JSONUtil.toJsonStr(toolExecutionMessage));
-                    })
-                    .onCompleteResponse((ChatResponse chatResponse) ->{
-                        sink.complete();
-                    })
-                    .onError((Throwable error) ->{
-                        error.printStackTrace();;
-                        sink.error(error);
-                    })
-                    .start();
-        });
+    private Flux<StreamMessage> processTokenStream(TokenStream codeStream, Long appId) {
+        return tokenStreamBridge.toFlux(codeStream, appId);
     }
 
     /**
      * 处理流式代码生成
+     * 代码块在流式输出过程中就被识别并写入文件，围栏闭合后文件立即可见，不再等待整段响应结束；
+     * 解析和写文件在独立的保存线程池中执行，不占用推送模型输出的线程，保存完成后输出一条 CodeSavedMessage
      *
      * @param codeStream 代码流
      * @param type       代码生成类型
      * @param appId      应用ID
-     * @return 处理后的字符串流
+     * @return 处理后的消息流
      */
-    private Flux<String> processCodeStream(Flux<String> codeStream, CodeGenTypeEnum type, Long appId) {
-        // 收集流中的所有内容
-        StringBuilder contentBuilder = new StringBuilder();
-        return codeStream
-                .doOnNext(contentBuilder::append)
-                .doOnComplete(() -> {
-                    // 流式返回后保存代码
-                    try {
-                        String completeCode = contentBuilder.toString();
-                        if (completeCode.trim().isEmpty()) {
-                            log.error("AI未生成任何代码内容，应用ID: {}", appId);
-                            return;
-                        }
-
-                        log.debug("AI生成的原始内容: {}", completeCode);
-                        Object parserResult = CodeParseExecutor.getParser(completeCode, type);
-                        File file = CodeFileSaverExecutor.executeSaver(parserResult, type, appId);
-                        log.info("代码保存成功：{}", file.getAbsolutePath());
-                    } catch (Exception e) {
-                        log.error("文件保存失败，应用ID: {}, 错误信息: {}", appId, e.getMessage(), e);
-                    }
-                });
+    private Flux<StreamMessage> processCodeStream(Flux<String> codeStream, CodeGenTypeEnum type, Long appId) {
+        return codeSaveStage.process(codeStream, type, appId);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,66 @@
+package com.jay.aicodemother.core.generation;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Class name: GenerationEvent
+ * Package: com.jay.aicodemother.core.generation
+ * Description: 生成流中的一个事件（对应一个 SSE 事件），按序号回放
+ *  处理器输出时只有类型和内容，进入生成会话后才分配生成 ID 和序号
+ *
+ * @Create: 2026/10/17 16:35
+ * @Author: jay
+ * @Version: 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GenerationEvent {
+
+    /**
+     * 生成 ID
+     */
+    private String generationId;
+
+    /**
+     * 事件序号，从 1 开始
+     */
+    private long seq;
+
+    /**
+     * SSE 事件类型，普通输出为空
+     */
+    private String event;
+
+    /**
+     * 输出内容
+     */
+    private String data;
+
+    public GenerationEvent(String generationId, long seq, String data) {
+        this(generationId, seq, null, data);
+    }
+
+    /**
+     * 普通输出（序号由生成会话分配）
+     */
+    public static GenerationEvent of(String data) {
+        return new GenerationEvent(null, 0, null, data);
+    }
+
+    /**
+     * 指定类型的事件（序号由生成会话分配）
+     */
+    public static GenerationEvent of(String event, String data) {
+        return new GenerationEvent(null, 0, event, data);
+    }
+
+    /**
+     * SSE 事件 ID，格式：生成ID:序号，客户端重连时通过 Last-Event-ID 带回
+     */
+    public String toEventId() {
+        return generationId + ":" + seq;
+    }
+}
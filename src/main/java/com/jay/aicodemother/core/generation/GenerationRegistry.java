@@ -0,0 +1,192 @@
+package com.jay.aicodemother.core.generation;
+
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONUtil;
+import com.jay.aicodemother.config.GenerationReplayConfig;
+import com.jay.aicodemother.exception.BusinessException;
+import com.jay.aicodemother.exception.ErrorCode;
+import com.jay.aicodemother.exception.ThrowUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Class name: GenerationRegistry
+ * Package: com.jay.aicodemother.core.generation
+ * Description: 生成会话注册表
+ *  - 进行中和刚结束（completedTtl 内）的生成保存在本地内存，重连时直接接回
+ *  - 开启 redisEnabled 后，生成结束时把回放快照写入 Redis，本地已过期或请求落到其他实例时从 Redis 回放
+ *  - 进行中的生成按 appId + 去重键登记，重复请求（双击、多标签页、前端重试）直接接入已有生成，不再重复调用模型
+ *
+ * @Create: 2026/10/17 17:05
+ * @Author: jay
+ * @Version: 1.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class GenerationRegistry {
+
+    private static final String REDIS_KEY_PREFIX = "code-gen:generation:";
+
+    private final GenerationReplayConfig replayConfig;
+
+    private final ObjectProvider<StringRedisTemplate> redisTemplateProvider;
+
+    private final Map<String, GenerationSession> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * 进行中的生成，key 为 appId:去重键
+     */
+    private final Map<String, GenerationSession> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 开始一次生成，若同一应用已有相同去重键的生成在进行中，则直接返回该生成
+     *
+     * @param appId          应用ID
+     * @param userId         用户ID
+     * @param dedupKey       去重键（消息摘要或幂等键）
+     * @param sourceSupplier 生成流，只有真正开始新生成时才会调用
+     * @return 生成会话
+     */
+    public GenerationSession startOrJoin(Long appId, Long userId, String dedupKey, Supplier<Flux<GenerationEvent>> sourceSupplier) {
+        String key = appId + ":" + dedupKey;
+        GenerationSession created = newSession(appId, userId);
+        for (; ; ) {
+            GenerationSession existing = inFlight.putIfAbsent(key, created);
+            if (existing == null) {
+                break;
+            }
+            if (existing.isDone()) {
+                // 刚结束还未移除，替换为新的生成
+                if (inFlight.replace(key, existing, created)) {
+                    break;
+                }
+                continue;
+            }
+            if (!existing.getUserId().equals(userId)) {
+                throw new BusinessException(ErrorCode.NO_AUTH_ERROR, "无权限访问该生成记录");
+            }
+            log.info("重复的生成请求，接入进行中的生成 {}，appId: {}", existing.getGenerationId(), appId);
+            return existing;
+        }
+        sessions.put(created.getGenerationId(), created);
+        Runnable onTerminate = () -> {
+            inFlight.remove(key, created);
+            onTerminate(created);
+        };
+        Flux<GenerationEvent> source;
+        try {
+            source = sourceSupplier.get();
+        } catch (RuntimeException e) {
+            // 已接入的重复请求同样收到错误
+            created.start(Flux.error(e), onTerminate);
+            throw e;
+        }
+        created.start(source, onTerminate);
+        return created;
+    }
+
+    /**
+     * 根据 Last-Event-ID 接回生成，只补发之后的事件
+     *
+     * @param lastEventId 客户端收到的最后一个事件 ID（生成ID:序号）
+     * @param appId       应用ID
+     * @param userId      用户ID
+     * @return 事件流
+     */
+    public Flux<GenerationEvent> resume(String lastEventId, Long appId, Long userId) {
+        int separator = StrUtil.nullToEmpty(lastEventId).lastIndexOf(':');
+        ThrowUtils.throwIf(separator <= 0, ErrorCode.PARAMS_ERROR, "Last-Event-ID 格式错误");
+        String generationId = lastEventId.substring(0, separator);
+        long lastSeq;
+        try {
+            lastSeq = Long.parseLong(lastEventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "Last-Event-ID 格式错误");
+        }
+        GenerationSession session = sessions.get(generationId);
+        if (session == null) {
+            session = loadFromRedis(generationId);
+        }
+        ThrowUtils.throwIf(session == null, ErrorCode.NOT_FOUND_ERROR, "生成记录不存在或已过期");
+        if (!session.getAppId().equals(appId) || !session.getUserId().equals(userId)) {
+            throw new BusinessException(ErrorCode.NO_AUTH_ERROR, "无权限访问该生成记录");
+        }
+        log.info("客户端重连，接回生成 {}，从序号 {} 之后继续，appId: {}", generationId, lastSeq, appId);
+        return session.attach(lastSeq);
+    }
+
+    private GenerationSession newSession(Long appId, Long userId) {
+        return new GenerationSession(IdUtil.getSnowflakeNextIdStr(), appId, userId,
+                replayConfig.getMaxEvents(), replayConfig.getMaxBytes(), replayConfig.getDetachGrace());
+    }
+
+    /**
+     * 生成结束：写入 Redis 快照，并在 completedTtl 后从本地移除
+     */
+    private void onTerminate(GenerationSession session) {
+        if (replayConfig.isRedisEnabled()) {
+            saveToRedis(session);
+        }
+        Schedulers.parallel().schedule(() -> sessions.remove(session.getGenerationId(), session),
+                replayConfig.getCompletedTtl().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void saveToRedis(GenerationSession session) {
+        StringRedisTemplate redisTemplate = redisTemplateProvider.getIfAvailable();
+        if (redisTemplate == null) {
+            return;
+        }
+        GenerationSnapshot snapshot = new GenerationSnapshot();
+        snapshot.setGenerationId(session.getGenerationId());
+        snapshot.setAppId(session.getAppId());
+        snapshot.setUserId(session.getUserId());
+        snapshot.setEvents(session.snapshotEvents());
+        Throwable error = session.getError();
+        snapshot.setErrorMessage(error == null ? null : StrUtil.blankToDefault(error.getMessage(), "生成失败"));
+        try {
+            redisTemplate.opsForValue().set(REDIS_KEY_PREFIX + session.getGenerationId(), JSONUtil.toJsonStr(snapshot),
+                    replayConfig.getCompletedTtl().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            log.warn("保存生成回放快照失败，generationId: {}, 错误信息: {}", session.getGenerationId(), e.getMessage());
+        }
+    }
+
+    private GenerationSession loadFromRedis(String generationId) {
+        if (!replayConfig.isRedisEnabled()) {
+            return null;
+        }
+        StringRedisTemplate redisTemplate = redisTemplateProvider.getIfAvailable();
+        if (redisTemplate == null) {
+            return null;
+        }
+        try {
+            String json = redisTemplate.opsForValue().get(REDIS_KEY_PREFIX + generationId);
+            if (StrUtil.isBlank(json)) {
+                return null;
+            }
+            GenerationSnapshot snapshot = JSONUtil.toBean(json, GenerationSnapshot.class);
+            GenerationSession session = new GenerationSession(generationId, snapshot.getAppId(), snapshot.getUserId(),
+                    replayConfig.getMaxEvents(), replayConfig.getMaxBytes(), replayConfig.getDetachGrace());
+            Throwable failure = snapshot.getErrorMessage() == null
+                    ? null : new BusinessException(ErrorCode.OPERATION_ERROR, snapshot.getErrorMessage());
+            session.restore(snapshot.getEvents() == null ? List.of() : snapshot.getEvents(), failure);
+            return session;
+        } catch (Exception e) {
+            log.warn("读取生成回放快照失败，generationId: {}, 错误信息: {}", generationId, e.getMessage());
+            return null;
+        }
+    }
+}
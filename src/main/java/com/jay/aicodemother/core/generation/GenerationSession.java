@@ -0,0 +1,442 @@
+package com.jay.aicodemother.core.generation;
+
+import com.jay.aicodemother.exception.BusinessException;
+import com.jay.aicodemother.exception.ErrorCode;
+import com.jay.aicodemother.utils.SseUtils;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Subscription;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class name: GenerationSession
+ * Package: com.jay.aicodemother.core.generation
+ * Description: 一次代码生成的会话
+ *  会话自己订阅生成流，把每个输出写入环形回放缓冲，客户端通过 {@link #attach(long)} 从指定序号之后开始读取：
+ *  先回放缓冲中错过的事件，再接着读取后续的实时事件，中间不会丢失或重复。
+ *  每个客户端按自己的速度从缓冲读取，内存只受环形缓冲上限约束。
+ *  会话按批向生成流请求数据，请求量受最慢的在线客户端还没读取的事件数和字节数限制：客户端读得慢时生成流随之暂停，
+ *  背压一直传递到 TokenStreamBridge 的有界缓冲，不会覆盖在线客户端还没读取的事件；
+ *  没有在线客户端时不受限制，断开期间产生的事件超过缓冲上限后，重连的客户端以错误结束。
+ *  所有客户端都断开后等待 detachGrace，期间没有客户端重连则取消生成。
+ *
+ * @Create: 2026/10/17 16:40
+ * @Author: jay
+ * @Version: 1.0
+ */
+@Slf4j
+public class GenerationSession {
+
+    @Getter
+    private final String generationId;
+
+    @Getter
+    private final Long appId;
+
+    @Getter
+    private final Long userId;
+
+    private final GenerationEvent[] ring;
+
+    /**
+     * 每个事件写入前已写入的总字节数，与 ring 一一对应，用于计算客户端未读取的字节数
+     */
+    private final long[] byteOffsets;
+
+    /**
+     * 空闲容量达到该值时才向生成流追加请求，避免逐个请求
+     */
+    private final int requestBatch;
+
+    private final long maxBytes;
+
+    private final Duration detachGrace;
+
+    private final List<Cursor> cursors = new ArrayList<>();
+
+    /**
+     * 缓冲中最早事件的序号
+     */
+    private long firstSeq = 1;
+
+    /**
+     * 下一个事件的序号
+     */
+    private long nextSeq = 1;
+
+    private long bufferedBytes;
+
+    /**
+     * 累计写入的字节数
+     */
+    private long appendedBytes;
+
+    /**
+     * 已向生成流请求但尚未收到的事件数
+     */
+    private long outstanding;
+
+    private boolean done;
+
+    private Throwable error;
+
+    private SessionSubscriber upstream;
+
+    private Disposable graceTask;
+
+    public GenerationSession(String generationId, Long appId, Long userId, int maxEvents, long maxBytes, Duration detachGrace) {
+        this.generationId = generationId;
+        this.appId = appId;
+        this.userId = userId;
+        this.ring = new GenerationEvent[Math.max(1, maxEvents)];
+        this.byteOffsets = new long[ring.length];
+        this.requestBatch = Math.max(1, ring.length / 4);
+        this.maxBytes = maxBytes;
+        this.detachGrace = detachGrace;
+    }
+
+    /**
+     * 开始消费生成流
+     *
+     * @param source      生成流
+     * @param onTerminate 生成结束（完成、出错或取消）后回调
+     */
+    public void start(Flux<GenerationEvent> source, Runnable onTerminate) {
+        Flux<GenerationEvent> sessionSource = source.doFinally(signalType -> onTerminate.run());
+        SessionSubscriber subscriber = new SessionSubscriber();
+        synchronized (this) {
+            // 还没有客户端接入时同样按断开处理，避免无人读取的生成一直运行
+            scheduleGraceIfIdle();
+            upstream = subscriber;
+        }
+        sessionSource.subscribe(subscriber);
+    }
+
+    /**
+     * 从指定序号之后开始读取事件
+     *
+     * @param afterSeq 客户端已收到的最后一个事件序号，0 表示从头开始
+     */
+    public Flux<GenerationEvent> attach(long afterSeq) {
+        return Flux.create(sink -> {
+            Cursor cursor = new Cursor(sink, afterSeq + 1);
+            synchronized (this) {
+                cursors.add(cursor);
+                cancelGraceTask();
+            }
+            sink.onRequest(n -> drain(cursor));
+            sink.onCancel(() -> detach(cursor));
+            drain(cursor);
+        });
+    }
+
+    /**
+     * 是否已结束
+     */
+    public synchronized boolean isDone() {
+        return done;
+    }
+
+    /**
+     * 生成失败的原因（正常完成或进行中时为 null）
+     */
+    public synchronized Throwable getError() {
+        return error;
+    }
+
+    /**
+     * 当前缓冲中的全部事件
+     */
+    public synchronized List<GenerationEvent> snapshotEvents() {
+        List<GenerationEvent> events = new ArrayList<>((int) (nextSeq - firstSeq));
+        for (long seq = firstSeq; seq < nextSeq; seq++) {
+            events.add(eventAt(seq));
+        }
+        return events;
+    }
+
+    /**
+     * 用已结束生成的事件恢复会话（从 Redis 加载时使用）
+     */
+    public synchronized void restore(List<GenerationEvent> events, Throwable failure) {
+        if (!events.isEmpty()) {
+            firstSeq = nextSeq = events.get(0).getSeq();
+        }
+        for (GenerationEvent event : events) {
+            append(event);
+        }
+        done = true;
+        error = failure;
+    }
+
+    private void onNext(GenerationEvent output) {
+        List<Cursor> targets;
+        synchronized (this) {
+            if (done) {
+                return;
+            }
+            outstanding = Math.max(0, outstanding - 1);
+            append(new GenerationEvent(generationId, nextSeq, output.getEvent(), output.getData()));
+            targets = new ArrayList<>(cursors);
+        }
+        targets.forEach(this::drain);
+        requestMore();
+    }
+
+    /**
+     * 按最慢的在线客户端的空闲容量向生成流请求数据
+     */
+    private void requestMore() {
+        SessionSubscriber subscriber;
+        long n;
+        synchronized (this) {
+            if (done || upstream == null) {
+                return;
+            }
+            n = freeCapacity() - outstanding;
+            // 还有未到达的请求时攒够一批再请求
+            if (n <= 0 || (outstanding > 0 && n < requestBatch)) {
+                return;
+            }
+            outstanding += n;
+            subscriber = upstream;
+        }
+        subscriber.request(n);
+    }
+
+    /**
+     * 在不覆盖在线客户端未读事件的前提下还能写入的事件数
+     */
+    private long freeCapacity() {
+        long slowest = slowestCursorSeq();
+        long unreadBytes = slowest < nextSeq ? appendedBytes - byteOffsets[index(slowest)] : 0;
+        if (unreadBytes >= maxBytes) {
+            return 0;
+        }
+        return ring.length - (nextSeq - slowest);
+    }
+
+    /**
+     * 在线客户端中最靠前的读取位置，没有在线客户端时为 nextSeq
+     */
+    private long slowestCursorSeq() {
+        long slowest = nextSeq;
+        for (Cursor cursor : cursors) {
+            if (!cursor.terminated) {
+                // 已被覆盖的位置会以错误结束，不再拖慢生成
+                slowest = Math.min(slowest, Math.max(cursor.nextSeq, firstSeq));
+            }
+        }
+        return slowest;
+    }
+
+    private void onComplete() {
+        terminate(null);
+    }
+
+    private void onError(Throwable throwable) {
+        terminate(throwable);
+    }
+
+    private void terminate(Throwable throwable) {
+        List<Cursor> targets;
+        synchronized (this) {
+            if (done) {
+                return;
+            }
+            done = true;
+            error = throwable;
+            upstream = null;
+            cancelGraceTask();
+            targets = new ArrayList<>(cursors);
+        }
+        targets.forEach(this::drain);
+    }
+
+    private void append(GenerationEvent event) {
+        if (nextSeq - firstSeq == ring.length) {
+            evictFirst();
+        }
+        int length = SseUtils.utf8Length(event.getData());
+        ring[index(nextSeq)] = event;
+        byteOffsets[index(nextSeq)] = appendedBytes;
+        nextSeq++;
+        bufferedBytes += length;
+        appendedBytes += length;
+        // 字节数超限时只淘汰在线客户端已经读过的事件，未读事件最多超出一批请求的量
+        long slowest = slowestCursorSeq();
+        while (bufferedBytes > maxBytes && nextSeq - firstSeq > 1 && firstSeq < slowest) {
+            evictFirst();
+        }
+    }
+
+    private void evictFirst() {
+        int index = index(firstSeq);
+        bufferedBytes -= SseUtils.utf8Length(ring[index].getData());
+        ring[index] = null;
+        firstSeq++;
+    }
+
+    private GenerationEvent eventAt(long seq) {
+        return ring[index(seq)];
+    }
+
+    private int index(long seq) {
+        return (int) (seq % ring.length);
+    }
+
+    private void detach(Cursor cursor) {
+        synchronized (this) {
+            cursors.remove(cursor);
+            scheduleGraceIfIdle();
+        }
+        requestMore();
+    }
+
+    private void scheduleGraceIfIdle() {
+        if (!cursors.isEmpty() || done || graceTask != null) {
+            return;
+        }
+        graceTask = Schedulers.parallel().schedule(this::onGraceTimeout, detachGrace.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelGraceTask() {
+        if (graceTask != null) {
+            graceTask.dispose();
+            graceTask = null;
+        }
+    }
+
+    private void onGraceTimeout() {
+        SessionSubscriber toCancel;
+        synchronized (this) {
+            graceTask = null;
+            if (!cursors.isEmpty() || done) {
+                return;
+            }
+            log.info("生成 {} 的客户端断开超过 {} ms 未重连，取消生成，appId: {}", generationId, detachGrace.toMillis(), appId);
+            toCancel = upstream;
+        }
+        terminate(new BusinessException(ErrorCode.OPERATION_ERROR, "生成已取消"));
+        if (toCancel != null) {
+            // 向上游传递取消：关闭模型连接、停止工具调用、保存已生成的部分内容
+            toCancel.dispose();
+        }
+    }
+
+    /**
+     * 按需求从缓冲推送事件给一个客户端，推送在锁外执行
+     */
+    private void drain(Cursor cursor) {
+        if (cursor.wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        boolean advanced = false;
+        for (; ; ) {
+            for (; ; ) {
+                GenerationEvent next = null;
+                boolean finished = false;
+                Throwable failure = null;
+                synchronized (this) {
+                    if (cursor.terminated || cursor.sink.isCancelled()) {
+                        break;
+                    }
+                    if (cursor.nextSeq < firstSeq) {
+                        finished = true;
+                        failure = new BusinessException(ErrorCode.OPERATION_ERROR, "错过的内容过多，无法继续接收，请刷新后重试");
+                    } else if (cursor.nextSeq < nextSeq) {
+                        if (cursor.sink.requestedFromDownstream() > 0) {
+                            next = eventAt(cursor.nextSeq);
+                            cursor.nextSeq++;
+                        }
+                    } else if (done) {
+                        finished = true;
+                        failure = error;
+                    }
+                    if (finished) {
+                        cursor.terminated = true;
+                        cursors.remove(cursor);
+                    }
+                }
+                if (next != null) {
+                    advanced = true;
+                    cursor.sink.next(next);
+                    continue;
+                }
+                if (finished) {
+                    advanced = true;
+                    if (failure != null) {
+                        cursor.sink.error(failure);
+                    } else {
+                        cursor.sink.complete();
+                    }
+                }
+                break;
+            }
+            missed = cursor.wip.addAndGet(-missed);
+            if (missed == 0) {
+                break;
+            }
+        }
+        if (advanced) {
+            // 客户端读取后腾出了容量
+            requestMore();
+        }
+    }
+
+    /**
+     * 订阅生成流，按 {@link #requestMore()} 计算的容量分批请求
+     */
+    private class SessionSubscriber extends BaseSubscriber<GenerationEvent> {
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            requestMore();
+        }
+
+        @Override
+        protected void hookOnNext(GenerationEvent value) {
+            GenerationSession.this.onNext(value);
+        }
+
+        @Override
+        protected void hookOnComplete() {
+            GenerationSession.this.onComplete();
+        }
+
+        @Override
+        protected void hookOnError(Throwable throwable) {
+            GenerationSession.this.onError(throwable);
+        }
+    }
+
+    /**
+     * 单个客户端的读取位置
+     */
+    private static class Cursor {
+
+        private final FluxSink<GenerationEvent> sink;
+
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private long nextSeq;
+
+        private boolean terminated;
+
+        Cursor(FluxSink<GenerationEvent> sink, long nextSeq) {
+            this.sink = sink;
+            this.nextSeq = nextSeq;
+        }
+    }
+}
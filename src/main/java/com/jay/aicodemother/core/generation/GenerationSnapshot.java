@@ -0,0 +1,34 @@
+package com.jay.aicodemother.core.generation;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Class name: GenerationSnapshot
+ * Package: com.jay.aicodemother.core.generation
+ * Description: 已结束生成的回放快照（存入 Redis）
+ *
+ * @Create: 2026/10/17 17:00
+ * @Author: jay
+ * @Version: 1.0
+ */
+@Data
+public class GenerationSnapshot implements Serializable {
+
+    private String generationId;
+
+    private Long appId;
+
+    private Long userId;
+
+    private List<GenerationEvent> events;
+
+    /**
+     * 失败原因，正常完成时为空
+     */
+    private String errorMessage;
+
+    private static final long serialVersionUID = 1L;
+}
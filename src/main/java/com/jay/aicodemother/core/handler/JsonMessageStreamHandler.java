@@ -1,8 +1,6 @@
 package com.jay.aicodemother.core.handler;
 
-import cn.hutool.core.io.FileUtil;
 import cn.hutool.core.util.StrUtil;
-import cn.hutool.json.JSON;
 import cn.hutool.json.JSONObject;
 import cn.hutool.json.JSONUtil;
 import com.jay.aicodemother.ai.model.message.*;
@@ -10,6 +8,7 @@ import com.jay.aicodemother.ai.tools.BaseTool;
 import com.jay.aicodemother.ai.tools.ToolManage;
 import com.jay.aicodemother.constant.AppConstant;
 import com.jay.aicodemother.core.builder.VueProjectBuilder;
+import com.jay.aicodemother.core.generation.GenerationEvent;
 import com.jay.aicodemother.model.entity.User;
 import com.jay.aicodemother.model.enums.ChatHistoryMessageTypeEnum;
 import com.jay.aicodemother.service.ChatHistoryService;
@@ -44,27 +43,29 @@ public class JsonMessageStreamHandler {
     private final ToolManage toolManage;
 
     /**
-     * 接收原始的JSON消息流
+     * 接收类型化的消息流（不再逐条解析 JSON）
      * 处理每条消息并转换为前端可读的格式
      * 收集 AI 响应内容用于后续保存到历史
      * 在流完成或出错时更新对话历史
-     * @param originFlux 原始的JSON消息流
+     * @param originFlux 原始的消息流
      * @param chatHistoryService 对话历史服务
      * @param appId 应用ID
      * @param loginUser 登录用户
      * @return 处理后的消息流
      */
-    public Flux<String> handle(Flux<String> originFlux, ChatHistoryService chatHistoryService,
+    public Flux<GenerationEvent> handle(Flux<StreamMessage> originFlux, ChatHistoryService chatHistoryService,
                                long appId, User loginUser){
         // 用于收集数据生成后端记忆格式 以便在流式完成保存到对话历史
-        StringBuilder chatHistoryStringBuilder = new StringBuilder();
+        // 客户端断开时会在其他线程读取，使用线程安全的 StringBuffer
+        StringBuffer chatHistoryStringBuilder = new StringBuffer();
         // 用于跟踪已经见过的工具 ID， 判断是否为第一次出现 避免重复显示工具调用信息
         Set<String> seenToolIds = new HashSet<>();
-        return originFlux.mapNotNull(chunk -> {
-            // 解析每个 JSON 消息块
-            return handleJsonMessageChunk(chunk, chatHistoryStringBuilder, seenToolIds);
+        return originFlux.mapNotNull(message -> {
+            // 处理每个消息
+            return handleStreamMessage(message, chatHistoryStringBuilder, seenToolIds);
         })
                 .filter(StrUtil::isNotEmpty)
+                .map(GenerationEvent::of)
                 .doOnComplete(() -> {
                     // 流式响应完成后， 添加 AI 消息到对话历史
                     String aiResponse = chatHistoryStringBuilder.toString();
@@ -80,6 +81,15 @@ public class JsonMessageStreamHandler {
                     String projectPath = AppConstant.CODE_OUTPUT_ROOT_DIR + System.getProperty("file.separator") + "vue_project_" + appId;
                     vueProjectBuilder.buildProjectAsync(projectPath);
                 })
+                .doOnCancel(() -> {
+                    // 客户端断开， 保存已生成的部分内容并标记为已取消（不触发项目构建）
+                    String partialResponse = chatHistoryStringBuilder + AppConstant.GENERATION_CANCELLED_MARKER;
+                    try {
+                        chatHistoryService.addChatMessage(appId, partialResponse, ChatHistoryMessageTypeEnum.AI.getValue(), loginUser.getId());
+                    } catch (Exception e) {
+                        log.error("保存已取消的AI响应到对话历史时发生异常，appId: {}", appId, e);
+                    }
+                })
                 .doOnError(error -> {
                     // 如果 AI 回复失败， 也需要记录错误信息
                     String errorMessage = " AI 回复失败：" + error.getMessage();
@@ -94,20 +104,19 @@ public class JsonMessageStreamHandler {
                 });
     }
 
-    private String handleJsonMessageChunk(String chunk, StringBuilder chatHistoryStringBuilder, Set<String> seenToolIds) {
+    private String handleStreamMessage(StreamMessage streamMessage, StringBuffer chatHistoryStringBuilder, Set<String> seenToolIds) {
 
-        StreamMessage streamMessage = JSONUtil.toBean(chunk, StreamMessage.class);
         StreamMessageTypeEnum type = StreamMessageTypeEnum.getEnumByValue(streamMessage.getType());
         switch (Objects.requireNonNull(type)){
             case  AI_RESPONSE -> {
-                AIResponseMessage aiMessage = JSONUtil.toBean(chunk, AIResponseMessage.class);
+                AIResponseMessage aiMessage = (AIResponseMessage) streamMessage;
                 String data = aiMessage.getData();
                 // 拼接响应
                 chatHistoryStringBuilder.append(data);
                 return data; // 将响应返回给前端
             }
             case TOOL_REQUEST -> {
-                ToolRequestMessage toolRequestMessage = JSONUtil.toBean(chunk, ToolRequestMessage.class);
+                ToolRequestMessage toolRequestMessage = (ToolRequestMessage) streamMessage;
                 String toolId = toolRequestMessage.getId();
                 String toolName = toolRequestMessage.getName();
                 // 检查是否为第一次调用这个工具 ID
@@ -127,7 +136,7 @@ public class JsonMessageStreamHandler {
                 }
             }
             case TOOL_EXECUTED -> {
-                ToolExecutedMessage toolExecutedMessage = JSONUtil.toBean(chunk, ToolExecutedMessage.class);
+                ToolExecutedMessage toolExecutedMessage = (ToolExecutedMessage) streamMessage;
                 String toolName = toolExecutedMessage.getName();
                 JSONObject jsonObject = JSONUtil.parseObj(toolExecutedMessage.getArguments());
                 // 根据工具名称获取到工具实例
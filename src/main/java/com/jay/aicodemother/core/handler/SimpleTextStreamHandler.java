@@ -1,7 +1,12 @@
 package com.jay.aicodemother.core.handler;
 
 import cn.hutool.core.util.StrUtil;
-import com.jay.aicodemother.model.entity.ChatHistory;
+import cn.hutool.json.JSONUtil;
+import com.jay.aicodemother.ai.model.message.AIResponseMessage;
+import com.jay.aicodemother.ai.model.message.CodeSavedMessage;
+import com.jay.aicodemother.ai.model.message.StreamMessage;
+import com.jay.aicodemother.constant.AppConstant;
+import com.jay.aicodemother.core.generation.GenerationEvent;
 import com.jay.aicodemother.model.entity.User;
 import com.jay.aicodemother.model.enums.ChatHistoryMessageTypeEnum;
 import com.jay.aicodemother.service.ChatHistoryService;
@@ -24,23 +29,34 @@ public class SimpleTextStreamHandler {
 
     /**
      * 处理传统流式响应 (HTML 和 MULTI_FILE)
-     * 直接收集完整的文本响应
+     * AI 文本消息直接取出文本并收集完整的响应；最后的代码保存结果以 saved 事件推送给前端
      * @param originFlux 原始流
      * @param chatHistoryService 对话历史服务
      * @param appId 应用ID
      * @param loginUser 登录用户
      * @return 处理后的流
      */
-    public Flux<String> handle(Flux<String> originFlux, ChatHistoryService chatHistoryService,
+    public Flux<GenerationEvent> handle(Flux<StreamMessage> originFlux, ChatHistoryService chatHistoryService,
                                long appId, User loginUser){
         StreamCollector collector = new StreamCollector(chatHistoryService, appId, loginUser);
-        return originFlux.doOnNext(collector::collect)
+        return originFlux.mapNotNull(message -> {
+                    if (message instanceof AIResponseMessage aiResponseMessage) {
+                        collector.collect(aiResponseMessage.getData());
+                        return GenerationEvent.of(aiResponseMessage.getData());
+                    }
+                    if (message instanceof CodeSavedMessage codeSavedMessage) {
+                        return GenerationEvent.of(AppConstant.CODE_SAVED_EVENT, JSONUtil.toJsonStr(codeSavedMessage));
+                    }
+                    return null;
+                })
                 .doOnComplete(collector::onComplete)
+                .doOnCancel(collector::onCancel)
                 .doOnError(collector::onError);
     }
 
     private static class StreamCollector {
-        private final StringBuilder aiResponseBuilder = new StringBuilder();
+        // 客户端断开时会在其他线程读取，使用线程安全的 StringBuffer
+        private final StringBuffer aiResponseBuilder = new StringBuffer();
         private final ChatHistoryService chatHistoryService;
         private final long appId;
         private final User loginUser;
@@ -65,6 +81,17 @@ public class SimpleTextStreamHandler {
             }
         }
 
+        public void onCancel() {
+            // 客户端断开，保存已生成的部分内容并标记为已取消
+            String aiResponse = aiResponseBuilder + AppConstant.GENERATION_CANCELLED_MARKER;
+            try {
+                chatHistoryService.addChatMessage(appId, aiResponse,
+                        ChatHistoryMessageTypeEnum.AI.getValue(), loginUser.getId());
+            } catch (Exception e) {
+                log.error("保存已取消的AI响应到对话历史时发生异常，appId: {}", appId, e);
+            }
+        }
+
         public void onError(Throwable throwable) {
             // 添加错误信息到对话历史
             String errorMessage = "AI 回复失败" + throwable.getMessage();
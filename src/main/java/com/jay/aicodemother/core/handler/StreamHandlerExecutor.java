@@ -1,5 +1,7 @@
 package com.jay.aicodemother.core.handler;
 
+import com.jay.aicodemother.ai.model.message.StreamMessage;
+import com.jay.aicodemother.core.generation.GenerationEvent;
 import com.jay.aicodemother.model.entity.User;
 import com.jay.aicodemother.model.enums.CodeGenTypeEnum;
 import com.jay.aicodemother.service.ChatHistoryService;
@@ -14,8 +16,8 @@ import reactor.core.publisher.Flux;
  * Package: com.jay.aicodemother.core.handler
  * Description: 流式处理器执行器
  *  根据代码生成的类型创建合适的流式处理器
- *  - 传统的 Flux<String> 流(Html,Multi_File) --> SimpleTextStreamHandler
- *  - TokenStream 格式的复杂流式输出(Vue_Project) --> JsonMessageStreamHandler
+ *  - 只有 AI 文本消息的流(Html,Multi_File) --> SimpleTextStreamHandler
+ *  - 包含工具调用消息的复杂流式输出(Vue_Project) --> JsonMessageStreamHandler
  *
  * @Create: 2025/10/25 22:10
  * @Author: jay
@@ -39,7 +41,7 @@ public class StreamHandlerExecutor {
      * @param codeGenType
      * @return
      */
-    public Flux<String> doExecute(Flux<String> originFlux,
+    public Flux<GenerationEvent> doExecute(Flux<StreamMessage> originFlux,
                                   ChatHistoryService chatHistoryService,
                                   long appId,
                                   User loginUser, CodeGenTypeEnum codeGenType){
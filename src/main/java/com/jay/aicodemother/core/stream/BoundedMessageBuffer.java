@@ -0,0 +1,314 @@
+package com.jay.aicodemother.core.stream;
+
+import com.jay.aicodemother.ai.model.message.AIResponseMessage;
+import com.jay.aicodemother.ai.model.message.StreamMessage;
+import com.jay.aicodemother.ai.model.message.ToolExecutedMessage;
+import com.jay.aicodemother.ai.model.message.ToolRequestMessage;
+import com.jay.aicodemother.exception.BusinessException;
+import com.jay.aicodemother.exception.ErrorCode;
+import com.jay.aicodemother.utils.SseUtils;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Class name: BoundedMessageBuffer
+ * Package: com.jay.aicodemother.core.stream
+ * Description: 单次生成的有界消息缓冲（生产者为模型回调线程，消费者为 SSE 下游）
+ *  只在下游有需求时才向下游推送，否则暂存在这里，按消息类型处理溢出：
+ *  - AI_RESPONSE：与队尾文本合并，不增加条目数
+ *  - TOOL_REQUEST：同一工具调用的参数片段与队尾合并
+ *  - 工具类消息从不丢弃，缓冲满时阻塞模型回调线程，由此把背压传到 HTTP 读取
+ *  阻塞超过 stallTimeout 仍无空间时判定下游卡住，以错误结束本次生成并释放缓冲。
+ *  注意：文本和工具请求片段的 offer 在模型 HTTP 客户端读取响应体的回调线程上执行（工具执行结果在工具线程上），
+ *  阻塞期间该线程停止读取这一路响应（TCP 窗口随之收紧），最长被占用 stallTimeout，不能用于其他请求；
+ *  这是有意为之，交给其他线程只会把无界缓冲挪到别处
+ *
+ * @Create: 2026/10/17 15:10
+ * @Author: jay
+ * @Version: 1.0
+ */
+@Slf4j
+class BoundedMessageBuffer {
+
+    private final int capacity;
+
+    private final long maxBufferedBytes;
+
+    private final long stallTimeoutNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notFull = lock.newCondition();
+
+    private final ArrayDeque<Entry> queue = new ArrayDeque<>();
+
+    private final AtomicInteger wip = new AtomicInteger();
+
+    private volatile long bufferedBytes;
+
+    private volatile FluxSink<StreamMessage> sink;
+
+    /**
+     * 生产者已结束（完成、出错或超时）
+     */
+    private boolean done;
+
+    private Throwable error;
+
+    private volatile boolean cancelled;
+
+    private boolean terminated;
+
+    BoundedMessageBuffer(int capacity, long maxBufferedBytes, Duration stallTimeout) {
+        this.capacity = Math.max(1, capacity);
+        this.maxBufferedBytes = Math.max(1, maxBufferedBytes);
+        this.stallTimeoutNanos = stallTimeout.toNanos();
+    }
+
+    /**
+     * 生成消费端的 Flux，只能订阅一次
+     *
+     * @param onSubscribe 订阅完成后回调（用于启动模型调用）
+     * @param onCancel    下游取消时回调
+     */
+    Flux<StreamMessage> asFlux(Runnable onSubscribe, Runnable onCancel) {
+        return Flux.create(fluxSink -> {
+            this.sink = fluxSink;
+            fluxSink.onRequest(n -> drain());
+            fluxSink.onCancel(() -> {
+                cancel();
+                onCancel.run();
+            });
+            onSubscribe.run();
+        });
+    }
+
+    /**
+     * 放入一条消息，缓冲满时阻塞调用线程（模型 HTTP 回调线程），直到下游取走消息或超过 stallTimeout
+     */
+    void offer(StreamMessage message) {
+        Objects.requireNonNull(message);
+        long bytes = sizeOf(message);
+        lock.lock();
+        try {
+            long remaining = stallTimeoutNanos;
+            while (!done && !cancelled && !hasRoom(message, bytes)) {
+                if (remaining <= 0) {
+                    log.warn("下游消费停滞超过 {} ms，已缓冲 {} 条 / {} 字节，终止本次生成",
+                            TimeUnit.NANOSECONDS.toMillis(stallTimeoutNanos), queue.size(), bufferedBytes);
+                    // 客户端已经不再读取，直接释放缓冲并以错误结束
+                    queue.clear();
+                    bufferedBytes = 0;
+                    done = true;
+                    error = new BusinessException(ErrorCode.SYSTEM_ERROR, "客户端接收过慢，代码生成已中止");
+                    break;
+                }
+                remaining = notFull.awaitNanos(remaining);
+            }
+            if (!done && !cancelled) {
+                Entry tail = queue.peekLast();
+                if (tail != null && tail.canMerge(message)) {
+                    tail.merge(message, bytes);
+                } else {
+                    queue.offer(new Entry(message, bytes));
+                }
+                bufferedBytes += bytes;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            done = true;
+            error = new BusinessException(ErrorCode.SYSTEM_ERROR, "代码生成被中断");
+        } finally {
+            lock.unlock();
+        }
+        drain();
+    }
+
+    void complete() {
+        terminate(null);
+    }
+
+    void error(Throwable throwable) {
+        terminate(throwable);
+    }
+
+    /**
+     * 当前缓冲的字节数
+     */
+    long getBufferedBytes() {
+        return bufferedBytes;
+    }
+
+    private void terminate(Throwable throwable) {
+        lock.lock();
+        try {
+            if (done) {
+                return;
+            }
+            done = true;
+            error = throwable;
+        } finally {
+            lock.unlock();
+        }
+        drain();
+    }
+
+    private void cancel() {
+        lock.lock();
+        try {
+            cancelled = true;
+            queue.clear();
+            bufferedBytes = 0;
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 文本和同一工具调用的参数片段合并进队尾时不占用新条目，只受字节上限约束；
+     * 缓冲为空时总是允许放入，避免单条超大消息永远无法发送
+     */
+    private boolean hasRoom(StreamMessage message, long bytes) {
+        if (queue.isEmpty()) {
+            return true;
+        }
+        if (bufferedBytes + bytes > maxBufferedBytes) {
+            return false;
+        }
+        Entry tail = queue.peekLast();
+        return (tail != null && tail.canMerge(message)) || queue.size() < capacity;
+    }
+
+    /**
+     * 按下游需求推送，推送和回调都在锁外执行，避免下游同步 request 时重入
+     */
+    private void drain() {
+        if (sink == null || wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        for (; ; ) {
+            for (; ; ) {
+                StreamMessage next = null;
+                boolean finished = false;
+                Throwable failure = null;
+                lock.lock();
+                try {
+                    if (cancelled || terminated) {
+                        break;
+                    }
+                    if (queue.isEmpty()) {
+                        if (done) {
+                            terminated = true;
+                            finished = true;
+                            failure = error;
+                        }
+                    } else if (sink.requestedFromDownstream() > 0) {
+                        Entry entry = queue.poll();
+                        bufferedBytes -= entry.bytes;
+                        notFull.signalAll();
+                        next = entry.toMessage();
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                if (next != null) {
+                    sink.next(next);
+                } else {
+                    if (finished) {
+                        if (failure != null) {
+                            sink.error(failure);
+                        } else {
+                            sink.complete();
+                        }
+                    }
+                    break;
+                }
+            }
+            missed = wip.addAndGet(-missed);
+            if (missed == 0) {
+                return;
+            }
+        }
+    }
+
+    private static long sizeOf(StreamMessage message) {
+        if (message instanceof AIResponseMessage aiResponseMessage) {
+            return SseUtils.utf8Length(aiResponseMessage.getData());
+        }
+        if (message instanceof ToolRequestMessage toolRequestMessage) {
+            return SseUtils.utf8Length(toolRequestMessage.getArguments());
+        }
+        if (message instanceof ToolExecutedMessage toolExecutedMessage) {
+            return SseUtils.utf8Length(toolExecutedMessage.getArguments()) + SseUtils.utf8Length(toolExecutedMessage.getResult());
+        }
+        return 0;
+    }
+
+    /**
+     * 缓冲条目，可合并的内容（文本或工具参数）先追加到 StringBuilder，出队时再生成字符串
+     */
+    private static class Entry {
+
+        private final StreamMessage message;
+
+        private StringBuilder content;
+
+        private long bytes;
+
+        Entry(StreamMessage message, long bytes) {
+            this.message = message;
+            this.bytes = bytes;
+        }
+
+        boolean canMerge(StreamMessage other) {
+            if (message instanceof AIResponseMessage) {
+                return other instanceof AIResponseMessage;
+            }
+            if (message instanceof ToolRequestMessage toolRequestMessage
+                    && other instanceof ToolRequestMessage otherRequest) {
+                return toolRequestMessage.getId() != null && toolRequestMessage.getId().equals(otherRequest.getId());
+            }
+            return false;
+        }
+
+        void merge(StreamMessage other, long otherBytes) {
+            if (content == null) {
+                content = new StringBuilder(Objects.toString(contentOf(message), ""));
+            }
+            content.append(Objects.toString(contentOf(other), ""));
+            bytes += otherBytes;
+        }
+
+        StreamMessage toMessage() {
+            if (content != null) {
+                if (message instanceof AIResponseMessage aiResponseMessage) {
+                    aiResponseMessage.setData(content.toString());
+                } else if (message instanceof ToolRequestMessage toolRequestMessage) {
+                    toolRequestMessage.setArguments(content.toString());
+                }
+            }
+            return message;
+        }
+
+        private static String contentOf(StreamMessage message) {
+            if (message instanceof AIResponseMessage aiResponseMessage) {
+                return aiResponseMessage.getData();
+            }
+            if (message instanceof ToolRequestMessage toolRequestMessage) {
+                return toolRequestMessage.getArguments();
+            }
+            return null;
+        }
+    }
+}
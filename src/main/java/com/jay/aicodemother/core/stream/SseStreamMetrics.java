@@ -0,0 +1,48 @@
+package com.jay.aicodemother.core.stream;
+
+import com.jay.aicodemother.utils.SseUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Class name: SseStreamMetrics
+ * Package: com.jay.aicodemother.core.stream
+ * Description: 代码生成 SSE 推送指标
+ *  - ai.codegen.sse.events：推送的事件数（按时间求速率即 events/sec）
+ *  - ai.codegen.sse.event.bytes：每个事件的数据字节数
+ *  通过 /actuator/metrics 或 /actuator/prometheus 查看，用于调整合并窗口
+ *
+ * @Create: 2026/10/17 14:40
+ * @Author: jay
+ * @Version: 1.0
+ */
+@Component
+public class SseStreamMetrics {
+
+    private final Counter eventCounter;
+
+    private final DistributionSummary eventBytes;
+
+    public SseStreamMetrics(MeterRegistry meterRegistry) {
+        this.eventCounter = Counter.builder("ai.codegen.sse.events")
+                .description("代码生成推送的 SSE 事件数")
+                .register(meterRegistry);
+        this.eventBytes = DistributionSummary.builder("ai.codegen.sse.event.bytes")
+                .description("每个代码生成 SSE 事件的数据字节数")
+                .baseUnit("bytes")
+                .publishPercentiles(0.5, 0.95)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 记录一次推送
+     *
+     * @param data 事件数据
+     */
+    public void record(String data) {
+        eventCounter.increment();
+        eventBytes.record(SseUtils.utf8Length(data));
+    }
+}
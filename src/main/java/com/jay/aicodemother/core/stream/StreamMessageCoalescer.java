@@ -0,0 +1,209 @@
+package com.jay.aicodemother.core.stream;
+
+import com.jay.aicodemother.ai.model.message.AIResponseMessage;
+import com.jay.aicodemother.ai.model.message.StreamMessage;
+import com.jay.aicodemother.config.StreamCoalesceConfig;
+import com.jay.aicodemother.utils.SseUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Subscription;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class name: StreamMessageCoalescer
+ * Package: com.jay.aicodemother.core.stream
+ * Description: 流式消息合并器
+ *  把连续的 AI_RESPONSE 文本合并成一条消息，满足最大等待时间或最大字节数任一条件就推送；
+ *  工具调用类消息会先推送已合并的文本，再立即推送自身，保证前端能马上看到工具调用。
+ *  下游（SSE 客户端）消费慢时不会按时间推送，而是继续合并直到字节上限，之后不再向上游请求数据，
+ *  所以消费越慢，单个事件越大、事件数越少。
+ *
+ * @Create: 2026/10/17 14:20
+ * @Author: jay
+ * @Version: 1.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StreamMessageCoalescer {
+
+    private final StreamCoalesceConfig coalesceConfig;
+
+    /**
+     * 对消息流进行合并
+     *
+     * @param originFlux 原始消息流
+     * @return 合并后的消息流
+     */
+    public Flux<StreamMessage> coalesce(Flux<StreamMessage> originFlux) {
+        if (!coalesceConfig.isEnabled() || coalesceConfig.getMaxBytes() <= 0) {
+            return originFlux;
+        }
+        return coalesce(originFlux, coalesceConfig.getMaxLatency(), coalesceConfig.getMaxBytes(), Schedulers.parallel());
+    }
+
+    static Flux<StreamMessage> coalesce(Flux<StreamMessage> originFlux, Duration maxLatency, int maxBytes, Scheduler scheduler) {
+        return Flux.create(sink -> {
+            CoalescingSubscriber subscriber = new CoalescingSubscriber(sink, maxLatency, maxBytes, scheduler);
+            sink.onRequest(n -> subscriber.onDownstreamRequest());
+            sink.onDispose(subscriber::release);
+            originFlux.subscribe(subscriber);
+        });
+    }
+
+    /**
+     * 合并订阅者
+     * 上游回调、定时任务、下游请求可能在不同线程，状态统一用 this 加锁
+     */
+    private static class CoalescingSubscriber extends BaseSubscriber<StreamMessage> {
+
+        private final FluxSink<StreamMessage> sink;
+
+        private final long maxLatencyMillis;
+
+        private final int maxBytes;
+
+        private final Scheduler scheduler;
+
+        private final StringBuilder pendingText = new StringBuilder();
+
+        private int pendingBytes;
+
+        /**
+         * 已向上游请求、但还没收到的数据
+         */
+        private boolean upstreamRequested;
+
+        /**
+         * 等待时间已到，但下游暂时没有需求
+         */
+        private boolean flushDue;
+
+        private Disposable flushTask;
+
+        private boolean done;
+
+        CoalescingSubscriber(FluxSink<StreamMessage> sink, Duration maxLatency, int maxBytes, Scheduler scheduler) {
+            this.sink = sink;
+            this.maxLatencyMillis = Math.max(0, maxLatency.toMillis());
+            this.maxBytes = maxBytes;
+            this.scheduler = scheduler;
+        }
+
+        @Override
+        protected synchronized void hookOnSubscribe(Subscription subscription) {
+            requestMoreIfNeeded();
+        }
+
+        @Override
+        protected synchronized void hookOnNext(StreamMessage message) {
+            upstreamRequested = false;
+            if (message instanceof AIResponseMessage aiResponseMessage) {
+                String data = aiResponseMessage.getData();
+                if (data != null && !data.isEmpty()) {
+                    if (pendingBytes == 0) {
+                        scheduleFlush();
+                    }
+                    pendingText.append(data);
+                    pendingBytes += SseUtils.utf8Length(data);
+                    if (pendingBytes >= maxBytes && sink.requestedFromDownstream() > 0) {
+                        flushPending();
+                    }
+                }
+            } else {
+                // 工具消息不合并，先推送之前的文本保证顺序
+                flushPending();
+                sink.next(message);
+            }
+            requestMoreIfNeeded();
+        }
+
+        @Override
+        protected synchronized void hookOnComplete() {
+            done = true;
+            flushPending();
+            sink.complete();
+        }
+
+        @Override
+        protected synchronized void hookOnError(Throwable throwable) {
+            done = true;
+            flushPending();
+            sink.error(throwable);
+        }
+
+        synchronized void onDownstreamRequest() {
+            if (pendingBytes > 0 && (flushDue || pendingBytes >= maxBytes)) {
+                flushPending();
+            }
+            requestMoreIfNeeded();
+        }
+
+        synchronized void onFlushTimeout() {
+            flushTask = null;
+            if (pendingBytes == 0) {
+                return;
+            }
+            if (sink.requestedFromDownstream() > 0) {
+                flushPending();
+                requestMoreIfNeeded();
+            } else {
+                // 下游还没消费完，继续合并，等下游请求时再推送
+                flushDue = true;
+            }
+        }
+
+        synchronized void release() {
+            cancelFlushTask();
+            dispose();
+        }
+
+        /**
+         * 下游有需求时正常拉取；没有需求时只在文本未达到上限前继续拉取（把文本合并进同一事件），
+         * 遇到工具消息或达到上限后停止拉取，由上游的有界缓冲承担背压
+         */
+        private void requestMoreIfNeeded() {
+            if (upstreamRequested || done || isDisposed() || upstream() == null) {
+                return;
+            }
+            boolean absorbing = pendingBytes > 0 && pendingBytes < maxBytes;
+            if (sink.requestedFromDownstream() > 0 || absorbing) {
+                upstreamRequested = true;
+                request(1);
+            }
+        }
+
+        private void flushPending() {
+            cancelFlushTask();
+            flushDue = false;
+            if (pendingBytes == 0) {
+                return;
+            }
+            String text = pendingText.toString();
+            pendingText.setLength(0);
+            pendingBytes = 0;
+            sink.next(new AIResponseMessage(text));
+        }
+
+        private void scheduleFlush() {
+            cancelFlushTask();
+            flushTask = scheduler.schedule(this::onFlushTimeout, maxLatencyMillis, TimeUnit.MILLISECONDS);
+        }
+
+        private void cancelFlushTask() {
+            if (flushTask != null) {
+                flushTask.dispose();
+                flushTask = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.jay.aicodemother.core.stream;
+
+import com.jay.aicodemother.ai.model.message.AIResponseMessage;
+import com.jay.aicodemother.ai.model.message.StreamMessage;
+import com.jay.aicodemother.ai.model.message.ToolExecutedMessage;
+import com.jay.aicodemother.ai.model.message.ToolRequestMessage;
+import com.jay.aicodemother.config.StreamBridgeConfig;
+import dev.langchain4j.service.TokenStream;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Class name: TokenStreamBridge
+ * Package: com.jay.aicodemother.core.stream
+ * Description: TokenStream -> Flux 有界桥接
+ *  每次生成创建一个 {@link BoundedMessageBuffer}，缓冲满时模型的 HTTP 回调线程会阻塞，直到客户端取走消息或判定停滞。
+ *  ai.codegen.stream.buffered.bytes 指标为所有进行中生成的缓冲字节数之和，只注册一次，
+ *  不按应用或生成区分，避免每次生成留下一条新的时间序列
+ *
+ * @Create: 2026/10/17 15:30
+ * @Author: jay
+ * @Version: 1.0
+ */
+@Slf4j
+@Component
+public class TokenStreamBridge {
+
+    private static final String BUFFERED_BYTES_METRIC = "ai.codegen.stream.buffered.bytes";
+
+    private final StreamBridgeConfig bridgeConfig;
+
+    /**
+     * 进行中生成的缓冲
+     */
+    private final Set<BoundedMessageBuffer> activeBuffers = ConcurrentHashMap.newKeySet();
+
+    public TokenStreamBridge(StreamBridgeConfig bridgeConfig, MeterRegistry meterRegistry) {
+        this.bridgeConfig = bridgeConfig;
+        Gauge.builder(BUFFERED_BYTES_METRIC, activeBuffers,
+                        buffers -> buffers.stream().mapToLong(BoundedMessageBuffer::getBufferedBytes).sum())
+                .description("进行中的代码生成等待推送给客户端的字节数")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 将 TokenStream 转换为有界的消息流
+     *
+     * @param tokenStream TokenStream 对象
+     * @param appId       应用ID
+     * @return 消息流
+     */
+    public Flux<StreamMessage> toFlux(TokenStream tokenStream, Long appId) {
+        return Flux.defer(() -> {
+            BoundedMessageBuffer buffer = new BoundedMessageBuffer(bridgeConfig.getCapacity(),
+                    bridgeConfig.getMaxBufferedBytes(), bridgeConfig.getStallTimeout());
+            activeBuffers.add(buffer);
+            return buffer.asFlux(() -> tokenStream
+                                    .onPartialResponse(partialResponse -> buffer.offer(new AIResponseMessage(partialResponse)))
+                                    .onPartialToolExecutionRequest((index, toolExecutionRequest) ->
+                                            buffer.offer(new ToolRequestMessage(toolExecutionRequest)))
+                                    .onToolExecuted(toolExecution -> buffer.offer(new ToolExecutedMessage(toolExecution)))
+                                    .onCompleteResponse(chatResponse -> buffer.complete())
+                                    .onError(error -> {
+                                        log.error("AI 流式生成出错，appId: {}", appId, error);
+                                        buffer.error(error);
+                                    })
+                                    .start(),
+                            () -> {
+                                // 客户端断开：关闭模型的 HTTP 流并停止工具调用循环
+                                log.info("客户端已断开，取消 AI 生成，appId: {}", appId);
+                                tokenStream.cancel();
+                            })
+                    // 客户端卡住超时等错误结束时，同样不再继续生成
+                    .doOnError(error -> tokenStream.cancel())
+                    .doFinally(signalType -> activeBuffers.remove(buffer));
+        });
+    }
+}
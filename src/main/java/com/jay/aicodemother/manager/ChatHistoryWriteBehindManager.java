@@ -0,0 +1,399 @@
+package com.jay.aicodemother.manager;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONUtil;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.jay.aicodemother.config.ChatHistoryWriteBehindConfig;
+import com.jay.aicodemother.mapper.ChatHistoryMapper;
+import com.jay.aicodemother.model.entity.ChatHistory;
+import com.jay.aicodemother.monitor.CodeGenMetrics;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Class name: ChatHistoryWriteBehindManager
+ * Package: com.jay.aicodemother.manager
+ * Description: 对话历史异步批量写入
+ *  - 消息进入有界内存队列后立即返回，由单个写入线程按条数或时间间隔批量入库，生成链路不再等待 MySQL
+ *  - 所有消息经同一个先进先出队列、由同一个线程写入，同一应用的消息保持提交顺序
+ *  - 写库失败时把本批及后续消息写入本地溢出文件（本批排在最前），之后的消息也先写入溢出文件，直到溢出文件按原顺序补写成功
+ *  - 队列满时把积压的消息和新消息一起追加到溢出文件（本地磁盘）；写库和补写由 flushLock 串行化，
+ *    出队和溢出文件读写只持有 spillLock，提交消息的线程不会等待正在进行的写库
+ *  - 删除应用时丢弃该应用在队列和溢出文件中的消息
+ *
+ * @Create: 2026/10/17 18:45
+ * @Author: jay
+ * @Version: 1.0
+ */
+@Slf4j
+@Component
+public class ChatHistoryWriteBehindManager {
+
+    private final ChatHistoryWriteBehindConfig config;
+
+    private final ChatHistoryMapper chatHistoryMapper;
+
+    private final CodeGenMetrics codeGenMetrics;
+
+    private final LinkedBlockingQueue<ChatHistory> queue;
+
+    private final File spillFile;
+
+    /**
+     * 串行化写库和补写溢出文件，写库期间一直持有
+     */
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    /**
+     * 保护队列出队和溢出文件读写，只做本地操作，持有期间不访问数据库
+     */
+    private final ReentrantLock spillLock = new ReentrantLock();
+
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder()
+                    .setNameFormat("chat-history-writer-%d")
+                    .setDaemon(true)
+                    .build()
+    );
+
+    /**
+     * 下次允许重试补写溢出文件的时间
+     */
+    private long nextSpillRetryNanos;
+
+    public ChatHistoryWriteBehindManager(ChatHistoryWriteBehindConfig config, ChatHistoryMapper chatHistoryMapper,
+                                         CodeGenMetrics codeGenMetrics, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.chatHistoryMapper = chatHistoryMapper;
+        this.codeGenMetrics = codeGenMetrics;
+        this.queue = new LinkedBlockingQueue<>(config.getQueueCapacity());
+        this.spillFile = new File(config.getSpillFile());
+        this.nextSpillRetryNanos = System.nanoTime();
+        Gauge.builder("ai.codegen.history.pending", queue, LinkedBlockingQueue::size)
+                .description("等待写入的对话历史条数")
+                .register(meterRegistry);
+        if (config.isEnabled()) {
+            long intervalMillis = config.getFlushInterval().toMillis();
+            flusher.scheduleWithFixedDelay(this::flushSafely, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 提交一条对话历史，立即返回
+     *
+     * @param chatHistory 对话历史（需已由实体的主键生成器填好 id，并填好 createTime）
+     */
+    public void enqueue(ChatHistory chatHistory) {
+        if (!queue.offer(chatHistory)) {
+            overflow(chatHistory);
+            return;
+        }
+        if (queue.size() >= config.getBatchSize() && flushScheduled.compareAndSet(false, true)) {
+            flusher.execute(() -> {
+                flushScheduled.set(false);
+                flushSafely();
+            });
+        }
+    }
+
+    /**
+     * 丢弃某个应用尚未写入的消息（删除应用时调用）
+     * 会等待正在进行的写库完成，调用方随后删除数据库中的记录时，不会再有该应用的消息被写回
+     *
+     * @param appId 应用ID
+     */
+    public void discard(Long appId) {
+        flushLock.lock();
+        spillLock.lock();
+        try {
+            queue.removeIf(chatHistory -> appId.equals(chatHistory.getAppId()));
+            List<String> lines = readSpill();
+            List<String> kept = lines.stream()
+                    .filter(line -> !appId.equals(JSONUtil.parseObj(line).getLong("appId")))
+                    .toList();
+            if (kept.size() < lines.size()) {
+                writeSpill(kept);
+            }
+        } finally {
+            spillLock.unlock();
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 把队列中的消息全部写出（写库或写入溢出文件）
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            if (spillFile.exists() && !replaySpill()) {
+                // 溢出文件还没补写完，新消息排在它后面，保证顺序
+                spillPending(List.of());
+                return;
+            }
+            List<ChatHistory> batch;
+            while (!(batch = drainUnlessSpilled()).isEmpty()) {
+                if (!writeBatch(batch)) {
+                    spillPending(batch);
+                    nextSpillRetryNanos = System.nanoTime() + config.getSpillRetryInterval().toNanos();
+                    return;
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 关闭时把剩余消息写出，数据库不可用时落盘，下次启动后补写
+     */
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        nextSpillRetryNanos = System.nanoTime();
+        flushSafely();
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("对话历史批量写入异常: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 队列已满，不等待写库，把积压的消息和新消息追加到溢出文件
+     */
+    private void overflow(ChatHistory chatHistory) {
+        spillLock.lock();
+        try {
+            List<ChatHistory> pending = drain(Integer.MAX_VALUE);
+            pending.add(chatHistory);
+            log.warn("对话历史写入队列已满，{} 条消息写入溢出文件", pending.size());
+            appendSpill(pending);
+        } finally {
+            spillLock.unlock();
+        }
+    }
+
+    /**
+     * 溢出文件不存在时取出一批消息；存在时（其他线程刚溢出）不再出队，留给溢出文件之后写入
+     */
+    private List<ChatHistory> drainUnlessSpilled() {
+        spillLock.lock();
+        try {
+            return spillFile.exists() ? List.of() : drain(config.getBatchSize());
+        } finally {
+            spillLock.unlock();
+        }
+    }
+
+    private List<ChatHistory> drain(int max) {
+        List<ChatHistory> batch = new ArrayList<>(Math.min(max, Math.max(queue.size(), 1)));
+        queue.drainTo(batch, max);
+        return batch;
+    }
+
+    /**
+     * 批量写库
+     *  insertBatch 不忽略 null 字段（显式写入 NULL），写入前补齐非空列，溢出文件中旧格式的记录同样可以回放
+     *
+     * @return 是否成功
+     */
+    private boolean writeBatch(List<ChatHistory> batch) {
+        for (ChatHistory chatHistory : batch) {
+            fillNotNullColumns(chatHistory);
+        }
+        long start = System.nanoTime();
+        String outcome = CodeGenMetrics.OUTCOME_ERROR;
+        try {
+            chatHistoryMapper.insertBatch(batch);
+            outcome = CodeGenMetrics.OUTCOME_SUCCESS;
+            return true;
+        } catch (DuplicateKeyException e) {
+            // 上次写入已提交但未确认（如超时），逐条补写并跳过已存在的记录
+            for (ChatHistory chatHistory : batch) {
+                try {
+                    chatHistoryMapper.insertSelective(chatHistory);
+                } catch (DuplicateKeyException ignored) {
+                    // 已写入
+                } catch (Exception ex) {
+                    log.warn("对话历史逐条写入失败: {}", ex.getMessage());
+                    return false;
+                }
+            }
+            outcome = CodeGenMetrics.OUTCOME_SUCCESS;
+            return true;
+        } catch (Exception e) {
+            log.warn("对话历史批量写入失败，{} 条消息转入溢出文件: {}", batch.size(), e.getMessage());
+            return false;
+        } finally {
+            // 批量写入的耗时平摊到每条消息，按消息类型记录
+            long nanosPerMessage = (System.nanoTime() - start) / Math.max(1, batch.size());
+            for (ChatHistory chatHistory : batch) {
+                codeGenMetrics.recordHistoryPersist(chatHistory.getMessageType(), outcome, nanosPerMessage);
+            }
+        }
+    }
+
+    private static void fillNotNullColumns(ChatHistory chatHistory) {
+        if (chatHistory.getCreateTime() == null) {
+            chatHistory.setCreateTime(LocalDateTime.now());
+        }
+        if (chatHistory.getUpdateTime() == null) {
+            chatHistory.setUpdateTime(chatHistory.getCreateTime());
+        }
+        if (chatHistory.getIsDelete() == null) {
+            chatHistory.setIsDelete(0);
+        }
+    }
+
+    /**
+     * 把 first、溢出文件已有内容、队列中剩余的消息按顺序写入溢出文件
+     * 写库失败时 first 为失败的一批：它们比写库期间溢出的消息更早出队，需要排在最前
+     */
+    private void spillPending(List<ChatHistory> first) {
+        spillLock.lock();
+        try {
+            List<ChatHistory> pending = drain(Integer.MAX_VALUE);
+            if (first.isEmpty()) {
+                appendSpill(pending);
+                return;
+            }
+            List<String> lines = new ArrayList<>(toLines(first));
+            lines.addAll(readSpill());
+            lines.addAll(toLines(pending));
+            writeSpill(lines);
+        } finally {
+            spillLock.unlock();
+        }
+    }
+
+    /**
+     * 追加到溢出文件（调用方持有 spillLock）
+     */
+    private void appendSpill(List<ChatHistory> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            FileUtil.appendLines(toLines(batch), spillFile, StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            log.error("对话历史写入溢出文件失败，丢失 {} 条消息: {}", batch.size(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 覆盖溢出文件，没有内容时删除（调用方持有 spillLock）
+     */
+    private void writeSpill(List<String> lines) {
+        if (lines.isEmpty()) {
+            FileUtil.del(spillFile);
+            return;
+        }
+        try {
+            FileUtil.writeUtf8Lines(lines, spillFile);
+        } catch (Exception e) {
+            log.error("对话历史写入溢出文件失败，丢失 {} 条消息: {}", lines.size(), e.getMessage(), e);
+        }
+    }
+
+    private List<String> readSpill() {
+        if (!spillFile.exists()) {
+            return List.of();
+        }
+        return FileUtil.readUtf8Lines(spillFile).stream().filter(StrUtil::isNotBlank).toList();
+    }
+
+    private static List<String> toLines(List<ChatHistory> batch) {
+        return batch.stream().map(JSONUtil::toJsonStr).toList();
+    }
+
+    /**
+     * 按原顺序补写溢出文件，写入数据库期间不持有 spillLock，已写入的行再从文件头部移除；
+     * 补写期间追加到文件末尾的消息在下一轮补写
+     *
+     * @return 是否全部写完
+     */
+    private boolean replaySpill() {
+        if (System.nanoTime() - nextSpillRetryNanos < 0) {
+            return false;
+        }
+        int total = 0;
+        for (; ; ) {
+            List<String> lines;
+            spillLock.lock();
+            try {
+                lines = readSpill();
+                if (lines.isEmpty()) {
+                    FileUtil.del(spillFile);
+                    if (total > 0) {
+                        log.info("溢出文件中的 {} 条对话历史已补写完成", total);
+                    }
+                    return true;
+                }
+            } finally {
+                spillLock.unlock();
+            }
+            int written = 0;
+            int batchSize = config.getBatchSize();
+            boolean failed = false;
+            while (written < lines.size()) {
+                List<String> chunk = lines.subList(written, Math.min(written + batchSize, lines.size()));
+                List<ChatHistory> batch = chunk.stream().map(line -> JSONUtil.toBean(line, ChatHistory.class)).toList();
+                if (!writeBatch(new ArrayList<>(batch))) {
+                    failed = true;
+                    break;
+                }
+                written += chunk.size();
+            }
+            removeReplayed(written);
+            total += written;
+            if (failed) {
+                nextSpillRetryNanos = System.nanoTime() + config.getSpillRetryInterval().toNanos();
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 从溢出文件头部移除已补写的行（补写期间只会有追加，头部的行不变）
+     */
+    private void removeReplayed(int count) {
+        if (count == 0) {
+            return;
+        }
+        spillLock.lock();
+        try {
+            List<String> lines = readSpill();
+            writeSpill(lines.subList(Math.min(count, lines.size()), lines.size()));
+        } finally {
+            spillLock.unlock();
+        }
+    }
+}
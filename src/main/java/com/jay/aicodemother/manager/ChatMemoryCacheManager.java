@@ -0,0 +1,157 @@
+package com.jay.aicodemother.manager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jay.aicodemother.ai.memory.ChatMemoryCompactor;
+import com.jay.aicodemother.ai.memory.LocalTokenCountEstimator;
+import com.jay.aicodemother.ai.memory.TokenBudgetChatMemory;
+import com.jay.aicodemother.ai.memory.ToolPayloadElider;
+import com.jay.aicodemother.config.ChatMemoryCacheConfig;
+import com.jay.aicodemother.model.enums.CodeGenTypeEnum;
+import com.jay.aicodemother.service.ChatHistoryService;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.memory.ChatMemory;
+import dev.langchain4j.memory.chat.ChatMemoryProvider;
+import dev.langchain4j.model.TokenCountEstimator;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Class name: ChatMemoryCacheManager
+ * Package: com.jay.aicodemother.manager
+ * Description: 按应用缓存对话记忆，供共享的 AI 服务代理通过 chatMemoryProvider 按 memoryId 获取
+ *  消息本身保存在 Redis 中，缓存的记忆对象只包含 id、窗口大小和存储引用，每个条目的堆占用基本固定（约 512 字节），
+ *  因此按条目数（code-gen.chat-memory.max-entries）限制缓存大小。
+ *  每个应用（即每个 Redis key）只有一个记忆实例，缓存未命中时创建并加载历史（优先复用 Redis，必要时查询数据库）；
+ *  token 预算和条数上限在每次获取时按本次请求的生成类型设置，不由最先创建记忆的类型决定。
+ *  AI 服务会按 memoryId 长期持有 chatMemoryProvider 返回的对象，因此提供给代理的是按类型委托的轻量视图，
+ *  每次操作都从缓存取当前实例，避免代理持有已被移出缓存的实例
+ *
+ * @Create: 2026/10/17 20:45
+ * @Author: jay
+ * @Version: 1.0
+ */
+@Slf4j
+@Component
+public class ChatMemoryCacheManager {
+
+    private final ChatMemoryStore chatMemoryStore;
+
+    private final ChatHistoryService chatHistoryService;
+
+    private final ChatMemoryCacheConfig config;
+
+    private final ChatMemoryCompactor compactor;
+
+    private final ChatMemoryWatermarkManager watermarkManager;
+
+    private final TokenCountEstimator tokenCountEstimator = new LocalTokenCountEstimator();
+
+    private final ToolPayloadElider toolPayloadElider;
+
+    private final Cache<Long, TokenBudgetChatMemory> memoryCache;
+
+    public ChatMemoryCacheManager(ChatMemoryStore chatMemoryStore, @Lazy ChatHistoryService chatHistoryService,
+                                  ChatMemoryCacheConfig config, ChatMemoryCompactor compactor,
+                                  ChatMemoryWatermarkManager watermarkManager, MeterRegistry meterRegistry) {
+        this.chatMemoryStore = chatMemoryStore;
+        this.chatHistoryService = chatHistoryService;
+        this.config = config;
+        this.compactor = compactor;
+        this.watermarkManager = watermarkManager;
+        this.toolPayloadElider = new ToolPayloadElider(config.getElideToolPayloadChars(), config.getKeepRecentToolResults());
+        this.memoryCache = Caffeine.newBuilder()
+                .maximumSize(config.getMaxEntries())
+                .expireAfterAccess(config.getExpireAfterAccess())
+                .removalListener((key, value, cause) -> log.debug("对话记忆被移出缓存， appId : {}, 原因 : {}", key, cause))
+                .build();
+        Gauge.builder("ai.codegen.memory.cache.size", memoryCache, Cache::estimatedSize)
+                .description("对话记忆缓存的条目数")
+                .register(meterRegistry);
+        if (compactor != null) {
+            compactor.setMemoryResolver(memoryId -> memoryCache.getIfPresent(toAppId(memoryId)));
+        }
+    }
+
+    /**
+     * 创建指定生成类型的 chatMemoryProvider
+     *
+     * @param codeGenType 生成类型，决定记忆的 token 预算
+     * @return chatMemoryProvider
+     */
+    public ChatMemoryProvider chatMemoryProvider(CodeGenTypeEnum codeGenType) {
+        return memoryId -> new CodeGenTypeChatMemory(memoryId, codeGenType);
+    }
+
+    /**
+     * 获取应用的对话记忆，不存在时创建并加载历史
+     *
+     * @param memoryId    AI Service 传入的 memoryId（应用ID）
+     * @param codeGenType 生成类型，决定记忆的 token 预算
+     * @return 对话记忆
+     */
+    public TokenBudgetChatMemory getChatMemory(Object memoryId, CodeGenTypeEnum codeGenType) {
+        TokenBudgetChatMemory chatMemory = memoryCache.get(toAppId(memoryId), key -> createChatMemory(key, codeGenType));
+        chatMemory.applyLimits(config.getTokenBudget(codeGenType.getValue()), config.getHardLimitRatio(),
+                config.getMaxMessages(codeGenType.getValue()));
+        return chatMemory;
+    }
+
+    private static Long toAppId(Object memoryId) {
+        return memoryId instanceof Number number ? number.longValue() : Long.valueOf(memoryId.toString());
+    }
+
+    private TokenBudgetChatMemory createChatMemory(Long appId, CodeGenTypeEnum codeGenType) {
+        TokenBudgetChatMemory chatMemory = new TokenBudgetChatMemory(appId, chatMemoryStore, tokenCountEstimator,
+                config.getTokenBudget(codeGenType.getValue()), config.getHardLimitRatio(), config.getMaxMessages(codeGenType.getValue()), compactor,
+                toolPayloadElider, watermarkManager == null ? null : message -> watermarkManager.onMemoryAdded(appId, message));
+        try {
+            // 优先复用 Redis 中的记忆，数据库有更新时才从数据库加载
+            chatHistoryService.hydrateChatMemory(appId, chatMemory, config.getHydrateCount());
+        } catch (Exception e) {
+            log.error("加载聊天历史记录时出错，将使用空的记忆实例: ", e);
+        }
+        return chatMemory;
+    }
+
+    /**
+     * 提供给 AI 服务的记忆视图，每次操作按生成类型从缓存获取当前的记忆实例
+     */
+    private class CodeGenTypeChatMemory implements ChatMemory {
+
+        private final Object memoryId;
+
+        private final CodeGenTypeEnum codeGenType;
+
+        private CodeGenTypeChatMemory(Object memoryId, CodeGenTypeEnum codeGenType) {
+            this.memoryId = memoryId;
+            this.codeGenType = codeGenType;
+        }
+
+        @Override
+        public Object id() {
+            return memoryId;
+        }
+
+        @Override
+        public void add(ChatMessage message) {
+            getChatMemory(memoryId, codeGenType).add(message);
+        }
+
+        @Override
+        public List<ChatMessage> messages() {
+            return getChatMemory(memoryId, codeGenType).messages();
+        }
+
+        @Override
+        public void clear() {
+            getChatMemory(memoryId, codeGenType).clear();
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.jay.aicodemother.manager;
+
+import cn.hutool.core.util.NumberUtil;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.jay.aicodemother.config.RedisChatMemoryStoreConfig;
+import com.jay.aicodemother.model.enums.ChatHistoryMessageTypeEnum;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.UserMessage;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class name: ChatMemoryWatermarkManager
+ * Package: com.jay.aicodemother.manager
+ * Description: 对话记忆水位线
+ *  - chat-history:latest:{appId}：该应用最新一条对话历史的 ID（雪花 ID，单调递增）
+ *  - chat-memory:watermark:{appId}：Redis 对话记忆已经包含到的对话历史 ID
+ *  - 写入任何对话历史都前移 latest；消息确实写入 Redis 记忆后才前移 watermark：
+ *    用户消息先入库、后由 AI Service 写入记忆，写入记忆时前移到该用户消息；
+ *    AI 回复先由 AI Service 写入记忆（只有正常完成的回复才会写入）、后入库，入库时前移到该回复。
+ *    取消时保存的部分回复和错误信息不在记忆中，只前移 latest。
+ *  - watermark 落后于 latest 时说明数据库更新，需要从 MySQL 重新加载记忆；
+ *    从 MySQL 加载后只前移到实际加载到的最新一条，仍在异步写入队列或溢出文件中的消息下次继续加载
+ *  - Redis 写入在单独的线程中按提交顺序执行，不占用生成链路；队列已满时由调用线程执行
+ *  Redis 异常时按“数据库更新”处理，回退到 MySQL
+ *
+ * @Create: 2026/10/17 20:10
+ * @Author: jay
+ * @Version: 1.0
+ */
+@Slf4j
+@Component
+public class ChatMemoryWatermarkManager {
+
+    private static final String HISTORY_LATEST_KEY_PREFIX = "chat-history:latest:";
+
+    private static final String MEMORY_WATERMARK_KEY_PREFIX = "chat-memory:watermark:";
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final RedisChatMemoryStoreConfig redisChatMemoryStoreConfig;
+
+    /**
+     * 已入库、等待 AI Service 写入记忆的用户消息ID
+     */
+    private final Map<Long, Long> pendingUserMessages = new ConcurrentHashMap<>();
+
+    /**
+     * 已写入记忆、等待入库的 AI 回复
+     */
+    private final Set<Long> pendingAiMessages = ConcurrentHashMap.newKeySet();
+
+    private final ThreadPoolExecutor writer = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(10000),
+            new ThreadFactoryBuilder()
+                    .setNameFormat("chat-memory-watermark-%d")
+                    .setDaemon(true)
+                    .build(),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+
+    public ChatMemoryWatermarkManager(StringRedisTemplate stringRedisTemplate,
+                                      RedisChatMemoryStoreConfig redisChatMemoryStoreConfig) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.redisChatMemoryStoreConfig = redisChatMemoryStoreConfig;
+    }
+
+    /**
+     * 写入一条对话历史后更新水位
+     *
+     * @param appId       应用ID
+     * @param historyId   对话历史ID
+     * @param messageType 消息类型
+     */
+    public void onHistoryAdded(Long appId, Long historyId, ChatHistoryMessageTypeEnum messageType) {
+        boolean inMemory = false;
+        if (messageType == ChatHistoryMessageTypeEnum.USER) {
+            // 新的一轮开始，上一轮未入库的 AI 回复不再对应后续的对话历史
+            pendingAiMessages.remove(appId);
+            pendingUserMessages.put(appId, historyId);
+        } else if (messageType == ChatHistoryMessageTypeEnum.AI) {
+            inMemory = pendingAiMessages.remove(appId);
+        }
+        boolean advanceWatermark = inMemory;
+        submit(appId, () -> {
+            String value = String.valueOf(historyId);
+            long ttl = redisChatMemoryStoreConfig.getTtl();
+            stringRedisTemplate.opsForValue().set(HISTORY_LATEST_KEY_PREFIX + appId, value, ttl, TimeUnit.SECONDS);
+            if (advanceWatermark) {
+                stringRedisTemplate.opsForValue().set(MEMORY_WATERMARK_KEY_PREFIX + appId, value, ttl, TimeUnit.SECONDS);
+            }
+        });
+    }
+
+    /**
+     * 消息写入 Redis 对话记忆后调用
+     *
+     * @param appId   应用ID
+     * @param message 写入的消息
+     */
+    public void onMemoryAdded(Long appId, ChatMessage message) {
+        if (message instanceof UserMessage) {
+            Long historyId = pendingUserMessages.remove(appId);
+            if (historyId != null) {
+                submit(appId, () -> stringRedisTemplate.opsForValue().set(MEMORY_WATERMARK_KEY_PREFIX + appId,
+                        String.valueOf(historyId), redisChatMemoryStoreConfig.getTtl(), TimeUnit.SECONDS));
+            }
+        } else if (message instanceof AiMessage aiMessage && !aiMessage.hasToolExecutionRequests()) {
+            // 最终回复，随后由流处理器入库
+            pendingAiMessages.add(appId);
+        }
+    }
+
+    /**
+     * 数据库中是否有 Redis 对话记忆尚未包含的对话历史
+     *
+     * @param appId 应用ID
+     * @return 是否需要从数据库重新加载
+     */
+    public boolean isHistoryNewer(Long appId) {
+        try {
+            List<String> values = stringRedisTemplate.opsForValue()
+                    .multiGet(List.of(HISTORY_LATEST_KEY_PREFIX + appId, MEMORY_WATERMARK_KEY_PREFIX + appId));
+            String latest = values == null ? null : values.get(0);
+            String watermark = values == null ? null : values.get(1);
+            if (latest == null) {
+                // 没有记录过新的对话历史，以 Redis 记忆为准
+                return false;
+            }
+            return watermark == null || NumberUtil.parseLong(watermark) < NumberUtil.parseLong(latest);
+        } catch (Exception e) {
+            log.warn("读取对话记忆水位失败，appId: {}, 错误信息: {}", appId, e.getMessage());
+            return true;
+        }
+    }
+
+    /**
+     * 从数据库加载记忆后，把水位线前移到实际加载到的最新一条对话历史
+     *
+     * @param appId           应用ID
+     * @param loadedHistoryId 加载到的最新一条对话历史的 ID
+     */
+    public void markMemoryLoaded(Long appId, Long loadedHistoryId) {
+        submit(appId, () -> stringRedisTemplate.opsForValue().set(MEMORY_WATERMARK_KEY_PREFIX + appId,
+                String.valueOf(loadedHistoryId), redisChatMemoryStoreConfig.getTtl(), TimeUnit.SECONDS));
+    }
+
+    /**
+     * 删除应用的水位记录
+     *
+     * @param appId 应用ID
+     */
+    public void clear(Long appId) {
+        pendingUserMessages.remove(appId);
+        pendingAiMessages.remove(appId);
+        // 与尚未执行的写入保持顺序，删除后不会再被写回
+        submit(appId, () -> stringRedisTemplate.delete(
+                List.of(HISTORY_LATEST_KEY_PREFIX + appId, MEMORY_WATERMARK_KEY_PREFIX + appId)));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void submit(Long appId, Runnable action) {
+        try {
+            writer.execute(() -> {
+                try {
+                    action.run();
+                } catch (Exception e) {
+                    log.warn("更新对话记忆水位失败，appId: {}, 错误信息: {}", appId, e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("对话记忆水位写入线程已关闭，appId: {}", appId);
+        }
+    }
+}
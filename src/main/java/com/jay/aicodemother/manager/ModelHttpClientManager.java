@@ -0,0 +1,134 @@
+package com.jay.aicodemother.manager;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.jay.aicodemother.ai.http.InstrumentedSslContext;
+import com.jay.aicodemother.ai.http.SharedJdkHttpClientBuilder;
+import com.jay.aicodemother.config.ModelHttpClientConfig;
+import dev.langchain4j.http.client.HttpClientBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.net.ssl.SSLContext;
+import java.net.http.HttpClient;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class name: ModelHttpClientManager
+ * Package: com.jay.aicodemother.manager
+ * Description: 管理所有模型共用的 JDK HttpClient
+ *  - 启动时创建唯一的 HttpClient（HTTP/2、连接超时、连接保持时间和连接池大小来自 code-gen.http-client）
+ *  - 通过 {@link #newBuilder()} 为每个模型提供 HttpClientBuilder，各模型只设置自己的请求超时
+ *  - 连接指标：JDK HttpClient 不暴露连接池信息，这里通过包装 SSLContext 统计 TLS 连接，
+ *    因此 ai.model.http.connections* 和 ai.model.http.tls.handshake 只覆盖 https 的模型地址
+ *    - ai.model.http.connections：当前打开的 TLS 连接数
+ *    - ai.model.http.connections.opened：累计新建的 TLS 连接数（HTTP/2 复用良好时应远小于请求数）
+ *    - ai.model.http.tls.handshake：TLS 握手耗时
+ *    - ai.model.http.streams.active：正在进行的模型请求数（HTTP/2 下即连接上的并发 stream 数）
+ *
+ * @Create: 2026/10/17 23:58
+ * @Author: jay
+ * @Version: 1.0
+ */
+@Slf4j
+@Component
+public class ModelHttpClientManager {
+
+    private final HttpClient httpClient;
+
+    private final ExecutorService streamExecutor;
+
+    private final AtomicInteger activeStreams = new AtomicInteger();
+
+    private final AtomicInteger openConnections = new AtomicInteger();
+
+    public ModelHttpClientManager(ModelHttpClientConfig config, MeterRegistry meterRegistry) {
+        // JDK HttpClient 的连接池参数只能通过系统属性设置，且在首次创建 HttpClient 时读取；启动参数中显式指定的优先
+        setPropertyIfAbsent("jdk.httpclient.keepalive.timeout", String.valueOf(config.getKeepAlive().toSeconds()));
+        setPropertyIfAbsent("jdk.httpclient.connectionPoolSize", String.valueOf(config.getConnectionPoolSize()));
+        Counter openedCounter = Counter.builder("ai.model.http.connections.opened")
+                .description("模型调用新建的 TLS 连接数")
+                .register(meterRegistry);
+        Timer handshakeTimer = Timer.builder("ai.model.http.tls.handshake")
+                .description("模型调用 TLS 握手耗时")
+                .register(meterRegistry);
+        Gauge.builder("ai.model.http.connections", openConnections, AtomicInteger::get)
+                .description("模型调用当前打开的 TLS 连接数")
+                .register(meterRegistry);
+        Gauge.builder("ai.model.http.streams.active", activeStreams, AtomicInteger::get)
+                .description("正在进行的模型请求数")
+                .register(meterRegistry);
+        SSLContext sslContext = InstrumentedSslContext.wrap(defaultSslContext(), new InstrumentedSslContext.TlsConnectionListener() {
+
+            @Override
+            public void onOpen() {
+                openConnections.incrementAndGet();
+                openedCounter.increment();
+            }
+
+            @Override
+            public void onHandshake(long nanos) {
+                handshakeTimer.record(nanos, TimeUnit.NANOSECONDS);
+            }
+
+            @Override
+            public void onClose() {
+                openConnections.decrementAndGet();
+            }
+        });
+        this.streamExecutor = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+                .setNameFormat("model-http-stream-%d")
+                .setDaemon(true)
+                .build());
+        this.httpClient = HttpClient.newBuilder()
+                .version(config.getVersion())
+                .connectTimeout(config.getConnectTimeout())
+                .sslContext(sslContext)
+                .build();
+        log.info("模型共享 HttpClient 已创建， version : {}, connectTimeout : {}, keepAlive : {}",
+                config.getVersion(), config.getConnectTimeout(), config.getKeepAlive());
+    }
+
+    /**
+     * 创建使用共享 HttpClient 的 builder，每个模型单独创建一个，以便设置各自的超时
+     *
+     * @return HttpClientBuilder
+     */
+    public HttpClientBuilder newBuilder() {
+        return new SharedJdkHttpClientBuilder(httpClient, streamExecutor, activeStreams);
+    }
+
+    /**
+     * 正在进行的模型请求数
+     */
+    public int activeStreams() {
+        return activeStreams.get();
+    }
+
+    private static void setPropertyIfAbsent(String key, String value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value);
+        }
+    }
+
+    private static SSLContext defaultSslContext() {
+        try {
+            return SSLContext.getDefault();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("无法获取默认 SSLContext", e);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        streamExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,283 @@
+package com.jay.aicodemother.manager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.jay.aicodemother.ai.tools.ProjectDirIndex;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Class name: ProjectDirIndexManager
+ * Package: com.jay.aicodemother.manager
+ * Description: 管理各项目的目录结构索引
+ *  - 第一次读取目录时遍历磁盘创建索引，之后写入、修改、删除文件的工具直接更新索引
+ *  - 兜底：为索引中的每个目录注册 WatchService，捕获工具以外的修改（构建、手动编辑等）；
+ *    监听事件溢出或根目录失效时丢弃索引，下次读取时重建
+ *  - 最多保留 {@link #MAX_PROJECTS} 个项目的索引，超过 {@link #EXPIRE_AFTER_ACCESS} 未访问的索引被移除并取消监听
+ *
+ * @Create: 2026/10/18 01:50
+ * @Author: jay
+ * @Version: 1.0
+ */
+@Slf4j
+@Component
+public class ProjectDirIndexManager {
+
+    static final int MAX_PROJECTS = 200;
+
+    static final Duration EXPIRE_AFTER_ACCESS = Duration.ofMinutes(30);
+
+    private final Cache<Path, ProjectDirIndex> indexes;
+
+    /**
+     * 监听的目录，WatchService 不支持递归监听，每个目录一个 key
+     */
+    private final Map<WatchKey, Path> watchedDirs = new ConcurrentHashMap<>();
+
+    private final WatchService watchService;
+
+    private final ExecutorService watchExecutor;
+
+    public ProjectDirIndexManager() {
+        this.indexes = Caffeine.newBuilder()
+                .maximumSize(MAX_PROJECTS)
+                .expireAfterAccess(EXPIRE_AFTER_ACCESS)
+                // 同步执行移除回调，保证重建索引前旧的监听已经取消
+                .executor(Runnable::run)
+                .removalListener((Path root, ProjectDirIndex index, RemovalCause cause) -> {
+                    if (root != null) {
+                        unwatch(root);
+                    }
+                })
+                .build();
+        this.watchService = newWatchService();
+        if (watchService == null) {
+            this.watchExecutor = null;
+            return;
+        }
+        this.watchExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("project-dir-watcher-%d")
+                .setDaemon(true)
+                .build());
+        watchExecutor.execute(this::watchLoop);
+    }
+
+    /**
+     * 输出目录结构
+     *
+     * @param projectRoot 项目根目录
+     * @param dir         要输出的目录（项目根目录或其子目录）
+     * @return 目录结构，目录不存在时返回 null
+     */
+    public String render(Path projectRoot, Path dir) {
+        Path root = projectRoot.toAbsolutePath().normalize();
+        Path target = dir.toAbsolutePath().normalize();
+        if (!target.startsWith(root)) {
+            // 项目以外的目录不建索引，直接遍历
+            return Files.isDirectory(target) ? build(target).render(target) : null;
+        }
+        ProjectDirIndex index = indexes.getIfPresent(root);
+        if (index == null) {
+            if (!Files.isDirectory(root)) {
+                return null;
+            }
+            index = indexes.get(root, this::buildAndWatch);
+        }
+        String structure = index.render(target);
+        if (structure == null && Files.isDirectory(target)) {
+            // 索引缺少该目录（例如监听还没来得及处理），以磁盘为准重建
+            indexes.invalidate(root);
+            structure = indexes.get(root, this::buildAndWatch).render(target);
+        }
+        return structure;
+    }
+
+    /**
+     * 文件被写入或修改后调用
+     */
+    public void onFileWritten(Path file) {
+        ProjectDirIndex index = indexFor(file);
+        if (index != null) {
+            index.addFile(file);
+        }
+    }
+
+    /**
+     * 文件被删除后调用
+     */
+    public void onFileDeleted(Path file) {
+        ProjectDirIndex index = indexFor(file);
+        if (index != null) {
+            index.remove(file);
+        }
+    }
+
+    private ProjectDirIndex indexFor(Path file) {
+        Path parent = file.toAbsolutePath().normalize().getParent();
+        return parent == null ? null : indexContaining(parent);
+    }
+
+    /**
+     * 查找目录所属项目的索引，项目还没有建立索引时返回 null
+     */
+    private ProjectDirIndex indexContaining(Path path) {
+        for (Path dir = path; dir != null; dir = dir.getParent()) {
+            ProjectDirIndex index = indexes.getIfPresent(dir);
+            if (index != null) {
+                return index;
+            }
+        }
+        return null;
+    }
+
+    private static ProjectDirIndex build(Path root) {
+        try {
+            return ProjectDirIndex.build(root);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ProjectDirIndex buildAndWatch(Path root) {
+        // 先注册监听再遍历，遍历期间的修改至少会被其中一方记录
+        watchTree(root);
+        ProjectDirIndex index = build(root);
+        log.debug("项目目录索引已创建， root : {}", root);
+        return index;
+    }
+
+    private static WatchService newWatchService() {
+        try {
+            return FileSystems.getDefault().newWatchService();
+        } catch (IOException | UnsupportedOperationException e) {
+            log.warn("无法创建目录监听，目录索引只由文件工具更新： {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void watchTree(Path dir) {
+        if (watchService == null) {
+            return;
+        }
+        try {
+            Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path path, BasicFileAttributes attrs) throws IOException {
+                    if (!path.equals(dir) && ProjectDirIndex.isIgnored(path.getFileName().toString())) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    WatchKey key = path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_DELETE);
+                    watchedDirs.put(key, path);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path path, IOException e) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException | ClosedWatchServiceException e) {
+            log.warn("注册目录监听失败， dir : {}, 错误 : {}", dir, e.getMessage());
+        }
+    }
+
+    private void unwatch(Path root) {
+        watchedDirs.entrySet().removeIf(entry -> {
+            if (entry.getValue().startsWith(root)) {
+                entry.getKey().cancel();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private void watchLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            Path dir = watchedDirs.get(key);
+            if (dir != null) {
+                try {
+                    handleEvents(key, dir);
+                } catch (RuntimeException e) {
+                    log.warn("处理目录变化失败， dir : {}", dir, e);
+                }
+            }
+            if (!key.reset() && dir != null) {
+                watchedDirs.remove(key);
+                // 项目根目录被删除：丢弃索引，下次读取时重建
+                indexes.invalidate(dir);
+            }
+        }
+    }
+
+    private void handleEvents(WatchKey key, Path dir) {
+        ProjectDirIndex index = indexContaining(dir);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (index == null) {
+                continue;
+            }
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                indexes.invalidate(index.root());
+                return;
+            }
+            Path child = dir.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                index.remove(child);
+            } else if (Files.isDirectory(child)) {
+                if (ProjectDirIndex.isIgnored(child.getFileName().toString())) {
+                    continue;
+                }
+                // 新目录：注册监听后遍历，注册之前已经创建的文件也会被加入索引
+                watchTree(child);
+                try {
+                    index.walk(child);
+                } catch (IOException e) {
+                    log.warn("索引新目录失败， dir : {}", child, e);
+                }
+            } else {
+                index.addFile(child);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (watchService == null) {
+            return;
+        }
+        watchExecutor.shutdownNow();
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            log.warn("关闭目录监听失败", e);
+        }
+    }
+}
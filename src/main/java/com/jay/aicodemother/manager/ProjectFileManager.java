@@ -0,0 +1,186 @@
+package com.jay.aicodemother.manager;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Striped;
+import com.jay.aicodemother.config.ProjectFileConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Class name: ProjectFileManager
+ * Package: com.jay.aicodemother.manager
+ * Description: 文件工具的写入和路径锁
+ *  - 写入先写到同目录下的临时文件（.tmp 结尾，目录索引会忽略），再原子重命名覆盖目标文件，
+ *    同时进行的 npm 构建或读取只会看到旧内容或新内容，不会读到写了一半的文件
+ *  - 同一路径的写入、修改、删除由按规范化路径分段的锁串行化，不同路径基本不会互相等待；
+ *    “读取 - 修改 - 写回”在同一把锁内完成，并发修改同一文件不会丢失更新
+ *  - 读取不加锁，原子重命名保证读到的是完整的文件
+ *  - 是否 fsync 由 code-gen.project-file.fsync 决定
+ *
+ * @Create: 2026/10/18 04:05
+ * @Author: jay
+ * @Version: 1.0
+ */
+@Slf4j
+@Component
+public class ProjectFileManager {
+
+    private final Striped<Lock> locks;
+
+    private final boolean fsync;
+
+    public ProjectFileManager(ProjectFileConfig config) {
+        this.locks = Striped.lazyWeakLock(config.getLockStripes());
+        this.fsync = config.isFsync();
+    }
+
+    /**
+     * 修改文件内容的操作，在路径锁内执行
+     */
+    @FunctionalInterface
+    public interface LockedAction<T> {
+
+        T run() throws IOException;
+    }
+
+    /**
+     * 持有路径锁执行操作
+     *
+     * @param path   文件路径
+     * @param action 操作
+     * @return 操作的返回值
+     */
+    public <T> T withLock(Path path, LockedAction<T> action) throws IOException {
+        return withLocks(List.of(path), action);
+    }
+
+    /**
+     * 持有多个路径的锁执行操作；按分段顺序加锁，多个调用同时锁定重叠的路径也不会死锁
+     *
+     * @param paths  文件路径
+     * @param action 操作
+     * @return 操作的返回值
+     */
+    public <T> T withLocks(Collection<Path> paths, LockedAction<T> action) throws IOException {
+        List<Lock> acquired = ImmutableList.copyOf(locks.bulkGet(paths.stream().map(ProjectFileManager::lockKey).toList()));
+        int locked = 0;
+        try {
+            for (Lock lock : acquired) {
+                lock.lock();
+                locked++;
+            }
+            return action.run();
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                acquired.get(i).unlock();
+            }
+        }
+    }
+
+    /**
+     * 原子写入文件（加锁）
+     */
+    public void write(Path path, String content) throws IOException {
+        withLock(path, () -> {
+            writeLocked(path, content);
+            return null;
+        });
+    }
+
+    /**
+     * 原子写入文件，调用方需已持有该路径的锁（见 {@link #withLock}）
+     *
+     * @param path    文件路径，父目录不存在时自动创建
+     * @param content 文件内容，按 UTF-8 写入
+     */
+    public void writeLocked(Path path, String content) throws IOException {
+        Path target = path.toAbsolutePath().normalize();
+        Path dir = target.getParent();
+        Files.createDirectories(dir);
+        Path tempFile = Files.createTempFile(dir, "." + target.getFileName() + ".", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = StandardCharsets.UTF_8.encode(content);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                if (fsync) {
+                    channel.force(true);
+                }
+            }
+            copyPermissions(target, tempFile);
+            move(tempFile, target);
+            if (fsync) {
+                forceDirectory(dir);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * 删除文件（加锁）
+     *
+     * @return 文件存在并被删除时返回 true
+     */
+    public boolean delete(Path path) throws IOException {
+        return withLock(path, () -> {
+            boolean deleted = Files.deleteIfExists(path);
+            if (deleted && fsync) {
+                forceDirectory(path.toAbsolutePath().normalize().getParent());
+            }
+            return deleted;
+        });
+    }
+
+    private static String lockKey(Path path) {
+        return path.toAbsolutePath().normalize().toString();
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            log.warn("文件系统不支持原子重命名，改为普通替换： {}", target);
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * 临时文件默认只有所有者可读写，覆盖已有文件时沿用原文件的权限，新文件使用普通文件的默认权限
+     */
+    private static void copyPermissions(Path target, Path tempFile) {
+        try {
+            if (Files.exists(target)) {
+                Files.setPosixFilePermissions(tempFile, Files.getPosixFilePermissions(target));
+            } else {
+                Files.setPosixFilePermissions(tempFile, PosixFilePermissions.fromString("rw-r--r--"));
+            }
+        } catch (UnsupportedOperationException | IOException e) {
+            // 非 POSIX 文件系统，保持默认权限
+        }
+    }
+
+    private static void forceDirectory(Path dir) {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // 部分平台（如 Windows）不支持打开目录，文件本身已经刷盘
+            log.debug("目录刷盘失败： {}", dir, e);
+        }
+    }
+}
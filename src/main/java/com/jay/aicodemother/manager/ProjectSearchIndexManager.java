@@ -0,0 +1,106 @@
+package com.jay.aicodemother.manager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jay.aicodemother.ai.tools.ProjectSearchIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Class name: ProjectSearchIndexManager
+ * Package: com.jay.aicodemother.manager
+ * Description: 管理各项目的全文搜索索引
+ *  - 第一次搜索时遍历项目创建索引，之后写入、修改、删除文件的工具直接更新索引
+ *  - 每次搜索前比较已索引文件的修改时间和大小，工具之外修改或删除的文件会重新索引
+ *  - 最多保留 {@link #MAX_PROJECTS} 个项目的索引，超过 {@link #EXPIRE_AFTER_ACCESS} 未访问的索引被移除
+ *
+ * @Create: 2026/10/18 03:40
+ * @Author: jay
+ * @Version: 1.0
+ */
+@Slf4j
+@Component
+public class ProjectSearchIndexManager {
+
+    static final int MAX_PROJECTS = 100;
+
+    static final Duration EXPIRE_AFTER_ACCESS = Duration.ofMinutes(30);
+
+    private final Cache<Path, ProjectSearchIndex> indexes = Caffeine.newBuilder()
+            .maximumSize(MAX_PROJECTS)
+            .expireAfterAccess(EXPIRE_AFTER_ACCESS)
+            .build();
+
+    /**
+     * 搜索项目中包含查询内容的行
+     *
+     * @param projectRoot 项目根目录
+     * @param query       查询内容（忽略大小写）
+     * @param maxResults  最多返回的行数
+     * @return 搜索结果，项目目录不存在时返回 null
+     */
+    public ProjectSearchIndex.SearchResult search(Path projectRoot, String query, int maxResults) {
+        Path root = projectRoot.toAbsolutePath().normalize();
+        ProjectSearchIndex index = indexes.getIfPresent(root);
+        if (index == null) {
+            if (!Files.isDirectory(root)) {
+                return null;
+            }
+            index = indexes.get(root, ProjectSearchIndexManager::build);
+        } else {
+            index.refresh();
+        }
+        return index.search(query, maxResults);
+    }
+
+    /**
+     * 文件被写入或修改后调用
+     */
+    public void onFileWritten(Path file) {
+        ProjectSearchIndex index = indexFor(file);
+        if (index != null) {
+            index.update(file);
+        }
+    }
+
+    /**
+     * 文件被删除后调用
+     */
+    public void onFileDeleted(Path file) {
+        ProjectSearchIndex index = indexFor(file);
+        if (index != null) {
+            index.remove(file);
+        }
+    }
+
+    /**
+     * 查找文件所属项目的索引，项目还没有建立索引时返回 null
+     */
+    private ProjectSearchIndex indexFor(Path file) {
+        for (Path dir = file.toAbsolutePath().normalize().getParent(); dir != null; dir = dir.getParent()) {
+            ProjectSearchIndex index = indexes.getIfPresent(dir);
+            if (index != null) {
+                return index;
+            }
+        }
+        return null;
+    }
+
+    private static ProjectSearchIndex build(Path root) {
+        try {
+            long start = System.nanoTime();
+            ProjectSearchIndex index = ProjectSearchIndex.build(root);
+            log.debug("项目搜索索引已创建， root : {}, 文件数 : {}, 耗时 : {} ms",
+                    root, index.fileCount(), (System.nanoTime() - start) / 1_000_000);
+            return index;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.jay.aicodemother.monitor;
+
+import com.jay.aicodemother.model.enums.CodeGenTypeEnum;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Class name: CodeGenMetrics
+ * Package: com.jay.aicodemother.monitor
+ * Description: 代码生成各阶段耗时指标
+ *  - ai.codegen.ttft：从开始生成到收到第一个 token 的时间
+ *  - ai.codegen.inter.token：相邻两个 token 的间隔
+ *  - ai.codegen.generation：一次生成的总耗时
+ *  - ai.codegen.code.save：流式解析并写入代码文件的累计耗时
+ *  - ai.codegen.history.persist：对话历史入库耗时
+ *  - ai.codegen.memory.hydration / ai.codegen.memory.compaction：对话记忆加载和压缩耗时
+ *  - ai.codegen.routing：生成类型路由各层的命中次数和耗时，ai.codegen.routing.saved：相对模型路由累计节省的时间
+ *  模型单轮往返、tokens/s 和工具执行耗时在 AiServiceStreamingResponseHandler 中记录（ai.codegen.model.*、ai.codegen.tool.execution）
+ *  百分位直方图在 application.yml 的 management.metrics.distribution 中统一开启，通过 /actuator/prometheus 导出
+ *
+ * @Create: 2026/10/17 18:10
+ * @Author: jay
+ * @Version: 1.0
+ */
+@Component
+@RequiredArgsConstructor
+public class CodeGenMetrics {
+
+    public static final String OUTCOME_SUCCESS = "success";
+
+    public static final String OUTCOME_ERROR = "error";
+
+    public static final String OUTCOME_CANCELLED = "cancelled";
+
+    public static final String ROUTING_TIER_MODEL = "model";
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 记录一次生成的首 token 时间、token 间隔和总耗时
+     *
+     * @param flux        生成流
+     * @param isToken     判断元素是否为模型输出的 token
+     * @param codeGenType 生成类型
+     * @param modelName   模型名称
+     * @return 带指标记录的生成流
+     */
+    public <T> Flux<T> instrumentGeneration(Flux<T> flux, Predicate<T> isToken, CodeGenTypeEnum codeGenType, String modelName) {
+        Tags tags = Tags.of("codeGenType", codeGenType.getValue(), "model", modelName);
+        Timer ttft = timer("ai.codegen.ttft", "代码生成首 token 时间", tags);
+        Timer interToken = timer("ai.codegen.inter.token", "代码生成 token 间隔", tags);
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            AtomicLong lastToken = new AtomicLong();
+            return flux
+                    .doOnNext(item -> {
+                        if (!isToken.test(item)) {
+                            return;
+                        }
+                        long now = System.nanoTime();
+                        long previous = lastToken.getAndSet(now);
+                        if (previous == 0) {
+                            ttft.record(now - start, TimeUnit.NANOSECONDS);
+                        } else {
+                            interToken.record(now - previous, TimeUnit.NANOSECONDS);
+                        }
+                    })
+                    .doFinally(signalType -> timer("ai.codegen.generation", "代码生成总耗时",
+                            tags.and("outcome", outcomeOf(signalType)))
+                            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    /**
+     * 记录代码解析和保存的耗时
+     *
+     * @param codeGenType 生成类型
+     * @param outcome     结果
+     * @param nanos       耗时（纳秒）
+     */
+    public void recordCodeSave(CodeGenTypeEnum codeGenType, String outcome, long nanos) {
+        timer("ai.codegen.code.save", "代码解析和保存耗时",
+                Tags.of("codeGenType", codeGenType.getValue(), "outcome", outcome))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录对话历史入库耗时（异步批量写入时为一批的耗时平摊到每条消息）
+     *
+     * @param messageType 消息类型
+     * @param outcome     结果
+     * @param nanos       耗时（纳秒）
+     */
+    public void recordHistoryPersist(String messageType, String outcome, long nanos) {
+        timer("ai.codegen.history.persist", "对话历史入库耗时",
+                Tags.of("messageType", messageType, "outcome", outcome))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录对话记忆加载耗时
+     *
+     * @param source 记忆来源，redis 或 mysql
+     */
+    public void recordMemoryHydration(String source, long nanos) {
+        timer("ai.codegen.memory.hydration", "对话记忆加载耗时", Tags.of("source", source))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录对话记忆压缩耗时
+     *
+     * @param outcome 结果，success / error / stale（压缩期间记忆已变化）/ rejected（线程池已满）
+     */
+    public void recordMemoryCompaction(String outcome, long nanos) {
+        timer("ai.codegen.memory.compaction", "对话记忆压缩耗时", Tags.of("outcome", outcome))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录模型路由耗时
+     */
+    public void recordModelRouting(long nanos) {
+        routingTimer(ROUTING_TIER_MODEL).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录不调用模型的路由耗时，并按模型路由的平均耗时累计节省的时间
+     *
+     * @param tier 命中的路由层
+     */
+    public void recordRouting(String tier, long nanos) {
+        routingTimer(tier).record(nanos, TimeUnit.NANOSECONDS);
+        Timer modelTimer = routingTimer(ROUTING_TIER_MODEL);
+        if (modelTimer.count() > 0) {
+            double savedSeconds = (modelTimer.mean(TimeUnit.NANOSECONDS) - nanos) / 1e9;
+            if (savedSeconds > 0) {
+                Counter.builder("ai.codegen.routing.saved")
+                        .description("相对模型路由累计节省的时间")
+                        .baseUnit("seconds")
+                        .register(meterRegistry)
+                        .increment(savedSeconds);
+            }
+        }
+    }
+
+    private Timer routingTimer(String tier) {
+        return timer("ai.codegen.routing", "代码生成类型路由耗时", Tags.of("tier", tier));
+    }
+
+    /**
+     * 根据流的结束信号得到结果标签
+     */
+    public static String outcomeOf(SignalType signalType) {
+        return switch (signalType) {
+            case ON_COMPLETE -> OUTCOME_SUCCESS;
+            case ON_ERROR -> OUTCOME_ERROR;
+            default -> OUTCOME_CANCELLED;
+        };
+    }
+
+    private Timer timer(String name, String description, Tags tags) {
+        return Timer.builder(name)
+                .description(description)
+                .tags(tags)
+                .register(meterRegistry);
+    }
+}
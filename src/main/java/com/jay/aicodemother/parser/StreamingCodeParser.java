@@ -0,0 +1,227 @@
+package com.jay.aicodemother.parser;
+
+import com.jay.aicodemother.model.enums.CodeGenTypeEnum;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Class name: StreamingCodeParser
+ * Package: com.jay.aicodemother.parser
+ * Description: 流式代码块解析器（推模式状态机）
+ *  AI 每输出一个片段就调用一次 {@link #feed(String)}，解析器按行识别 `## index.html` 标题和 ```html 代码围栏，
+ *  代码块内容一边到达一边回调给 {@link CodeBlockListener}，围栏闭合时立即通知文件结束。
+ *  只保留"当前未结束的一行"在内存中，与整段响应长度无关。
+ *
+ * @Create: 2026/10/17 10:20
+ * @Author: jay
+ * @Version: 1.0
+ */
+public class StreamingCodeParser {
+
+    /**
+     * 代码块事件回调
+     */
+    public interface CodeBlockListener {
+
+        /**
+         * 开始一个新文件
+         *
+         * @param fileName 文件名
+         */
+        void onFileStart(String fileName);
+
+        /**
+         * 文件内容片段（按行回调，包含换行符）
+         *
+         * @param fileName 文件名
+         * @param content  内容片段
+         */
+        void onFileContent(String fileName, String content);
+
+        /**
+         * 文件结束（围栏闭合或流结束）
+         *
+         * @param fileName 文件名
+         */
+        void onFileEnd(String fileName);
+    }
+
+    /**
+     * 解析状态
+     */
+    private enum State {
+        // 代码块之外的描述文本
+        TEXT,
+        // 围栏代码块内
+        FENCED_CODE,
+        // 没有围栏、直接以 <!DOCTYPE html> 开始的 HTML（兼容原有回退逻辑）
+        BARE_HTML
+    }
+
+    /**
+     * 代码围栏语言 -> 文件名
+     */
+    private static final Map<String, String> LANGUAGE_FILE_NAMES = Map.of(
+            "html", "index.html",
+            "css", "style.css",
+            "javascript", "script.js",
+            "js", "script.js"
+    );
+
+    private static final String FENCE = "```";
+
+    private final CodeGenTypeEnum codeGenType;
+
+    private final CodeBlockListener listener;
+
+    /**
+     * 尚未遇到换行符的行缓冲
+     */
+    private final StringBuilder lineBuffer = new StringBuilder();
+
+    private State state = State.TEXT;
+
+    /**
+     * 最近一次出现的 `## 文件名` 标题，等待下一个围栏使用
+     */
+    private String pendingHeaderFileName;
+
+    /**
+     * 当前正在输出的文件
+     */
+    private String currentFileName;
+
+    /**
+     * 已经输出过的文件数量
+     */
+    private int completedFileCount;
+
+    public StreamingCodeParser(CodeGenTypeEnum codeGenType, CodeBlockListener listener) {
+        this.codeGenType = codeGenType;
+        this.listener = listener;
+    }
+
+    /**
+     * 推入一个流式片段
+     *
+     * @param chunk AI 输出片段
+     */
+    public void feed(String chunk) {
+        if (chunk == null || chunk.isEmpty()) {
+            return;
+        }
+        int start = 0;
+        int newline;
+        while ((newline = chunk.indexOf('\n', start)) >= 0) {
+            String line;
+            if (lineBuffer.isEmpty()) {
+                line = chunk.substring(start, newline + 1);
+            } else {
+                lineBuffer.append(chunk, start, newline + 1);
+                line = lineBuffer.toString();
+                lineBuffer.setLength(0);
+            }
+            processLine(line);
+            start = newline + 1;
+        }
+        if (start < chunk.length()) {
+            lineBuffer.append(chunk, start, chunk.length());
+        }
+    }
+
+    /**
+     * 流结束，处理最后一行并关闭未闭合的文件
+     */
+    public void finish() {
+        if (!lineBuffer.isEmpty()) {
+            String line = lineBuffer.toString();
+            lineBuffer.setLength(0);
+            processLine(line);
+        }
+        if (currentFileName != null) {
+            endFile();
+        }
+    }
+
+    /**
+     * 已完整输出的文件数量
+     */
+    public int getCompletedFileCount() {
+        return completedFileCount;
+    }
+
+    private void processLine(String line) {
+        String trimmed = line.trim();
+        switch (state) {
+            case TEXT -> processTextLine(line, trimmed);
+            case FENCED_CODE -> {
+                if (trimmed.startsWith(FENCE) && trimmed.chars().allMatch(c -> c == '`')) {
+                    endFile();
+                } else {
+                    listener.onFileContent(currentFileName, line);
+                }
+            }
+            case BARE_HTML -> {
+                listener.onFileContent(currentFileName, line);
+                if (trimmed.toLowerCase(Locale.ROOT).contains("</html>")) {
+                    endFile();
+                }
+            }
+        }
+    }
+
+    private void processTextLine(String line, String trimmed) {
+        // ## index.html 标题
+        if (trimmed.startsWith("## ")) {
+            String fileName = trimmed.substring(3).trim();
+            pendingHeaderFileName = isSupportedFile(fileName) ? fileName.toLowerCase(Locale.ROOT) : null;
+            return;
+        }
+        // ```html 开始围栏
+        if (trimmed.startsWith(FENCE)) {
+            String language = trimmed.substring(FENCE.length()).trim().toLowerCase(Locale.ROOT);
+            String fileName = pendingHeaderFileName != null ? pendingHeaderFileName : LANGUAGE_FILE_NAMES.get(language);
+            pendingHeaderFileName = null;
+            if (fileName != null && isSupportedFile(fileName)) {
+                startFile(fileName, State.FENCED_CODE);
+            }
+            return;
+        }
+        // 单文件模式下没有围栏，直接输出了完整的 HTML 文档
+        if (codeGenType == CodeGenTypeEnum.HTML && completedFileCount == 0
+                && trimmed.toLowerCase(Locale.ROOT).startsWith("<!doctype html")) {
+            startFile("index.html", State.BARE_HTML);
+            listener.onFileContent(currentFileName, line);
+            if (trimmed.toLowerCase(Locale.ROOT).contains("</html>")) {
+                endFile();
+            }
+        }
+    }
+
+    private void startFile(String fileName, State newState) {
+        currentFileName = fileName;
+        state = newState;
+        listener.onFileStart(fileName);
+    }
+
+    private void endFile() {
+        String fileName = currentFileName;
+        currentFileName = null;
+        state = State.TEXT;
+        completedFileCount++;
+        listener.onFileEnd(fileName);
+    }
+
+    /**
+     * 判断当前生成模式是否允许输出该文件
+     */
+    private boolean isSupportedFile(String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        return switch (codeGenType) {
+            case HTML -> "index.html".equals(name);
+            case MULTI_FILE -> "index.html".equals(name) || "style.css".equals(name) || "script.js".equals(name);
+            default -> false;
+        };
+    }
+}
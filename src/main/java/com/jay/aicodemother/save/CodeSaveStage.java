@@ -0,0 +1,232 @@
+package com.jay.aicodemother.save;
+
+import com.jay.aicodemother.ai.model.message.AIResponseMessage;
+import com.jay.aicodemother.ai.model.message.CodeSavedMessage;
+import com.jay.aicodemother.ai.model.message.StreamMessage;
+import com.jay.aicodemother.config.CodeSaveConfig;
+import com.jay.aicodemother.model.enums.CodeGenTypeEnum;
+import com.jay.aicodemother.monitor.CodeGenMetrics;
+import com.jay.aicodemother.parser.StreamingCodeParser;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class name: CodeSaveStage
+ * Package: com.jay.aicodemother.save
+ * Description: 代码解析保存阶段
+ *  模型输出照常向下游推送，解析和写文件提交到独立的有界线程池执行，不再占用 HTTP 客户端或 Reactor 线程；
+ *  同一次生成的任务在同一个 Worker 上按顺序执行，流结束后等保存完成再推送一条 {@link CodeSavedMessage}。
+ *  保存失败（写文件异常或线程池队列已满）只影响本次保存，文本输出不中断，结果通过 CodeSavedMessage 告知前端。
+ *  排队中的任务数通过 ai.codegen.save.pending 查看
+ *
+ * @Create: 2026/10/17 19:30
+ * @Author: jay
+ * @Version: 1.0
+ */
+@Slf4j
+@Component
+public class CodeSaveStage {
+
+    private final CodeGenMetrics codeGenMetrics;
+
+    private final Scheduler scheduler;
+
+    private final AtomicInteger pendingTasks = new AtomicInteger();
+
+    public CodeSaveStage(CodeSaveConfig config, CodeGenMetrics codeGenMetrics, MeterRegistry meterRegistry) {
+        this.codeGenMetrics = codeGenMetrics;
+        this.scheduler = Schedulers.newBoundedElastic(config.getThreads(), config.getQueueCapacity(), "code-save");
+        Gauge.builder("ai.codegen.save.pending", pendingTasks, AtomicInteger::get)
+                .description("等待执行的代码解析保存任务数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 处理代码流：文本立即输出，解析保存异步执行，最后输出保存结果
+     *
+     * @param codeStream 代码流
+     * @param type       代码生成类型
+     * @param appId      应用ID
+     * @return 文本消息流，以一条 CodeSavedMessage 结束
+     */
+    public Flux<StreamMessage> process(Flux<String> codeStream, CodeGenTypeEnum type, Long appId) {
+        return Flux.defer(() -> {
+            SaveTask task = new SaveTask(type, appId);
+            return codeStream
+                    .doOnNext(task::feed)
+                    .<StreamMessage>map(AIResponseMessage::new)
+                    .doOnError(error -> task.abort())
+                    .doOnCancel(task::abort)
+                    .concatWith(Mono.create(task::finish));
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        scheduler.dispose();
+    }
+
+    /**
+     * 一次生成的保存任务，所有解析和写文件操作都在同一个 Worker 上顺序执行
+     */
+    private class SaveTask {
+
+        private final CodeGenTypeEnum type;
+
+        private final Long appId;
+
+        private final Scheduler.Worker worker = scheduler.createWorker();
+
+        private final StreamingCodeFileSaver fileSaver;
+
+        private final StreamingCodeParser codeParser;
+
+        /**
+         * 本次生成已提交但未执行完的任务数
+         */
+        private final AtomicInteger queuedTasks = new AtomicInteger();
+
+        private long saveNanos;
+
+        private volatile Throwable failure;
+
+        SaveTask(CodeGenTypeEnum type, Long appId) {
+            this.type = type;
+            this.appId = appId;
+            this.fileSaver = new StreamingCodeFileSaver(type, appId);
+            this.codeParser = new StreamingCodeParser(type, fileSaver);
+        }
+
+        void feed(String chunk) {
+            if (failure != null) {
+                return;
+            }
+            submit(() -> {
+                if (failure != null) {
+                    return;
+                }
+                try {
+                    codeParser.feed(chunk);
+                } catch (Exception e) {
+                    log.error("流式解析代码失败，应用ID: {}, 错误信息: {}", appId, e.getMessage(), e);
+                    failure = e;
+                    fileSaver.abort();
+                }
+            });
+        }
+
+        void finish(MonoSink<StreamMessage> sink) {
+            boolean submitted = submit(() -> {
+                try {
+                    if (failure == null) {
+                        codeParser.finish();
+                    }
+                } catch (Exception e) {
+                    log.error("文件保存失败，应用ID: {}, 错误信息: {}", appId, e.getMessage(), e);
+                    failure = e;
+                    fileSaver.abort();
+                }
+            }, () -> sink.success(complete()));
+            if (!submitted) {
+                // 之前提交的任务可能还在执行，不再读取保存结果，直接结束
+                cancelQueuedTasks();
+                codeGenMetrics.recordCodeSave(type, CodeGenMetrics.OUTCOME_ERROR, saveNanos);
+                sink.success(new CodeSavedMessage(false, List.of(), "代码保存失败：保存任务过多，请稍后重试"));
+            }
+        }
+
+        void abort() {
+            boolean submitted = submit(fileSaver::abort, () -> {
+                codeGenMetrics.recordCodeSave(type, CodeGenMetrics.OUTCOME_CANCELLED, saveNanos);
+                worker.dispose();
+            });
+            if (!submitted) {
+                cancelQueuedTasks();
+            }
+        }
+
+        /**
+         * 释放 Worker，取消尚未执行的任务并修正排队计数
+         */
+        private void cancelQueuedTasks() {
+            worker.dispose();
+            pendingTasks.addAndGet(-queuedTasks.getAndSet(0));
+        }
+
+        private CodeSavedMessage complete() {
+            List<String> files = fileSaver.getSavedFiles().stream().map(File::getName).toList();
+            CodeSavedMessage message;
+            if (failure != null) {
+                message = new CodeSavedMessage(false, files, "代码保存失败：" + failure.getMessage());
+            } else if (files.isEmpty()) {
+                log.error("AI未生成任何代码内容，应用ID: {}", appId);
+                message = new CodeSavedMessage(false, files, "AI未生成任何代码内容");
+            } else {
+                log.info("代码保存成功：{}", fileSaver.getBaseDir().getAbsolutePath());
+                message = new CodeSavedMessage(true, files, null);
+            }
+            codeGenMetrics.recordCodeSave(type,
+                    failure == null ? CodeGenMetrics.OUTCOME_SUCCESS : CodeGenMetrics.OUTCOME_ERROR, saveNanos);
+            worker.dispose();
+            return message;
+        }
+
+        private boolean submit(Runnable action) {
+            return submit(action, null);
+        }
+
+        /**
+         * 提交到 Worker 执行，线程池队列已满时记为保存失败
+         *
+         * @param action 解析保存操作，耗时计入保存耗时
+         * @param then   action 执行完、耗时和排队计数更新后再执行（记录指标、通知下游），可为 null
+         * @return 是否提交成功
+         */
+        private boolean submit(Runnable action, Runnable then) {
+            pendingTasks.incrementAndGet();
+            queuedTasks.incrementAndGet();
+            try {
+                worker.schedule(() -> {
+                    long start = System.nanoTime();
+                    try {
+                        action.run();
+                    } finally {
+                        saveNanos += System.nanoTime() - start;
+                        markDone();
+                    }
+                    if (then != null) {
+                        then.run();
+                    }
+                });
+                return true;
+            } catch (RejectedExecutionException e) {
+                markDone();
+                if (failure == null) {
+                    log.warn("代码保存线程池已满，本次生成不再保存代码，应用ID: {}", appId);
+                    failure = e;
+                }
+                return false;
+            }
+        }
+
+        private void markDone() {
+            // 计数已被 cancelQueuedTasks 清零时不再重复扣减
+            if (queuedTasks.getAndUpdate(count -> count > 0 ? count - 1 : count) > 0) {
+                pendingTasks.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.jay.aicodemother.save;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.StrUtil;
+import com.jay.aicodemother.constant.AppConstant;
+import com.jay.aicodemother.exception.BusinessException;
+import com.jay.aicodemother.exception.ErrorCode;
+import com.jay.aicodemother.model.enums.CodeGenTypeEnum;
+import com.jay.aicodemother.parser.StreamingCodeParser;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Class name: StreamingCodeFileSaver
+ * Package: com.jay.aicodemother.save
+ * Description: 流式代码文件保存器
+ *  配合 {@link StreamingCodeParser} 使用，代码块内容边到达边写入临时文件，
+ *  围栏闭合时原子重命名为正式文件，前端预览不会读到写了一半的文件。
+ *  单个文件写入失败只记录日志，不影响 AI 流式输出。
+ *
+ * @Create: 2026/10/17 10:40
+ * @Author: jay
+ * @Version: 1.0
+ */
+@Slf4j
+public class StreamingCodeFileSaver implements StreamingCodeParser.CodeBlockListener {
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Long appId;
+
+    private final Path baseDir;
+
+    private final List<File> savedFiles = new ArrayList<>();
+
+    private Writer currentWriter;
+
+    private Path currentTempFile;
+
+    /**
+     * 当前文件是否写入了非空白内容
+     */
+    private boolean currentHasContent;
+
+    public StreamingCodeFileSaver(CodeGenTypeEnum codeGenType, Long appId) {
+        if (appId == null) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "应用ID不能为空");
+        }
+        this.appId = appId;
+        String dirName = StrUtil.format("{}_{}", codeGenType.getValue(), appId);
+        this.baseDir = Path.of(AppConstant.CODE_OUTPUT_ROOT_DIR, dirName);
+    }
+
+    @Override
+    public void onFileStart(String fileName) {
+        // 上一个文件异常未关闭时先丢弃
+        abort();
+        try {
+            FileUtil.mkdir(baseDir.toFile());
+            currentTempFile = baseDir.resolve(fileName + TEMP_SUFFIX);
+            currentWriter = Files.newBufferedWriter(currentTempFile, StandardCharsets.UTF_8);
+            currentHasContent = false;
+        } catch (IOException e) {
+            log.error("创建代码文件失败，应用ID: {}, 文件: {}", appId, fileName, e);
+            abort();
+        }
+    }
+
+    @Override
+    public void onFileContent(String fileName, String content) {
+        if (currentWriter == null) {
+            return;
+        }
+        try {
+            currentWriter.write(content);
+            if (!currentHasContent && StrUtil.isNotBlank(content)) {
+                currentHasContent = true;
+            }
+        } catch (IOException e) {
+            log.error("写入代码文件失败，应用ID: {}, 文件: {}", appId, fileName, e);
+            abort();
+        }
+    }
+
+    @Override
+    public void onFileEnd(String fileName) {
+        if (currentWriter == null) {
+            return;
+        }
+        Path tempFile = currentTempFile;
+        try {
+            currentWriter.close();
+            currentWriter = null;
+            // 与原有保存逻辑一致：空白内容不落盘
+            if (!currentHasContent) {
+                Files.deleteIfExists(tempFile);
+                return;
+            }
+            Path target = baseDir.resolve(fileName);
+            moveAtomically(tempFile, target);
+            savedFiles.add(target.toFile());
+            log.info("代码文件已保存，应用ID: {}, 文件: {}", appId, target);
+        } catch (IOException e) {
+            log.error("保存代码文件失败，应用ID: {}, 文件: {}", appId, fileName, e);
+            abort();
+        } finally {
+            currentTempFile = null;
+        }
+    }
+
+    /**
+     * 放弃当前未完成的文件（流出错或被取消时调用）
+     */
+    public void abort() {
+        if (currentWriter != null) {
+            try {
+                currentWriter.close();
+            } catch (IOException e) {
+                log.warn("关闭代码文件失败: {}", e.getMessage());
+            }
+            currentWriter = null;
+        }
+        if (currentTempFile != null) {
+            FileUtil.del(currentTempFile.toFile());
+            currentTempFile = null;
+        }
+    }
+
+    /**
+     * 已保存的文件列表
+     */
+    public List<File> getSavedFiles() {
+        return Collections.unmodifiableList(savedFiles);
+    }
+
+    /**
+     * 保存目录
+     */
+    public File getBaseDir() {
+        return baseDir.toFile();
+    }
+
+    private static void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
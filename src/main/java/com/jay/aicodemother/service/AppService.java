@@ -1,5 +1,6 @@
 package com.jay.aicodemother.service;
 
+import com.jay.aicodemother.core.generation.GenerationEvent;
 import com.jay.aicodemother.model.dto.app.AppQueryRequest;
 import com.jay.aicodemother.model.entity.User;
 import com.jay.aicodemother.model.vo.AppVO;
@@ -40,7 +41,19 @@ public interface AppService extends IService<App> {
      * @param message
      * @param loginUser
      */
-     Flux<String> chatToGenCode(Long appId, String message, User loginUser);
+     Flux<GenerationEvent> chatToGenCode(Long appId, String message, User loginUser);
+
+    /**
+     *  生成代码（支持断线续传）
+     *  lastEventId 为空时开始一次新的生成，否则接回对应的生成，只补发之后的事件
+     *  同一应用相同消息（或相同幂等键）的生成进行中时，重复请求直接接入该生成
+     * @param appId
+     * @param message
+     * @param loginUser
+     * @param lastEventId 客户端重连时携带的 Last-Event-ID
+     * @param idempotencyKey 幂等键，可为空，为空时按消息内容去重
+     */
+     Flux<GenerationEvent> chatToGenCode(Long appId, String message, User loginUser, String lastEventId, String idempotencyKey);
 
     /**
      * 部署应用
@@ -6,7 +6,7 @@ import com.jay.aicodemother.model.entity.User;
 import com.mybatisflex.core.paginate.Page;
 import com.mybatisflex.core.query.QueryWrapper;
 import com.mybatisflex.core.service.IService;
-import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import dev.langchain4j.memory.ChatMemory;
 
 import java.time.LocalDateTime;
 
@@ -57,7 +57,17 @@ public interface ChatHistoryService extends IService<ChatHistory> {
      * @param maxCount 最多加载多少条
      * @return 加载成功的条数
      */
-    int loadChatHistoryToMemory(Long appId, MessageWindowChatMemory chatMemory, int maxCount);
+    int loadChatHistoryToMemory(Long appId, ChatMemory chatMemory, int maxCount);
+
+    /**
+     * 准备对话记忆：Redis 中的记忆已包含最新对话历史时直接使用，否则从数据库加载
+     *
+     * @param appId
+     * @param chatMemory
+     * @param maxCount 从数据库加载时最多加载多少条
+     * @return 记忆中的消息条数
+     */
+    int hydrateChatMemory(Long appId, ChatMemory chatMemory, int maxCount);
 
     /**
      * 构造查询条件
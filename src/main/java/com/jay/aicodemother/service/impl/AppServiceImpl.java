@@ -5,11 +5,17 @@ import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.io.FileUtil;
 import cn.hutool.core.util.RandomUtil;
 import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.digest.DigestUtil;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.jay.aicodemother.ai.model.message.StreamMessage;
+import com.jay.aicodemother.ai.routing.CodeGenTypeRouter;
 import com.jay.aicodemother.constant.AppConstant;
 import com.jay.aicodemother.core.AICodeGeneratorFacade;
 import com.jay.aicodemother.core.builder.VueProjectBuilder;
+import com.jay.aicodemother.core.generation.GenerationEvent;
+import com.jay.aicodemother.core.generation.GenerationRegistry;
 import com.jay.aicodemother.core.handler.StreamHandlerExecutor;
+import com.jay.aicodemother.core.stream.StreamMessageCoalescer;
 import com.jay.aicodemother.exception.BusinessException;
 import com.jay.aicodemother.exception.ErrorCode;
 import com.jay.aicodemother.exception.ThrowUtils;
@@ -69,9 +75,18 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
     // 流式处理执行器
     private final StreamHandlerExecutor handlerExecutor;
 
+    // 流式消息合并器
+    private final StreamMessageCoalescer streamMessageCoalescer;
+
+    // 生成会话注册表（断线续传）
+    private final GenerationRegistry generationRegistry;
+
     // Vue 项目构建器
     private final VueProjectBuilder vueProjectBuilder;
 
+    // 代码生成类型路由
+    private final CodeGenTypeRouter codeGenTypeRouter;
+
     // 创建一个线程池用于异步任务
     private final ExecutorService executorService = Executors.newFixedThreadPool(
             Runtime.getRuntime().availableProcessors(),
@@ -118,7 +133,7 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
     }
 
     @Override
-    public Flux<String> chatToGenCode(Long appId, String message, User loginUser) {
+    public Flux<GenerationEvent> chatToGenCode(Long appId, String message, User loginUser) {
         // 1. 参数校验
         ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.PARAMS_ERROR, "应用ID不能为空");
         ThrowUtils.throwIf(StrUtil.isBlank(message), ErrorCode.PARAMS_ERROR, "用户消息不能为空");
@@ -135,16 +150,34 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
         if (codeGenTypeEnum == null) {
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "不支持的代码生成类型");
         }
+        // 刚创建的应用可能还在由模型判断类型，等待最终结果
+        codeGenTypeEnum = codeGenTypeRouter.awaitRouting(appId, codeGenTypeEnum);
         //5. 通过校验后， 添加用户消息到对话历史
         historyService.addChatMessage(appId, message, ChatHistoryMessageTypeEnum.USER.getValue(), loginUser.getId());
 
         // 6. 调用 AI 生成代码
-        Flux<String> contentFlux = aiCodeGeneratorFacade.generateAndSaveCodeStream(message, codeGenTypeEnum, appId);
+        Flux<StreamMessage> contentFlux = aiCodeGeneratorFacade.generateAndSaveCodeStream(message, codeGenTypeEnum, appId);
+        // 合并连续的 AI 文本，减少 SSE 事件数（工具消息立即推送）
+        contentFlux = streamMessageCoalescer.coalesce(contentFlux);
         // 7. 使用流式处理器执行器进行处理流式响应结果
         return handlerExecutor.doExecute(contentFlux, historyService, appId, loginUser, codeGenTypeEnum);
 
     }
 
+    @Override
+    public Flux<GenerationEvent> chatToGenCode(Long appId, String message, User loginUser, String lastEventId, String idempotencyKey) {
+        if (StrUtil.isNotBlank(lastEventId)) {
+            // 断线重连：接回原来的生成，不重复记录用户消息，也不重新调用模型
+            return generationRegistry.resume(lastEventId, appId, loginUser.getId());
+        }
+        // 重复请求（双击、多标签页、前端重试）接入进行中的生成，避免重复调用模型和并发写同一输出目录
+        String dedupKey = StrUtil.isNotBlank(idempotencyKey)
+                ? "key:" + idempotencyKey
+                : "msg:" + DigestUtil.sha256Hex(StrUtil.nullToEmpty(message));
+        return generationRegistry.startOrJoin(appId, loginUser.getId(), dedupKey,
+                () -> chatToGenCode(appId, message, loginUser)).attach(0);
+    }
+
     @Override
     public String deployApp(Long appId, User loginUser) {
         // 1. 参数校验
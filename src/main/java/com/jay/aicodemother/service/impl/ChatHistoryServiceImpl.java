@@ -2,23 +2,30 @@ package com.jay.aicodemother.service.impl;
 
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.util.StrUtil;
+import com.jay.aicodemother.config.ChatHistoryWriteBehindConfig;
 import com.jay.aicodemother.constant.UserConstant;
 import com.jay.aicodemother.exception.ErrorCode;
 import com.jay.aicodemother.exception.ThrowUtils;
+import com.jay.aicodemother.manager.ChatHistoryWriteBehindManager;
+import com.jay.aicodemother.manager.ChatMemoryWatermarkManager;
 import com.jay.aicodemother.model.dto.chathistory.ChatHistoryQueryRequest;
 import com.jay.aicodemother.model.entity.App;
 import com.jay.aicodemother.model.entity.ChatHistory;
 import com.jay.aicodemother.model.entity.User;
 import com.jay.aicodemother.model.enums.ChatHistoryMessageTypeEnum;
+import com.jay.aicodemother.monitor.CodeGenMetrics;
 import com.jay.aicodemother.service.AppService;
 import com.jay.aicodemother.service.ChatHistoryService;
 import com.jay.aicodemother.mapper.ChatHistoryMapper;
+import com.mybatisflex.core.keygen.KeyGeneratorFactory;
 import com.mybatisflex.core.paginate.Page;
 import com.mybatisflex.core.query.QueryWrapper;
+import com.mybatisflex.core.table.IdInfo;
+import com.mybatisflex.core.table.TableInfoFactory;
 import com.mybatisflex.spring.service.impl.ServiceImpl;
 import dev.langchain4j.data.message.AiMessage;
 import dev.langchain4j.data.message.UserMessage;
-import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import dev.langchain4j.memory.ChatMemory;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Lazy;
@@ -41,6 +48,18 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
     @Lazy
     private AppService appService;
 
+    @Resource
+    private CodeGenMetrics codeGenMetrics;
+
+    @Resource
+    private ChatHistoryWriteBehindConfig writeBehindConfig;
+
+    @Resource
+    private ChatHistoryWriteBehindManager writeBehindManager;
+
+    @Resource
+    private ChatMemoryWatermarkManager chatMemoryWatermarkManager;
+
     @Override
     public boolean addChatMessage(Long appId, String message, String messageType, Long userId) {
         // 基础校验
@@ -52,20 +71,49 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
         ChatHistoryMessageTypeEnum messageTypeEnum = ChatHistoryMessageTypeEnum.getEnumByValue(messageType);
         ThrowUtils.throwIf(messageTypeEnum == null, ErrorCode.PARAMS_ERROR, "不支持的消息类型");
         // 插入数据库
+        // 提交时就确定创建时间，异步批量写入后仍按提交顺序排序
+        // 批量写入不会忽略 null 字段，非空列（含 updateTime、isDelete）必须在这里赋值，不能依赖数据库默认值
+        LocalDateTime now = LocalDateTime.now();
         ChatHistory chatHistory = ChatHistory.builder()
                 .appId(appId)
                 .message(message)
                 .messageType(messageType)
                 .userId(userId)
+                .createTime(now)
+                .updateTime(now)
+                .isDelete(0)
 //                // 初始化消息序号为0，实际使用时应该根据已有消息数量+1
 //                .messageOrder(0)
                 .build();
-        return this.save(chatHistory);
+        // id 由实体 @Id 配置的主键生成器提前生成（入库时已有 id 不会重新生成），同步和异步写入使用同一个生成器
+        chatHistory.setId(nextId(chatHistory));
+        // 异步更新水位，记忆水位只在消息确实写入 Redis 记忆后前移
+        chatMemoryWatermarkManager.onHistoryAdded(appId, chatHistory.getId(), messageTypeEnum);
+        if (writeBehindConfig.isEnabled()) {
+            // 异步批量写入，生成链路不等待数据库
+            writeBehindManager.enqueue(chatHistory);
+            return true;
+        }
+        // 记录入库耗时
+        long start = System.nanoTime();
+        String outcome = CodeGenMetrics.OUTCOME_ERROR;
+        try {
+            boolean result = this.save(chatHistory);
+            if (result) {
+                outcome = CodeGenMetrics.OUTCOME_SUCCESS;
+            }
+            return result;
+        } finally {
+            codeGenMetrics.recordHistoryPersist(messageType, outcome, System.nanoTime() - start);
+        }
     }
 
     @Override
     public boolean deleteByAppId(Long appId) {
         ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.PARAMS_ERROR, "应用ID不能为空");
+        // 丢弃尚未写入的消息，避免删除后又被写回
+        writeBehindManager.discard(appId);
+        chatMemoryWatermarkManager.clear(appId);
         QueryWrapper queryWrapper = QueryWrapper.create()
                 .eq("appId", appId);
         return this.remove(queryWrapper);
@@ -95,39 +143,13 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
     }
 
     @Override
-    public int loadChatHistoryToMemory(Long appId, MessageWindowChatMemory chatMemory, int maxCount) {
+    public int loadChatHistoryToMemory(Long appId, ChatMemory chatMemory, int maxCount) {
         try {
             ThrowUtils.throwIf(appId == null, ErrorCode.PARAMS_ERROR, "应用ID不能为空");
             ThrowUtils.throwIf(maxCount <= 0, ErrorCode.PARAMS_ERROR, "最大数量必须大于0");
             ThrowUtils.throwIf(chatMemory == null, ErrorCode.PARAMS_ERROR, "聊天记忆对象不能为空");
             
-            QueryWrapper queryWrapper = QueryWrapper.create()
-                    .eq(ChatHistory::getAppId, appId)
-                    .orderBy(ChatHistory::getCreateTime, false) // 按时间倒序
-                    .limit(1,maxCount);
-            List<ChatHistory> historyList = this.list(queryWrapper);
-            if (CollUtil.isEmpty(historyList)) {
-                chatMemory.clear();
-                return 0;
-            }
-            // 反转列表，确保按照时间正序（老的在前，新的在后）
-            Collections.reverse(historyList);
-            // 先清理历史缓存，防止重复加载
-            chatMemory.clear();
-            // 按照时间顺序将消息添加到记忆中
-            int loadedCount = 0;
-            for (ChatHistory history : historyList) {
-                if (ChatHistoryMessageTypeEnum.USER.getValue().equals(history.getMessageType())) {
-                    chatMemory.add(UserMessage.from(history.getMessage()));
-                    loadedCount++;
-                } else if (ChatHistoryMessageTypeEnum.AI.getValue().equals(history.getMessageType())) {
-                    chatMemory.add(AiMessage.from(history.getMessage()));
-                    loadedCount++;
-                }
-                // 忽略其他类型的消息，但仍然计入处理总数中
-            }
-            log.info("成功为 appId: {} 加载 {} 条历史消息", appId, loadedCount);
-            return loadedCount;
+            return addToMemory(appId, chatMemory, listRecentHistory(appId, maxCount));
         } catch (Exception e) {
             log.error("加载历史对话失败，appId: {}", appId, e);
             // 加载失败不影响系统运行，只是没有历史上下文
@@ -135,6 +157,79 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
         }
     }
 
+    /**
+     * 查询应用最近的对话历史
+     *
+     * @return 按时间正序（老的在前，新的在后）
+     */
+    List<ChatHistory> listRecentHistory(Long appId, int maxCount) {
+        QueryWrapper queryWrapper = QueryWrapper.create()
+                .eq(ChatHistory::getAppId, appId)
+                .orderBy(ChatHistory::getCreateTime, false) // 按时间倒序
+                .limit(1,maxCount);
+        List<ChatHistory> historyList = this.list(queryWrapper);
+        // 反转列表，确保按照时间正序（老的在前，新的在后）
+        Collections.reverse(historyList);
+        return historyList;
+    }
+
+    private int addToMemory(Long appId, ChatMemory chatMemory, List<ChatHistory> historyList) {
+        // 先清理历史缓存，防止重复加载
+        chatMemory.clear();
+        if (CollUtil.isEmpty(historyList)) {
+            return 0;
+        }
+        // 按照时间顺序将消息添加到记忆中
+        int loadedCount = 0;
+        for (ChatHistory history : historyList) {
+            if (ChatHistoryMessageTypeEnum.USER.getValue().equals(history.getMessageType())) {
+                chatMemory.add(UserMessage.from(history.getMessage()));
+                loadedCount++;
+            } else if (ChatHistoryMessageTypeEnum.AI.getValue().equals(history.getMessageType())) {
+                chatMemory.add(AiMessage.from(history.getMessage()));
+                loadedCount++;
+            }
+            // 忽略其他类型的消息，但仍然计入处理总数中
+        }
+        log.info("成功为 appId: {} 加载 {} 条历史消息", appId, loadedCount);
+        return loadedCount;
+    }
+
+    @Override
+    public int hydrateChatMemory(Long appId, ChatMemory chatMemory, int maxCount) {
+        ThrowUtils.throwIf(appId == null, ErrorCode.PARAMS_ERROR, "应用ID不能为空");
+        ThrowUtils.throwIf(chatMemory == null, ErrorCode.PARAMS_ERROR, "聊天记忆对象不能为空");
+        long start = System.nanoTime();
+        // 第一层：Redis 中的记忆
+        int cachedCount = 0;
+        try {
+            cachedCount = chatMemory.messages().size();
+        } catch (Exception e) {
+            log.warn("读取 Redis 对话记忆失败，appId: {}, 错误信息: {}", appId, e.getMessage());
+        }
+        if (cachedCount > 0 && !chatMemoryWatermarkManager.isHistoryNewer(appId)) {
+            log.info("appId: {} 复用 Redis 中的 {} 条对话记忆", appId, cachedCount);
+            codeGenMetrics.recordMemoryHydration("redis", System.nanoTime() - start);
+            return cachedCount;
+        }
+        // 第二层：Redis 记忆为空或已落后，从数据库加载
+        int loadedCount = 0;
+        try {
+            List<ChatHistory> historyList = listRecentHistory(appId, maxCount);
+            loadedCount = addToMemory(appId, chatMemory, historyList);
+            // 最新的消息可能还在异步写入队列或溢出文件中，水位只前移到实际加载到的最新一条，
+            // 而不是 latest，这样未加载的消息下次仍会从数据库加载
+            historyList.stream()
+                    .map(ChatHistory::getId)
+                    .max(Long::compare)
+                    .ifPresent(loadedHistoryId -> chatMemoryWatermarkManager.markMemoryLoaded(appId, loadedHistoryId));
+        } catch (Exception e) {
+            log.error("加载历史对话失败，appId: {}", appId, e);
+        }
+        codeGenMetrics.recordMemoryHydration("mysql", System.nanoTime() - start);
+        return loadedCount;
+    }
+
     /**
      * 获取查询包装类
      *
@@ -174,4 +269,13 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
         }
         return queryWrapper;
     }
-}
\ No newline at end of file
+
+    /**
+     * 使用实体 @Id 配置的主键生成器生成 id
+     */
+    private static Long nextId(ChatHistory chatHistory) {
+        IdInfo idInfo = TableInfoFactory.ofEntityClass(ChatHistory.class).getPrimaryKeyList().get(0);
+        Object id = KeyGeneratorFactory.getKeyGenerator(idInfo.getValue()).generate(chatHistory, idInfo.getColumn());
+        return ((Number) id).longValue();
+    }
+}
@@ -0,0 +1,52 @@
+package com.jay.aicodemother.utils;
+
+import cn.hutool.json.JSONUtil;
+
+/**
+ * SSE 输出工具类
+ * 流式消息在进程内以对象传递，只在 SSE 出口处序列化一次
+ */
+public class SseUtils {
+
+    private SseUtils() {
+    }
+
+    /**
+     * 将内容包装成 {"d": "内容"} 的 JSON 字符串
+     * 直接拼接转义后的字符串，避免每个 token 都创建 Map 和 JSONObject
+     *
+     * @param chunk 输出内容
+     * @return JSON 字符串
+     */
+    public static String toDataJson(String chunk) {
+        return "{\"d\":" + JSONUtil.quote(chunk) + "}";
+    }
+
+    /**
+     * 计算字符串的 UTF-8 字节数（不创建字节数组）
+     *
+     * @param content 内容
+     * @return 字节数
+     */
+    public static int utf8Length(CharSequence content) {
+        if (content == null) {
+            return 0;
+        }
+        int length = 0;
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < content.length()
+                    && Character.isLowSurrogate(content.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,79 @@
+package dev.langchain4j.http.client;
+
+import dev.langchain4j.http.client.sse.ServerSentEvent;
+import dev.langchain4j.http.client.sse.ServerSentEventListener;
+import dev.langchain4j.http.client.sse.ServerSentEventParser;
+import dev.langchain4j.model.chat.response.StreamingHandle;
+
+import java.io.InputStream;
+
+/**
+ * {@link HttpClient} decorator that makes server-sent event streams cancellable.
+ * <p>
+ * The {@link StreamingHandle} bound to the calling thread is captured when the request is issued.
+ * The response body is registered in it while it is being parsed, so cancelling the handle closes the
+ * connection. Once cancelled, no more events, errors or close signals are delivered to the listener.
+ */
+public class CancellableHttpClient implements HttpClient {
+
+    private final HttpClient delegate;
+
+    public CancellableHttpClient(HttpClient delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public SuccessfulHttpResponse execute(HttpRequest request) {
+        return delegate.execute(request);
+    }
+
+    @Override
+    public void execute(HttpRequest request, ServerSentEventParser parser, ServerSentEventListener listener) {
+        StreamingHandle handle = StreamingHandle.current();
+        if (handle == null) {
+            delegate.execute(request, parser, listener);
+            return;
+        }
+        if (handle.isCancelled()) {
+            return;
+        }
+        ServerSentEventParser cancellableParser = (InputStream inputStream, ServerSentEventListener parserListener) -> {
+            handle.register(inputStream);
+            try {
+                parser.parse(inputStream, parserListener);
+            } finally {
+                handle.unregister(inputStream);
+            }
+        };
+        delegate.execute(request, cancellableParser, new ServerSentEventListener() {
+
+            @Override
+            public void onOpen(SuccessfulHttpResponse response) {
+                if (!handle.isCancelled()) {
+                    listener.onOpen(response);
+                }
+            }
+
+            @Override
+            public void onEvent(ServerSentEvent event) {
+                if (!handle.isCancelled()) {
+                    listener.onEvent(event);
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                if (!handle.isCancelled()) {
+                    listener.onError(throwable);
+                }
+            }
+
+            @Override
+            public void onClose() {
+                if (!handle.isCancelled()) {
+                    listener.onClose();
+                }
+            }
+        });
+    }
+}
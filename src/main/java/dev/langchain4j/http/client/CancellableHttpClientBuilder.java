@@ -0,0 +1,42 @@
+package dev.langchain4j.http.client;
+
+import java.time.Duration;
+
+/**
+ * {@link HttpClientBuilder} that wraps the client built by the delegate into a {@link CancellableHttpClient}.
+ */
+public class CancellableHttpClientBuilder implements HttpClientBuilder {
+
+    private final HttpClientBuilder delegate;
+
+    public CancellableHttpClientBuilder(HttpClientBuilder delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Duration connectTimeout() {
+        return delegate.connectTimeout();
+    }
+
+    @Override
+    public HttpClientBuilder connectTimeout(Duration timeout) {
+        delegate.connectTimeout(timeout);
+        return this;
+    }
+
+    @Override
+    public Duration readTimeout() {
+        return delegate.readTimeout();
+    }
+
+    @Override
+    public HttpClientBuilder readTimeout(Duration timeout) {
+        delegate.readTimeout(timeout);
+        return this;
+    }
+
+    @Override
+    public HttpClient build() {
+        return new CancellableHttpClient(delegate.build());
+    }
+}
@@ -0,0 +1,86 @@
+package dev.langchain4j.model.chat.response;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Handle that allows cancelling a streaming chat that is in progress, including all follow-up
+ * requests issued by the AI Service tool loop.
+ * <p>
+ * The handle is bound to the calling thread while a request is being issued (see {@link #runBound(Runnable)}),
+ * so that the HTTP client can register the response body and close it when {@link #cancel()} is called.
+ */
+public class StreamingHandle {
+
+    private static final ThreadLocal<StreamingHandle> CURRENT = new ThreadLocal<>();
+
+    private final List<Closeable> resources = new CopyOnWriteArrayList<>();
+
+    private volatile boolean cancelled;
+
+    /**
+     * Cancels the stream: no more callbacks are delivered, no more tools are executed
+     * and the open HTTP response bodies are closed.
+     */
+    public void cancel() {
+        cancelled = true;
+        for (Closeable resource : resources) {
+            closeQuietly(resource);
+        }
+        resources.clear();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Registers a resource (usually an HTTP response body) that should be closed on cancellation.
+     * If the handle is already cancelled, the resource is closed immediately.
+     */
+    public void register(Closeable resource) {
+        resources.add(resource);
+        if (cancelled) {
+            resources.remove(resource);
+            closeQuietly(resource);
+        }
+    }
+
+    public void unregister(Closeable resource) {
+        resources.remove(resource);
+    }
+
+    /**
+     * Runs the given action with this handle bound to the current thread.
+     */
+    public void runBound(Runnable action) {
+        StreamingHandle previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            action.run();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * @return the handle bound to the current thread, or {@code null}
+     */
+    public static StreamingHandle current() {
+        return CURRENT.get();
+    }
+
+    private static void closeQuietly(Closeable resource) {
+        try {
+            resource.close();
+        } catch (IOException | RuntimeException ignored) {
+            // the stream is being aborted, nothing to do
+        }
+    }
+}
@@ -0,0 +1,552 @@
+package dev.langchain4j.model.openai;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import dev.langchain4j.Internal;
+import dev.langchain4j.http.client.sse.ServerSentEventListener;
+import dev.langchain4j.http.client.sse.ServerSentEventParser;
+import dev.langchain4j.model.openai.internal.shared.CompletionTokensDetails;
+import dev.langchain4j.model.openai.internal.shared.PromptTokensDetails;
+import dev.langchain4j.model.openai.internal.shared.Usage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import static dev.langchain4j.http.client.sse.ServerSentEventListenerUtils.ignoringExceptions;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Decodes an OpenAI chat completion event stream straight from the response bytes.
+ * <p>
+ * The default path decodes the body into a {@code BufferedReader}, allocates a {@code String} per line and per event,
+ * and deserializes every event into a tree of immutable {@code ChatCompletionResponse} objects. This parser instead
+ * finds the {@code data:} frames in a reusable byte buffer and feeds the frame bytes in place to one non-blocking
+ * JSON parser per stream, filling one reused {@link OpenAiStreamDelta}. Only the content and tool call fragments become new strings;
+ * chunk-level values that repeat in every frame (id, model, fingerprint, created) are compared in place and reused.
+ * <p>
+ * Framing follows the default parser: {@code event:} and {@code data:} fields with trimmed values, multiple data
+ * lines joined with {@code \n}, and a pending event is dispatched at the end of the stream.
+ * {@code [DONE]} is skipped and {@code event: error} is reported to {@link ServerSentEventListener#onError(Throwable)},
+ * as is a frame that cannot be decoded. Decoded deltas go to the delta handler, never to
+ * {@link ServerSentEventListener#onEvent}.
+ * <p>
+ * An instance holds the state of one stream and must not be shared.
+ */
+@Internal
+public class OpenAiSseDeltaDecoder implements ServerSentEventParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final byte[] DATA = "data:".getBytes(US_ASCII);
+    private static final byte[] EVENT = "event:".getBytes(US_ASCII);
+    private static final byte[] DONE = "[DONE]".getBytes(US_ASCII);
+
+    private static final int INITIAL_BUFFER_SIZE = 8192;
+
+    private final Consumer<OpenAiStreamDelta> deltaHandler;
+    private final OpenAiStreamDelta delta = new OpenAiStreamDelta();
+    private final Runnable handleDelta;
+
+    private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+    private int limit;
+    private int lineStart;
+    private int scanPosition;
+    private boolean skipLineFeed;
+
+    /**
+     * Start of the first line of the event being collected, -1 if none; the buffer is never compacted past it.
+     */
+    private int eventStart = -1;
+    private int[] dataOffsets = new int[2];
+    private int[] dataLengths = new int[2];
+    private int dataCount;
+    private String eventType;
+    private byte[] joinBuffer;
+    private JsonParser parser;
+
+    private String lastId;
+    private String lastModel;
+    private String lastSystemFingerprint;
+    private String lastServiceTier;
+    private String lastFinishReason;
+    private Long lastCreated;
+
+    public OpenAiSseDeltaDecoder(Consumer<OpenAiStreamDelta> deltaHandler) {
+        this.deltaHandler = deltaHandler;
+        this.handleDelta = () -> deltaHandler.accept(delta);
+    }
+
+    @Override
+    public void parse(InputStream inputStream, ServerSentEventListener listener) {
+        try (InputStream in = inputStream) {
+            while (true) {
+                if (limit == buffer.length) {
+                    makeRoom();
+                }
+                int read = in.read(buffer, limit, buffer.length - limit);
+                if (read == -1) {
+                    break;
+                }
+                limit += read;
+                processLines(listener);
+            }
+            if (lineStart < limit) {
+                processLine(lineStart, limit, listener);
+            }
+            dispatch(listener);
+        } catch (IOException e) {
+            ignoringExceptions(() -> listener.onError(e));
+        } finally {
+            closeParser();
+        }
+    }
+
+    private void processLines(ServerSentEventListener listener) {
+        byte[] buf = buffer;
+        int i = scanPosition;
+        while (i < limit) {
+            byte b = buf[i];
+            if (skipLineFeed) {
+                skipLineFeed = false;
+                if (b == '\n') {
+                    lineStart = ++i;
+                    continue;
+                }
+            }
+            if (b == '\n' || b == '\r') {
+                processLine(lineStart, i, listener);
+                skipLineFeed = b == '\r';
+                lineStart = ++i;
+            } else {
+                i++;
+            }
+        }
+        scanPosition = i;
+    }
+
+    private void processLine(int start, int end, ServerSentEventListener listener) {
+        if (start == end) {
+            dispatch(listener);
+            return;
+        }
+        if (startsWith(start, end, DATA)) {
+            if (dataCount == dataOffsets.length) {
+                dataOffsets = Arrays.copyOf(dataOffsets, dataCount * 2);
+                dataLengths = Arrays.copyOf(dataLengths, dataCount * 2);
+            }
+            int valueStart = trimStart(start + DATA.length, end);
+            dataOffsets[dataCount] = valueStart;
+            dataLengths[dataCount] = trimEnd(valueStart, end) - valueStart;
+            dataCount++;
+        } else if (startsWith(start, end, EVENT)) {
+            int valueStart = trimStart(start + EVENT.length, end);
+            eventType = new String(buffer, valueStart, trimEnd(valueStart, end) - valueStart, UTF_8);
+        } else {
+            // comments (":") and other fields are ignored, as in the default parser
+            return;
+        }
+        if (eventStart < 0) {
+            eventStart = start;
+        }
+    }
+
+    private void dispatch(ServerSentEventListener listener) {
+        try {
+            int totalLength = 0;
+            for (int i = 0; i < dataCount; i++) {
+                totalLength += dataLengths[i];
+            }
+            if (totalLength == 0) {
+                return;
+            }
+            byte[] bytes = buffer;
+            int offset = dataOffsets[0];
+            int length = dataLengths[0];
+            if (dataCount > 1) {
+                bytes = joinData();
+                offset = 0;
+                length = totalLength + dataCount - 1;
+            }
+
+            if ("error".equals(eventType)) {
+                String data = new String(bytes, offset, length, UTF_8);
+                ignoringExceptions(() -> listener.onError(new RuntimeException(data)));
+                return;
+            }
+            if (equals(bytes, offset, length, DONE)) {
+                return;
+            }
+            try {
+                decode(bytes, offset, length);
+            } catch (Exception e) {
+                ignoringExceptions(() -> listener.onError(e));
+                return;
+            }
+            ignoringExceptions(handleDelta);
+        } finally {
+            dataCount = 0;
+            eventType = null;
+            eventStart = -1;
+        }
+    }
+
+    private byte[] joinData() {
+        int length = dataCount - 1;
+        for (int i = 0; i < dataCount; i++) {
+            length += dataLengths[i];
+        }
+        if (joinBuffer == null || joinBuffer.length < length) {
+            joinBuffer = new byte[Math.max(length, INITIAL_BUFFER_SIZE)];
+        }
+        int position = 0;
+        for (int i = 0; i < dataCount; i++) {
+            if (i > 0) {
+                joinBuffer[position++] = '\n';
+            }
+            System.arraycopy(buffer, dataOffsets[i], joinBuffer, position, dataLengths[i]);
+            position += dataLengths[i];
+        }
+        return joinBuffer;
+    }
+
+    /**
+     * Makes room at the end of the buffer by dropping what has been consumed, or grows it when the pending event
+     * already fills the whole buffer.
+     */
+    private void makeRoom() {
+        int keep = eventStart >= 0 ? eventStart : lineStart;
+        if (keep == 0) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            return;
+        }
+        System.arraycopy(buffer, keep, buffer, 0, limit - keep);
+        limit -= keep;
+        lineStart -= keep;
+        scanPosition -= keep;
+        if (eventStart >= 0) {
+            eventStart -= keep;
+        }
+        for (int i = 0; i < dataCount; i++) {
+            dataOffsets[i] -= keep;
+        }
+    }
+
+    /**
+     * Feeds one frame to the stream's non-blocking parser. Creating a parser per frame costs about 600 bytes of
+     * allocation, more than the frame itself; one parser fed frame by frame costs nothing after warm-up.
+     */
+    private void decode(byte[] bytes, int offset, int length) throws IOException {
+        if (parser == null) {
+            parser = JSON_FACTORY.createNonBlockingByteArrayParser();
+        }
+        try {
+            ((ByteArrayFeeder) parser.getNonBlockingInputFeeder()).feedInput(bytes, offset, offset + length);
+            readChunk();
+            if (parser.nextToken() != JsonToken.NOT_AVAILABLE) {
+                throw new JsonParseException(parser, "Unexpected content after the chat completion chunk");
+            }
+        } catch (IOException | RuntimeException e) {
+            // the parser state is unknown after a bad frame, start the next frame with a fresh one
+            closeParser();
+            throw e;
+        }
+    }
+
+    private void readChunk() throws IOException {
+        delta.reset();
+        if (next() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected a chat completion chunk object");
+        }
+        while (next() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = next();
+            switch (field) {
+                case "id" -> delta.id(lastId = string(lastId));
+                case "model" -> delta.model(lastModel = string(lastModel));
+                case "system_fingerprint" -> delta.systemFingerprint(lastSystemFingerprint = string(lastSystemFingerprint));
+                case "service_tier" -> delta.serviceTier(lastServiceTier = string(lastServiceTier));
+                case "created" -> {
+                    if (token == JsonToken.VALUE_NUMBER_INT) {
+                        long created = parser.getLongValue();
+                        if (lastCreated == null || lastCreated != created) {
+                            lastCreated = created;
+                        }
+                        delta.created(lastCreated);
+                    } else {
+                        skip(token);
+                    }
+                }
+                case "usage" -> delta.usage(token == JsonToken.START_OBJECT ? readUsage() : skipToNull(token));
+                case "choices" -> readChoices(token);
+                default -> skip(token);
+            }
+        }
+    }
+
+    private void readChoices(JsonToken token) throws IOException {
+        if (token != JsonToken.START_ARRAY) {
+            skip(token);
+            return;
+        }
+        boolean first = true;
+        JsonToken element;
+        while ((element = next()) != JsonToken.END_ARRAY) {
+            if (first && element == JsonToken.START_OBJECT) {
+                readChoice();
+            } else {
+                skip(element);
+            }
+            first = false;
+        }
+    }
+
+    private void readChoice() throws IOException {
+        delta.hasChoice(true);
+        while (next() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = next();
+            switch (field) {
+                case "finish_reason" -> delta.finishReason(lastFinishReason = string(lastFinishReason));
+                case "delta" -> {
+                    if (token == JsonToken.START_OBJECT) {
+                        readDelta();
+                    } else {
+                        skip(token);
+                    }
+                }
+                default -> skip(token);
+            }
+        }
+    }
+
+    private void readDelta() throws IOException {
+        while (next() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = next();
+            switch (field) {
+                case "content" -> delta.content(string(null));
+                case "function_call" -> {
+                    if (token != JsonToken.START_OBJECT) {
+                        skip(token);
+                        continue;
+                    }
+                    while (next() == JsonToken.FIELD_NAME) {
+                        String functionField = parser.currentName();
+                        JsonToken value = next();
+                        switch (functionField) {
+                            case "name" -> delta.functionName(string(null));
+                            case "arguments" -> delta.functionArguments(string(null));
+                            default -> skip(value);
+                        }
+                    }
+                }
+                case "tool_calls" -> {
+                    if (token != JsonToken.START_ARRAY) {
+                        skip(token);
+                        continue;
+                    }
+                    JsonToken element;
+                    while ((element = next()) != JsonToken.END_ARRAY) {
+                        if (element == JsonToken.START_OBJECT) {
+                            readToolCall(delta.addToolCall());
+                        } else {
+                            skip(element);
+                        }
+                    }
+                }
+                default -> skip(token);
+            }
+        }
+    }
+
+    private void readToolCall(OpenAiStreamDelta.ToolCallDelta toolCall) throws IOException {
+        while (next() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = next();
+            switch (field) {
+                case "index" -> {
+                    if (token == JsonToken.VALUE_NUMBER_INT) {
+                        toolCall.index(parser.getIntValue());
+                    } else {
+                        skip(token);
+                    }
+                }
+                case "id" -> toolCall.id(string(null));
+                case "function" -> {
+                    if (token != JsonToken.START_OBJECT) {
+                        skip(token);
+                        continue;
+                    }
+                    while (next() == JsonToken.FIELD_NAME) {
+                        String functionField = parser.currentName();
+                        JsonToken value = next();
+                        switch (functionField) {
+                            case "name" -> toolCall.name(string(null));
+                            case "arguments" -> toolCall.arguments(string(null));
+                            default -> skip(value);
+                        }
+                    }
+                }
+                default -> skip(token);
+            }
+        }
+    }
+
+    /**
+     * Usage arrives once per stream, in the last chunk.
+     */
+    private Usage readUsage() throws IOException {
+        Usage.Builder usage = Usage.builder();
+        while (next() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = next();
+            switch (field) {
+                case "prompt_tokens" -> usage.promptTokens(integer(token));
+                case "completion_tokens" -> usage.completionTokens(integer(token));
+                case "total_tokens" -> usage.totalTokens(integer(token));
+                case "prompt_tokens_details" -> usage.promptTokensDetails(token == JsonToken.START_OBJECT
+                        ? PromptTokensDetails.builder().cachedTokens(readDetail("cached_tokens")).build()
+                        : skipToNull(token));
+                case "completion_tokens_details" -> usage.completionTokensDetails(token == JsonToken.START_OBJECT
+                        ? CompletionTokensDetails.builder().reasoningTokens(readDetail("reasoning_tokens")).build()
+                        : skipToNull(token));
+                default -> skip(token);
+            }
+        }
+        return usage.build();
+    }
+
+    private Integer readDetail(String name) throws IOException {
+        Integer value = null;
+        while (next() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = next();
+            if (name.equals(field)) {
+                value = integer(token);
+            } else {
+                skip(token);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * The frame is always complete, so running out of input means it was truncated. Checked on every token because
+     * the non-blocking parser would otherwise keep returning {@link JsonToken#NOT_AVAILABLE}.
+     */
+    private JsonToken next() throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == null || token == JsonToken.NOT_AVAILABLE) {
+            throw new JsonParseException(parser, "Incomplete chat completion chunk");
+        }
+        return token;
+    }
+
+    /**
+     * Skips the current value; {@link JsonParser#skipChildren()} would spin on a truncated frame.
+     */
+    private void skip(JsonToken token) throws IOException {
+        if (!token.isStructStart()) {
+            return;
+        }
+        int depth = 1;
+        while (depth > 0) {
+            JsonToken next = next();
+            if (next.isStructStart()) {
+                depth++;
+            } else if (next.isStructEnd()) {
+                depth--;
+            }
+        }
+    }
+
+    private <T> T skipToNull(JsonToken token) throws IOException {
+        skip(token);
+        return null;
+    }
+
+    private Integer integer(JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getIntValue();
+        }
+        skip(token);
+        return null;
+    }
+
+    /**
+     * Reads the current string value, returning {@code previous} without allocating when the characters are equal.
+     */
+    private String string(String previous) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token != JsonToken.VALUE_STRING) {
+            skip(token);
+            return null;
+        }
+        if (previous != null) {
+            int length = parser.getTextLength();
+            if (length == previous.length()) {
+                char[] chars = parser.getTextCharacters();
+                int offset = parser.getTextOffset();
+                int i = 0;
+                while (i < length && chars[offset + i] == previous.charAt(i)) {
+                    i++;
+                }
+                if (i == length) {
+                    return previous;
+                }
+            }
+        }
+        return parser.getText();
+    }
+
+    private void closeParser() {
+        if (parser != null) {
+            try {
+                parser.close();
+            } catch (IOException ignored) {
+                // nothing is read from a stream, closing only releases buffers
+            }
+            parser = null;
+        }
+    }
+
+    private boolean startsWith(int start, int end, byte[] prefix) {
+        if (end - start < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer[start + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean equals(byte[] bytes, int offset, int length, byte[] expected) {
+        return length == expected.length && Arrays.equals(bytes, offset, offset + length, expected, 0, expected.length);
+    }
+
+    /**
+     * Same rule as {@link String#trim()}: everything up to and including space is whitespace;
+     * bytes of multi-byte UTF-8 sequences are never below 0x80.
+     */
+    private int trimStart(int start, int end) {
+        while (start < end && (buffer[start] & 0xFF) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private int trimEnd(int start, int end) {
+        while (end > start && (buffer[end - 1] & 0xFF) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+}
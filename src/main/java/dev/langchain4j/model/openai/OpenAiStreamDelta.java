@@ -0,0 +1,289 @@
+package dev.langchain4j.model.openai;
+
+import dev.langchain4j.Internal;
+import dev.langchain4j.model.openai.internal.chat.ChatCompletionChoice;
+import dev.langchain4j.model.openai.internal.chat.ChatCompletionResponse;
+import dev.langchain4j.model.openai.internal.chat.Delta;
+import dev.langchain4j.model.openai.internal.chat.FunctionCall;
+import dev.langchain4j.model.openai.internal.chat.ToolCall;
+import dev.langchain4j.model.openai.internal.shared.Usage;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The fields of one streamed chat completion chunk that the streaming model actually uses.
+ * <p>
+ * Unlike {@link ChatCompletionResponse} this is mutable: {@link OpenAiSseDeltaDecoder} reuses one instance
+ * (including its tool call slots) for every frame of a stream, so it is only valid until the next frame is decoded.
+ * Only the first choice is kept, as in the rest of the streaming model.
+ */
+@Internal
+public class OpenAiStreamDelta {
+
+    private String id;
+    private String model;
+    private Long created;
+    private String serviceTier;
+    private String systemFingerprint;
+    private Usage usage;
+
+    private boolean hasChoice;
+    private String finishReason;
+    private String content;
+    private String functionName;
+    private String functionArguments;
+
+    private ToolCallDelta[] toolCalls = new ToolCallDelta[1];
+    private int toolCallCount;
+
+    /**
+     * Copies the chunk deserialized by the default client.
+     */
+    public static OpenAiStreamDelta from(ChatCompletionResponse response) {
+        OpenAiStreamDelta streamDelta = new OpenAiStreamDelta();
+        streamDelta.id = response.id();
+        streamDelta.model = response.model();
+        streamDelta.created = response.created();
+        streamDelta.serviceTier = response.serviceTier();
+        streamDelta.systemFingerprint = response.systemFingerprint();
+        streamDelta.usage = response.usage();
+
+        List<ChatCompletionChoice> choices = response.choices();
+        if (choices == null || choices.isEmpty() || choices.get(0) == null) {
+            return streamDelta;
+        }
+        ChatCompletionChoice choice = choices.get(0);
+        streamDelta.hasChoice = true;
+        streamDelta.finishReason = choice.finishReason();
+
+        Delta delta = choice.delta();
+        if (delta == null) {
+            return streamDelta;
+        }
+        streamDelta.content = delta.content();
+        copyFunctionCall(delta, streamDelta);
+        if (delta.toolCalls() != null) {
+            for (ToolCall toolCall : delta.toolCalls()) {
+                ToolCallDelta toolCallDelta = streamDelta.addToolCall();
+                toolCallDelta.index = toolCall.index() == null ? 0 : toolCall.index();
+                toolCallDelta.id = toolCall.id();
+                FunctionCall function = toolCall.function();
+                if (function != null) {
+                    toolCallDelta.name = function.name();
+                    toolCallDelta.arguments = function.arguments();
+                }
+            }
+        }
+        return streamDelta;
+    }
+
+    /**
+     * Copies the legacy {@code function_call} field. It is deprecated in favour of {@code tool_calls}, but some
+     * OpenAI-compatible providers still stream it, and the builder assembles it into a tool execution request.
+     */
+    @SuppressWarnings("deprecation")
+    private static void copyFunctionCall(Delta delta, OpenAiStreamDelta streamDelta) {
+        FunctionCall functionCall = delta.functionCall();
+        if (functionCall != null) {
+            streamDelta.functionName = functionCall.name();
+            streamDelta.functionArguments = functionCall.arguments();
+        }
+    }
+
+    void reset() {
+        id = null;
+        model = null;
+        created = null;
+        serviceTier = null;
+        systemFingerprint = null;
+        usage = null;
+        hasChoice = false;
+        finishReason = null;
+        content = null;
+        functionName = null;
+        functionArguments = null;
+        toolCallCount = 0;
+    }
+
+    ToolCallDelta addToolCall() {
+        if (toolCallCount == toolCalls.length) {
+            toolCalls = Arrays.copyOf(toolCalls, toolCallCount * 2);
+        }
+        ToolCallDelta toolCall = toolCalls[toolCallCount];
+        if (toolCall == null) {
+            toolCall = new ToolCallDelta();
+            toolCalls[toolCallCount] = toolCall;
+        } else {
+            toolCall.reset();
+        }
+        toolCallCount++;
+        return toolCall;
+    }
+
+    void id(String id) {
+        this.id = id;
+    }
+
+    void model(String model) {
+        this.model = model;
+    }
+
+    void created(Long created) {
+        this.created = created;
+    }
+
+    void serviceTier(String serviceTier) {
+        this.serviceTier = serviceTier;
+    }
+
+    void systemFingerprint(String systemFingerprint) {
+        this.systemFingerprint = systemFingerprint;
+    }
+
+    void usage(Usage usage) {
+        this.usage = usage;
+    }
+
+    void hasChoice(boolean hasChoice) {
+        this.hasChoice = hasChoice;
+    }
+
+    void finishReason(String finishReason) {
+        this.finishReason = finishReason;
+    }
+
+    void content(String content) {
+        this.content = content;
+    }
+
+    void functionName(String functionName) {
+        this.functionName = functionName;
+    }
+
+    void functionArguments(String functionArguments) {
+        this.functionArguments = functionArguments;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public String model() {
+        return model;
+    }
+
+    public Long created() {
+        return created;
+    }
+
+    public String serviceTier() {
+        return serviceTier;
+    }
+
+    public String systemFingerprint() {
+        return systemFingerprint;
+    }
+
+    public Usage usage() {
+        return usage;
+    }
+
+    /**
+     * Whether the chunk had a first choice; the fields below are only meaningful if it had.
+     */
+    public boolean hasChoice() {
+        return hasChoice;
+    }
+
+    public String finishReason() {
+        return finishReason;
+    }
+
+    public String content() {
+        return content;
+    }
+
+    public String functionName() {
+        return functionName;
+    }
+
+    public String functionArguments() {
+        return functionArguments;
+    }
+
+    public boolean hasFunctionCall() {
+        return functionName != null || functionArguments != null;
+    }
+
+    public int toolCallCount() {
+        return toolCallCount;
+    }
+
+    public ToolCallDelta toolCall(int i) {
+        return toolCalls[i];
+    }
+
+    /**
+     * One element of {@code delta.tool_calls}.
+     */
+    public static class ToolCallDelta {
+
+        private int index;
+        private String id;
+        private String name;
+        private String arguments;
+
+        /**
+     * Copies the legacy {@code function_call} field. It is deprecated in favour of {@code tool_calls}, but some
+     * OpenAI-compatible providers still stream it, and the builder assembles it into a tool execution request.
+     */
+    @SuppressWarnings("deprecation")
+    private static void copyFunctionCall(Delta delta, OpenAiStreamDelta streamDelta) {
+        FunctionCall functionCall = delta.functionCall();
+        if (functionCall != null) {
+            streamDelta.functionName = functionCall.name();
+            streamDelta.functionArguments = functionCall.arguments();
+        }
+    }
+
+    void reset() {
+            index = 0;
+            id = null;
+            name = null;
+            arguments = null;
+        }
+
+        void index(int index) {
+            this.index = index;
+        }
+
+        void id(String id) {
+            this.id = id;
+        }
+
+        void name(String name) {
+            this.name = name;
+        }
+
+        void arguments(String arguments) {
+            this.arguments = arguments;
+        }
+
+        public int index() {
+            return index;
+        }
+
+        public String id() {
+            return id;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public String arguments() {
+            return arguments;
+        }
+    }
+}
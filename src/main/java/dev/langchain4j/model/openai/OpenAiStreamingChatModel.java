@@ -1,7 +1,17 @@
 package dev.langchain4j.model.openai;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.http.client.CancellableHttpClientBuilder;
+import dev.langchain4j.http.client.HttpClient;
 import dev.langchain4j.http.client.HttpClientBuilder;
+import dev.langchain4j.http.client.HttpClientBuilderLoader;
+import dev.langchain4j.http.client.HttpMethod;
+import dev.langchain4j.http.client.HttpRequest;
+import dev.langchain4j.http.client.log.LoggingHttpClient;
+import dev.langchain4j.http.client.sse.ServerSentEvent;
+import dev.langchain4j.http.client.sse.ServerSentEventListener;
 import dev.langchain4j.internal.ExceptionMapper;
 import dev.langchain4j.internal.ToolExecutionRequestBuilder;
 import dev.langchain4j.model.ModelProvider;
@@ -13,17 +23,18 @@ import dev.langchain4j.model.chat.request.ChatRequestParameters;
 import dev.langchain4j.model.chat.request.DefaultChatRequestParameters;
 import dev.langchain4j.model.chat.response.ChatResponse;
 import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
-import dev.langchain4j.model.openai.internal.OpenAiClient;
 import dev.langchain4j.model.openai.internal.chat.*;
 import dev.langchain4j.model.openai.internal.shared.StreamOptions;
 import dev.langchain4j.model.openai.spi.OpenAiStreamingChatModelBuilderFactory;
 
 import java.time.Duration;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import static dev.langchain4j.internal.InternalStreamingChatResponseHandlerUtils.withLoggingExceptions;
 import static dev.langchain4j.internal.Utils.*;
+import static dev.langchain4j.internal.ValidationUtils.ensureNotBlank;
 import static dev.langchain4j.model.ModelProvider.OPEN_AI;
 import static dev.langchain4j.model.openai.internal.OpenAiUtils.*;
 import static dev.langchain4j.spi.ServiceHelper.loadFactories;
@@ -36,26 +47,31 @@ import static java.time.Duration.ofSeconds;
  */
 public class OpenAiStreamingChatModel implements StreamingChatModel {
 
-    private final OpenAiClient client;
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final HttpClient httpClient;
+    private final String baseUrl;
+    private final Map<String, String> headers;
     private final OpenAiChatRequestParameters defaultRequestParameters;
     private final Boolean strictJsonSchema;
     private final Boolean strictTools;
     private final List<ChatModelListener> listeners;
 
     public OpenAiStreamingChatModel(OpenAiStreamingChatModelBuilder builder) {
-        this.client = OpenAiClient.builder()
-                .httpClientBuilder(builder.httpClientBuilder)
-                .baseUrl(getOrDefault(builder.baseUrl, DEFAULT_OPENAI_URL))
-                .apiKey(builder.apiKey)
-                .organizationId(builder.organizationId)
-                .projectId(builder.projectId)
+        // wrapped so that the SSE response can be closed when the stream is cancelled
+        HttpClientBuilder httpClientBuilder = new CancellableHttpClientBuilder(
+                getOrDefault(builder.httpClientBuilder, HttpClientBuilderLoader::loadHttpClientBuilder));
+        HttpClient httpClient = httpClientBuilder
                 .connectTimeout(getOrDefault(builder.timeout, ofSeconds(15)))
                 .readTimeout(getOrDefault(builder.timeout, ofSeconds(60)))
-                .logRequests(getOrDefault(builder.logRequests, false))
-                .logResponses(getOrDefault(builder.logResponses, false))
-                .userAgent(DEFAULT_USER_AGENT)
-                .customHeaders(builder.customHeaders)
                 .build();
+        boolean logRequests = getOrDefault(builder.logRequests, false);
+        boolean logResponses = getOrDefault(builder.logResponses, false);
+        this.httpClient = logRequests || logResponses
+                ? new LoggingHttpClient(httpClient, logRequests, logResponses)
+                : httpClient;
+        this.baseUrl = ensureNotBlank(getOrDefault(builder.baseUrl, DEFAULT_OPENAI_URL), "baseUrl");
+        this.headers = headers(builder);
 
         ChatRequestParameters commonParameters;
         if (builder.defaultRequestParameters != null) {
@@ -122,56 +138,86 @@ public class OpenAiStreamingChatModel implements StreamingChatModel {
         OpenAiStreamingResponseBuilder openAiResponseBuilder = new OpenAiStreamingResponseBuilder();
         ToolExecutionRequestBuilder toolBuilder = new ToolExecutionRequestBuilder();
 
-        client.chatCompletion(openAiRequest)
-                .onPartialResponse(partialResponse -> {
-                    openAiResponseBuilder.append(partialResponse);
-                    handle(partialResponse, toolBuilder, handler);
-                })
-                .onComplete(() -> {
-                    if (toolBuilder.hasToolExecutionRequests()) {
-                        try {
-                            handler.onCompleteToolExecutionRequest(toolBuilder.index(), toolBuilder.build());
-                        } catch (Exception e) {
-                            withLoggingExceptions(() -> handler.onError(e));
-                        }
-                    }
-                    ChatResponse chatResponse = openAiResponseBuilder.build();
+        // the chunks are decoded straight from the response bytes instead of going through the default client,
+        // which builds a String per line and a ChatCompletionResponse per chunk
+        OpenAiSseDeltaDecoder decoder = new OpenAiSseDeltaDecoder(delta -> {
+            openAiResponseBuilder.append(delta);
+            handle(delta, toolBuilder, handler);
+        });
+        HttpRequest httpRequest = HttpRequest.builder()
+                .method(HttpMethod.POST)
+                .url(baseUrl, "chat/completions")
+                .addHeader("Content-Type", "application/json")
+                .addHeaders(headers)
+                .body(toJson(openAiRequest))
+                .build();
+
+        httpClient.execute(httpRequest, decoder, new ServerSentEventListener() {
+
+            @Override
+            public void onEvent(ServerSentEvent event) {
+                // chunks are delivered to the decoder's delta handler
+            }
+
+            @Override
+            public void onClose() {
+                if (toolBuilder.hasToolExecutionRequests()) {
                     try {
-                        handler.onCompleteResponse(chatResponse);
+                        handler.onCompleteToolExecutionRequest(toolBuilder.index(), toolBuilder.build());
                     } catch (Exception e) {
                         withLoggingExceptions(() -> handler.onError(e));
                     }
-                })
-                .onError(throwable -> {
-                    RuntimeException mappedException = ExceptionMapper.DEFAULT.mapException(throwable);
-                    withLoggingExceptions(() -> handler.onError(mappedException));
-                })
-                .execute();
+                }
+                ChatResponse chatResponse = openAiResponseBuilder.build();
+                try {
+                    handler.onCompleteResponse(chatResponse);
+                } catch (Exception e) {
+                    withLoggingExceptions(() -> handler.onError(e));
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                RuntimeException mappedException = ExceptionMapper.DEFAULT.mapException(throwable);
+                withLoggingExceptions(() -> handler.onError(mappedException));
+            }
+        });
     }
 
-    private static void handle(ChatCompletionResponse partialResponse,
-                               ToolExecutionRequestBuilder toolBuilder,
-                               StreamingChatResponseHandler handler) {
-        if (partialResponse == null) {
-            return;
+    private static Map<String, String> headers(OpenAiStreamingChatModelBuilder builder) {
+        Map<String, String> headers = new HashMap<>();
+        if (builder.apiKey != null) {
+            headers.put("Authorization", "Bearer " + builder.apiKey);
         }
-
-        List<ChatCompletionChoice> choices = partialResponse.choices();
-        if (choices == null || choices.isEmpty()) {
-            return;
+        if (builder.organizationId != null) {
+            headers.put("OpenAI-Organization", builder.organizationId);
         }
+        if (builder.projectId != null) {
+            headers.put("OpenAI-Project", builder.projectId);
+        }
+        headers.put("User-Agent", DEFAULT_USER_AGENT);
+        if (builder.customHeaders != null) {
+            headers.putAll(builder.customHeaders);
+        }
+        return headers;
+    }
 
-        ChatCompletionChoice chatCompletionChoice = choices.get(0);
-        if (chatCompletionChoice == null) {
-            return;
+    private static String toJson(ChatCompletionRequest request) {
+        try {
+            return OBJECT_MAPPER.writeValueAsString(request);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
         }
+    }
 
-        Delta delta = chatCompletionChoice.delta();
-        if (delta == null) {
+    private static void handle(OpenAiStreamDelta partialResponse,
+                               ToolExecutionRequestBuilder toolBuilder,
+                               StreamingChatResponseHandler handler) {
+        if (!partialResponse.hasChoice()) {
             return;
         }
 
-        String content = delta.content();
+        String content = partialResponse.content();
         if (!isNullOrEmpty(content)) {
             try {
                 handler.onPartialResponse(content);
@@ -179,37 +225,35 @@ public class OpenAiStreamingChatModel implements StreamingChatModel {
                 withLoggingExceptions(() -> handler.onError(e));
             }
         }
-        List<ToolCall> toolCalls = delta.toolCalls();
-        if (toolCalls != null) {
-            for (ToolCall toolCall : toolCalls) {
+        for (int i = 0; i < partialResponse.toolCallCount(); i++) {
+            OpenAiStreamDelta.ToolCallDelta toolCall = partialResponse.toolCall(i);
 
-                int index = toolCall.index();
-                if (toolBuilder.index() != index) {
-                    try {
-                        handler.onCompleteToolExecutionRequest(toolBuilder.index(), toolBuilder.build());
-                    } catch (Exception e) {
-                        withLoggingExceptions(() -> handler.onError(e));
-                    }
-                    toolBuilder.updateIndex(index);
+            int index = toolCall.index();
+            if (toolBuilder.index() != index) {
+                try {
+                    handler.onCompleteToolExecutionRequest(toolBuilder.index(), toolBuilder.build());
+                } catch (Exception e) {
+                    withLoggingExceptions(() -> handler.onError(e));
                 }
+                toolBuilder.updateIndex(index);
+            }
 
-                String id = toolBuilder.updateId(toolCall.id());
-                String name = toolBuilder.updateName(toolCall.function().name());
+            String id = toolBuilder.updateId(toolCall.id());
+            String name = toolBuilder.updateName(toolCall.name());
 
-                String partialArguments = toolCall.function().arguments();
-                if (isNotNullOrEmpty(partialArguments)) {
-                    toolBuilder.appendArguments(partialArguments);
+            String partialArguments = toolCall.arguments();
+            if (isNotNullOrEmpty(partialArguments)) {
+                toolBuilder.appendArguments(partialArguments);
 
-                    ToolExecutionRequest partialToolExecutionRequest = ToolExecutionRequest.builder()
-                            .id(id)
-                            .name(name)
-                            .arguments(partialArguments)
-                            .build();
-                    try {
-                        handler.onPartialToolExecutionRequest(index, partialToolExecutionRequest);
-                    } catch (Exception e) {
-                        withLoggingExceptions(() -> handler.onError(e));
-                    }
+                ToolExecutionRequest partialToolExecutionRequest = ToolExecutionRequest.builder()
+                        .id(id)
+                        .name(name)
+                        .arguments(partialArguments)
+                        .build();
+                try {
+                    handler.onPartialToolExecutionRequest(index, partialToolExecutionRequest);
+                } catch (Exception e) {
+                    withLoggingExceptions(() -> handler.onError(e));
                 }
             }
         }
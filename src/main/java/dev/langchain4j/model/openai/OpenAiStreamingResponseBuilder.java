@@ -13,8 +13,7 @@ import dev.langchain4j.model.output.TokenUsage;
 
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.TreeMap;
 
 import static dev.langchain4j.internal.Utils.isNullOrBlank;
 import static dev.langchain4j.internal.Utils.isNullOrEmpty;
@@ -24,125 +23,140 @@ import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.toList;
 
 /**
- * This class needs to be thread safe because it is called when a streaming result comes back
- * and there is no guarantee that this thread will be the same as the one that initiated the request,
- * in fact it almost certainly won't be.
+ * Accumulates the partial responses of one streaming call into a {@link ChatResponse}.
+ * <p>
+ * It accepts the {@link OpenAiStreamDelta}s produced by {@link OpenAiSseDeltaDecoder}; chunks deserialized
+ * into a {@code ChatCompletionResponse} by the default client are converted with {@link OpenAiStreamDelta#from}.
+ * <p>
+ * Partial responses of a single stream are delivered one at a time and in order, but not necessarily
+ * on the same thread. The builder is therefore single-writer: state lives in plain fields and
+ * {@link StringBuilder}s, and the volatile {@code appended} counter is read at the start and written at the end
+ * of every {@code append}, so each call (and finally {@link #build()}) sees everything written before it.
  */
 @Internal
 public class OpenAiStreamingResponseBuilder {
 
-    private final StringBuffer contentBuilder = new StringBuffer();
+    private final StringBuilder contentBuilder = new StringBuilder();
 
-    private final StringBuffer toolNameBuilder = new StringBuffer();
-    private final StringBuffer toolArgumentsBuilder = new StringBuffer();
+    private final StringBuilder toolNameBuilder = new StringBuilder();
+    private final StringBuilder toolArgumentsBuilder = new StringBuilder();
 
-    private final Map<Integer, ToolExecutionRequestBuilder> indexToToolExecutionRequestBuilder = new ConcurrentHashMap<>();
+    private final Map<Integer, ToolExecutionRequestBuilder> indexToToolExecutionRequestBuilder = new TreeMap<>();
 
-    private final AtomicReference<String> id = new AtomicReference<>();
-    private final AtomicReference<Long> created = new AtomicReference<>();
-    private final AtomicReference<String> model = new AtomicReference<>();
-    private final AtomicReference<String> serviceTier = new AtomicReference<>();
-    private final AtomicReference<String> systemFingerprint = new AtomicReference<>();
-    private final AtomicReference<TokenUsage> tokenUsage = new AtomicReference<>();
-    private final AtomicReference<FinishReason> finishReason = new AtomicReference<>();
+    /**
+     * Deltas of one tool call arrive back to back, so the builder of the previous delta is usually the one needed.
+     */
+    private int lastToolIndex = -1;
+    private ToolExecutionRequestBuilder lastToolBuilder;
 
-    public void append(ChatCompletionResponse partialResponse) {
+    private String id;
+    private Long created;
+    private String model;
+    private String serviceTier;
+    private String systemFingerprint;
+    private TokenUsage tokenUsage;
+    private FinishReason finishReason;
+
+    /**
+     * Publication point between consecutive appends and {@link #build()}.
+     */
+    private volatile long appended;
+
+    public void append(OpenAiStreamDelta partialResponse) {
         if (partialResponse == null) {
             return;
         }
+        long count = appended;
+        try {
+            doAppend(partialResponse);
+        } finally {
+            appended = count + 1;
+        }
+    }
 
+    private void doAppend(OpenAiStreamDelta partialResponse) {
         if (!isNullOrBlank(partialResponse.id())) {
-            this.id.set(partialResponse.id());
+            this.id = partialResponse.id();
         }
         if (partialResponse.created() != null) {
-            this.created.set(partialResponse.created());
+            this.created = partialResponse.created();
         }
         if (!isNullOrBlank(partialResponse.model())) {
-            this.model.set(partialResponse.model());
+            this.model = partialResponse.model();
         }
         if (!isNullOrBlank(partialResponse.serviceTier())) {
-            this.serviceTier.set(partialResponse.serviceTier());
+            this.serviceTier = partialResponse.serviceTier();
         }
         if (!isNullOrBlank(partialResponse.systemFingerprint())) {
-            this.systemFingerprint.set(partialResponse.systemFingerprint());
+            this.systemFingerprint = partialResponse.systemFingerprint();
         }
 
         Usage usage = partialResponse.usage();
         if (usage != null) {
-            this.tokenUsage.set(tokenUsageFrom(usage));
+            this.tokenUsage = tokenUsageFrom(usage);
         }
 
-        List<ChatCompletionChoice> choices = partialResponse.choices();
-        if (choices == null || choices.isEmpty()) {
+        if (!partialResponse.hasChoice()) {
             return;
         }
 
-        ChatCompletionChoice chatCompletionChoice = choices.get(0);
-        if (chatCompletionChoice == null) {
-            return;
-        }
-
-        String finishReason = chatCompletionChoice.finishReason();
+        String finishReason = partialResponse.finishReason();
         if (finishReason != null) {
-            this.finishReason.set(finishReasonFrom(finishReason));
-        }
-
-        Delta delta = chatCompletionChoice.delta();
-        if (delta == null) {
-            return;
+            this.finishReason = finishReasonFrom(finishReason);
         }
 
-        String content = delta.content();
+        String content = partialResponse.content();
         if (!isNullOrEmpty(content)) {
             this.contentBuilder.append(content);
         }
 
-        if (delta.functionCall() != null) {
-            FunctionCall functionCall = delta.functionCall();
+        if (partialResponse.functionName() != null) {
+            this.toolNameBuilder.append(partialResponse.functionName());
+        }
+        if (partialResponse.functionArguments() != null) {
+            this.toolArgumentsBuilder.append(partialResponse.functionArguments());
+        }
+
+        for (int i = 0; i < partialResponse.toolCallCount(); i++) {
+            OpenAiStreamDelta.ToolCallDelta toolCall = partialResponse.toolCall(i);
+            ToolExecutionRequestBuilder builder = toolExecutionRequestBuilder(toolCall.index());
 
-            if (functionCall.name() != null) {
-                this.toolNameBuilder.append(functionCall.name());
+            if (toolCall.id() != null) {
+                builder.idBuilder.append(toolCall.id());
             }
-
-            if (functionCall.arguments() != null) {
-                this.toolArgumentsBuilder.append(functionCall.arguments());
+            if (toolCall.name() != null) {
+                builder.nameBuilder.append(toolCall.name());
+            }
+            if (toolCall.arguments() != null) {
+                builder.argumentsBuilder.append(toolCall.arguments());
             }
         }
+    }
 
-        if (delta.toolCalls() != null) {
-            System.out.println("OLOLO " + delta.toolCalls()); // TODO
-
-            for (ToolCall toolCall : delta.toolCalls()) {
-
-                ToolExecutionRequestBuilder builder = this.indexToToolExecutionRequestBuilder.computeIfAbsent(
-                        toolCall.index(),
-                        idx -> new ToolExecutionRequestBuilder()
-                );
-
-                if (toolCall.id() != null) {
-                    builder.idBuilder.append(toolCall.id());
-                }
-
-                FunctionCall functionCall = toolCall.function();
-                if (functionCall.name() != null) {
-                    builder.nameBuilder.append(functionCall.name());
-                }
-
-                if (functionCall.arguments() != null) {
-                    builder.argumentsBuilder.append(functionCall.arguments());
-                }
-            }
+    private ToolExecutionRequestBuilder toolExecutionRequestBuilder(int index) {
+        if (index != lastToolIndex || lastToolBuilder == null) {
+            lastToolBuilder = indexToToolExecutionRequestBuilder.computeIfAbsent(index, idx -> new ToolExecutionRequestBuilder());
+            lastToolIndex = index;
         }
+        return lastToolBuilder;
     }
 
     public void append(CompletionResponse partialResponse) {
         if (partialResponse == null) {
             return;
         }
+        long count = appended;
+        try {
+            doAppend(partialResponse);
+        } finally {
+            appended = count + 1;
+        }
+    }
 
+    private void doAppend(CompletionResponse partialResponse) {
         Usage usage = partialResponse.usage();
         if (usage != null) {
-            this.tokenUsage.set(tokenUsageFrom(usage));
+            this.tokenUsage = tokenUsageFrom(usage);
         }
 
         List<CompletionChoice> choices = partialResponse.choices();
@@ -157,7 +171,7 @@ public class OpenAiStreamingResponseBuilder {
 
         String finishReason = completionChoice.finishReason();
         if (finishReason != null) {
-            this.finishReason.set(finishReasonFrom(finishReason));
+            this.finishReason = finishReasonFrom(finishReason);
         }
 
         String token = completionChoice.text();
@@ -167,15 +181,19 @@ public class OpenAiStreamingResponseBuilder {
     }
 
     public ChatResponse build() {
+        // the volatile read makes everything written by the last append visible here
+        if (appended == 0) {
+            return null;
+        }
 
         OpenAiChatResponseMetadata chatResponseMetadata = OpenAiChatResponseMetadata.builder()
-                .id(id.get())
-                .modelName(model.get())
-                .tokenUsage(tokenUsage.get())
-                .finishReason(finishReason.get())
-                .created(created.get())
-                .serviceTier(serviceTier.get())
-                .systemFingerprint(systemFingerprint.get())
+                .id(id)
+                .modelName(model)
+                .tokenUsage(tokenUsage)
+                .finishReason(finishReason)
+                .created(created)
+                .serviceTier(serviceTier)
+                .systemFingerprint(systemFingerprint)
                 .build();
 
         String text = contentBuilder.toString();
@@ -229,8 +247,8 @@ public class OpenAiStreamingResponseBuilder {
 
     private static class ToolExecutionRequestBuilder {
 
-        private final StringBuffer idBuilder = new StringBuffer();
-        private final StringBuffer nameBuilder = new StringBuffer();
-        private final StringBuffer argumentsBuilder = new StringBuffer();
+        private final StringBuilder idBuilder = new StringBuilder();
+        private final StringBuilder nameBuilder = new StringBuilder();
+        private final StringBuilder argumentsBuilder = new StringBuilder();
     }
 }
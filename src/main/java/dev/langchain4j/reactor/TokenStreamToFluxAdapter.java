@@ -0,0 +1,39 @@
+package dev.langchain4j.reactor;
+
+import dev.langchain4j.service.TokenStream;
+import dev.langchain4j.spi.services.TokenStreamAdapter;
+import reactor.core.publisher.Flux;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+
+/**
+ * Adapts {@link TokenStream} to {@code Flux<String>}.
+ * <p>
+ * Unlike the original adapter, the stream is started on subscription and cancelling the subscription
+ * cancels the underlying {@link TokenStream} (closing the HTTP response and stopping the tool loop).
+ */
+public class TokenStreamToFluxAdapter implements TokenStreamAdapter {
+
+    @Override
+    public boolean canAdaptTokenStreamTo(Type type) {
+        if (type instanceof ParameterizedType parameterizedType) {
+            if (parameterizedType.getRawType() == Flux.class) {
+                Type[] typeArguments = parameterizedType.getActualTypeArguments();
+                return typeArguments.length == 1 && typeArguments[0] == String.class;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Object adapt(TokenStream tokenStream) {
+        return Flux.<String>create(sink -> {
+            sink.onCancel(tokenStream::cancel);
+            tokenStream.onPartialResponse(sink::next)
+                    .onCompleteResponse(ignored -> sink.complete())
+                    .onError(sink::error)
+                    .start();
+        });
+    }
+}
@@ -0,0 +1,98 @@
+package dev.langchain4j.service;
+
+import dev.langchain4j.Internal;
+import dev.langchain4j.model.output.TokenUsage;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records per round trip model latency, output throughput, tool execution time and the round trips and input tokens
+ * per call of streaming AI Services.
+ * <p>
+ * Meters are registered in {@link Metrics#globalRegistry}, which Spring Boot binds to the application registry,
+ * so they are exported through the actuator endpoints without wiring a registry into the AI Service.
+ */
+@Internal
+final class AiServiceStreamingMetrics {
+
+    static final String OUTCOME_SUCCESS = "success";
+    static final String OUTCOME_ERROR = "error";
+    static final String OUTCOME_CANCELLED = "cancelled";
+
+    private AiServiceStreamingMetrics() {
+    }
+
+    /**
+     * Records one request/response round trip with the streaming model, from sending the request to the
+     * complete response (or error).
+     */
+    static void recordRoundTrip(String modelName, String outcome, long nanos) {
+        Timer.builder("ai.codegen.model.round.trip")
+                .description("Streaming model round trip time")
+                .tags("model", modelName, "outcome", outcome)
+                .register(Metrics.globalRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records output tokens per second of one round trip, measured from the first streamed token.
+     */
+    static void recordTokensPerSecond(String modelName, Integer outputTokens, long streamingNanos) {
+        if (outputTokens == null || outputTokens <= 0 || streamingNanos <= 0) {
+            return;
+        }
+        DistributionSummary.builder("ai.codegen.model.tokens.per.second")
+                .description("Streaming model output tokens per second")
+                .baseUnit("tokens/s")
+                .tags("model", modelName)
+                .register(Metrics.globalRegistry)
+                .record(outputTokens * 1_000_000_000d / streamingNanos);
+    }
+
+    /**
+     * Records the execution time of one tool call.
+     */
+    static void recordToolExecution(String toolName, String outcome, long nanos) {
+        Timer.builder("ai.codegen.tool.execution")
+                .description("Tool execution time")
+                .tags("tool", toolName, "outcome", outcome)
+                .register(Metrics.globalRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records the wall time of all tool calls of one response, from submitting them to consuming the last result.
+     */
+    static void recordToolRound(int toolCount, long nanos) {
+        Timer.builder("ai.codegen.tool.round")
+                .description("Wall time of the tool calls of one model response")
+                .tags("calls", toolCount == 1 ? "single" : "multiple")
+                .register(Metrics.globalRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records the number of model round trips and the input tokens summed over all of them for one AI Service call
+     * that completed with a final answer. Every tool round re-sends the whole memory, so the input tokens grow with
+     * the number of round trips.
+     */
+    static void recordCall(String modelName, int roundTrips, TokenUsage tokenUsage) {
+        DistributionSummary.builder("ai.codegen.call.round.trips")
+                .description("Model round trips of one AI Service call")
+                .tags("model", modelName)
+                .register(Metrics.globalRegistry)
+                .record(roundTrips);
+        if (tokenUsage == null || tokenUsage.inputTokenCount() == null) {
+            return;
+        }
+        DistributionSummary.builder("ai.codegen.call.input.tokens")
+                .description("Input tokens summed over all round trips of one AI Service call")
+                .baseUnit("tokens")
+                .tags("model", modelName)
+                .register(Metrics.globalRegistry)
+                .record(tokenUsage.inputTokenCount());
+    }
+}
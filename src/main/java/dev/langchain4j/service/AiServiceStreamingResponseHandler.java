@@ -12,9 +12,11 @@ import dev.langchain4j.guardrail.OutputGuardrailRequest;
 import dev.langchain4j.memory.ChatMemory;
 import dev.langchain4j.model.chat.request.ChatRequest;
 import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingHandle;
 import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
 import dev.langchain4j.model.output.TokenUsage;
 import dev.langchain4j.service.tool.ToolExecution;
+import dev.langchain4j.service.tool.ToolExecutionScheduler;
 import dev.langchain4j.service.tool.ToolExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,6 +24,9 @@ import org.slf4j.LoggerFactory;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
@@ -37,6 +42,7 @@ class AiServiceStreamingResponseHandler implements StreamingChatResponseHandler
     private static final Logger LOG = LoggerFactory.getLogger(AiServiceStreamingResponseHandler.class);
 
     private final ChatExecutor chatExecutor;
+    private final StreamingHandle streamingHandle;
     private final AiServiceContext context;
     private final Object memoryId;
     private final GuardrailRequestParams commonGuardrailParams;
@@ -58,8 +64,15 @@ class AiServiceStreamingResponseHandler implements StreamingChatResponseHandler
     private final List<String> responseBuffer = new ArrayList<>();
     private final boolean hasOutputGuardrails;
 
+    private final String modelName;
+    private final int roundTrip;
+    private final long requestStartNanos = System.nanoTime();
+    private volatile long firstTokenNanos;
+    private final AtomicBoolean roundTripRecorded = new AtomicBoolean();
+
     AiServiceStreamingResponseHandler(
             ChatExecutor chatExecutor,
+            StreamingHandle streamingHandle,
             AiServiceContext context,
             Object memoryId,
             Consumer<String> partialResponseHandler,
@@ -74,7 +87,35 @@ class AiServiceStreamingResponseHandler implements StreamingChatResponseHandler
             Map<String, ToolExecutor> toolExecutors,
             GuardrailRequestParams commonGuardrailParams,
             Object methodKey) {
+        this(chatExecutor, streamingHandle, context, memoryId, partialResponseHandler,
+                partialToolExecutionRequestHandler, completeToolExecutionRequestHandler, toolExecutionHandler,
+                completeResponseHandler, errorHandler, temporaryMemory, tokenUsage, toolSpecifications, toolExecutors,
+                commonGuardrailParams, methodKey, 1);
+    }
+
+    /**
+     * @param roundTrip the 1-based number of the model round trip this handler receives within one AI Service call
+     */
+    private AiServiceStreamingResponseHandler(
+            ChatExecutor chatExecutor,
+            StreamingHandle streamingHandle,
+            AiServiceContext context,
+            Object memoryId,
+            Consumer<String> partialResponseHandler,
+            BiConsumer<Integer, ToolExecutionRequest> partialToolExecutionRequestHandler,
+            BiConsumer<Integer, ToolExecutionRequest> completeToolExecutionRequestHandler,
+            Consumer<ToolExecution> toolExecutionHandler,
+            Consumer<ChatResponse> completeResponseHandler,
+            Consumer<Throwable> errorHandler,
+            ChatMemory temporaryMemory,
+            TokenUsage tokenUsage,
+            List<ToolSpecification> toolSpecifications,
+            Map<String, ToolExecutor> toolExecutors,
+            GuardrailRequestParams commonGuardrailParams,
+            Object methodKey,
+            int roundTrip) {
         this.chatExecutor = ensureNotNull(chatExecutor, "chatExecutor");
+        this.streamingHandle = ensureNotNull(streamingHandle, "streamingHandle");
         this.context = ensureNotNull(context, "context");
         this.memoryId = ensureNotNull(memoryId, "memoryId");
         this.methodKey = methodKey;
@@ -93,10 +134,33 @@ class AiServiceStreamingResponseHandler implements StreamingChatResponseHandler
         this.toolSpecifications = copy(toolSpecifications);
         this.toolExecutors = copy(toolExecutors);
         this.hasOutputGuardrails = context.guardrailService().hasOutputGuardrails(methodKey);
+        String defaultModelName = context.streamingChatModel.defaultRequestParameters().modelName();
+        this.modelName = defaultModelName == null ? "unknown" : defaultModelName;
+        this.roundTrip = roundTrip;
+    }
+
+    /**
+     * Records the outcome of this round trip once. Errors raised after the response completed, by a tool or
+     * while continuing the tool round, reach {@link #onError} too but belong to the already recorded round trip.
+     */
+    private void recordRoundTrip(String outcome, long nanos) {
+        if (roundTripRecorded.compareAndSet(false, true)) {
+            AiServiceStreamingMetrics.recordRoundTrip(modelName, outcome, nanos);
+        }
+    }
+
+    private void markFirstToken() {
+        if (firstTokenNanos == 0) {
+            firstTokenNanos = System.nanoTime();
+        }
     }
 
     @Override
     public void onPartialResponse(String partialResponse) {
+        if (streamingHandle.isCancelled()) {
+            return;
+        }
+        markFirstToken();
         // If we're using output guardrails, then buffer the partial response until the guardrails have completed
         if (hasOutputGuardrails) {
             responseBuffer.add(partialResponse);
@@ -107,63 +171,56 @@ class AiServiceStreamingResponseHandler implements StreamingChatResponseHandler
 
     @Override
     public void onPartialToolExecutionRequest(int index, ToolExecutionRequest partialToolExecutionRequest) {
+        if (streamingHandle.isCancelled()) {
+            return;
+        }
+        markFirstToken();
         // If we're using output guardrails, then buffer the partial response until the guardrails have completed
         partialToolExecutionRequestHandler.accept(index, partialToolExecutionRequest);
     }
 
     @Override
     public void onCompleteResponse(ChatResponse completeResponse) {
+        long completeNanos = System.nanoTime();
+        // the client has gone away: do not execute tools nor send follow-up requests
+        if (streamingHandle.isCancelled()) {
+            recordRoundTrip(AiServiceStreamingMetrics.OUTCOME_CANCELLED, completeNanos - requestStartNanos);
+            return;
+        }
+        recordRoundTrip(AiServiceStreamingMetrics.OUTCOME_SUCCESS, completeNanos - requestStartNanos);
+        TokenUsage roundTokenUsage = completeResponse.metadata().tokenUsage();
+        if (roundTokenUsage != null && firstTokenNanos != 0) {
+            AiServiceStreamingMetrics.recordTokensPerSecond(
+                    modelName, roundTokenUsage.outputTokenCount(), completeNanos - firstTokenNanos);
+        }
         AiMessage aiMessage = completeResponse.aiMessage();
         addToMemory(aiMessage);
 
         if (aiMessage.hasToolExecutionRequests()) {
-            for (ToolExecutionRequest toolExecutionRequest : aiMessage.toolExecutionRequests()) {
-                String toolName = toolExecutionRequest.name();
-                ToolExecutor toolExecutor = toolExecutors.get(toolName);
-                String toolExecutionResult = toolExecutor.execute(toolExecutionRequest, memoryId);
-                ToolExecutionResultMessage toolExecutionResultMessage =
-                        ToolExecutionResultMessage.from(toolExecutionRequest, toolExecutionResult);
-                addToMemory(toolExecutionResultMessage);
-
-                if (toolExecutionHandler != null) {
-                    ToolExecution toolExecution = ToolExecution.builder()
-                            .request(toolExecutionRequest)
-                            .result(toolExecutionResult)
-                            .build();
-                    toolExecutionHandler.accept(toolExecution);
-                }
-            }
-
-            ChatRequest chatRequest = ChatRequest.builder()
-                    .messages(messagesToSend(memoryId))
-                    .toolSpecifications(toolSpecifications)
-                    .build();
-
-            var handler = new AiServiceStreamingResponseHandler(
-                    chatExecutor,
-                    context,
-                    memoryId,
-                    partialResponseHandler,
-                    partialToolExecutionRequestHandler,
-                    completeToolExecutionRequestHandler,
-                    toolExecutionHandler,
-                    completeResponseHandler,
-                    errorHandler,
-                    temporaryMemory,
-                    TokenUsage.sum(tokenUsage, completeResponse.metadata().tokenUsage()),
-                    toolSpecifications,
-                    toolExecutors,
-                    commonGuardrailParams,
-                    methodKey);
-
-            context.streamingChatModel.chat(chatRequest, handler);
+            // independent tool calls run concurrently; the round continues on the thread finishing the last call,
+            // so the HTTP callback thread is released instead of waiting for the tools
+            List<ToolExecutionRequest> toolExecutionRequests = aiMessage.toolExecutionRequests();
+            long toolRoundStartNanos = System.nanoTime();
+            List<CompletableFuture<String>> toolExecutionResults =
+                    ToolExecutionScheduler.global().submit(toolExecutionRequests, this::executeTool);
+            CompletableFuture.allOf(toolExecutionResults.toArray(CompletableFuture[]::new))
+                    .whenComplete((ignored, error) -> {
+                        try {
+                            onToolResults(completeResponse, toolExecutionRequests, toolExecutionResults,
+                                    toolRoundStartNanos);
+                        } catch (Throwable e) {
+                            // thrown on a tool thread, nobody else would see it
+                            onError(e);
+                        }
+                    });
         } else {
+            TokenUsage totalTokenUsage = tokenUsage.add(completeResponse.metadata().tokenUsage());
+            AiServiceStreamingMetrics.recordCall(modelName, roundTrip, totalTokenUsage);
             if (completeResponseHandler != null) {
                 ChatResponse finalChatResponse = ChatResponse.builder()
                         .aiMessage(aiMessage)
                         .metadata(completeResponse.metadata().toBuilder()
-                                .tokenUsage(tokenUsage.add(
-                                        completeResponse.metadata().tokenUsage()))
+                                .tokenUsage(totalTokenUsage)
                                 .build())
                         .build();
 
@@ -199,6 +256,98 @@ class AiServiceStreamingResponseHandler implements StreamingChatResponseHandler
         }
     }
 
+    /**
+     * Adds the results of one tool round to memory in the order the model issued the calls,
+     * then sends the next request. Runs once every call of the round has finished.
+     */
+    private void onToolResults(ChatResponse completeResponse, List<ToolExecutionRequest> toolExecutionRequests,
+                               List<CompletableFuture<String>> toolExecutionResults, long toolRoundStartNanos) {
+        for (int i = 0; i < toolExecutionRequests.size(); i++) {
+            String toolExecutionResult = awaitToolResult(toolExecutionResults.get(i));
+            if (streamingHandle.isCancelled()) {
+                return;
+            }
+            ToolExecutionRequest toolExecutionRequest = toolExecutionRequests.get(i);
+            ToolExecutionResultMessage toolExecutionResultMessage =
+                    ToolExecutionResultMessage.from(toolExecutionRequest, toolExecutionResult);
+            addToMemory(toolExecutionResultMessage);
+
+            if (toolExecutionHandler != null) {
+                ToolExecution toolExecution = ToolExecution.builder()
+                        .request(toolExecutionRequest)
+                        .result(toolExecutionResult)
+                        .build();
+                toolExecutionHandler.accept(toolExecution);
+            }
+        }
+        AiServiceStreamingMetrics.recordToolRound(
+                toolExecutionRequests.size(), System.nanoTime() - toolRoundStartNanos);
+
+        ChatRequest chatRequest = ChatRequest.builder()
+                .messages(messagesToSend(memoryId))
+                .toolSpecifications(toolSpecifications)
+                .build();
+
+        var handler = new AiServiceStreamingResponseHandler(
+                chatExecutor,
+                streamingHandle,
+                context,
+                memoryId,
+                partialResponseHandler,
+                partialToolExecutionRequestHandler,
+                completeToolExecutionRequestHandler,
+                toolExecutionHandler,
+                completeResponseHandler,
+                errorHandler,
+                temporaryMemory,
+                TokenUsage.sum(tokenUsage, completeResponse.metadata().tokenUsage()),
+                toolSpecifications,
+                toolExecutors,
+                commonGuardrailParams,
+                methodKey,
+                roundTrip + 1);
+
+        if (streamingHandle.isCancelled()) {
+            return;
+        }
+        streamingHandle.runBound(() -> context.streamingChatModel.chat(chatRequest, handler));
+    }
+
+    /**
+     * Executes one tool call, skipped once the stream is cancelled.
+     */
+    private String executeTool(ToolExecutionRequest toolExecutionRequest) {
+        if (streamingHandle.isCancelled()) {
+            return null;
+        }
+        String toolName = toolExecutionRequest.name();
+        ToolExecutor toolExecutor = toolExecutors.get(toolName);
+        long toolStartNanos = System.nanoTime();
+        String toolOutcome = AiServiceStreamingMetrics.OUTCOME_ERROR;
+        try {
+            String toolExecutionResult = toolExecutor.execute(toolExecutionRequest, memoryId);
+            toolOutcome = AiServiceStreamingMetrics.OUTCOME_SUCCESS;
+            return toolExecutionResult;
+        } finally {
+            AiServiceStreamingMetrics.recordToolExecution(toolName, toolOutcome, System.nanoTime() - toolStartNanos);
+        }
+    }
+
+    private static String awaitToolResult(CompletableFuture<String> toolExecutionResult) {
+        try {
+            // already completed, does not block
+            return toolExecutionResult.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
     private ChatMemory getMemory() {
         return getMemory(memoryId);
     }
@@ -217,6 +366,12 @@ class AiServiceStreamingResponseHandler implements StreamingChatResponseHandler
 
     @Override
     public void onError(Throwable error) {
+        if (streamingHandle.isCancelled()) {
+            recordRoundTrip(AiServiceStreamingMetrics.OUTCOME_CANCELLED, System.nanoTime() - requestStartNanos);
+            LOG.debug("Ignored error after the stream was cancelled", error);
+            return;
+        }
+        recordRoundTrip(AiServiceStreamingMetrics.OUTCOME_ERROR, System.nanoTime() - requestStartNanos);
         if (errorHandler != null) {
             try {
                 errorHandler.accept(error);
@@ -10,6 +10,7 @@ import dev.langchain4j.memory.ChatMemory;
 import dev.langchain4j.memory.chat.MessageWindowChatMemory;
 import dev.langchain4j.model.chat.request.ChatRequest;
 import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingHandle;
 import dev.langchain4j.model.output.TokenUsage;
 import dev.langchain4j.rag.content.Content;
 import dev.langchain4j.service.tool.ToolExecution;
@@ -35,6 +36,7 @@ public class AiServiceTokenStream implements TokenStream {
     private final Object memoryId;
     private final GuardrailRequestParams commonGuardrailParams;
     private final Object methodKey;
+    private final StreamingHandle streamingHandle = new StreamingHandle();
 
     private Consumer<String> partialResponseHandler;
     private Consumer<List<Content>> contentsHandler;
@@ -126,6 +128,9 @@ public class AiServiceTokenStream implements TokenStream {
     @Override
     public void start() {
         validateConfiguration();
+        if (streamingHandle.isCancelled()) {
+            return;
+        }
 
         ChatRequest chatRequest = ChatRequest.builder()
                 .messages(messages)
@@ -139,6 +144,7 @@ public class AiServiceTokenStream implements TokenStream {
 
         var handler = new AiServiceStreamingResponseHandler(
                 chatExecutor,
+                streamingHandle,
                 context,
                 memoryId,
                 partialResponseHandler,
@@ -158,7 +164,12 @@ public class AiServiceTokenStream implements TokenStream {
             contentsHandler.accept(retrievedContents);
         }
 
-        context.streamingChatModel.chat(chatRequest, handler);
+        streamingHandle.runBound(() -> context.streamingChatModel.chat(chatRequest, handler));
+    }
+
+    @Override
+    public void cancel() {
+        streamingHandle.cancel();
     }
 
     private void validateConfiguration() {
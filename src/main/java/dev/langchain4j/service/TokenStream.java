@@ -80,4 +80,12 @@ public interface TokenStream {
      * Will send a request to LLM and start response streaming.
      */
     void start();
+
+    /**
+     * Cancels the streaming that was started by {@link #start()}.
+     * <p>
+     * The open HTTP response is closed, no more callbacks are invoked, and no more tools are executed
+     * or follow-up requests are sent to the LLM. Calling it before {@link #start()} prevents the request from being sent.
+     */
+    void cancel();
 }
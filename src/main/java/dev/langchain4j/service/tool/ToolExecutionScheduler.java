@@ -0,0 +1,127 @@
+package dev.langchain4j.service.tool;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Schedules the tool calls of one model response.
+ * <p>
+ * Each request may have a conflict key (for file tools, the normalized file path).
+ * Requests with different keys run concurrently on the executor. Requests with the same key run in the
+ * order the model issued them. A request without a key is a barrier: it waits for every earlier request,
+ * and every later request waits for it.
+ * <p>
+ * Results are returned as futures in request order, so callers can consume them deterministically.
+ * As in sequential execution, a failing call stops the round: calls that have not started yet are not run,
+ * and their futures fail with the same error. Calls already running on other threads are not interrupted.
+ * Without an executor, or for a single request, the tools run one after another on the calling thread.
+ * <p>
+ * The scheduler used by streaming AI Services is the global one, see {@link #global()}.
+ */
+public class ToolExecutionScheduler {
+
+    private static final ToolExecutionScheduler SEQUENTIAL = new ToolExecutionScheduler(null, request -> null);
+
+    private static volatile ToolExecutionScheduler global = SEQUENTIAL;
+
+    private final Executor executor;
+
+    private final Function<ToolExecutionRequest, String> conflictKeyResolver;
+
+    /**
+     * @param executor            executor running the tools, {@code null} to run them sequentially on the calling thread
+     * @param conflictKeyResolver returns the conflict key of a request, or {@code null} if it conflicts with all requests
+     */
+    public ToolExecutionScheduler(Executor executor, Function<ToolExecutionRequest, String> conflictKeyResolver) {
+        this.executor = executor;
+        this.conflictKeyResolver = conflictKeyResolver;
+    }
+
+    /**
+     * @return the scheduler used by streaming AI Services (sequential unless configured)
+     */
+    public static ToolExecutionScheduler global() {
+        return global;
+    }
+
+    /**
+     * Sets the scheduler used by streaming AI Services, {@code null} restores sequential execution.
+     */
+    public static void setGlobal(ToolExecutionScheduler scheduler) {
+        global = scheduler == null ? SEQUENTIAL : scheduler;
+    }
+
+    /**
+     * Submits the tool calls of one response.
+     *
+     * @param requests the tool execution requests, in the order the model issued them
+     * @param action   executes one request and returns its result
+     * @return the results, in the same order as the requests
+     */
+    public List<CompletableFuture<String>> submit(List<ToolExecutionRequest> requests,
+                                                  Function<ToolExecutionRequest, String> action) {
+        List<CompletableFuture<String>> results = new ArrayList<>(requests.size());
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        if (executor == null || requests.size() == 1) {
+            for (ToolExecutionRequest request : requests) {
+                try {
+                    results.add(CompletableFuture.completedFuture(run(request, action, failure)));
+                } catch (RuntimeException | Error e) {
+                    results.add(CompletableFuture.failedFuture(e));
+                }
+            }
+            return results;
+        }
+        CompletableFuture<?> barrier = CompletableFuture.completedFuture(null);
+        Map<String, CompletableFuture<?>> lastByKey = new HashMap<>();
+        for (ToolExecutionRequest request : requests) {
+            String key = conflictKeyResolver.apply(request);
+            CompletableFuture<?> dependency;
+            if (key == null) {
+                List<CompletableFuture<?>> running = new ArrayList<>(lastByKey.values());
+                running.add(barrier);
+                dependency = CompletableFuture.allOf(running.toArray(CompletableFuture[]::new));
+            } else {
+                dependency = lastByKey.getOrDefault(key, barrier);
+            }
+            // the call runs once its predecessors have finished; run() skips it if any call has failed by then
+            CompletableFuture<String> result = dependency
+                    .handle((ignored, error) -> null)
+                    .thenApplyAsync(ignored -> run(request, action, failure), executor);
+            if (key == null) {
+                barrier = result;
+                lastByKey.clear();
+            } else {
+                lastByKey.put(key, result);
+            }
+            results.add(result);
+        }
+        return results;
+    }
+
+    /**
+     * Runs one call unless an earlier call of the round has failed, and records its failure otherwise.
+     */
+    private static String run(ToolExecutionRequest request, Function<ToolExecutionRequest, String> action,
+                              AtomicReference<Throwable> failure) {
+        Throwable earlier = failure.get();
+        if (earlier != null) {
+            throw earlier instanceof RuntimeException runtimeException ? runtimeException : new CompletionException(earlier);
+        }
+        try {
+            return action.apply(request);
+        } catch (RuntimeException | Error e) {
+            failure.compareAndSet(null, e);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.jay.aicodemother.ai.gateway;
+
+import com.jay.aicodemother.config.ModelGatewayConfig;
+import com.jay.aicodemother.config.ModelHttpClientConfig;
+import com.jay.aicodemother.manager.ModelHttpClientManager;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import dev.langchain4j.exception.InternalServerException;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import dev.langchain4j.model.openai.OpenAiStreamingChatModel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadBalancedStreamingChatModelTest {
+
+    private final List<HttpServer> servers = new ArrayList<>();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ModelHttpClientManager manager;
+
+    private ModelGatewayConfig config;
+
+    private LoadBalancedStreamingChatModel gateway;
+
+    @BeforeEach
+    void setUp() {
+        ModelHttpClientConfig httpClientConfig = new ModelHttpClientConfig();
+        httpClientConfig.setVersion(java.net.http.HttpClient.Version.HTTP_1_1);
+        manager = new ModelHttpClientManager(httpClientConfig, meterRegistry);
+        config = new ModelGatewayConfig();
+        config.setHedgeMinDelay(Duration.ofMillis(100));
+        config.setHedgeDefaultDelay(Duration.ofMillis(300));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (gateway != null) {
+            gateway.close();
+        }
+        servers.forEach(server -> server.stop(0));
+        manager.destroy();
+    }
+
+    /**
+     * 本地 SSE 桩服务：先等待 firstTokenDelay，再返回 OpenAI 格式的流式响应；status 不是 200 时直接返回错误
+     */
+    private ModelEndpoint endpoint(String name, double weight, int status, Duration firstTokenDelay) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/v1/chat/completions", exchange -> respond(exchange, name, status, firstTokenDelay));
+        server.start();
+        servers.add(server);
+        OpenAiStreamingChatModel model = OpenAiStreamingChatModel.builder()
+                .baseUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/v1")
+                .apiKey("test")
+                .modelName("stub")
+                .timeout(Duration.ofSeconds(5))
+                .httpClientBuilder(manager.newBuilder())
+                .build();
+        return new ModelEndpoint(name, model, weight);
+    }
+
+    private static void respond(HttpExchange exchange, String name, int status, Duration firstTokenDelay) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        if (status != 200) {
+            byte[] body = "{\"error\":\"unavailable\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+            return;
+        }
+        try {
+            Thread.sleep(firstTokenDelay.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            for (String chunk : List.of(
+                    "{\"id\":\"" + name + "\",\"choices\":[{\"index\":0,\"delta\":{\"content\":\"from \"}}]}",
+                    "{\"id\":\"" + name + "\",\"choices\":[{\"index\":0,\"delta\":{\"content\":\"" + name + "\"}}]}",
+                    "{\"id\":\"" + name + "\",\"choices\":[{\"index\":0,\"delta\":{},\"finish_reason\":\"stop\"}]}",
+                    "[DONE]")) {
+                out.write(("data: " + chunk + "\n\n").getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            }
+        } catch (IOException ignored) {
+            // 对冲失败的一方被取消时客户端会关闭连接
+        }
+    }
+
+    private CompletableFuture<ChatResponse> chat(List<String> partials) {
+        CompletableFuture<ChatResponse> future = new CompletableFuture<>();
+        gateway.chat("hi", new StreamingChatResponseHandler() {
+
+            @Override
+            public void onPartialResponse(String partialResponse) {
+                partials.add(partialResponse);
+            }
+
+            @Override
+            public void onCompleteResponse(ChatResponse completeResponse) {
+                future.complete(completeResponse);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                future.completeExceptionally(error);
+            }
+        });
+        return future;
+    }
+
+    private double attempts(String endpoint, String outcome) {
+        return meterRegistry.counter("ai.model.gateway.attempts", "endpoint", endpoint, "outcome", outcome).count();
+    }
+
+    @Test
+    void failsOverWhenAnEndpointFailsBeforeTheFirstToken() throws Exception {
+        // 权重悬殊，保证先选中 broken
+        ModelEndpoint broken = endpoint("broken", 1e9, 503, Duration.ZERO);
+        ModelEndpoint healthy = endpoint("healthy", 1, 200, Duration.ZERO);
+        gateway = new LoadBalancedStreamingChatModel(List.of(broken, healthy), config, meterRegistry);
+        List<String> partials = new CopyOnWriteArrayList<>();
+
+        ChatResponse response = chat(partials).get(5, TimeUnit.SECONDS);
+
+        assertEquals("from healthy", response.aiMessage().text());
+        assertEquals(List.of("from ", "healthy"), partials);
+        assertEquals(1, attempts("broken", LoadBalancedStreamingChatModel.OUTCOME_FAILED));
+        assertEquals(1, attempts("healthy", LoadBalancedStreamingChatModel.OUTCOME_WON));
+        assertTrue(broken.errorRate() > 0);
+        assertEquals(0, broken.inFlight());
+        assertEquals(0, healthy.inFlight());
+    }
+
+    @Test
+    void hedgesASlowEndpointAndCancelsTheLoser() throws Exception {
+        ModelEndpoint slow = endpoint("slow", 1e9, 200, Duration.ofSeconds(3));
+        ModelEndpoint fast = endpoint("fast", 1, 200, Duration.ZERO);
+        gateway = new LoadBalancedStreamingChatModel(List.of(slow, fast), config, meterRegistry);
+        List<String> partials = new CopyOnWriteArrayList<>();
+        long start = System.nanoTime();
+
+        ChatResponse response = chat(partials).get(5, TimeUnit.SECONDS);
+
+        assertEquals("from fast", response.aiMessage().text());
+        assertTrue(System.nanoTime() - start < Duration.ofSeconds(2).toNanos());
+        assertEquals(1, attempts("slow", LoadBalancedStreamingChatModel.OUTCOME_HEDGE_LOST));
+        assertEquals(1, attempts("fast", LoadBalancedStreamingChatModel.OUTCOME_WON));
+        assertEquals(0, slow.inFlight());
+        // 失败的一方被取消后不会再有任何输出
+        Thread.sleep(3500);
+        assertEquals(List.of("from ", "fast"), partials);
+    }
+
+    @Test
+    void reportsTheLastErrorWhenEveryEndpointFails() throws Exception {
+        ModelEndpoint first = endpoint("first", 1, 503, Duration.ZERO);
+        ModelEndpoint second = endpoint("second", 1, 500, Duration.ZERO);
+        gateway = new LoadBalancedStreamingChatModel(List.of(first, second), config, meterRegistry);
+
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> chat(new CopyOnWriteArrayList<>()).get(5, TimeUnit.SECONDS));
+
+        assertInstanceOf(InternalServerException.class, error.getCause());
+        assertEquals(1, attempts("first", LoadBalancedStreamingChatModel.OUTCOME_FAILED));
+        assertEquals(1, attempts("second", LoadBalancedStreamingChatModel.OUTCOME_FAILED));
+    }
+
+    @Test
+    void prefersEndpointsWithLowerLatencyAndErrorRate() throws IOException {
+        ModelEndpoint fast = endpoint("fast", 1, 200, Duration.ZERO);
+        ModelEndpoint slow = endpoint("slow", 1, 200, Duration.ZERO);
+        ModelEndpoint failing = endpoint("failing", 1, 200, Duration.ZERO);
+        gateway = new LoadBalancedStreamingChatModel(List.of(fast, slow, failing), config, meterRegistry);
+        fast.recordFirstToken(Duration.ofMillis(100).toNanos());
+        slow.recordFirstToken(Duration.ofMillis(1000).toNanos());
+        failing.recordFirstToken(Duration.ofMillis(100).toNanos());
+        for (int i = 0; i < 10; i++) {
+            failing.recordError();
+        }
+
+        int fastCount = 0;
+        for (int i = 0; i < 2000; i++) {
+            if (gateway.select(Set.of()) == fast) {
+                fastCount++;
+            }
+        }
+
+        // 理论比例约 10 : 1 : 1.1
+        assertTrue(fastCount > 1500, "fast selected " + fastCount + " times");
+        Set<ModelEndpoint> excluded = new HashSet<>(List.of(fast, slow));
+        assertSame(failing, gateway.select(excluded));
+        excluded.add(failing);
+        assertNull(gateway.select(excluded));
+    }
+}
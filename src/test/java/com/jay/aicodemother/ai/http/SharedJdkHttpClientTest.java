@@ -0,0 +1,156 @@
+package com.jay.aicodemother.ai.http;
+
+import com.jay.aicodemother.config.ModelHttpClientConfig;
+import com.jay.aicodemother.manager.ModelHttpClientManager;
+import com.sun.net.httpserver.HttpServer;
+import dev.langchain4j.exception.HttpException;
+import dev.langchain4j.http.client.HttpClient;
+import dev.langchain4j.http.client.HttpMethod;
+import dev.langchain4j.http.client.HttpRequest;
+import dev.langchain4j.http.client.SuccessfulHttpResponse;
+import dev.langchain4j.http.client.sse.DefaultServerSentEventParser;
+import dev.langchain4j.http.client.sse.ServerSentEvent;
+import dev.langchain4j.http.client.sse.ServerSentEventListener;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SharedJdkHttpClientTest {
+
+    private HttpServer server;
+
+    private ModelHttpClientManager manager;
+
+    private String baseUrl;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/stream", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                for (String data : List.of("a", "b", "[DONE]")) {
+                    out.write(("data: " + data + "\n\n").getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                }
+            }
+        });
+        server.createContext("/echo", exchange -> {
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.createContext("/overloaded", exchange -> {
+            byte[] body = "{\"error\":\"overloaded\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(429, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        ModelHttpClientConfig config = new ModelHttpClientConfig();
+        // 本地测试服务只支持 HTTP/1.1，避免升级协商
+        config.setVersion(java.net.http.HttpClient.Version.HTTP_1_1);
+        manager = new ModelHttpClientManager(config, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        manager.destroy();
+        server.stop(0);
+    }
+
+    private HttpClient client() {
+        return manager.newBuilder().readTimeout(Duration.ofSeconds(5)).build();
+    }
+
+    private HttpRequest post(String path, String body) {
+        return HttpRequest.builder()
+                .method(HttpMethod.POST)
+                .url(baseUrl, path)
+                .addHeader("Content-Type", "application/json")
+                .body(body)
+                .build();
+    }
+
+    @Test
+    void streamsEventsToTheParser() throws Exception {
+        List<String> events = new CopyOnWriteArrayList<>();
+        CompletableFuture<Integer> closed = new CompletableFuture<>();
+
+        client().execute(post("stream", "{}"), new DefaultServerSentEventParser(), new ServerSentEventListener() {
+
+            @Override
+            public void onOpen(SuccessfulHttpResponse response) {
+                events.add("open:" + response.statusCode());
+            }
+
+            @Override
+            public void onEvent(ServerSentEvent event) {
+                events.add(event.data());
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                closed.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onClose() {
+                closed.complete(manager.activeStreams());
+            }
+        });
+
+        assertEquals(1, closed.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of("open:200", "a", "b", "[DONE]"), events);
+    }
+
+    @Test
+    void reportsNonSuccessfulStatus() throws Exception {
+        CompletableFuture<Throwable> error = new CompletableFuture<>();
+
+        client().execute(post("overloaded", "{}"), new DefaultServerSentEventParser(), new ServerSentEventListener() {
+
+            @Override
+            public void onEvent(ServerSentEvent event) {
+                fail("no events expected");
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                error.complete(throwable);
+            }
+        });
+
+        HttpException exception = assertInstanceOf(HttpException.class, error.get(5, TimeUnit.SECONDS));
+        assertEquals(429, exception.statusCode());
+        assertEquals("{\"error\":\"overloaded\"}", exception.getMessage());
+        assertThrows(HttpException.class, () -> client().execute(post("overloaded", "{}")));
+    }
+
+    @Test
+    void sendsSynchronousRequests() {
+        SuccessfulHttpResponse response = client().execute(post("echo", "{\"content\":\"番茄钟\"}"));
+
+        assertEquals(200, response.statusCode());
+        assertEquals("{\"content\":\"番茄钟\"}", response.body());
+        assertEquals(0, manager.activeStreams());
+    }
+}
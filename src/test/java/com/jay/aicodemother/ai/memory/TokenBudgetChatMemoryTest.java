@@ -0,0 +1,127 @@
+package com.jay.aicodemother.ai.memory;
+
+import com.jay.aicodemother.config.ChatMemoryCacheConfig;
+import com.jay.aicodemother.monitor.CodeGenMetrics;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.store.memory.chat.InMemoryChatMemoryStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TokenBudgetChatMemoryTest {
+
+    private final InMemoryChatMemoryStore store = new InMemoryChatMemoryStore();
+
+    private final LocalTokenCountEstimator estimator = new LocalTokenCountEstimator();
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private TokenBudgetChatMemory newMemory(int budget, ChatMemoryCompactor compactor) {
+        return new TokenBudgetChatMemory(1L, store, estimator, budget, 2.0, 100, compactor, null);
+    }
+
+    private static String text(int chars) {
+        return "a".repeat(chars);
+    }
+
+    @Test
+    void requestsCompactionWithoutBlockingWhenOverBudget() {
+        ChatMemoryCompactor compactor = mock(ChatMemoryCompactor.class);
+        TokenBudgetChatMemory memory = newMemory(100, compactor);
+
+        memory.add(UserMessage.from(text(200)));
+        verifyNoInteractions(compactor);
+        memory.add(AiMessage.from(text(200)));
+
+        verify(compactor).requestCompaction(memory);
+        assertEquals(2, memory.messages().size());
+    }
+
+    @Test
+    void evictsWholeToolCallWhenOverHardLimit() {
+        TokenBudgetChatMemory memory = newMemory(100, null);
+        ToolExecutionRequest request = ToolExecutionRequest.builder().id("1").name("writeFile").arguments("{}").build();
+
+        memory.add(SystemMessage.from("system"));
+        memory.add(AiMessage.from(List.of(request)));
+        memory.add(ToolExecutionResultMessage.from(request, text(1000)));
+        memory.add(UserMessage.from("继续"));
+
+        List<ChatMessage> messages = memory.messages();
+        assertEquals(List.of(SystemMessage.from("system"), UserMessage.from("继续")), messages);
+    }
+
+    @Test
+    void replacesOldTurnsWithSummaryAndKeepsRecentTurn() {
+        AtomicReference<ChatRequest> summaryRequest = new AtomicReference<>();
+        ChatModel chatModel = new ChatModel() {
+            @Override
+            public ChatResponse doChat(ChatRequest chatRequest) {
+                summaryRequest.set(chatRequest);
+                return ChatResponse.builder().aiMessage(AiMessage.from("做了一个番茄钟")).build();
+            }
+        };
+        ChatMemoryCompactor compactor = new ChatMemoryCompactor(chatModel, new ChatMemoryCacheConfig(), new CodeGenMetrics(registry));
+        TokenBudgetChatMemory memory = newMemory(200, null);
+        memory.add(SystemMessage.from("system"));
+        memory.add(UserMessage.from("做一个番茄钟"));
+        memory.add(AiMessage.from(text(400)));
+        memory.add(UserMessage.from("改成红色"));
+        memory.add(AiMessage.from("好的"));
+
+        compactor.compact(memory);
+
+        assertEquals(List.of(
+                SystemMessage.from("system"),
+                AiMessage.from(ChatMemoryCompactor.SUMMARY_PREFIX + "做了一个番茄钟"),
+                UserMessage.from("改成红色"),
+                AiMessage.from("好的")), memory.messages());
+        assertTrue(summaryRequest.get().messages().get(1).toString().contains("做一个番茄钟"));
+        assertEquals(1, registry.get("ai.codegen.memory.compaction").tag("outcome", CodeGenMetrics.OUTCOME_SUCCESS).timer().count());
+    }
+
+    @Test
+    void discardsSummaryWhenMemoryChangedDuringCompaction() {
+        TokenBudgetChatMemory memory = newMemory(200, null);
+        memory.add(UserMessage.from("a"));
+        memory.add(AiMessage.from(text(400)));
+        memory.add(UserMessage.from("b"));
+        List<ChatMessage> candidates = memory.compactionCandidates(100);
+        assertEquals(2, candidates.size());
+
+        memory.clear();
+        memory.add(UserMessage.from("c"));
+
+        assertFalse(memory.replaceWithSummary(candidates, AiMessage.from("summary")));
+        assertEquals(List.of(UserMessage.from("c")), memory.messages());
+    }
+
+    @Test
+    void skipsCompactionOnceMemoryLeftTheCache() {
+        ChatModel chatModel = mock(ChatModel.class);
+        ChatMemoryCompactor compactor = new ChatMemoryCompactor(chatModel, new ChatMemoryCacheConfig(), new CodeGenMetrics(registry));
+        TokenBudgetChatMemory evicted = newMemory(200, null);
+        evicted.add(UserMessage.from("a"));
+        evicted.add(AiMessage.from(text(400)));
+        evicted.add(UserMessage.from("b"));
+
+        compactor.setMemoryResolver(memoryId -> null);
+        compactor.compact(evicted);
+
+        verifyNoInteractions(chatModel);
+        assertEquals(3, evicted.messages().size());
+    }
+}
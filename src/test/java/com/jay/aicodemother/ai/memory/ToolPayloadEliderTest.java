@@ -0,0 +1,88 @@
+package com.jay.aicodemother.ai.memory;
+
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ToolPayloadEliderTest {
+
+    private static final String FILE_CONTENT = "<template>\n  <div>hello</div>\n</template>\n".repeat(10);
+
+    private final ToolPayloadElider elider = new ToolPayloadElider(100, 1);
+
+    private static ToolExecutionRequest request(String id, String name, String arguments) {
+        return ToolExecutionRequest.builder().id(id).name(name).arguments(arguments).build();
+    }
+
+    @Test
+    void elidesOldPayloadsAndKeepsRecentOnes() {
+        ToolExecutionRequest write = request("1", "writeFile",
+                JSONUtil.toJsonStr(new JSONObject().set("relativeFilePath", "src/App.vue").set("content", FILE_CONTENT)));
+        ToolExecutionRequest read = request("2", "readFile", "{\"relativeFilePath\":\"src/App.vue\"}");
+        ToolExecutionRequest recentRead = request("3", "readFile", "{\"relativeFilePath\":\"src/main.js\"}");
+        List<ChatMessage> messages = List.of(
+                UserMessage.from("做一个页面"),
+                AiMessage.from(write),
+                ToolExecutionResultMessage.from(write, "文件写入成功: src/App.vue"),
+                AiMessage.from(read),
+                ToolExecutionResultMessage.from(read, FILE_CONTENT),
+                AiMessage.from(recentRead),
+                ToolExecutionResultMessage.from(recentRead, FILE_CONTENT));
+
+        List<ChatMessage> elided = elider.elide(messages);
+
+        String reference = ToolPayloadElider.reference("src/App.vue", FILE_CONTENT);
+        assertTrue(reference.contains("src/App.vue") && reference.contains("共 31 行"));
+        JSONObject writeArguments = JSONUtil.parseObj(((AiMessage) elided.get(1)).toolExecutionRequests().get(0).arguments());
+        assertEquals("src/App.vue", writeArguments.getStr("relativeFilePath"));
+        assertEquals(reference, writeArguments.getStr("content"));
+        assertEquals(reference, ((ToolExecutionResultMessage) elided.get(4)).text());
+        // 最近一次工具调用保持原样
+        assertSame(messages.get(6), elided.get(6));
+        // 再次处理不再变化
+        assertSame(elided, elider.elide(elided));
+    }
+
+    @Test
+    void elidesEachFileOfBatchWrites() {
+        JSONArray files = new JSONArray()
+                .set(new JSONObject().set("relativeFilePath", "src/App.vue").set("content", FILE_CONTENT))
+                .set(new JSONObject().set("relativeFilePath", "src/main.js").set("content", "import App"));
+        ToolExecutionRequest write = request("1", "writeFiles", JSONUtil.toJsonStr(new JSONObject().set("files", files)));
+        ToolExecutionRequest recentRead = request("2", "readFile", "{\"relativeFilePath\":\"src/main.js\"}");
+        List<ChatMessage> messages = List.of(
+                AiMessage.from(write),
+                ToolExecutionResultMessage.from(write, "批量写入完成"),
+                AiMessage.from(recentRead),
+                ToolExecutionResultMessage.from(recentRead, "import App"));
+
+        List<ChatMessage> elided = elider.elide(messages);
+
+        JSONArray elidedFiles = JSONUtil.parseObj(((AiMessage) elided.get(0)).toolExecutionRequests().get(0).arguments())
+                .getJSONArray("files");
+        assertEquals(ToolPayloadElider.reference("src/App.vue", FILE_CONTENT), elidedFiles.getJSONObject(0).getStr("content"));
+        assertEquals("import App", elidedFiles.getJSONObject(1).getStr("content"));
+        assertSame(elided, elider.elide(elided));
+    }
+
+    @Test
+    void returnsSameListWhenNothingToElide() {
+        ToolExecutionRequest read = request("1", "readFile", "{\"relativeFilePath\":\"a.js\"}");
+        List<ChatMessage> messages = new ArrayList<>(List.of(AiMessage.from(read), ToolExecutionResultMessage.from(read, "short")));
+        messages.add(AiMessage.from(request("2", "readFile", "{\"relativeFilePath\":\"b.js\"}")));
+        messages.add(ToolExecutionResultMessage.from("2", "readFile", "short"));
+
+        assertSame(messages, elider.elide(messages));
+    }
+}
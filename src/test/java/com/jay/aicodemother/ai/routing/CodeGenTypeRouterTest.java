@@ -0,0 +1,102 @@
+package com.jay.aicodemother.ai.routing;
+
+import com.jay.aicodemother.ai.AiCodeGenTypeRoutingService;
+import com.jay.aicodemother.config.CodeGenRoutingConfig;
+import com.jay.aicodemother.model.entity.App;
+import com.jay.aicodemother.model.enums.CodeGenTypeEnum;
+import com.jay.aicodemother.monitor.CodeGenMetrics;
+import com.jay.aicodemother.service.AppService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CodeGenTypeRouterTest {
+
+    private final AiCodeGenTypeRoutingService routingService = mock(AiCodeGenTypeRoutingService.class);
+
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+
+    @SuppressWarnings("unchecked")
+    private final ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+
+    private final AppService appService = mock(AppService.class);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final CodeGenTypeRouter router;
+
+    CodeGenTypeRouterTest() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        router = new CodeGenTypeRouter(routingService, redisTemplate, appService, new CodeGenRoutingConfig(), new CodeGenMetrics(registry));
+    }
+
+    @AfterEach
+    void tearDown() {
+        router.destroy();
+    }
+
+    private long tierCount(String tier) {
+        return registry.get("ai.codegen.routing").tag("tier", tier).timer().count();
+    }
+
+    @Test
+    void clearPromptIsClassifiedLocallyAndCached() {
+        CodeGenTypeRouter.RouteDecision first = router.route("做一个 Vue 后台管理系统，包含用户管理和权限");
+        CodeGenTypeRouter.RouteDecision second = router.route("做一个vue后台管理系统 包含用户管理和权限！");
+
+        assertEquals(new CodeGenTypeRouter.RouteDecision(CodeGenTypeEnum.VUE_PROJECT, false), first);
+        assertEquals(first, second);
+        assertEquals(1, tierCount(CodeGenTypeRouter.TIER_CLASSIFIER));
+        assertEquals(1, tierCount(CodeGenTypeRouter.TIER_LOCAL_CACHE));
+        verifyNoInteractions(routingService);
+    }
+
+    @Test
+    void redisCacheAnswersBeforeClassifier() {
+        when(valueOperations.get(startsWith("code-gen:route:"))).thenReturn("multi_file");
+
+        assertEquals(CodeGenTypeEnum.MULTI_FILE, router.route("做一个番茄时钟").type());
+        assertEquals(1, tierCount(CodeGenTypeRouter.TIER_REDIS_CACHE));
+    }
+
+    @Test
+    void routeFinishedBeforeAwaitIsStillReturned() {
+        when(routingService.routeCodeGenType(anyString())).thenReturn(CodeGenTypeEnum.VUE_PROJECT);
+
+        router.refineAsync(2L, "帮我做点东西", CodeGenTypeEnum.HTML);
+        // 生成请求读取应用时还是临时类型，模型判断完成后才等待
+        verify(appService, timeout(5000)).updateById(any(App.class));
+
+        assertEquals(CodeGenTypeEnum.VUE_PROJECT, router.awaitRouting(2L, CodeGenTypeEnum.HTML));
+    }
+
+    @Test
+    void ambiguousPromptIsRefinedByModelInBackground() {
+        when(routingService.routeCodeGenType(anyString())).thenReturn(CodeGenTypeEnum.MULTI_FILE);
+        String prompt = "帮我做点东西";
+
+        CodeGenTypeRouter.RouteDecision decision = router.route(prompt);
+        assertTrue(decision.needsModel());
+        assertEquals(CodeGenTypeEnum.HTML, decision.type());
+
+        router.refineAsync(1L, prompt, decision.type());
+        assertEquals(CodeGenTypeEnum.MULTI_FILE, router.awaitRouting(1L, decision.type()));
+
+        ArgumentCaptor<App> updated = ArgumentCaptor.forClass(App.class);
+        verify(appService).updateById(updated.capture());
+        assertEquals("multi_file", updated.getValue().getCodeGenType());
+        verify(valueOperations).set(startsWith("code-gen:route:"), eq("multi_file"), any(Duration.class));
+        // 模型结果进入缓存，同样的需求不再调用模型
+        assertEquals(new CodeGenTypeRouter.RouteDecision(CodeGenTypeEnum.MULTI_FILE, false), router.route(prompt));
+        assertEquals(1, tierCount(CodeGenMetrics.ROUTING_TIER_MODEL));
+    }
+}
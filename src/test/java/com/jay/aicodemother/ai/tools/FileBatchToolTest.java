@@ -0,0 +1,143 @@
+package com.jay.aicodemother.ai.tools;
+
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import com.jay.aicodemother.config.ProjectFileConfig;
+import com.jay.aicodemother.manager.ProjectDirIndexManager;
+import com.jay.aicodemother.manager.ProjectFileManager;
+import com.jay.aicodemother.manager.ProjectSearchIndexManager;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.agent.tool.ToolSpecifications;
+import dev.langchain4j.service.tool.DefaultToolExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileBatchToolTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ProjectDirIndexManager projectDirIndexManager = new ProjectDirIndexManager();
+
+    private final FileBatchWriteTool writeTool = new FileBatchWriteTool();
+
+    private final FileBatchModifyTool modifyTool = new FileBatchModifyTool();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(writeTool, "projectDirIndexManager", projectDirIndexManager);
+        ReflectionTestUtils.setField(modifyTool, "projectDirIndexManager", projectDirIndexManager);
+        ReflectionTestUtils.setField(writeTool, "projectSearchIndexManager", new ProjectSearchIndexManager());
+        ReflectionTestUtils.setField(modifyTool, "projectSearchIndexManager", new ProjectSearchIndexManager());
+        ProjectFileManager projectFileManager = new ProjectFileManager(new ProjectFileConfig());
+        ReflectionTestUtils.setField(writeTool, "projectFileManager", projectFileManager);
+        ReflectionTestUtils.setField(modifyTool, "projectFileManager", projectFileManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        projectDirIndexManager.destroy();
+    }
+
+    /**
+     * 按模型返回的 JSON 参数执行工具，和 AI Service 的调用方式一致
+     */
+    private static String execute(Object tool, String name, JSONObject arguments) {
+        Method method = findMethod(tool, name);
+        ToolExecutionRequest request = ToolExecutionRequest.builder()
+                .id("1").name(name).arguments(arguments.toString()).build();
+        return new DefaultToolExecutor(tool, method).execute(request, 1L);
+    }
+
+    private static Method findMethod(Object tool, String name) {
+        for (Method method : tool.getClass().getMethods()) {
+            if (method.getName().equals(name)) {
+                return method;
+            }
+        }
+        throw new IllegalArgumentException(name);
+    }
+
+    private String path(String relativePath) {
+        return tempDir.resolve(relativePath).toString();
+    }
+
+    private static JSONObject item(Object... keyValues) {
+        JSONObject item = new JSONObject();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            item.set((String) keyValues[i], keyValues[i + 1]);
+        }
+        return item;
+    }
+
+    @Test
+    void specificationsDescribeTheItems() {
+        ToolSpecification specification = ToolSpecifications.toolSpecificationsFrom(writeTool).get(0);
+        String parameters = specification.parameters().toString();
+        assertEquals("writeFiles", specification.name());
+        assertTrue(parameters.contains("relativeFilePath") && parameters.contains("content"), parameters);
+    }
+
+    @Test
+    void writesAllFilesInOneCall() throws IOException {
+        JSONArray files = new JSONArray()
+                .set(item("relativeFilePath", path("package.json"), "content", "{}"))
+                .set(item("relativeFilePath", path("src/views/Home.vue"), "content", "<template>首页</template>"))
+                .set(item("content", "no path"));
+
+        String result = execute(writeTool, "writeFiles", new JSONObject().set("files", files));
+
+        assertTrue(result.startsWith("批量写入完成，成功 2 个，失败 1 个"), result);
+        assertEquals("{}", Files.readString(tempDir.resolve("package.json")));
+        assertEquals("<template>首页</template>", Files.readString(tempDir.resolve("src/views/Home.vue")));
+        String display = writeTool.generateToolExecutedResult(JSONUtil.parseObj(new JSONObject().set("files", files).toString()));
+        assertTrue(display.startsWith("[工具调用] 批量写入文件 共 3 个文件"), display);
+        assertTrue(display.contains("```vue\n<template>首页</template>\n```"), display);
+    }
+
+    @Test
+    void appliesAllEditsOrNone() throws IOException {
+        Files.writeString(tempDir.resolve("App.vue"), "<h1>标题</h1><p>内容</p>");
+        Files.writeString(tempDir.resolve("main.js"), "createApp(App)");
+
+        JSONArray edits = new JSONArray()
+                .set(item("relativeFilePath", path("App.vue"), "oldContent", "标题", "newContent", "新标题"))
+                .set(item("relativeFilePath", path("App.vue"), "oldContent", "新标题</h1>", "newContent", "新标题</h1><hr>"))
+                .set(item("relativeFilePath", path("main.js"), "oldContent", "createApp(App)", "newContent", "createApp(App).mount('#app')"));
+        String result = execute(modifyTool, "modifyFiles", new JSONObject().set("edits", edits));
+
+        assertTrue(result.startsWith("批量修改成功，共 3 处修改，2 个文件"), result);
+        assertEquals("<h1>新标题</h1><hr><p>内容</p>", Files.readString(tempDir.resolve("App.vue")));
+        assertEquals("createApp(App).mount('#app')", Files.readString(tempDir.resolve("main.js")));
+
+        // 第二处修改找不到旧内容，第一处修改也不生效
+        JSONArray failing = new JSONArray()
+                .set(item("relativeFilePath", path("main.js"), "oldContent", "mount", "newContent", "use(router).mount"))
+                .set(item("relativeFilePath", path("App.vue"), "oldContent", "不存在", "newContent", "x"));
+        result = execute(modifyTool, "modifyFiles", new JSONObject().set("edits", failing));
+
+        assertTrue(result.contains("第 2 处修改在文件中未找到要替换的内容"), result);
+        assertEquals("createApp(App).mount('#app')", Files.readString(tempDir.resolve("main.js")));
+        assertTrue(modifyTool.generateToolExecutedResult(JSONUtil.parseObj(new JSONObject().set("edits", failing).toString()))
+                .startsWith("[工具调用] 批量修改文件 共 2 处修改"));
+    }
+
+    @Test
+    void batchCallsConflictWithEverything() {
+        assertNull(writeTool.getConflictKey(new JSONObject().set("files", List.of())));
+        assertNull(modifyTool.getConflictKey(new JSONObject().set("edits", List.of())));
+    }
+}
@@ -0,0 +1,122 @@
+package com.jay.aicodemother.ai.tools;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileOutlineToolTest {
+
+    private static final String SFC = """
+            <template>
+              <div class="app">
+                <NavBar :title="title" />
+                <router-view />
+                <site-footer></site-footer>
+              </div>
+            </template>
+
+            <script setup>
+            import { ref } from 'vue'
+            import NavBar from './components/NavBar.vue'
+            import SiteFooter from './components/SiteFooter.vue'
+
+            const title = ref('博客')
+            const props = defineProps({ msg: String })
+            const toggle = () => {
+              title.value = ''
+            }
+            function load() {
+              return fetch('/api')
+            }
+            </script>
+
+            <style scoped>
+            .app {
+              color: red;
+            }
+            @media (max-width: 768px) {
+              .app { color: blue; }
+            }
+            </style>
+            """;
+
+    @TempDir
+    Path tempDir;
+
+    private final FileOutlineTool outlineTool = new FileOutlineTool();
+
+    @Test
+    void outlinesSingleFileComponents() {
+        assertEquals("""
+                文件大纲: src/App.vue（共 31 行）
+                <template> 第 1-7 行
+                  组件: NavBar, router-view, site-footer
+                <script setup> 第 9-22 行
+                  导入 第 10-12 行: vue, ./components/NavBar.vue, ./components/SiteFooter.vue
+                  变量 title = ref() 第 14 行
+                  变量 props = defineProps() 第 15 行
+                  函数 toggle 第 16 行
+                  函数 load 第 19 行
+                <style scoped> 第 24-31 行
+                  规则: .app, @media (max-width: 768px)""", outlineTool.outline("src/App.vue", SFC));
+    }
+
+    @Test
+    void outlinesOptionsApiAndJson() {
+        String script = """
+                import { defineComponent } from 'vue'
+
+                export default defineComponent({
+                  name: 'ArticleList',
+                  props: { page: Number },
+                  data() {
+                    return { items: [] }
+                  },
+                  methods: {
+                    load() {}
+                  }
+                })
+                """;
+        assertEquals("""
+                文件大纲: src/views/List.js（共 12 行）
+                导入 第 1 行: vue
+                export default 第 3 行
+                  组件名 ArticleList 第 4 行
+                  选项: props, data, methods""", outlineTool.outline("src/views/List.js", script));
+
+        String packageJson = """
+                {"name": "blog", "scripts": {"dev": "vite", "build": "vite build"}, "dependencies": {"vue": "^3.4.0", "vue-router": "^4.2.0"}}
+                """;
+        assertEquals("""
+                文件大纲: package.json（共 1 行）
+                name: blog
+                scripts: dev, build
+                dependencies: vue, vue-router""", outlineTool.outline("package.json", packageJson));
+    }
+
+    @Test
+    void cachesOutlinesByContent() {
+        String first = outlineTool.outline("src/App.vue", SFC);
+        // 内容相同的文件复用缓存的大纲，只有文件名不同
+        assertEquals(first.replace("src/App.vue", "src/Copy.vue"), outlineTool.outline("src/Copy.vue", SFC));
+        assertNotEquals(first, outlineTool.outline("src/App.vue", SFC.replace("function load", "function reload")));
+    }
+
+    @Test
+    void readsLineRanges() throws IOException {
+        Path file = tempDir.resolve("App.vue");
+        Files.writeString(file, SFC);
+        FileReadTool readTool = new FileReadTool();
+
+        assertEquals(SFC, readTool.readFile(file.toString(), null, null, 1L));
+        assertEquals("[" + file + " 第 9-10 行，共 31 行]\n<script setup>\nimport { ref } from 'vue'\n",
+                readTool.readFile(file.toString(), 9, 10, 1L));
+        assertTrue(readTool.readFile(file.toString(), 30, 100, 1L).startsWith("[" + file + " 第 30-31 行，共 31 行]\n}\n</style>"));
+        assertTrue(readTool.readFile(file.toString(), 40, null, 1L).startsWith("错误：行范围无效 40-31"));
+    }
+}
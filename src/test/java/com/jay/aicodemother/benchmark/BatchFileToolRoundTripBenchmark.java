@@ -0,0 +1,127 @@
+package com.jay.aicodemother.benchmark;
+
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import com.jay.aicodemother.ai.memory.LocalTokenCountEstimator;
+import com.jay.aicodemother.ai.memory.ToolPayloadElider;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * Class name: BatchFileToolRoundTripBenchmark
+ * Package: com.jay.aicodemother.benchmark
+ * Description: 批量文件工具的请求次数和提示词 token 对比
+ *  模拟生成一个 20 个文件的 Vue 项目，每轮工具调用后把完整的对话记忆重新发送给模型：
+ *  - writeFile：每轮写入一个文件，共 20 轮工具调用
+ *  - writeFiles：按配置文件、页面、组件分 3 批写入
+ *  两种方式最后都有一次输出生成完毕提示的请求。提示词 token 使用 LocalTokenCountEstimator 估算，
+ *  分别统计原始记忆和经过 ToolPayloadElider（默认配置 2000 字符、保留最近 4 次）处理后的记忆。
+ *  运行 main 方法输出结果
+ *
+ * @Create: 2026/10/18 02:40
+ * @Author: jay
+ * @Version: 1.0
+ */
+public class BatchFileToolRoundTripBenchmark {
+
+    private static final int[] BATCHES = {5, 7, 8};
+
+    private static final LocalTokenCountEstimator ESTIMATOR = new LocalTokenCountEstimator();
+
+    public static void main(String[] args) throws IOException {
+        List<String[]> files = scaffold();
+        List<ChatMessage> prefix = List.of(SystemMessage.from(systemPrompt()), UserMessage.from("做一个个人博客网站，包含首页、文章列表、文章详情和关于页面"));
+        ToolPayloadElider elider = new ToolPayloadElider(2000, 4);
+
+        List<List<String[]>> single = new ArrayList<>();
+        files.forEach(file -> single.add(List.<String[]>of(file)));
+        List<List<String[]>> batched = new ArrayList<>();
+        int from = 0;
+        for (int size : BATCHES) {
+            batched.add(files.subList(from, from + size));
+            from += size;
+        }
+
+        System.out.printf("%-12s %12s %20s %20s%n", "tool", "round trips", "prompt tokens", "elided prompt tokens");
+        print("writeFile", prefix, single, elider);
+        print("writeFiles", prefix, batched, elider);
+    }
+
+    private static void print(String name, List<ChatMessage> prefix, List<List<String[]>> rounds, ToolPayloadElider elider) {
+        System.out.printf("%-12s %12d %20d %20d%n", name, rounds.size() + 1,
+                promptTokens(prefix, rounds, UnaryOperator.identity()),
+                promptTokens(prefix, rounds, elider::elide));
+    }
+
+    /**
+     * 累加每次请求发送的提示词 token：第一次请求只有系统提示词和用户消息，之后每轮工具调用追加一组请求和结果
+     */
+    private static long promptTokens(List<ChatMessage> prefix, List<List<String[]>> rounds,
+                                     UnaryOperator<List<ChatMessage>> memory) {
+        List<ChatMessage> messages = new ArrayList<>(prefix);
+        long total = ESTIMATOR.estimateTokenCountInMessages(memory.apply(messages));
+        int id = 0;
+        for (List<String[]> round : rounds) {
+            String requestId = "call_" + id++;
+            ToolExecutionRequest request = round.size() == 1
+                    ? ToolExecutionRequest.builder().id(requestId).name("writeFile")
+                    .arguments(file(round.get(0)).toString()).build()
+                    : ToolExecutionRequest.builder().id(requestId).name("writeFiles")
+                    .arguments(new JSONObject().set("files", new JSONArray(round.stream().map(BatchFileToolRoundTripBenchmark::file).toList())).toString())
+                    .build();
+            messages.add(AiMessage.from(request));
+            messages.add(ToolExecutionResultMessage.from(request, "文件写入成功: " + round.get(0)[0]));
+            total += ESTIMATOR.estimateTokenCountInMessages(memory.apply(messages));
+        }
+        return total;
+    }
+
+    private static JSONObject file(String[] file) {
+        return new JSONObject().set("relativeFilePath", file[0]).set("content", file[1]);
+    }
+
+    /**
+     * 20 个文件：5 个配置和入口文件、7 个页面、8 个组件，内容长度接近模型实际生成的文件
+     */
+    private static List<String[]> scaffold() {
+        List<String[]> files = new ArrayList<>();
+        String[] config = {"package.json", "vite.config.js", "index.html", "src/main.js", "src/router/index.js"};
+        for (String path : config) {
+            files.add(new String[]{path, content(path, 12)});
+        }
+        for (int i = 0; i < 7; i++) {
+            String path = "src/views/Page" + i + ".vue";
+            files.add(new String[]{path, content(path, 60)});
+        }
+        for (int i = 0; i < 8; i++) {
+            String path = "src/components/Component" + i + ".vue";
+            files.add(new String[]{path, content(path, 35)});
+        }
+        return files;
+    }
+
+    private static String content(String path, int lines) {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            content.append("  <div class=\"item-").append(i).append("\">").append(path).append(" 示例内容</div>\n");
+        }
+        return content.toString();
+    }
+
+    private static String systemPrompt() throws IOException {
+        try (InputStream in = BatchFileToolRoundTripBenchmark.class.getResourceAsStream("/prompt/codegen-vue-project-system-prompt.txt")) {
+            return in == null ? "" : new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.jay.aicodemother.benchmark;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jay.aicodemother.ai.AiCodeGeneratorService;
+import com.jay.aicodemother.config.ChatMemoryCacheConfig;
+import com.jay.aicodemother.manager.ChatMemoryCacheManager;
+import com.jay.aicodemother.model.enums.CodeGenTypeEnum;
+import com.jay.aicodemother.service.ChatHistoryService;
+import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.service.AiServices;
+import dev.langchain4j.store.memory.chat.InMemoryChatMemoryStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Class name: ChatMemoryCacheBenchmark
+ * Package: com.jay.aicodemother.benchmark
+ * Description: AI 服务代理缓存基准测试
+ *  对比新应用第一次请求（缓存未命中）的开销和每个活跃应用常驻的堆内存：
+ *  - perApp：每个 appId + 生成类型构建一个 AiServices 代理（原实现）
+ *  - shared：每种生成类型共享一个代理，只按 appId 创建对话记忆
+ *  两种方式都使用内存存储且不加载历史，只比较代理和缓存本身。
+ *  运行 main 方法，先输出每个活跃应用的堆占用，再运行 JMH 输出冷启动耗时
+ *
+ * @Create: 2026/10/17 21:00
+ * @Author: jay
+ * @Version: 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChatMemoryCacheBenchmark {
+
+    private static final int ACTIVE_APPS = 20_000;
+
+    private final ChatModel chatModel = new ChatModel() {
+    };
+
+    private final StreamingChatModel streamingChatModel = new StreamingChatModel() {
+    };
+
+    private final InMemoryChatMemoryStore store = new InMemoryChatMemoryStore();
+
+    private Cache<String, AiCodeGeneratorService> perAppCache;
+
+    private ChatMemoryCacheManager sharedMemoryCache;
+
+    private AiCodeGeneratorService sharedService;
+
+    private long nextAppId;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        perAppCache = Caffeine.newBuilder().maximumSize(1000).build();
+        ChatMemoryCacheConfig config = new ChatMemoryCacheConfig();
+        sharedMemoryCache = new ChatMemoryCacheManager(store, mock(ChatHistoryService.class), config, null, null, new SimpleMeterRegistry());
+        sharedService = AiServices.builder(AiCodeGeneratorService.class)
+                .chatModel(chatModel)
+                .streamingChatModel(streamingChatModel)
+                .chatMemoryProvider(memoryId -> sharedMemoryCache.getChatMemory(memoryId, CodeGenTypeEnum.HTML))
+                .build();
+    }
+
+    @Benchmark
+    public Object perAppColdStart() {
+        long appId = nextAppId++;
+        return perAppCache.get(appId + "_html", key -> createPerAppService(appId));
+    }
+
+    @Benchmark
+    public Object sharedColdStart() {
+        return sharedMemoryCache.getChatMemory(nextAppId++, CodeGenTypeEnum.HTML);
+    }
+
+    private AiCodeGeneratorService createPerAppService(long appId) {
+        MessageWindowChatMemory chatMemory = MessageWindowChatMemory.builder()
+                .id(appId)
+                .chatMemoryStore(store)
+                .maxMessages(100)
+                .build();
+        return AiServices.builder(AiCodeGeneratorService.class)
+                .chatModel(chatModel)
+                .streamingChatModel(streamingChatModel)
+                .chatMemory(chatMemory)
+                .build();
+    }
+
+    /**
+     * 测量每个活跃应用常驻的堆内存
+     */
+    private static long retainedBytesPerApp(LongConsumer activate) {
+        long before = usedHeapAfterGc();
+        for (long appId = 0; appId < ACTIVE_APPS; appId++) {
+            activate.accept(appId);
+        }
+        long after = usedHeapAfterGc();
+        return (after - before) / ACTIVE_APPS;
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        ChatMemoryCacheBenchmark benchmark = new ChatMemoryCacheBenchmark();
+        benchmark.setUp();
+        benchmark.perAppCache = Caffeine.newBuilder().build();
+        long perApp = retainedBytesPerApp(appId -> benchmark.perAppCache.put(appId + "_html", benchmark.createPerAppService(appId)));
+        ChatMemoryCacheConfig config = new ChatMemoryCacheConfig();
+        config.setMaxEntries(Long.MAX_VALUE);
+        ChatMemoryCacheManager shared = new ChatMemoryCacheManager(benchmark.store, mock(ChatHistoryService.class),
+                config, null, null, new SimpleMeterRegistry());
+        long sharedBytes = retainedBytesPerApp(appId -> shared.getChatMemory(appId, CodeGenTypeEnum.HTML));
+        System.out.printf("每个活跃应用常驻堆内存：perApp = %d B, shared = %d B%n", perApp, sharedBytes);
+
+        Options options = new OptionsBuilder()
+                .include(ChatMemoryCacheBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,112 @@
+package com.jay.aicodemother.benchmark;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.langchain4j.http.client.sse.DefaultServerSentEventParser;
+import dev.langchain4j.http.client.sse.ServerSentEvent;
+import dev.langchain4j.http.client.sse.ServerSentEventListener;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.openai.OpenAiSseDeltaDecoder;
+import dev.langchain4j.model.openai.OpenAiStreamDelta;
+import dev.langchain4j.model.openai.OpenAiStreamingResponseBuilder;
+import dev.langchain4j.model.openai.internal.chat.ChatCompletionResponse;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class name: OpenAiSseDecoderBenchmark
+ * Package: com.jay.aicodemother.benchmark
+ * Description: 模型流式响应解码基准测试
+ *  使用 src/test/resources/openai-stream 下录制的 DeepSeek 响应体，对比解码一整次响应的开销：
+ *  - lineParser：DefaultServerSentEventParser 逐行读取 + Jackson 反序列化为 ChatCompletionResponse（原客户端路径）
+ *  - byteDecoder：OpenAiSseDeltaDecoder 在字节缓冲区中定位 data 帧，流式读取需要的字段
+ *  两者都把结果累加到 OpenAiStreamingResponseBuilder。text 流约 500 帧，tool 流为 3 次 writeFile 共约 520 帧。
+ *  运行 main 方法即可，GC profiler 会输出 gc.alloc.rate.norm（每次响应分配的字节数）
+ *
+ * @Create: 2026/10/17 23:20
+ * @Author: jay
+ * @Version: 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dfile.encoding=UTF-8")
+@State(Scope.Benchmark)
+public class OpenAiSseDecoderBenchmark {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    @Param({"text", "tool"})
+    private String stream;
+
+    private byte[] body;
+
+    @Setup
+    public void setUp() throws IOException {
+        try (InputStream in = getClass().getResourceAsStream("/openai-stream/" + stream + ".sse")) {
+            body = in.readAllBytes();
+        }
+    }
+
+    @Benchmark
+    public ChatResponse lineParser() {
+        OpenAiStreamingResponseBuilder builder = new OpenAiStreamingResponseBuilder();
+        new DefaultServerSentEventParser().parse(new ByteArrayInputStream(body), new ServerSentEventListener() {
+
+            @Override
+            public void onEvent(ServerSentEvent event) {
+                if ("[DONE]".equals(event.data())) {
+                    return;
+                }
+                try {
+                    builder.append(OpenAiStreamDelta.from(OBJECT_MAPPER.readValue(event.data(), ChatCompletionResponse.class)));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                throw new IllegalStateException(throwable);
+            }
+        });
+        return builder.build();
+    }
+
+    @Benchmark
+    public ChatResponse byteDecoder() {
+        OpenAiStreamingResponseBuilder builder = new OpenAiStreamingResponseBuilder();
+        new OpenAiSseDeltaDecoder(builder::append).parse(new ByteArrayInputStream(body), new ServerSentEventListener() {
+
+            @Override
+            public void onEvent(ServerSentEvent event) {
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                throw new IllegalStateException(throwable);
+            }
+        });
+        return builder.build();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(OpenAiSseDecoderBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,166 @@
+package com.jay.aicodemother.benchmark;
+
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.openai.OpenAiStreamDelta;
+import dev.langchain4j.model.openai.OpenAiStreamingResponseBuilder;
+import dev.langchain4j.model.openai.internal.chat.ChatCompletionChoice;
+import dev.langchain4j.model.openai.internal.chat.ChatCompletionResponse;
+import dev.langchain4j.model.openai.internal.chat.Delta;
+import dev.langchain4j.model.openai.internal.chat.FunctionCall;
+import dev.langchain4j.model.openai.internal.chat.ToolCall;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Class name: OpenAiStreamingResponseBuilderBenchmark
+ * Package: com.jay.aicodemother.benchmark
+ * Description: 流式响应累加器基准测试
+ *  对比每个增量的处理开销：
+ *  - legacy：StringBuffer + ConcurrentHashMap + 每个工具增量一次 System.out.println（原实现的聊天增量路径）
+ *  - singleWriter：StringBuilder + 普通字段，只在每次 append 结束时写一次 volatile
+ *  text 流为 512 个文本增量，tool 流为 16 个工具调用、每个 32 个参数增量。
+ *  stdout 重定向到空输出流，只计算打印本身的同步和字符串拼接开销。
+ *  运行 main 方法即可，GC profiler 会输出 gc.alloc.rate.norm（每个增量分配的字节数）
+ *
+ * @Create: 2026/10/17 22:45
+ * @Author: jay
+ * @Version: 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OpenAiStreamingResponseBuilderBenchmark {
+
+    private static final int DELTAS_PER_STREAM = 512;
+
+    @Param({"text", "tool"})
+    private String stream;
+
+    private List<ChatCompletionResponse> deltas;
+
+    private List<OpenAiStreamDelta> streamDeltas;
+
+    @Setup
+    public void setUp() {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        deltas = new ArrayList<>(DELTAS_PER_STREAM);
+        if ("text".equals(stream)) {
+            for (int i = 0; i < DELTAS_PER_STREAM; i++) {
+                deltas.add(response(Delta.builder().content("番茄" + (i % 10)).build()));
+            }
+        } else {
+            for (int call = 0; call < 16; call++) {
+                for (int i = 0; i < 32; i++) {
+                    ToolCall toolCall = ToolCall.builder()
+                            .index(call)
+                            .id(i == 0 ? "call_" + call : null)
+                            .function(FunctionCall.builder()
+                                    .name(i == 0 ? "writeFile" : null)
+                                    .arguments("<div>" + i + "</div>")
+                                    .build())
+                            .build();
+                    deltas.add(response(Delta.builder().toolCalls(List.of(toolCall)).build()));
+                }
+            }
+        }
+        streamDeltas = deltas.stream().map(OpenAiStreamDelta::from).toList();
+    }
+
+    private static ChatCompletionResponse response(Delta delta) {
+        return ChatCompletionResponse.builder()
+                .id("chatcmpl-1")
+                .model("deepseek-chat")
+                .choices(List.of(ChatCompletionChoice.builder().delta(delta).build()))
+                .build();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DELTAS_PER_STREAM)
+    public Object legacy() {
+        LegacyResponseBuilder builder = new LegacyResponseBuilder();
+        for (ChatCompletionResponse delta : deltas) {
+            builder.append(delta);
+        }
+        return builder.build();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DELTAS_PER_STREAM)
+    public ChatResponse singleWriter() {
+        OpenAiStreamingResponseBuilder builder = new OpenAiStreamingResponseBuilder();
+        for (OpenAiStreamDelta delta : streamDeltas) {
+            builder.append(delta);
+        }
+        return builder.build();
+    }
+
+    /**
+     * 原实现中处理聊天增量的部分
+     */
+    private static class LegacyResponseBuilder {
+
+        private final StringBuffer contentBuilder = new StringBuffer();
+
+        private final Map<Integer, StringBuffer[]> indexToToolBuilders = new ConcurrentHashMap<>();
+
+        private final AtomicReference<String> id = new AtomicReference<>();
+
+        private final AtomicReference<String> model = new AtomicReference<>();
+
+        void append(ChatCompletionResponse partialResponse) {
+            id.set(partialResponse.id());
+            model.set(partialResponse.model());
+            Delta delta = partialResponse.choices().get(0).delta();
+            if (delta.content() != null && !delta.content().isEmpty()) {
+                contentBuilder.append(delta.content());
+            }
+            if (delta.toolCalls() != null) {
+                System.out.println("OLOLO " + delta.toolCalls());
+                for (ToolCall toolCall : delta.toolCalls()) {
+                    StringBuffer[] builders = indexToToolBuilders.computeIfAbsent(toolCall.index(),
+                            idx -> new StringBuffer[]{new StringBuffer(), new StringBuffer(), new StringBuffer()});
+                    if (toolCall.id() != null) {
+                        builders[0].append(toolCall.id());
+                    }
+                    if (toolCall.function().name() != null) {
+                        builders[1].append(toolCall.function().name());
+                    }
+                    if (toolCall.function().arguments() != null) {
+                        builders[2].append(toolCall.function().arguments());
+                    }
+                }
+            }
+        }
+
+        Object build() {
+            List<String> parts = new ArrayList<>();
+            parts.add(contentBuilder.toString());
+            indexToToolBuilders.values().forEach(builders -> parts.add(builders[2].toString()));
+            return parts;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(OpenAiStreamingResponseBuilderBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
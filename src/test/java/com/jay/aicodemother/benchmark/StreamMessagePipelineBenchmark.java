@@ -0,0 +1,107 @@
+package com.jay.aicodemother.benchmark;
+
+import cn.hutool.json.JSONUtil;
+import com.jay.aicodemother.ai.model.message.AIResponseMessage;
+import com.jay.aicodemother.ai.model.message.StreamMessage;
+import com.jay.aicodemother.ai.model.message.StreamMessageTypeEnum;
+import com.jay.aicodemother.ai.model.message.ToolRequestMessage;
+import com.jay.aicodemother.utils.SseUtils;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class name: StreamMessagePipelineBenchmark
+ * Package: com.jay.aicodemother.benchmark
+ * Description: 流式消息链路基准测试
+ *  对比每个 token 的处理开销：
+ *  - legacy：门面序列化为 JSON -> 处理器解析两次 -> 控制器包装 Map 再序列化
+ *  - typed：进程内传递对象 -> SSE 出口处序列化一次
+ *  运行 main 方法即可，GC profiler 会输出 gc.alloc.rate.norm（每次操作分配的字节数）
+ *
+ * @Create: 2026/10/17 11:30
+ * @Author: jay
+ * @Version: 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StreamMessagePipelineBenchmark {
+
+    /**
+     * 模型单次输出的 token 长度（通常只有 1~3 个字符）
+     */
+    @Param({"1", "3", "16"})
+    private int tokenLength;
+
+    private String token;
+
+    private ToolExecutionRequest toolRequest;
+
+    @Setup
+    public void setUp() {
+        token = "番茄时钟<div>\"a\"".repeat(4).substring(0, tokenLength);
+        toolRequest = ToolExecutionRequest.builder()
+                .id("call_0")
+                .name("writeFile")
+                .arguments("{\"relativeFilePath\":\"src/App.vue\",\"content\":\"<template>")
+                .build();
+    }
+
+    @Benchmark
+    public String legacyAiResponse() {
+        // AICodeGeneratorFacade#processTokenStream
+        String chunk = JSONUtil.toJsonStr(new AIResponseMessage(token));
+        // JsonMessageStreamHandler#handleJsonMessageChunk
+        StreamMessage streamMessage = JSONUtil.toBean(chunk, StreamMessage.class);
+        StreamMessageTypeEnum type = StreamMessageTypeEnum.getEnumByValue(streamMessage.getType());
+        String data = type == StreamMessageTypeEnum.AI_RESPONSE
+                ? JSONUtil.toBean(chunk, AIResponseMessage.class).getData()
+                : "";
+        // AppController#chatToGenCode
+        return JSONUtil.toJsonStr(Map.of("d", data));
+    }
+
+    @Benchmark
+    public String typedAiResponse() {
+        StreamMessage streamMessage = new AIResponseMessage(token);
+        StreamMessageTypeEnum type = StreamMessageTypeEnum.getEnumByValue(streamMessage.getType());
+        String data = type == StreamMessageTypeEnum.AI_RESPONSE
+                ? ((AIResponseMessage) streamMessage).getData()
+                : "";
+        return SseUtils.toDataJson(data);
+    }
+
+    @Benchmark
+    public String legacyToolRequest() {
+        String chunk = JSONUtil.toJsonStr(new ToolRequestMessage(toolRequest));
+        StreamMessage streamMessage = JSONUtil.toBean(chunk, StreamMessage.class);
+        StreamMessageTypeEnum.getEnumByValue(streamMessage.getType());
+        return JSONUtil.toBean(chunk, ToolRequestMessage.class).getId();
+    }
+
+    @Benchmark
+    public String typedToolRequest() {
+        StreamMessage streamMessage = new ToolRequestMessage(toolRequest);
+        StreamMessageTypeEnum.getEnumByValue(streamMessage.getType());
+        return ((ToolRequestMessage) streamMessage).getId();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(StreamMessagePipelineBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -1,6 +1,8 @@
 package com.jay.aicodemother.core;
 
 import com.jay.aicodemother.ai.AiCodeGeneratorService;
+import com.jay.aicodemother.ai.model.message.AIResponseMessage;
+import com.jay.aicodemother.ai.model.message.StreamMessage;
 import com.jay.aicodemother.ai.model.HtmlCodeResult;
 import com.jay.aicodemother.ai.model.MultiFileCodeResult;
 import com.jay.aicodemother.exception.BusinessException;
@@ -18,6 +20,7 @@ import reactor.core.publisher.Flux;
 
 import java.io.File;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -128,12 +131,15 @@ class AICodeGeneratorFacadeTest {
 
     @Test
     void generateVueProjectCodeStream(){
-        Flux<String> codeStream = aiCodeGeneratorFacade.generateAndSaveCodeStream("简单的番茄时钟网站,总代码数不超过200行", CodeGenTypeEnum.VUE_PROJECT, 1L);
+        Flux<StreamMessage> codeStream = aiCodeGeneratorFacade.generateAndSaveCodeStream("简单的番茄时钟网站,总代码数不超过200行", CodeGenTypeEnum.VUE_PROJECT, 1L);
         // 阻塞等待所有的数据收集完成
-        List<String> result = codeStream.collectList().block();
+        List<StreamMessage> result = codeStream.collectList().block();
         // 验证结果
         Assertions.assertNotNull(result);
-        String completeContent = String.join("", result);
+        String completeContent = result.stream()
+                .filter(AIResponseMessage.class::isInstance)
+                .map(message -> ((AIResponseMessage) message).getData())
+                .collect(Collectors.joining());
         Assertions.assertNotNull(completeContent);
     }
 
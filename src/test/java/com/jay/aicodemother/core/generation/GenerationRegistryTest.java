@@ -0,0 +1,54 @@
+package com.jay.aicodemother.core.generation;
+
+import com.jay.aicodemother.config.GenerationReplayConfig;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GenerationRegistryTest {
+
+    @Test
+    void duplicateRequestJoinsInFlightGeneration() {
+        GenerationRegistry registry = new GenerationRegistry(new GenerationReplayConfig(), null);
+        AtomicInteger started = new AtomicInteger();
+        Sinks.Many<String> source = Sinks.many().unicast().onBackpressureBuffer();
+
+        GenerationSession first = registry.startOrJoin(1L, 1L, "msg:a", () -> {
+            started.incrementAndGet();
+            return source.asFlux().map(GenerationEvent::of);
+        });
+        source.tryEmitNext("x");
+        GenerationSession second = registry.startOrJoin(1L, 1L, "msg:a", () -> {
+            started.incrementAndGet();
+            return Flux.just(GenerationEvent.of("other"));
+        });
+        source.tryEmitNext("y");
+        source.tryEmitComplete();
+
+        assertSame(first, second);
+        assertEquals(1, started.get());
+        // 后到的请求同样从头收到完整输出
+        assertEquals(List.of("x", "y"), second.attach(0).map(GenerationEvent::getData)
+                .collectList().block(Duration.ofSeconds(5)));
+    }
+
+    @Test
+    void finishedGenerationIsNotJoined() {
+        GenerationRegistry registry = new GenerationRegistry(new GenerationReplayConfig(), null);
+
+        GenerationSession first = registry.startOrJoin(1L, 1L, "msg:a", () -> Flux.just(GenerationEvent.of("x")));
+        GenerationSession second = registry.startOrJoin(1L, 1L, "msg:a", () -> Flux.just(GenerationEvent.of("y")));
+        GenerationSession otherApp = registry.startOrJoin(2L, 1L, "msg:a", () -> Flux.just(GenerationEvent.of("z")));
+
+        assertNotSame(first, second);
+        assertNotSame(second, otherApp);
+        assertEquals(List.of("y"), second.attach(0).map(GenerationEvent::getData)
+                .collectList().block(Duration.ofSeconds(5)));
+    }
+}
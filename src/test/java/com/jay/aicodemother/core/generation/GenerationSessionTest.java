@@ -0,0 +1,112 @@
+package com.jay.aicodemother.core.generation;
+
+import com.jay.aicodemother.exception.BusinessException;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GenerationSessionTest {
+
+    @Test
+    void reattachReplaysMissedEventsWithoutGaps() {
+        Sinks.Many<String> source = Sinks.many().unicast().onBackpressureBuffer();
+        GenerationSession session = new GenerationSession("g1", 1L, 1L, 16, 1024, Duration.ofSeconds(10));
+        session.start(source.asFlux().map(GenerationEvent::of), () -> {
+        });
+
+        List<GenerationEvent> first = new CopyOnWriteArrayList<>();
+        Disposable client = session.attach(0).subscribe(first::add);
+        source.tryEmitNext("a");
+        source.tryEmitNext("b");
+        // 客户端断开，期间继续生成
+        client.dispose();
+        source.tryEmitNext("c");
+        source.tryEmitNext("d");
+        source.tryEmitComplete();
+
+        long lastSeq = first.get(first.size() - 1).getSeq();
+        List<GenerationEvent> resumed = session.attach(lastSeq).collectList().block(Duration.ofSeconds(5));
+
+        assertEquals(List.of("a", "b"), first.stream().map(GenerationEvent::getData).toList());
+        assertEquals(List.of("c", "d"), resumed.stream().map(GenerationEvent::getData).toList());
+        assertEquals(List.of(3L, 4L), resumed.stream().map(GenerationEvent::getSeq).toList());
+        assertEquals("g1:4", resumed.get(1).toEventId());
+    }
+
+    @Test
+    void overwrittenPositionFailsInsteadOfSkipping() {
+        Sinks.Many<String> source = Sinks.many().unicast().onBackpressureBuffer();
+        GenerationSession session = new GenerationSession("g2", 1L, 1L, 2, 1024, Duration.ofSeconds(10));
+        session.start(source.asFlux().map(GenerationEvent::of), () -> {
+        });
+        source.tryEmitNext("a");
+        source.tryEmitNext("b");
+        source.tryEmitNext("c");
+        source.tryEmitComplete();
+
+        assertThrows(BusinessException.class, () -> session.attach(0).collectList().block(Duration.ofSeconds(5)));
+        assertEquals(List.of("c"), session.attach(2).map(GenerationEvent::getData).collectList().block(Duration.ofSeconds(5)));
+    }
+
+    @Test
+    void cancelsGenerationWhenNoClientReturnsWithinGrace() throws InterruptedException {
+        AtomicBoolean upstreamCancelled = new AtomicBoolean();
+        Sinks.Many<String> source = Sinks.many().unicast().onBackpressureBuffer();
+        GenerationSession session = new GenerationSession("g3", 1L, 1L, 16, 1024, Duration.ofMillis(50));
+        session.start(source.asFlux().map(GenerationEvent::of).doOnCancel(() -> upstreamCancelled.set(true)), () -> {
+        });
+        session.attach(0).subscribe().dispose();
+
+        Thread.sleep(300);
+
+        assertTrue(upstreamCancelled.get());
+        assertTrue(session.isDone());
+        assertInstanceOf(BusinessException.class, session.getError());
+    }
+
+    @Test
+    void slowClientPausesUpstreamInsteadOfFailing() {
+        AtomicLong emitted = new AtomicLong();
+        GenerationSession session = new GenerationSession("g4", 1L, 1L, 4, 1024, Duration.ofSeconds(10));
+        List<String> received = new CopyOnWriteArrayList<>();
+        BaseSubscriber<GenerationEvent> slowClient = new BaseSubscriber<>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                request(1);
+            }
+
+            @Override
+            protected void hookOnNext(GenerationEvent value) {
+                received.add(value.getData());
+            }
+        };
+        session.attach(0).subscribe(slowClient);
+        session.start(Flux.range(1, 100).map(i -> GenerationEvent.of(String.valueOf(i))).doOnNext(event -> emitted.incrementAndGet()), () -> {
+        });
+
+        // 客户端只读了 1 个事件，生成流最多再产生缓冲容量（4）个事件后暂停
+        assertEquals(List.of("1"), received);
+        assertEquals(5, emitted.get());
+
+        slowClient.request(2);
+        assertEquals(List.of("1", "2", "3"), received);
+        assertTrue(emitted.get() <= 7);
+
+        slowClient.request(Long.MAX_VALUE);
+        assertEquals(100, received.size());
+        assertEquals("100", received.get(99));
+        assertTrue(session.isDone());
+        assertNull(session.getError());
+    }
+}
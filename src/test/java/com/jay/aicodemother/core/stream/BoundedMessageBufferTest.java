@@ -0,0 +1,122 @@
+package com.jay.aicodemother.core.stream;
+
+import com.jay.aicodemother.ai.model.message.AIResponseMessage;
+import com.jay.aicodemother.ai.model.message.StreamMessage;
+import com.jay.aicodemother.ai.model.message.ToolRequestMessage;
+import com.jay.aicodemother.exception.BusinessException;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedMessageBufferTest {
+
+    /**
+     * 只在手动 request 时消费的订阅者，模拟慢客户端
+     */
+    private static class ManualSubscriber extends BaseSubscriber<StreamMessage> {
+        private final List<StreamMessage> received = new CopyOnWriteArrayList<>();
+        private final AtomicReference<Throwable> error = new AtomicReference<>();
+        private final CountDownLatch terminated = new CountDownLatch(1);
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+        }
+
+        @Override
+        protected void hookOnNext(StreamMessage value) {
+            received.add(value);
+        }
+
+        @Override
+        protected void hookOnComplete() {
+            terminated.countDown();
+        }
+
+        @Override
+        protected void hookOnError(Throwable throwable) {
+            error.set(throwable);
+            terminated.countDown();
+        }
+    }
+
+    private static ToolRequestMessage toolRequest(String id, String arguments) {
+        return new ToolRequestMessage(ToolExecutionRequest.builder().id(id).name("writeFile").arguments(arguments).build());
+    }
+
+    @Test
+    void mergeTextAndToolFragmentsWhileClientIsSlow() throws InterruptedException {
+        BoundedMessageBuffer buffer = new BoundedMessageBuffer(16, 1024, Duration.ofSeconds(5));
+        ManualSubscriber subscriber = new ManualSubscriber();
+        buffer.asFlux(() -> {
+        }, () -> {
+        }).subscribe(subscriber);
+
+        buffer.offer(new AIResponseMessage("写"));
+        buffer.offer(new AIResponseMessage("入"));
+        buffer.offer(toolRequest("call_0", "{\"a\":"));
+        buffer.offer(toolRequest("call_0", "1}"));
+        buffer.offer(toolRequest("call_1", "{}"));
+        buffer.complete();
+        assertTrue(subscriber.received.isEmpty());
+        assertEquals(15, buffer.getBufferedBytes());
+
+        subscriber.request(Long.MAX_VALUE);
+        assertTrue(subscriber.terminated.await(5, TimeUnit.SECONDS));
+
+        assertEquals(3, subscriber.received.size());
+        assertEquals("写入", ((AIResponseMessage) subscriber.received.get(0)).getData());
+        assertEquals("{\"a\":1}", ((ToolRequestMessage) subscriber.received.get(1)).getArguments());
+        assertEquals("call_1", ((ToolRequestMessage) subscriber.received.get(2)).getId());
+        assertEquals(0, buffer.getBufferedBytes());
+    }
+
+    @Test
+    void blockProducerUntilClientRequests() throws InterruptedException {
+        BoundedMessageBuffer buffer = new BoundedMessageBuffer(1, 1024, Duration.ofSeconds(5));
+        ManualSubscriber subscriber = new ManualSubscriber();
+        buffer.asFlux(() -> {
+        }, () -> {
+        }).subscribe(subscriber);
+
+        buffer.offer(toolRequest("call_0", "{}"));
+        CountDownLatch offered = new CountDownLatch(1);
+        Thread producer = new Thread(() -> {
+            buffer.offer(toolRequest("call_1", "{}"));
+            offered.countDown();
+        });
+        producer.start();
+        // 缓冲已满，工具消息不会被丢弃，生产者阻塞
+        assertFalse(offered.await(200, TimeUnit.MILLISECONDS));
+
+        subscriber.request(1);
+        assertTrue(offered.await(5, TimeUnit.SECONDS));
+        subscriber.request(1);
+        assertEquals(2, subscriber.received.size());
+    }
+
+    @Test
+    void failWhenClientStalls() throws InterruptedException {
+        BoundedMessageBuffer buffer = new BoundedMessageBuffer(1, 1024, Duration.ofMillis(100));
+        ManualSubscriber subscriber = new ManualSubscriber();
+        buffer.asFlux(() -> {
+        }, () -> {
+        }).subscribe(subscriber);
+
+        buffer.offer(toolRequest("call_0", "{}"));
+        buffer.offer(toolRequest("call_1", "{}"));
+
+        assertTrue(subscriber.terminated.await(5, TimeUnit.SECONDS));
+        assertInstanceOf(BusinessException.class, subscriber.error.get());
+        assertEquals(0, buffer.getBufferedBytes());
+    }
+}
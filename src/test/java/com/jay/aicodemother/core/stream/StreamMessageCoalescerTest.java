@@ -0,0 +1,65 @@
+package com.jay.aicodemother.core.stream;
+
+import com.jay.aicodemother.ai.model.message.AIResponseMessage;
+import com.jay.aicodemother.ai.model.message.StreamMessage;
+import com.jay.aicodemother.ai.model.message.ToolRequestMessage;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamMessageCoalescerTest {
+
+    private static List<StreamMessage> coalesce(Flux<StreamMessage> flux, Duration maxLatency, int maxBytes) {
+        return StreamMessageCoalescer.coalesce(flux, maxLatency, maxBytes, Schedulers.parallel())
+                .collectList()
+                .block(Duration.ofSeconds(5));
+    }
+
+    private static String text(StreamMessage message) {
+        return ((AIResponseMessage) message).getData();
+    }
+
+    @Test
+    void mergeTextAndFlushBeforeToolMessage() {
+        ToolRequestMessage toolRequest = new ToolRequestMessage(ToolExecutionRequest.builder()
+                .id("call_0").name("writeFile").arguments("{").build());
+        Flux<StreamMessage> flux = Flux.just(
+                new AIResponseMessage("生成"), new AIResponseMessage("一个"), new AIResponseMessage("页面"),
+                toolRequest,
+                new AIResponseMessage("完成"));
+
+        List<StreamMessage> result = coalesce(flux, Duration.ofSeconds(10), 1024);
+
+        assertEquals(3, result.size());
+        assertEquals("生成一个页面", text(result.get(0)));
+        assertSame(toolRequest, result.get(1));
+        assertEquals("完成", text(result.get(2)));
+    }
+
+    @Test
+    void flushWhenMaxBytesReached() {
+        // 每个中文字符 3 字节，6 字节上限即两个字符一个事件
+        Flux<StreamMessage> flux = Flux.just("一", "二", "三", "四", "五").map(AIResponseMessage::new);
+
+        List<StreamMessage> result = coalesce(flux, Duration.ofSeconds(10), 6);
+
+        assertEquals(List.of("一二", "三四", "五"), result.stream().map(StreamMessageCoalescerTest::text).toList());
+    }
+
+    @Test
+    void flushWhenMaxLatencyElapsed() {
+        Flux<StreamMessage> flux = Flux.concat(
+                Flux.just("a", "b").map(AIResponseMessage::new),
+                Flux.just("c").delayElements(Duration.ofMillis(200)).map(AIResponseMessage::new));
+
+        List<StreamMessage> result = coalesce(flux, Duration.ofMillis(20), 1024);
+
+        assertEquals(List.of("ab", "c"), result.stream().map(StreamMessageCoalescerTest::text).toList());
+    }
+}
@@ -0,0 +1,191 @@
+package com.jay.aicodemother.manager;
+
+import com.jay.aicodemother.config.ChatHistoryWriteBehindConfig;
+import com.jay.aicodemother.mapper.ChatHistoryMapper;
+import com.jay.aicodemother.model.entity.ChatHistory;
+import com.jay.aicodemother.monitor.CodeGenMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class ChatHistoryWriteBehindManagerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ChatHistoryWriteBehindManager newManager(ChatHistoryMapper mapper) {
+        return newManager(mapper, new ChatHistoryWriteBehindConfig());
+    }
+
+    private ChatHistoryWriteBehindManager newManager(ChatHistoryMapper mapper, ChatHistoryWriteBehindConfig config) {
+        config.setBatchSize(2);
+        // 测试中手动 flush
+        config.setFlushInterval(Duration.ofHours(1));
+        config.setSpillRetryInterval(Duration.ZERO);
+        config.setSpillFile(tempDir.resolve("pending.jsonl").toString());
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        return new ChatHistoryWriteBehindManager(config, mapper, new CodeGenMetrics(registry), registry);
+    }
+
+    private static ChatHistory history(long id, String message) {
+        return history(id, 1L, message);
+    }
+
+    private static ChatHistory history(long id, long appId, String message) {
+        return ChatHistory.builder()
+                .id(id)
+                .appId(appId)
+                .userId(1L)
+                .message(message)
+                .messageType("user")
+                .createTime(LocalDateTime.now())
+                .build();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void writesInBatchesInSubmitOrder() {
+        ChatHistoryMapper mapper = mock(ChatHistoryMapper.class);
+        List<String> written = new ArrayList<>();
+        doAnswer(invocation -> {
+            ((Collection<ChatHistory>) invocation.getArgument(0)).forEach(h -> written.add(h.getMessage()));
+            return 0;
+        }).when(mapper).insertBatch(anyCollection());
+        ChatHistoryWriteBehindManager manager = newManager(mapper);
+
+        manager.enqueue(history(1, "a"));
+        manager.enqueue(history(2, "b"));
+        manager.enqueue(history(3, "c"));
+        manager.flush();
+
+        assertEquals(List.of("a", "b", "c"), written);
+        verify(mapper, times(2)).insertBatch(anyCollection());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void fillsNotNullColumnsBeforeInsertBatch() {
+        ChatHistoryMapper mapper = mock(ChatHistoryMapper.class);
+        List<ChatHistory> written = new ArrayList<>();
+        doAnswer(invocation -> {
+            written.addAll((Collection<ChatHistory>) invocation.getArgument(0));
+            return 0;
+        }).when(mapper).insertBatch(anyCollection());
+        ChatHistoryWriteBehindManager manager = newManager(mapper);
+
+        // 溢出文件中旧记录没有 updateTime / isDelete，insertBatch 会显式写入 NULL
+        manager.enqueue(history(1, "a"));
+        manager.flush();
+
+        assertEquals(1, written.size());
+        assertEquals(written.get(0).getCreateTime(), written.get(0).getUpdateTime());
+        assertEquals(0, written.get(0).getIsDelete());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void spillsWhileDatabaseIsDownAndReplaysInOrder() {
+        ChatHistoryMapper mapper = mock(ChatHistoryMapper.class);
+        List<String> written = new ArrayList<>();
+        doThrow(new RuntimeException("db down"))
+                .doThrow(new RuntimeException("db down"))
+                .doAnswer(invocation -> {
+                    ((Collection<ChatHistory>) invocation.getArgument(0)).forEach(h -> written.add(h.getMessage()));
+                    return 0;
+                })
+                .when(mapper).insertBatch(anyCollection());
+        ChatHistoryWriteBehindManager manager = newManager(mapper);
+
+        manager.enqueue(history(1, "a"));
+        manager.flush();
+        assertTrue(tempDir.resolve("pending.jsonl").toFile().exists());
+
+        // 溢出文件补写失败，新消息排在后面
+        manager.enqueue(history(2, "b"));
+        manager.flush();
+        assertTrue(written.isEmpty());
+
+        manager.enqueue(history(3, "c"));
+        manager.flush();
+
+        assertEquals(List.of("a", "b", "c"), written);
+        assertFalse(tempDir.resolve("pending.jsonl").toFile().exists());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void fullQueueSpillsWithoutWaitingForInFlightWrite() throws Exception {
+        ChatHistoryMapper mapper = mock(ChatHistoryMapper.class);
+        List<String> written = new ArrayList<>();
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            ((Collection<ChatHistory>) invocation.getArgument(0)).forEach(h -> written.add(h.getMessage()));
+            return 0;
+        }).when(mapper).insertBatch(anyCollection());
+        ChatHistoryWriteBehindConfig config = new ChatHistoryWriteBehindConfig();
+        config.setQueueCapacity(1);
+        ChatHistoryWriteBehindManager manager = newManager(mapper, config);
+
+        manager.enqueue(history(1, "a"));
+        CompletableFuture<Void> flushing = CompletableFuture.runAsync(manager::flush);
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+        // 写库还没返回，队列满时直接写入溢出文件
+        assertTimeoutPreemptively(Duration.ofSeconds(2), () -> {
+            manager.enqueue(history(2, "b"));
+            manager.enqueue(history(3, "c"));
+        });
+        assertTrue(tempDir.resolve("pending.jsonl").toFile().exists());
+
+        release.countDown();
+        flushing.get(5, TimeUnit.SECONDS);
+        manager.flush();
+
+        assertEquals(List.of("a", "b", "c"), written);
+        assertFalse(tempDir.resolve("pending.jsonl").toFile().exists());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void discardPurgesSpilledMessagesOfTheApp() {
+        ChatHistoryMapper mapper = mock(ChatHistoryMapper.class);
+        List<String> written = new ArrayList<>();
+        doThrow(new RuntimeException("db down"))
+                .doThrow(new RuntimeException("db down"))
+                .doAnswer(invocation -> {
+                    ((Collection<ChatHistory>) invocation.getArgument(0)).forEach(h -> written.add(h.getMessage()));
+                    return 0;
+                })
+                .when(mapper).insertBatch(anyCollection());
+        ChatHistoryWriteBehindManager manager = newManager(mapper);
+
+        manager.enqueue(history(1, 1L, "a"));
+        manager.flush();
+        manager.enqueue(history(2, 2L, "x"));
+        manager.flush();
+        assertTrue(tempDir.resolve("pending.jsonl").toFile().exists());
+        manager.enqueue(history(3, 1L, "b"));
+
+        manager.discard(1L);
+        manager.flush();
+
+        assertEquals(List.of("x"), written);
+    }
+}
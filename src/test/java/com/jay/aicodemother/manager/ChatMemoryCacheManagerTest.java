@@ -0,0 +1,83 @@
+package com.jay.aicodemother.manager;
+
+import com.jay.aicodemother.config.ChatMemoryCacheConfig;
+import com.jay.aicodemother.service.ChatHistoryService;
+import com.jay.aicodemother.ai.memory.TokenBudgetChatMemory;
+import com.jay.aicodemother.model.enums.CodeGenTypeEnum;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.memory.ChatMemory;
+import dev.langchain4j.store.memory.chat.InMemoryChatMemoryStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ChatMemoryCacheManagerTest {
+
+    private final ChatHistoryService chatHistoryService = mock(ChatHistoryService.class);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private ChatMemoryCacheManager newManager(long maxEntries) {
+        ChatMemoryCacheConfig config = new ChatMemoryCacheConfig();
+        config.setMaxEntries(maxEntries);
+        return new ChatMemoryCacheManager(new InMemoryChatMemoryStore(), chatHistoryService, config, null, null, registry);
+    }
+
+    @Test
+    void hydratesOncePerAppAndReusesMemory() {
+        ChatMemoryCacheManager manager = newManager(1024 * 1024);
+
+        TokenBudgetChatMemory first = manager.getChatMemory(1L, CodeGenTypeEnum.VUE_PROJECT);
+        TokenBudgetChatMemory again = manager.getChatMemory("1", CodeGenTypeEnum.VUE_PROJECT);
+        TokenBudgetChatMemory other = manager.getChatMemory(2L, CodeGenTypeEnum.VUE_PROJECT);
+
+        assertSame(first, again);
+        assertNotSame(first, other);
+        assertEquals(1L, first.id());
+        assertEquals(32000, first.getTokenBudget());
+        verify(chatHistoryService, times(1)).hydrateChatMemory(eq(1L), any(), eq(20));
+        verify(chatHistoryService, times(1)).hydrateChatMemory(eq(2L), any(), eq(20));
+        assertEquals(2.0, registry.get("ai.codegen.memory.cache.size").gauge().value());
+    }
+
+    @Test
+    void hydrationFailureStillReturnsMemory() {
+        when(chatHistoryService.hydrateChatMemory(eq(3L), any(), anyInt())).thenThrow(new RuntimeException("db down"));
+
+        TokenBudgetChatMemory memory = newManager(1024 * 1024).getChatMemory(3L, CodeGenTypeEnum.VUE_PROJECT);
+
+        assertNotNull(memory);
+        assertTrue(memory.messages().isEmpty());
+    }
+
+    @Test
+    void limitsFollowTheRequestingType() {
+        ChatMemoryCacheManager manager = newManager(1024 * 1024);
+
+        TokenBudgetChatMemory vue = manager.getChatMemory(1L, CodeGenTypeEnum.VUE_PROJECT);
+        assertEquals(32000, vue.getTokenBudget());
+        TokenBudgetChatMemory html = manager.getChatMemory(1L, CodeGenTypeEnum.HTML);
+
+        assertSame(vue, html);
+        assertEquals(8000, html.getTokenBudget());
+        verify(chatHistoryService, times(1)).hydrateChatMemory(eq(1L), any(), anyInt());
+    }
+
+    @Test
+    void providerResolvesCachedMemoryOnEveryCall() {
+        ChatMemoryCacheManager manager = newManager(1024 * 1024);
+        ChatMemory view = manager.chatMemoryProvider(CodeGenTypeEnum.HTML).get(1L);
+
+        view.add(UserMessage.from("做一个博客"));
+
+        assertEquals(1L, view.id());
+        assertEquals(List.of(UserMessage.from("做一个博客")), manager.getChatMemory(1L, CodeGenTypeEnum.HTML).messages());
+        assertEquals(view.messages(), manager.getChatMemory(1L, CodeGenTypeEnum.HTML).messages());
+    }
+}
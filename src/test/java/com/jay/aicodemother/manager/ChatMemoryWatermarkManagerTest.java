@@ -0,0 +1,73 @@
+package com.jay.aicodemother.manager;
+
+import com.jay.aicodemother.config.RedisChatMemoryStoreConfig;
+import com.jay.aicodemother.model.enums.ChatHistoryMessageTypeEnum;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.UserMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ChatMemoryWatermarkManagerTest {
+
+    private static final String WATERMARK_KEY = "chat-memory:watermark:1";
+
+    private static final String LATEST_KEY = "chat-history:latest:1";
+
+    @SuppressWarnings("unchecked")
+    private final ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+
+    private ChatMemoryWatermarkManager manager;
+
+    @BeforeEach
+    void setUp() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        manager = new ChatMemoryWatermarkManager(redisTemplate, new RedisChatMemoryStoreConfig());
+    }
+
+    @Test
+    void userMessageAdvancesWatermarkOnlyOnceInMemory() {
+        manager.onHistoryAdded(1L, 10L, ChatHistoryMessageTypeEnum.USER);
+        manager.destroy();
+        verify(valueOperations).set(eq(LATEST_KEY), eq("10"), anyLong(), any(TimeUnit.class));
+        verify(valueOperations, never()).set(eq(WATERMARK_KEY), anyString(), anyLong(), any(TimeUnit.class));
+    }
+
+    @Test
+    void completedTurnAdvancesWatermarkToEachMirroredMessage() {
+        manager.onHistoryAdded(1L, 10L, ChatHistoryMessageTypeEnum.USER);
+        manager.onMemoryAdded(1L, UserMessage.from("做一个博客"));
+        manager.onMemoryAdded(1L, AiMessage.from("好的"));
+        manager.onHistoryAdded(1L, 11L, ChatHistoryMessageTypeEnum.AI);
+        manager.destroy();
+
+        InOrder inOrder = inOrder(valueOperations);
+        inOrder.verify(valueOperations).set(eq(WATERMARK_KEY), eq("10"), anyLong(), any(TimeUnit.class));
+        inOrder.verify(valueOperations).set(eq(WATERMARK_KEY), eq("11"), anyLong(), any(TimeUnit.class));
+    }
+
+    @Test
+    void cancelledPartialReplyAndToolCallsDoNotAdvanceWatermark() {
+        manager.onHistoryAdded(1L, 10L, ChatHistoryMessageTypeEnum.USER);
+        manager.onMemoryAdded(1L, UserMessage.from("做一个博客"));
+        // 工具调用请求不是最终回复，取消后保存的部分回复不在记忆中
+        manager.onMemoryAdded(1L, AiMessage.from(List.of(ToolExecutionRequest.builder()
+                .id("1").name("writeFile").arguments("{}").build())));
+        manager.onHistoryAdded(1L, 11L, ChatHistoryMessageTypeEnum.AI);
+        manager.destroy();
+
+        verify(valueOperations).set(eq(WATERMARK_KEY), eq("10"), anyLong(), any(TimeUnit.class));
+        verify(valueOperations, never()).set(eq(WATERMARK_KEY), eq("11"), anyLong(), any(TimeUnit.class));
+        verify(valueOperations).set(eq(LATEST_KEY), eq("11"), anyLong(), any(TimeUnit.class));
+    }
+}
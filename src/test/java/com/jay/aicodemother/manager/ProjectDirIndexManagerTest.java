@@ -0,0 +1,114 @@
+package com.jay.aicodemother.manager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProjectDirIndexManagerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path root;
+
+    private ProjectDirIndexManager manager;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        root = tempDir.resolve("vue_project_1");
+        write("package.json");
+        write("index.html");
+        write("src/main.js");
+        write("src/App.vue");
+        write("src/components/Hello.vue");
+        write("node_modules/vue/index.js");
+        write("dist/index.html");
+        write("debug.log");
+        manager = new ProjectDirIndexManager();
+    }
+
+    @AfterEach
+    void tearDown() {
+        manager.destroy();
+    }
+
+    private Path write(String relativePath) throws IOException {
+        Path file = root.resolve(relativePath);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, relativePath);
+        return file;
+    }
+
+    private String awaitStructure(Path dir, Predicate<String> condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        String structure = manager.render(root, dir);
+        while (!condition.test(structure) && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+            structure = manager.render(root, dir);
+        }
+        return structure;
+    }
+
+    @Test
+    void rendersTheTreeWithoutIgnoredEntries() {
+        assertEquals("""
+                项目目录结构:
+                index.html
+                package.json
+                src/
+                  App.vue
+                  main.js
+                  components/
+                    Hello.vue
+                """, manager.render(root, root));
+        assertEquals("""
+                项目目录结构:
+                Hello.vue
+                """, manager.render(root, root.resolve("src/components")));
+        assertNull(manager.render(root, root.resolve("missing")));
+        assertNull(manager.render(tempDir.resolve("vue_project_2"), tempDir.resolve("vue_project_2")));
+    }
+
+    @Test
+    void toolsUpdateTheIndexInPlace() {
+        manager.render(root, root);
+
+        // 只更新索引、不写磁盘，能看到变化说明输出来自索引而不是重新遍历
+        manager.onFileWritten(root.resolve("src/views/Home.vue"));
+        manager.onFileDeleted(root.resolve("src/main.js"));
+        manager.onFileWritten(root.resolve("node_modules/lodash/index.js"));
+
+        String structure = manager.render(root, root.resolve("src"));
+        assertEquals("""
+                项目目录结构:
+                App.vue
+                components/
+                  Hello.vue
+                views/
+                  Home.vue
+                """, structure);
+        assertFalse(manager.render(root, root).contains("lodash"));
+    }
+
+    @Test
+    void picksUpChangesMadeOutsideTheTools() throws Exception {
+        manager.render(root, root);
+
+        write("src/router/index.js");
+        write("src/style.css");
+        Files.delete(root.resolve("index.html"));
+
+        String structure = awaitStructure(root, s -> s.contains("index.js") && s.contains("style.css") && !s.contains("index.html"));
+        assertTrue(structure.contains("router/\n    index.js"), structure);
+        assertTrue(structure.contains("style.css"), structure);
+        assertFalse(structure.contains("index.html"), structure);
+    }
+}
@@ -0,0 +1,103 @@
+package com.jay.aicodemother.manager;
+
+import com.jay.aicodemother.config.ProjectFileConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProjectFileManagerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ProjectFileManager manager = new ProjectFileManager(new ProjectFileConfig());
+
+    @Test
+    void writeReplacesFileAtomically() throws IOException {
+        Path file = tempDir.resolve("src/components/NavBar.vue");
+        manager.write(file, "<template>首页</template>\n");
+        assertEquals("<template>首页</template>\n", Files.readString(file));
+        assertEquals("rw-r--r--", PosixFilePermissions.toString(Files.getPosixFilePermissions(file)));
+
+        Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-rw-r--"));
+        manager.write(file, "<template>关于</template>\n");
+        assertEquals("<template>关于</template>\n", Files.readString(file));
+        assertEquals("rw-rw-r--", PosixFilePermissions.toString(Files.getPosixFilePermissions(file)));
+
+        try (var files = Files.list(file.getParent())) {
+            assertEquals(List.of(file), files.toList());
+        }
+    }
+
+    @Test
+    void concurrentReadModifyWriteLosesNoUpdates() throws Exception {
+        Path file = tempDir.resolve("counter.txt");
+        manager.write(file, "0");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                futures.add(executor.submit(() -> manager.withLock(file, () -> {
+                    int value = Integer.parseInt(Files.readString(file));
+                    manager.writeLocked(file, String.valueOf(value + 1));
+                    return null;
+                })));
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals("200", Files.readString(file));
+    }
+
+    @Test
+    void overlappingMultiPathLocksDoNotDeadlock() throws Exception {
+        Path a = tempDir.resolve("a.txt");
+        Path b = tempDir.resolve("b.txt");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                List<Path> paths = i % 2 == 0 ? List.of(a, b) : List.of(b, a);
+                futures.add(executor.submit(() -> manager.withLocks(paths, () -> {
+                    manager.writeLocked(paths.get(0), "x");
+                    manager.writeLocked(paths.get(1), "y");
+                    return null;
+                })));
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void deleteReportsWhetherFileExisted() throws IOException {
+        ProjectFileConfig config = new ProjectFileConfig();
+        config.setFsync(true);
+        ProjectFileManager fsyncManager = new ProjectFileManager(config);
+        Path file = tempDir.resolve("App.vue");
+        fsyncManager.write(file, "<template />");
+        assertEquals("<template />", Files.readString(file));
+
+        assertTrue(fsyncManager.delete(file));
+        assertFalse(Files.exists(file));
+        assertFalse(fsyncManager.delete(file));
+    }
+}
@@ -0,0 +1,88 @@
+package com.jay.aicodemother.manager;
+
+import com.jay.aicodemother.ai.tools.ProjectSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProjectSearchIndexManagerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path root;
+
+    private final ProjectSearchIndexManager manager = new ProjectSearchIndexManager();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        root = tempDir.resolve("vue_project_1");
+        write("src/App.vue", "<template>\n  <NavBar />\n</template>\n<script setup>\nimport NavBar from './components/NavBar.vue'\n</script>\n");
+        write("src/components/NavBar.vue", "<template>\n  <nav class=\"nav-bar\">首页</nav>\n</template>\n");
+        write("src/router/index.js", "import Home from '../views/Home.vue'\nexport default createRouter({ routes })\n");
+        write("node_modules/vue/index.js", "export const NavBar = 1\n");
+        write("public/logo.png", "NavBar");
+    }
+
+    private Path write(String relativePath, String content) throws IOException {
+        Path file = root.resolve(relativePath);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+        return file;
+    }
+
+    private List<String> search(String query) {
+        return manager.search(root, query, 50).matches().stream()
+                .map(match -> match.relativePath() + ":" + match.lineNumber() + ": " + match.line())
+                .toList();
+    }
+
+    @Test
+    void findsMatchingLinesIgnoringCase() {
+        assertEquals(List.of(
+                "src/App.vue:2: <NavBar />",
+                "src/App.vue:5: import NavBar from './components/NavBar.vue'"), search("navbar"));
+        assertEquals(List.of("src/components/NavBar.vue:2: <nav class=\"nav-bar\">首页</nav>"), search("首页"));
+        assertEquals(List.of(), search("createApp"));
+        assertNull(manager.search(tempDir.resolve("vue_project_2"), "NavBar", 50));
+
+        ProjectSearchIndex.SearchResult limited = manager.search(root, "nav", 1);
+        assertEquals(1, limited.matches().size());
+        assertEquals(3, limited.totalMatches());
+        assertEquals(2, limited.fileCount());
+    }
+
+    @Test
+    void toolsKeepTheIndexUpToDate() throws IOException {
+        search("NavBar");
+
+        Path footer = write("src/components/SiteFooter.vue", "<footer>版权所有</footer>\n");
+        manager.onFileWritten(footer);
+        Path navBar = root.resolve("src/components/NavBar.vue");
+        Files.delete(navBar);
+        manager.onFileDeleted(navBar);
+
+        assertEquals(List.of("src/components/SiteFooter.vue:1: <footer>版权所有</footer>"), search("版权"));
+        assertEquals(List.of(), search("nav-bar"));
+    }
+
+    @Test
+    void reindexesFilesChangedOutsideTheTools() throws IOException {
+        search("NavBar");
+
+        Path router = root.resolve("src/router/index.js");
+        Files.writeString(router, "import About from '../views/About.vue'\n");
+        Files.setLastModifiedTime(router, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+
+        assertEquals(List.of("src/router/index.js:1: import About from '../views/About.vue'"), search("About"));
+        assertEquals(List.of(), search("Home.vue"));
+    }
+}
@@ -0,0 +1,44 @@
+package com.jay.aicodemother.monitor;
+
+import com.jay.aicodemother.model.enums.CodeGenTypeEnum;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CodeGenMetricsTest {
+
+    @Test
+    void recordsFirstTokenGapsAndOutcome() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        CodeGenMetrics metrics = new CodeGenMetrics(registry);
+
+        metrics.instrumentGeneration(Flux.just("a", "tool", "b", "c"), item -> !"tool".equals(item),
+                CodeGenTypeEnum.HTML, "test-model").blockLast(Duration.ofSeconds(5));
+
+        Timer ttft = registry.get("ai.codegen.ttft").tag("codeGenType", "html").tag("model", "test-model").timer();
+        Timer interToken = registry.get("ai.codegen.inter.token").timer();
+        Timer generation = registry.get("ai.codegen.generation").tag("outcome", CodeGenMetrics.OUTCOME_SUCCESS).timer();
+        assertEquals(1, ttft.count());
+        // 非 token 元素不计入间隔
+        assertEquals(2, interToken.count());
+        assertEquals(1, generation.count());
+    }
+
+    @Test
+    void recordsErrorOutcome() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        CodeGenMetrics metrics = new CodeGenMetrics(registry);
+
+        Flux<String> failing = metrics.instrumentGeneration(Flux.error(new IllegalStateException("boom")),
+                item -> true, CodeGenTypeEnum.MULTI_FILE, "test-model");
+        assertThrows(IllegalStateException.class, () -> failing.blockLast(Duration.ofSeconds(5)));
+
+        assertEquals(1, registry.get("ai.codegen.generation").tag("outcome", CodeGenMetrics.OUTCOME_ERROR).timer().count());
+        assertEquals(0, registry.get("ai.codegen.ttft").timer().count());
+    }
+}
@@ -0,0 +1,104 @@
+package com.jay.aicodemother.parser;
+
+import com.jay.aicodemother.model.enums.CodeGenTypeEnum;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingCodeParserTest {
+
+    /**
+     * 记录解析事件的监听器
+     */
+    private static class RecordingListener implements StreamingCodeParser.CodeBlockListener {
+        private final Map<String, StringBuilder> files = new LinkedHashMap<>();
+        private final List<String> finished = new ArrayList<>();
+
+        @Override
+        public void onFileStart(String fileName) {
+            files.put(fileName, new StringBuilder());
+        }
+
+        @Override
+        public void onFileContent(String fileName, String content) {
+            files.get(fileName).append(content);
+        }
+
+        @Override
+        public void onFileEnd(String fileName) {
+            finished.add(fileName);
+        }
+    }
+
+    @Test
+    void parseMultiFileCodeChunkByChunk() {
+        String codeContent = """
+                这是一个简单的打卡页面。
+
+                ## index.html
+                ```html
+                <!DOCTYPE html>
+                <html><body><h1>打卡</h1></body></html>
+                ```
+
+                ## style.css
+                ```css
+                body { margin: 0; }
+                ```
+
+                ## script.js
+                ```javascript
+                console.log('```');
+                ```
+                """;
+        RecordingListener listener = new RecordingListener();
+        StreamingCodeParser parser = new StreamingCodeParser(CodeGenTypeEnum.MULTI_FILE, listener);
+        // 模拟模型每次只输出 3 个字符
+        for (int i = 0; i < codeContent.length(); i += 3) {
+            parser.feed(codeContent.substring(i, Math.min(codeContent.length(), i + 3)));
+        }
+        parser.finish();
+
+        assertEquals(List.of("index.html", "style.css", "script.js"), listener.finished);
+        assertEquals("<!DOCTYPE html>\n<html><body><h1>打卡</h1></body></html>\n", listener.files.get("index.html").toString());
+        assertEquals("body { margin: 0; }\n", listener.files.get("style.css").toString());
+        assertEquals("console.log('```');\n", listener.files.get("script.js").toString());
+    }
+
+    @Test
+    void fileEndsAsSoonAsFenceCloses() {
+        RecordingListener listener = new RecordingListener();
+        StreamingCodeParser parser = new StreamingCodeParser(CodeGenTypeEnum.MULTI_FILE, listener);
+        parser.feed("## index.html\n```html\n<html></html>\n```\n## style.css\n```css\nbody{}");
+        assertEquals(List.of("index.html"), listener.finished);
+        parser.finish();
+        assertEquals(List.of("index.html", "style.css"), listener.finished);
+    }
+
+    @Test
+    void parseBareHtmlWithoutFence() {
+        RecordingListener listener = new RecordingListener();
+        StreamingCodeParser parser = new StreamingCodeParser(CodeGenTypeEnum.HTML, listener);
+        parser.feed("随便写一段描述：\n<!DOCTYPE html>\n<html>\n<body></body>\n</html>\n随便写一段描述\n");
+        parser.finish();
+
+        assertEquals(List.of("index.html"), listener.finished);
+        assertEquals("<!DOCTYPE html>\n<html>\n<body></body>\n</html>\n", listener.files.get("index.html").toString());
+    }
+
+    @Test
+    void ignoreUnsupportedFiles() {
+        RecordingListener listener = new RecordingListener();
+        StreamingCodeParser parser = new StreamingCodeParser(CodeGenTypeEnum.HTML, listener);
+        parser.feed("## style.css\n```css\nbody{}\n```\n```python\nprint(1)\n```\n");
+        parser.finish();
+
+        assertTrue(listener.files.isEmpty());
+        assertEquals(0, parser.getCompletedFileCount());
+    }
+}
@@ -0,0 +1,64 @@
+package com.jay.aicodemother.save;
+
+import cn.hutool.core.io.FileUtil;
+import com.jay.aicodemother.ai.model.message.AIResponseMessage;
+import com.jay.aicodemother.ai.model.message.CodeSavedMessage;
+import com.jay.aicodemother.ai.model.message.StreamMessage;
+import com.jay.aicodemother.config.CodeSaveConfig;
+import com.jay.aicodemother.constant.AppConstant;
+import com.jay.aicodemother.model.enums.CodeGenTypeEnum;
+import com.jay.aicodemother.monitor.CodeGenMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CodeSaveStageTest {
+
+    private static final long APP_ID = 990_010L;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final CodeSaveStage stage = new CodeSaveStage(new CodeSaveConfig(), new CodeGenMetrics(registry), registry);
+
+    @AfterEach
+    void cleanUp() {
+        stage.destroy();
+        FileUtil.del(new File(AppConstant.CODE_OUTPUT_ROOT_DIR, "multi_file_" + APP_ID));
+    }
+
+    @Test
+    void passesTextThroughAndEndsWithSavedMessage() {
+        Flux<String> codeStream = Flux.just("## index.html\n```html\n<h1>hi</h1>\n", "```\n", "## style.css\n```css\nbody{}\n```\n");
+
+        List<StreamMessage> messages = stage.process(codeStream, CodeGenTypeEnum.MULTI_FILE, APP_ID)
+                .collectList().block(Duration.ofSeconds(5));
+
+        assertNotNull(messages);
+        assertEquals(4, messages.size());
+        assertInstanceOf(AIResponseMessage.class, messages.get(0));
+        CodeSavedMessage saved = assertInstanceOf(CodeSavedMessage.class, messages.get(3));
+        assertTrue(saved.isSuccess());
+        assertEquals(List.of("index.html", "style.css"), saved.getFiles());
+        assertTrue(new File(AppConstant.CODE_OUTPUT_ROOT_DIR, "multi_file_" + APP_ID + "/style.css").exists());
+        assertEquals(0, registry.get("ai.codegen.save.pending").gauge().value());
+        assertEquals(1, registry.get("ai.codegen.code.save").tag("outcome", CodeGenMetrics.OUTCOME_SUCCESS).timer().count());
+    }
+
+    @Test
+    void reportsFailureWhenNothingWasSaved() {
+        List<StreamMessage> messages = stage.process(Flux.just("没有代码块"), CodeGenTypeEnum.MULTI_FILE, APP_ID)
+                .collectList().block(Duration.ofSeconds(5));
+
+        assertNotNull(messages);
+        CodeSavedMessage saved = assertInstanceOf(CodeSavedMessage.class, messages.get(messages.size() - 1));
+        assertFalse(saved.isSuccess());
+        assertTrue(saved.getFiles().isEmpty());
+    }
+}
@@ -0,0 +1,102 @@
+package com.jay.aicodemother.service.impl;
+
+import com.jay.aicodemother.config.ChatHistoryWriteBehindConfig;
+import com.jay.aicodemother.manager.ChatHistoryWriteBehindManager;
+import com.jay.aicodemother.manager.ChatMemoryWatermarkManager;
+import com.jay.aicodemother.model.entity.ChatHistory;
+import com.jay.aicodemother.monitor.CodeGenMetrics;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class ChatHistoryServiceImplTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final ChatMemoryWatermarkManager watermarkManager = mock(ChatMemoryWatermarkManager.class);
+
+    private ChatHistoryServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = spy(new ChatHistoryServiceImpl());
+        ReflectionTestUtils.setField(service, "chatMemoryWatermarkManager", watermarkManager);
+        ReflectionTestUtils.setField(service, "codeGenMetrics", new CodeGenMetrics(registry));
+    }
+
+    private static MessageWindowChatMemory memoryWith(String... messages) {
+        MessageWindowChatMemory memory = MessageWindowChatMemory.builder().id(1L).maxMessages(20).build();
+        for (String message : messages) {
+            memory.add(UserMessage.from(message));
+        }
+        return memory;
+    }
+
+    @Test
+    void enqueuedMessageFillsEveryNotNullColumn() {
+        ChatHistoryWriteBehindManager writeBehindManager = mock(ChatHistoryWriteBehindManager.class);
+        ReflectionTestUtils.setField(service, "writeBehindConfig", new ChatHistoryWriteBehindConfig());
+        ReflectionTestUtils.setField(service, "writeBehindManager", writeBehindManager);
+
+        service.addChatMessage(1L, "做一个博客", "user", 2L);
+
+        // insertBatch / insert 不忽略 null 字段，chat_history 的非空列都要有值
+        ArgumentCaptor<ChatHistory> captor = ArgumentCaptor.forClass(ChatHistory.class);
+        verify(writeBehindManager).enqueue(captor.capture());
+        ChatHistory chatHistory = captor.getValue();
+        assertNotNull(chatHistory.getId());
+        assertNotNull(chatHistory.getMessage());
+        assertNotNull(chatHistory.getMessageType());
+        assertNotNull(chatHistory.getAppId());
+        assertNotNull(chatHistory.getUserId());
+        assertNotNull(chatHistory.getCreateTime());
+        assertNotNull(chatHistory.getUpdateTime());
+        assertEquals(0, chatHistory.getIsDelete());
+    }
+
+    @Test
+    void reusesRedisMemoryWithoutQueryingDatabase() {
+        MessageWindowChatMemory memory = memoryWith("a", "b");
+        when(watermarkManager.isHistoryNewer(1L)).thenReturn(false);
+
+        int count = service.hydrateChatMemory(1L, memory, 20);
+
+        assertEquals(2, count);
+        assertEquals(2, memory.messages().size());
+        verify(service, never()).listRecentHistory(anyLong(), anyInt());
+        assertEquals(1, registry.get("ai.codegen.memory.hydration").tag("source", "redis").timer().count());
+    }
+
+    private static ChatHistory history(long id, String messageType, String message) {
+        return ChatHistory.builder().id(id).appId(1L).messageType(messageType).message(message).build();
+    }
+
+    @Test
+    void loadsFromDatabaseWhenHistoryIsNewerOrMemoryIsEmpty() {
+        doAnswer(invocation -> new ArrayList<>(List.of(history(10L, "user", "a"), history(11L, "ai", "b"), history(12L, "user", "c"))))
+                .when(service).listRecentHistory(anyLong(), anyInt());
+        when(watermarkManager.isHistoryNewer(1L)).thenReturn(true);
+
+        assertEquals(3, service.hydrateChatMemory(1L, memoryWith("a"), 20));
+        assertEquals(3, service.hydrateChatMemory(1L, memoryWith(), 20));
+
+        verify(service, times(2)).listRecentHistory(1L, 20);
+        // 水位前移到实际加载到的最新一条，仍在写入队列中的消息下次继续加载
+        verify(watermarkManager, times(2)).markMemoryLoaded(1L, 12L);
+        assertEquals(2, registry.get("ai.codegen.memory.hydration").tag("source", "mysql").timer().count());
+    }
+}
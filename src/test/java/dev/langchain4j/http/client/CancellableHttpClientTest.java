@@ -0,0 +1,157 @@
+package dev.langchain4j.http.client;
+
+import dev.langchain4j.http.client.sse.DefaultServerSentEventParser;
+import dev.langchain4j.http.client.sse.ServerSentEvent;
+import dev.langchain4j.http.client.sse.ServerSentEventListener;
+import dev.langchain4j.http.client.sse.ServerSentEventParser;
+import dev.langchain4j.model.chat.response.StreamingHandle;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CancellableHttpClientTest {
+
+    /**
+     * 模拟异步读取响应体的 HTTP 客户端
+     */
+    private static class StreamingHttpClient implements HttpClient {
+        private final InputStream body;
+        private final CountDownLatch parsed = new CountDownLatch(1);
+
+        StreamingHttpClient(InputStream body) {
+            this.body = body;
+        }
+
+        @Override
+        public SuccessfulHttpResponse execute(HttpRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void execute(HttpRequest request, ServerSentEventParser parser, ServerSentEventListener listener) {
+            new Thread(() -> {
+                try {
+                    parser.parse(body, listener);
+                    listener.onClose();
+                } catch (Exception e) {
+                    listener.onError(e);
+                } finally {
+                    parsed.countDown();
+                }
+            }).start();
+        }
+    }
+
+    /**
+     * 模拟网络响应体：读取时阻塞等待数据，close 后读取立即失败（与 socket 行为一致）
+     */
+    private static class BlockingInputStream extends InputStream {
+        private static final int CLOSED = -2;
+        private final LinkedBlockingQueue<Integer> bytes = new LinkedBlockingQueue<>();
+
+        void send(String data) {
+            for (byte b : data.getBytes(StandardCharsets.UTF_8)) {
+                bytes.add(b & 0xFF);
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            try {
+                int b = bytes.take();
+                if (b == CLOSED) {
+                    throw new IOException("Stream closed");
+                }
+                return b;
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public int read(byte[] buffer, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            buffer[off] = (byte) read();
+            int count = 1;
+            Integer next;
+            while (count < len && (next = bytes.peek()) != null && next != CLOSED) {
+                buffer[off + count++] = (byte) (int) bytes.poll();
+            }
+            return count;
+        }
+
+        @Override
+        public void close() {
+            bytes.add(CLOSED);
+        }
+    }
+
+    private static class RecordingListener implements ServerSentEventListener {
+        private final List<String> events = new CopyOnWriteArrayList<>();
+        private final List<Throwable> errors = new CopyOnWriteArrayList<>();
+        private final CountDownLatch firstEvent = new CountDownLatch(1);
+        private volatile boolean closed;
+
+        @Override
+        public void onEvent(ServerSentEvent event) {
+            events.add(event.data());
+            firstEvent.countDown();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            errors.add(throwable);
+        }
+
+        @Override
+        public void onClose() {
+            closed = true;
+        }
+    }
+
+    @Test
+    void cancelClosesResponseBodyAndSilencesListener() throws InterruptedException {
+        BlockingInputStream body = new BlockingInputStream();
+        StreamingHttpClient delegate = new StreamingHttpClient(body);
+        CancellableHttpClient client = new CancellableHttpClient(delegate);
+        RecordingListener listener = new RecordingListener();
+        StreamingHandle handle = new StreamingHandle();
+
+        handle.runBound(() -> client.execute(HttpRequest.builder().method(HttpMethod.POST).url("http://localhost").build(),
+                new DefaultServerSentEventParser(), listener));
+        body.send("data: a\n\n");
+        assertTrue(listener.firstEvent.await(5, TimeUnit.SECONDS));
+
+        handle.cancel();
+        body.send("data: b\n\n");
+        // 取消会关闭响应体使读取线程结束，之后不再有任何回调
+        assertTrue(delegate.parsed.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("a"), listener.events);
+        assertTrue(listener.errors.isEmpty());
+        assertFalse(listener.closed);
+    }
+
+    @Test
+    void cancelledHandleDoesNotSendRequest() {
+        StreamingHttpClient delegate = new StreamingHttpClient(InputStream.nullInputStream());
+        CancellableHttpClient client = new CancellableHttpClient(delegate);
+        StreamingHandle handle = new StreamingHandle();
+        handle.cancel();
+
+        handle.runBound(() -> client.execute(HttpRequest.builder().method(HttpMethod.POST).url("http://localhost").build(),
+                new DefaultServerSentEventParser(), new RecordingListener()));
+
+        assertEquals(1, delegate.parsed.getCount());
+    }
+}
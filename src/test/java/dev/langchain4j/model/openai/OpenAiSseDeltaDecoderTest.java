@@ -0,0 +1,140 @@
+package dev.langchain4j.model.openai;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.langchain4j.http.client.sse.ServerSentEvent;
+import dev.langchain4j.http.client.sse.ServerSentEventListener;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.openai.internal.chat.ChatCompletionResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpenAiSseDeltaDecoderTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    static byte[] recordedStream(String name) throws IOException {
+        try (InputStream in = OpenAiSseDeltaDecoderTest.class.getResourceAsStream("/openai-stream/" + name + ".sse")) {
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * 原路径：逐行读取 data 行 + 反序列化为 ChatCompletionResponse
+     * （DefaultServerSentEventParser 按平台默认字符集解码，这里显式使用 UTF-8）
+     */
+    static ChatResponse decodeLineByLine(byte[] stream) throws IOException {
+        OpenAiStreamingResponseBuilder builder = new OpenAiStreamingResponseBuilder();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(stream), StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.startsWith("data:") && !line.endsWith("[DONE]")) {
+                builder.append(OpenAiStreamDelta.from(
+                        OBJECT_MAPPER.readValue(line.substring("data:".length()).trim(), ChatCompletionResponse.class)));
+            }
+        }
+        return builder.build();
+    }
+
+    static ChatResponse decode(InputStream stream, RecordingListener listener, List<String> contents) {
+        OpenAiStreamingResponseBuilder builder = new OpenAiStreamingResponseBuilder();
+        new OpenAiSseDeltaDecoder(delta -> {
+            builder.append(delta);
+            if (delta.content() != null) {
+                contents.add(delta.content());
+            }
+        }).parse(stream, listener);
+        return builder.build();
+    }
+
+    @Test
+    void decodesRecordedStreamsLikeTheLineByLinePath() throws IOException {
+        for (String name : List.of("text", "tool")) {
+            byte[] stream = recordedStream(name);
+            RecordingListener listener = new RecordingListener();
+
+            ChatResponse response = decode(new ByteArrayInputStream(stream), listener, new ArrayList<>());
+
+            assertTrue(listener.errors.isEmpty());
+            assertEquals(decodeLineByLine(stream), response, name);
+        }
+        ChatResponse tool = decode(new ByteArrayInputStream(recordedStream("tool")), new RecordingListener(), new ArrayList<>());
+        assertEquals(3, tool.aiMessage().toolExecutionRequests().size());
+        assertEquals("writeFile", tool.aiMessage().toolExecutionRequests().get(2).name());
+        assertEquals(1408, ((OpenAiTokenUsage) tool.metadata().tokenUsage()).inputTokensDetails().cachedTokens());
+    }
+
+    @Test
+    void framesSplitAcrossReadsAndLineEndings() {
+        String body = ": keep-alive\r\n"
+                + "data: {\"id\":\"a\",\"choices\":[{\"delta\":{\"content\":\"番茄\"}}]}\r\n\r\n"
+                + "data: {\"id\":\"a\",\"choices\":[{\"delta\":\r\n"
+                + "data: {\"content\":\"钟\\n\"}}]}\r\r"
+                + "data: {\"id\":\"a\",\"choices\":[{\"delta\":{\"content\":\"" + "x".repeat(20000) + "\"}}]}\n\n"
+                + "data: [DONE]";
+        RecordingListener listener = new RecordingListener();
+        List<String> contents = new ArrayList<>();
+
+        // 每次只读 1 个字节，覆盖帧、行结束符和多字节字符被拆开的情况
+        ChatResponse response = decode(new OneByteInputStream(body.getBytes(StandardCharsets.UTF_8)), listener, contents);
+
+        assertTrue(listener.errors.isEmpty());
+        assertEquals(List.of("番茄", "钟\n", "x".repeat(20000)), contents);
+        assertEquals("a", response.metadata().id());
+    }
+
+    @Test
+    void reportsErrorEventsAndUndecodableFrames() {
+        String body = "data: {\"choices\":[{\"delta\":{\"content\":\"a\"}}]}\n\n"
+                + "data: {not json\n\n"
+                + "data: {\"choices\":[{\"delta\":{\"content\":\"truncated\"\n\n"
+                + "event: error\ndata: {\"error\":\"overloaded\"}\n\n"
+                + "data: {\"choices\":[{\"delta\":{\"content\":\"b\"}}]}\n\n";
+        RecordingListener listener = new RecordingListener();
+        List<String> contents = new ArrayList<>();
+
+        decode(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), listener, contents);
+
+        assertEquals(List.of("a", "b"), contents);
+        assertEquals(3, listener.errors.size());
+        assertEquals("{\"error\":\"overloaded\"}", listener.errors.get(2).getMessage());
+    }
+
+    static class RecordingListener implements ServerSentEventListener {
+        final List<Throwable> errors = new ArrayList<>();
+
+        @Override
+        public void onEvent(ServerSentEvent event) {
+            fail("chunks should go to the delta handler");
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            errors.add(throwable);
+        }
+    }
+
+    static class OneByteInputStream extends FilterInputStream {
+
+        OneByteInputStream(byte[] bytes) {
+            super(new ByteArrayInputStream(bytes));
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return super.read(b, off, Math.min(len, 1));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package dev.langchain4j.model.openai;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.openai.internal.chat.ChatCompletionChoice;
+import dev.langchain4j.model.openai.internal.chat.ChatCompletionResponse;
+import dev.langchain4j.model.openai.internal.chat.Delta;
+import dev.langchain4j.model.openai.internal.chat.FunctionCall;
+import dev.langchain4j.model.openai.internal.chat.ToolCall;
+import dev.langchain4j.model.output.FinishReason;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpenAiStreamingResponseBuilderTest {
+
+    static OpenAiStreamDelta delta(Delta delta, String finishReason) {
+        return OpenAiStreamDelta.from(ChatCompletionResponse.builder()
+                .id("chatcmpl-1")
+                .model("test-model")
+                .choices(List.of(ChatCompletionChoice.builder().delta(delta).finishReason(finishReason).build()))
+                .build());
+    }
+
+    static OpenAiStreamDelta toolDelta(int index, String id, String name, String arguments) {
+        ToolCall toolCall = ToolCall.builder()
+                .index(index)
+                .id(id)
+                .function(FunctionCall.builder().name(name).arguments(arguments).build())
+                .build();
+        return delta(Delta.builder().toolCalls(List.of(toolCall)).build(), null);
+    }
+
+    @Test
+    void accumulatesTextAcrossThreads() throws Exception {
+        OpenAiStreamingResponseBuilder builder = new OpenAiStreamingResponseBuilder();
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            // 同一个流的增量按顺序到达，但可能在不同线程上
+            for (String token : List.of("Hel", "lo", " world")) {
+                executor.submit(() -> builder.append(delta(Delta.builder().content(token).build(), null))).get();
+            }
+            executor.submit(() -> builder.append(delta(Delta.builder().build(), "stop"))).get();
+        } finally {
+            executor.shutdown();
+        }
+
+        ChatResponse response = builder.build();
+
+        assertEquals("Hello world", response.aiMessage().text());
+        assertEquals("chatcmpl-1", response.metadata().id());
+        assertEquals(FinishReason.STOP, response.metadata().finishReason());
+    }
+
+    @Test
+    void assemblesToolCallsInIndexOrder() {
+        OpenAiStreamingResponseBuilder builder = new OpenAiStreamingResponseBuilder();
+        builder.append(toolDelta(1, "call_b", "readFile", "{\"relativeFilePath\":"));
+        builder.append(toolDelta(1, null, null, "\"b.js\"}"));
+        builder.append(toolDelta(0, "call_a", "writeFile", "{}"));
+
+        List<ToolExecutionRequest> requests = builder.build().aiMessage().toolExecutionRequests();
+
+        assertEquals(2, requests.size());
+        assertEquals("call_a", requests.get(0).id());
+        assertEquals("readFile", requests.get(1).name());
+        assertEquals("{\"relativeFilePath\":\"b.js\"}", requests.get(1).arguments());
+    }
+
+    @Test
+    void buildsNothingWithoutDeltas() {
+        assertNull(new OpenAiStreamingResponseBuilder().build());
+    }
+}
@@ -0,0 +1,159 @@
+package dev.langchain4j.service.tool;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ToolExecutionSchedulerTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    /**
+     * 冲突键为 arguments，arguments 为空时与所有调用冲突
+     */
+    private final ToolExecutionScheduler scheduler = new ToolExecutionScheduler(executor,
+            request -> request.arguments().isEmpty() ? null : request.arguments());
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static ToolExecutionRequest request(String id, String key) {
+        return ToolExecutionRequest.builder().id(id).name("tool").arguments(key).build();
+    }
+
+    private static List<String> join(List<CompletableFuture<String>> results) {
+        List<String> values = new ArrayList<>();
+        results.forEach(result -> values.add(result.orTimeout(5, TimeUnit.SECONDS).join()));
+        return values;
+    }
+
+    @Test
+    void runsCallsWithDifferentKeysConcurrently() {
+        CountDownLatch allStarted = new CountDownLatch(4);
+        List<ToolExecutionRequest> requests = List.of(
+                request("1", "a.vue"), request("2", "b.vue"), request("3", "c.vue"), request("4", "d.vue"));
+
+        // 每个调用都要等 4 个调用全部开始后才能结束，顺序执行会超时
+        List<String> results = join(scheduler.submit(requests, request -> {
+            allStarted.countDown();
+            try {
+                assertTrue(allStarted.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return "done " + request.id();
+        }));
+
+        assertEquals(List.of("done 1", "done 2", "done 3", "done 4"), results);
+    }
+
+    @Test
+    void keepsCallsOnTheSameKeyInOrder() {
+        List<String> events = new CopyOnWriteArrayList<>();
+        List<ToolExecutionRequest> requests = List.of(
+                request("1", "App.vue"), request("2", "main.js"), request("3", "App.vue"), request("4", "App.vue"));
+
+        List<String> results = join(scheduler.submit(requests, request -> {
+            events.add("start " + request.id());
+            if (request.id().equals("1")) {
+                sleep(100);
+            }
+            events.add("end " + request.id());
+            return request.id();
+        }));
+
+        assertEquals(List.of("1", "2", "3", "4"), results);
+        assertTrue(events.indexOf("end 1") < events.indexOf("start 3"));
+        assertTrue(events.indexOf("end 3") < events.indexOf("start 4"));
+        // main.js 不需要等待 App.vue
+        assertTrue(events.indexOf("end 2") < events.indexOf("end 1"));
+    }
+
+    @Test
+    void callsWithoutKeyWaitForEverythingBeforeThem() {
+        List<String> events = new CopyOnWriteArrayList<>();
+        List<ToolExecutionRequest> requests = List.of(
+                request("1", "a.vue"), request("2", "b.vue"), request("3", ""), request("4", "a.vue"));
+
+        join(scheduler.submit(requests, request -> {
+            events.add("start " + request.id());
+            if (!request.id().equals("4")) {
+                sleep(50);
+            }
+            events.add("end " + request.id());
+            return request.id();
+        }));
+
+        assertTrue(events.indexOf("end 1") < events.indexOf("start 3"));
+        assertTrue(events.indexOf("end 2") < events.indexOf("start 3"));
+        assertTrue(events.indexOf("end 3") < events.indexOf("start 4"));
+    }
+
+    @Test
+    void failedCallStopsCallsNotYetStarted() {
+        List<String> started = new CopyOnWriteArrayList<>();
+        List<ToolExecutionRequest> requests = List.of(request("1", "a.vue"), request("2", "a.vue"), request("3", ""));
+
+        List<CompletableFuture<String>> results = scheduler.submit(requests, request -> {
+            started.add(request.id());
+            if (request.id().equals("1")) {
+                throw new IllegalStateException("boom");
+            }
+            return request.id();
+        });
+
+        for (CompletableFuture<String> result : results) {
+            Exception e = assertThrows(Exception.class, () -> result.orTimeout(5, TimeUnit.SECONDS).join());
+            assertEquals("boom", e.getCause().getMessage());
+        }
+        assertEquals(List.of("1"), started);
+    }
+
+    @Test
+    void failedCallStopsLaterCallsWithoutExecutor() {
+        List<String> started = new ArrayList<>();
+        List<ToolExecutionRequest> requests = List.of(request("1", "a.vue"), request("2", "b.vue"));
+
+        List<CompletableFuture<String>> results = new ToolExecutionScheduler(null, request -> null).submit(requests, request -> {
+            started.add(request.id());
+            throw new IllegalStateException("boom");
+        });
+
+        assertTrue(results.get(1).isCompletedExceptionally());
+        assertEquals(List.of("1"), started);
+    }
+
+    @Test
+    void runsSequentiallyOnTheCallingThreadWithoutExecutor() {
+        Thread caller = Thread.currentThread();
+        List<ToolExecutionRequest> requests = List.of(request("1", "a.vue"), request("2", "b.vue"));
+
+        List<String> results = join(new ToolExecutionScheduler(null, request -> null).submit(requests, request -> {
+            assertSame(caller, Thread.currentThread());
+            return request.id();
+        }));
+
+        assertEquals(List.of("1", "2"), results);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}